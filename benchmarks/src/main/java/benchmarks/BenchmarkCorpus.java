@@ -0,0 +1,205 @@
+package main.java.benchmarks;
+
+import main.java.controllers.utils.ImageUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Provides the fixed image corpus used by the end-to-end benchmark runner. The corpus is either synthesized from
+ * fixed seeds (gradients, noise, photo-like scenes and large-resolution stress cases), or loaded from a directory.
+ */
+public class BenchmarkCorpus {
+    /**
+     * Represents a named image of the corpus.
+     */
+    public static class CorpusImage {
+        private final String name; // The name of the image, used in the reports
+        private final BufferedImage image; // The image itself
+
+        /**
+         * Constructs a CorpusImage with the specified name and image.
+         *
+         * @param name  the name of the image
+         * @param image the image
+         */
+        public CorpusImage(String name, BufferedImage image) {
+            this.name = name;
+            this.image = image;
+        }
+
+        /**
+         * Returns the name of the image.
+         *
+         * @return the name of the image
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the image.
+         *
+         * @return the image
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+    }
+
+    /**
+     * Synthesizes the default corpus. The same corpus is produced on every call.
+     *
+     * @param includeStressCases whether to include the large-resolution stress cases
+     * @return the images of the corpus
+     */
+    public static List<CorpusImage> synthesize(boolean includeStressCases) {
+        List<CorpusImage> corpus = new ArrayList<>();
+        corpus.add(new CorpusImage("gradient-512", gradient(512, 512)));
+        corpus.add(new CorpusImage("noise-512", noise(512, 512, 1L)));
+        corpus.add(new CorpusImage("photo-1024-seed1", photo(1024, 768, 1L)));
+        corpus.add(new CorpusImage("photo-1024-seed2", photo(1024, 768, 2L)));
+        corpus.add(new CorpusImage("photo-noise-1024", BenchmarkData.syntheticImage(1024, 1024, BenchmarkData.SEED)));
+        if (includeStressCases) {
+            corpus.add(new CorpusImage("stress-photo-4096", photo(4096, 4096, 3L)));
+            corpus.add(new CorpusImage("stress-noise-4096", noise(4096, 4096, 4L)));
+        }
+        return corpus;
+    }
+
+    /**
+     * Loads every PNG and JPEG image in a directory, in alphabetical order. Transparent images get a white
+     * background, the same way as in the application.
+     *
+     * @param directory the directory to load the images from
+     * @return the images of the corpus
+     * @throws IOException if the directory cannot be listed or an image cannot be read
+     */
+    public static List<CorpusImage> load(File directory) throws IOException {
+        File[] files = directory.listFiles(file -> ImageUtils.getImageFormat(file) != null);
+        if (files == null) {
+            throw new IOException("Cannot list the corpus directory " + directory);
+        }
+        Arrays.sort(files);
+
+        List<CorpusImage> corpus = new ArrayList<>();
+        for (File file : files) {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                throw new IOException("Cannot read the corpus image " + file);
+            }
+            if (image.getColorModel().hasAlpha()) {
+                image = ImageUtils.convertTransparentToColor(image, Color.WHITE);
+            }
+            corpus.add(new CorpusImage(file.getName(), image));
+        }
+        return corpus;
+    }
+
+    /**
+     * Creates an image with smooth horizontal and vertical gradients and no noise (few unique colors per row).
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return a new RGB image
+     */
+    public static BufferedImage gradient(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = 255 * x / Math.max(1, width - 1);
+                int green = 255 * y / Math.max(1, height - 1);
+                int blue = 255 - (red + green) / 2;
+                image.setRGB(x, y, (red << 16) | (green << 8) | blue);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Creates an image of uniform random noise (almost every pixel has a unique color).
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param seed   the random seed
+     * @return a new RGB image
+     */
+    public static BufferedImage noise(int width, int height, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Creates a photo-like image: a sky-to-ground background with randomly placed, softly shaded colored objects
+     * and mild sensor noise.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param seed   the random seed
+     * @return a new RGB image
+     */
+    public static BufferedImage photo(int width, int height, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int objects = 12;
+        double[][] centers = new double[objects][2];
+        double[] radii = new double[objects];
+        int[][] objectColors = new int[objects][3];
+        for (int i = 0; i < objects; i++) {
+            centers[i][0] = random.nextDouble() * width;
+            centers[i][1] = random.nextDouble() * height;
+            radii[i] = (0.05 + random.nextDouble() * 0.2) * Math.min(width, height);
+            for (int c = 0; c < 3; c++) {
+                objectColors[i][c] = random.nextInt(256);
+            }
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            double v = (double) y / height;
+            for (int x = 0; x < width; x++) {
+                // Sky at the top, ground at the bottom
+                double red = 90 + 80 * v;
+                double green = 150 - 30 * v;
+                double blue = 230 - 170 * v;
+                for (int i = 0; i < objects; i++) {
+                    double dx = x - centers[i][0];
+                    double dy = y - centers[i][1];
+                    double distance = Math.sqrt(dx * dx + dy * dy) / radii[i];
+                    if (distance < 1) {
+                        // Shade the object from its center to its edge
+                        double shade = 1.0 - 0.5 * distance;
+                        red = objectColors[i][0] * shade;
+                        green = objectColors[i][1] * shade;
+                        blue = objectColors[i][2] * shade;
+                    }
+                }
+                int noise = random.nextInt(-4, 5);
+                image.setRGB(x, y, (clamp(red + noise) << 16) | (clamp(green + noise) << 8) | clamp(blue + noise));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Rounds and clamps a value to the range of an 8-bit channel.
+     *
+     * @param value the value to clamp
+     * @return the clamped value
+     */
+    private static int clamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+}
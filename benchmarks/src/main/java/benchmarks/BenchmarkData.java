@@ -0,0 +1,67 @@
+package main.java.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+/**
+ * Provides synthetic, deterministic inputs for the benchmarks. The same parameters and seed always produce
+ * the same data, so results are comparable between runs and versions.
+ */
+public class BenchmarkData {
+    /**
+     * The seed used by all benchmarks.
+     */
+    public static final long SEED = 20240501L;
+
+    /**
+     * Creates uniformly distributed random vectors with values between 0 and 1.
+     *
+     * @param size      the number of vectors
+     * @param dimension the dimension of each vector
+     * @param seed      the random seed
+     * @return a 2D array of random vectors
+     */
+    public static double[][] randomData(int size, int dimension, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] data = new double[size][dimension];
+        for (double[] row : data) {
+            for (int i = 0; i < dimension; i++) {
+                row[i] = random.nextDouble();
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Creates a photo-like image: smooth gradients in each channel overlaid with random noise.
+     * Such images have many unique colors, which is the worst case for the color caches.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param seed   the random seed
+     * @return a new RGB image
+     */
+    public static BufferedImage syntheticImage(int width, int height, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = clamp(255 * x / width + random.nextInt(-12, 13));
+                int green = clamp(255 * y / height + random.nextInt(-12, 13));
+                int blue = clamp(255 * (x + y) / (width + height) + random.nextInt(-12, 13));
+                image.setRGB(x, y, (red << 16) | (green << 8) | blue);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Clamps a value to the range of an 8-bit channel.
+     *
+     * @param value the value to clamp
+     * @return the clamped value
+     */
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
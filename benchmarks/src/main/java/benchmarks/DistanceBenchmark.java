@@ -0,0 +1,43 @@
+package main.java.benchmarks;
+
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Distance;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the distance metrics, which are called for every unit and every input during training and remapping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+    private static final int PAIRS = 1024; // The number of vector pairs per benchmark invocation
+
+    @Param({"3", "4", "8"})
+    private int dimension;
+
+    private Distance euclideanDistance;
+    private double[][] a;
+    private double[][] b;
+
+    @Setup
+    public void setUp() {
+        euclideanDistance = new EuclideanDistance();
+        a = BenchmarkData.randomData(PAIRS, dimension, BenchmarkData.SEED);
+        b = BenchmarkData.randomData(PAIRS, dimension, BenchmarkData.SEED + 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void euclideanCompute(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(euclideanDistance.compute(a[i], b[i]));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package main.java.benchmarks;
+
+import main.java.controllers.utils.ColorExtractionResult;
+import main.java.controllers.utils.ColorHistogram;
+import main.java.controllers.utils.ImageUtils;
+import main.java.controllers.utils.QuantizationMetrics;
+import main.java.controllers.utils.RemapResult;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.utils.QualityMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-image stages of the pipeline: unique color counting, color extraction, remapping to a
+ * trained palette and encoding as an 8-bit PNG.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageBenchmark {
+    @Param({"256", "1024", "2048"})
+    private int imageSize;
+
+    @Param({"16", "256"})
+    private int k;
+
+    private BufferedImage image;
+    private ColorSpace colorSpace;
+    private ColorExtractionResult extraction;
+    private MiniBatchKMeans quantizer;
+    private RemapResult remapResult;
+    private ColorHistogram histogram;
+    private File outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        image = BenchmarkData.syntheticImage(imageSize, imageSize, BenchmarkData.SEED);
+        colorSpace = new SRGBColorSpace();
+        extraction = ImageUtils.extractColors(image, colorSpace);
+        quantizer = new MiniBatchKMeans(k, new EuclideanDistance(), new LinearDecay(), BenchmarkData.SEED);
+        extraction.train(quantizer, 100);
+        remapResult = ImageUtils.remapColors(image, extraction, quantizer, colorSpace);
+        histogram = ColorHistogram.of(image, true);
+        outputFile = Files.createTempFile("benchmark", ".png").toFile();
+        outputFile.deleteOnExit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        outputFile.delete();
+    }
+
+    @Benchmark
+    public int countUniqueColorsBitset() {
+        return ColorHistogram.countUniqueColors(image);
+    }
+
+    @Benchmark
+    public int countUniqueColorsHashSet() {
+        Set<Integer> uniqueColors = new HashSet<>();
+        int width = image.getWidth();
+        int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int rgb : row) {
+                uniqueColors.add(rgb & 0xFFFFFF);
+            }
+        }
+        return uniqueColors.size();
+    }
+
+    @Benchmark
+    public ColorHistogram computeColorHistogram() {
+        return ImageUtils.computeColorHistogram(image);
+    }
+
+    @Benchmark
+    public ColorExtractionResult extractColors() {
+        return ImageUtils.extractColors(image, colorSpace);
+    }
+
+    @Benchmark
+    public RemapResult remap() {
+        return ImageUtils.remapColors(image, extraction, quantizer, colorSpace);
+    }
+
+    @Benchmark
+    public QualityMetrics estimateQuality() {
+        return ImageUtils.estimateQuality(histogram, quantizer, colorSpace, 10000, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public RemapResult remapToPalette() {
+        return ImageUtils.remapColorsToPalette(image, histogram, quantizer, colorSpace, new QuantizationMetrics(), rows -> {
+        });
+    }
+
+    @Benchmark
+    public File saveAs8BitPng() throws IOException {
+        ImageUtils.saveAs8BitPng(remapResult.getQuantizedImage(), remapResult.getPixelMap(), outputFile, quantizer, colorSpace);
+        return outputFile;
+    }
+}
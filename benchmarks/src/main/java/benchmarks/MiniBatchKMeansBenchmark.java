@@ -0,0 +1,78 @@
+package main.java.benchmarks;
+
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the closest centroid search and the training of Mini Batch K-means.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MiniBatchKMeansBenchmark {
+    private static final int QUERIES = 1024; // The number of closest centroid searches per benchmark invocation
+    private static final int EPOCHS = 100; // The number of epochs per training run
+
+    @Param({"16", "64", "256"})
+    private int k;
+
+    @Param({"3"})
+    private int dimension;
+
+    @Param({"100000"})
+    private int dataSize;
+
+    @Param({"DOUBLE", "FLOAT"})
+    private Quantizer.Precision precision;
+
+    private double[][] data;
+    private double[][] queries;
+    private double[] flatQueries;
+    private int[] closestIndices;
+    private MiniBatchKMeans trainedModel;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.randomData(dataSize, dimension, BenchmarkData.SEED);
+        queries = BenchmarkData.randomData(QUERIES, dimension, BenchmarkData.SEED + 1);
+        flatQueries = new double[QUERIES * dimension];
+        for (int i = 0; i < QUERIES; i++) {
+            System.arraycopy(queries[i], 0, flatQueries, i * dimension, dimension);
+        }
+        closestIndices = new int[QUERIES];
+        trainedModel = new MiniBatchKMeans(k, new EuclideanDistance(), new LinearDecay(), BenchmarkData.SEED, precision);
+        trainedModel.train(data, EPOCHS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findClosestUnit(Blackhole blackhole) {
+        for (double[] query : queries) {
+            blackhole.consume(trainedModel.findClosestUnit(query));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] findClosestIndices() {
+        trainedModel.findClosestIndices(flatQueries, 0, QUERIES, closestIndices, null);
+        return closestIndices;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MiniBatchKMeans train() {
+        MiniBatchKMeans model = new MiniBatchKMeans(k, new EuclideanDistance(), new LinearDecay(), BenchmarkData.SEED, precision);
+        model.train(data, EPOCHS);
+        return model;
+    }
+}
@@ -0,0 +1,45 @@
+package main.java.benchmarks;
+
+import main.java.controllers.utils.ImageUtils;
+import main.java.controllers.utils.PreviewRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks scaling an image down to the display size: the bilinear Graphics2D resize against the parallel
+ * area-averaging downscale of the preview renderer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreviewBenchmark {
+    private static final int PREVIEW_SIZE = 350;
+
+    @Param({"1024", "4096"})
+    private int imageSize;
+
+    private BufferedImage image;
+    private int[] previewPixels;
+
+    @Setup
+    public void setUp() {
+        image = BenchmarkData.syntheticImage(imageSize, imageSize, BenchmarkData.SEED);
+        previewPixels = new int[PREVIEW_SIZE * PREVIEW_SIZE];
+    }
+
+    @Benchmark
+    public BufferedImage resizeBilinear() {
+        return ImageUtils.resizeImage(image, PREVIEW_SIZE, PREVIEW_SIZE);
+    }
+
+    @Benchmark
+    public int[] downscaleAreaAverage() {
+        PreviewRenderer.downscale(image, previewPixels, PREVIEW_SIZE, PREVIEW_SIZE);
+        return previewPixels;
+    }
+}
@@ -0,0 +1,303 @@
+package main.java.benchmarks;
+
+import main.java.controllers.utils.ColorExtractionResult;
+import main.java.controllers.utils.ImageUtils;
+import main.java.controllers.utils.RemapResult;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.som.SOM;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongFunction;
+
+/**
+ * Runs every image of a fixed corpus through the whole quantization pipeline (extract, train, remap, encode)
+ * with several algorithms and parameter sets, and writes the results as CSV and JSON.
+ * For each run it records the wall time of every phase, the peak heap usage, the MSQE and the output size.
+ * <p>
+ * Usage: {@code QuantizationBenchmarkRunner [--corpus <dir>] [--output <dir>] [--epochs <n>] [--seed <n>] [--stress]}
+ * <ul>
+ *     <li>--corpus: load the PNG and JPEG images of a directory instead of synthesizing the default corpus</li>
+ *     <li>--output: the directory to write results.csv and results.json to (benchmark-results by default)</li>
+ *     <li>--epochs: the number of training epochs (500 by default)</li>
+ *     <li>--seed: the seed of the quantizers</li>
+ *     <li>--stress: include the large-resolution stress cases in the synthesized corpus</li>
+ * </ul>
+ */
+public class QuantizationBenchmarkRunner {
+    /**
+     * Represents a named quantizer configuration.
+     */
+    private static class QuantizerConfig {
+        private final String algorithm; // The name of the algorithm
+        private final String parameters; // A description of the parameters
+        private final LongFunction<Quantizer> factory; // Creates a new quantizer from a seed
+
+        private QuantizerConfig(String algorithm, String parameters, LongFunction<Quantizer> factory) {
+            this.algorithm = algorithm;
+            this.parameters = parameters;
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * Represents the measurements of one run of the pipeline.
+     */
+    private static class RunResult {
+        private String image;
+        private int width;
+        private int height;
+        private int uniqueColors;
+        private String algorithm;
+        private String parameters;
+        private int epochs;
+        private int epochsRun;
+        private long extractNanos;
+        private long trainNanos;
+        private long remapNanos;
+        private long encodeNanos;
+        private long peakHeapBytes;
+        private double meanSquaredQuantizationError;
+        private long outputBytes;
+
+        private long totalNanos() {
+            return extractNanos + trainNanos + remapNanos + encodeNanos;
+        }
+    }
+
+    private static final String[] COLUMNS = {
+            "image", "width", "height", "uniqueColors", "algorithm", "parameters", "epochs", "epochsRun",
+            "extractMs", "trainMs", "remapMs", "encodeMs", "totalMs", "peakHeapBytes", "msqe", "outputBytes"
+    };
+
+    /**
+     * The entrypoint of the runner.
+     *
+     * @param args command-line arguments (see the class documentation)
+     * @throws IOException if the corpus cannot be loaded or the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        File corpusDirectory = null;
+        File outputDirectory = new File("benchmark-results");
+        int epochs = 500;
+        long seed = BenchmarkData.SEED;
+        boolean stress = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--corpus" -> corpusDirectory = new File(args[++i]);
+                case "--output" -> outputDirectory = new File(args[++i]);
+                case "--epochs" -> epochs = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--stress" -> stress = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        List<BenchmarkCorpus.CorpusImage> corpus = corpusDirectory != null
+                ? BenchmarkCorpus.load(corpusDirectory)
+                : BenchmarkCorpus.synthesize(stress);
+
+        List<RunResult> results = new ArrayList<>();
+        for (BenchmarkCorpus.CorpusImage corpusImage : corpus) {
+            for (QuantizerConfig config : defaultConfigs()) {
+                RunResult result = run(corpusImage, config, epochs, seed);
+                results.add(result);
+                System.out.printf(Locale.ROOT, "%-20s %-20s %-10s total %8.1f ms | MSQE %9.4f | %d bytes%n",
+                        result.image, result.algorithm, result.parameters,
+                        result.totalNanos() / 1e6, result.meanSquaredQuantizationError, result.outputBytes);
+            }
+        }
+
+        Files.createDirectories(outputDirectory.toPath());
+        writeCsv(results, new File(outputDirectory, "results.csv"));
+        writeJson(results, new File(outputDirectory, "results.json"));
+        System.out.println("Results written to " + outputDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Returns the algorithms and parameter sets every image is quantized with.
+     *
+     * @return the quantizer configurations
+     */
+    private static List<QuantizerConfig> defaultConfigs() {
+        List<QuantizerConfig> configs = new ArrayList<>();
+        for (int mapSize : new int[]{4, 16}) {
+            configs.add(new QuantizerConfig("SOM", mapSize + "x" + mapSize, seed ->
+                    new SOM(3, mapSize, mapSize, new EuclideanDistance(), new LinearDecay(), seed)));
+        }
+        for (int k : new int[]{16, 256}) {
+            configs.add(new QuantizerConfig("Mini Batch K-means", "k=" + k, seed ->
+                    new MiniBatchKMeans(k, new EuclideanDistance(), new LinearDecay(), seed)));
+        }
+        return configs;
+    }
+
+    /**
+     * Runs one image through the whole pipeline with one quantizer configuration.
+     *
+     * @param corpusImage the image to quantize
+     * @param config      the quantizer configuration
+     * @param epochs      the number of training epochs
+     * @param seed        the seed of the quantizer
+     * @return the measurements of the run
+     * @throws IOException if the encoded image cannot be written
+     */
+    private static RunResult run(BenchmarkCorpus.CorpusImage corpusImage, QuantizerConfig config, int epochs, long seed) throws IOException {
+        RunResult result = new RunResult();
+        result.image = corpusImage.getName();
+        result.width = corpusImage.getImage().getWidth();
+        result.height = corpusImage.getImage().getHeight();
+        result.algorithm = config.algorithm;
+        result.parameters = config.parameters;
+        result.epochs = epochs;
+
+        ColorSpace colorSpace = new SRGBColorSpace();
+        Quantizer quantizer = config.factory.apply(seed);
+        File outputFile = Files.createTempFile("quantized", ".png").toFile();
+        try {
+            System.gc();
+            resetPeakHeapUsage();
+
+            long start = System.nanoTime();
+            ColorExtractionResult extraction = ImageUtils.extractColors(corpusImage.getImage(), colorSpace);
+            result.extractNanos = System.nanoTime() - start;
+            result.uniqueColors = extraction.getUniqueColorCount();
+
+            start = System.nanoTime();
+            extraction.train(quantizer, epochs);
+            result.trainNanos = System.nanoTime() - start;
+            result.epochsRun = quantizer.getEpochsRun();
+
+            start = System.nanoTime();
+            RemapResult remap = ImageUtils.remapColors(corpusImage.getImage(), extraction, quantizer, colorSpace);
+            result.remapNanos = System.nanoTime() - start;
+            result.meanSquaredQuantizationError = remap.getMeanSquaredQuantizationError();
+
+            start = System.nanoTime();
+            ImageUtils.saveAs8BitPng(remap.getQuantizedImage(), remap.getPixelMap(), outputFile, quantizer, colorSpace);
+            result.encodeNanos = System.nanoTime() - start;
+            result.outputBytes = outputFile.length();
+
+            result.peakHeapBytes = peakHeapUsage();
+        } finally {
+            outputFile.delete();
+        }
+        return result;
+    }
+
+    /**
+     * Resets the peak usage of every heap memory pool.
+     */
+    private static void resetPeakHeapUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the peak usage of every heap memory pool since the last reset.
+     *
+     * @return the peak heap usage in bytes
+     */
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Returns the values of a result in the order of the columns.
+     *
+     * @param result the result
+     * @return the values of the result
+     */
+    private static Object[] values(RunResult result) {
+        return new Object[]{
+                result.image, result.width, result.height, result.uniqueColors, result.algorithm, result.parameters,
+                result.epochs, result.epochsRun, result.extractNanos / 1e6, result.trainNanos / 1e6,
+                result.remapNanos / 1e6, result.encodeNanos / 1e6, result.totalNanos() / 1e6,
+                result.peakHeapBytes, result.meanSquaredQuantizationError, result.outputBytes
+        };
+    }
+
+    /**
+     * Writes the results as a CSV file with a header row.
+     *
+     * @param results the results to write
+     * @param file    the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeCsv(List<RunResult> results, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            writer.println(String.join(",", COLUMNS));
+            for (RunResult result : results) {
+                Object[] values = values(result);
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    line.append(values[i] instanceof String text ? "\"" + text.replace("\"", "\"\"") + "\"" : format(values[i]));
+                }
+                writer.println(line);
+            }
+        }
+    }
+
+    /**
+     * Writes the results as a JSON array of objects.
+     *
+     * @param results the results to write
+     * @param file    the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeJson(List<RunResult> results, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            writer.println("[");
+            for (int r = 0; r < results.size(); r++) {
+                Object[] values = values(results.get(r));
+                StringBuilder line = new StringBuilder("  {");
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        line.append(", ");
+                    }
+                    line.append('"').append(COLUMNS[i]).append("\": ");
+                    line.append(values[i] instanceof String text ? "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"" : format(values[i]));
+                }
+                line.append(r < results.size() - 1 ? "}," : "}");
+                writer.println(line);
+            }
+            writer.println("]");
+        }
+    }
+
+    /**
+     * Formats a numeric value independently of the default locale.
+     *
+     * @param value the value to format
+     * @return the formatted value
+     */
+    private static String format(Object value) {
+        return value instanceof Double number ? String.format(Locale.ROOT, "%.4f", number) : String.valueOf(value);
+    }
+}
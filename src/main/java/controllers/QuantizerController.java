@@ -1,5 +1,7 @@
 package main.java.controllers;
 
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
@@ -13,26 +15,48 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.TilePane;
 import javafx.scene.shape.Rectangle;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import main.java.controllers.utils.ColorExtractionResult;
-import main.java.models.decays.LinearDecay;
+import main.java.controllers.utils.ColorHistogram;
+import main.java.controllers.utils.ColorSignature;
+import main.java.controllers.utils.FrameSequenceQuantizer;
+import main.java.controllers.utils.PaletteStore;
+import main.java.controllers.utils.PreviewRenderer;
+import main.java.controllers.utils.QuantizationMetrics;
+import main.java.controllers.utils.QuantizedFrame;
+import main.java.controllers.utils.RemapResult;
+import main.java.controllers.utils.SharedPaletteQuantizer;
+import main.java.controllers.utils.SizeEstimator;
+import main.java.models.colorspaces.CIELabColorSpace;
+import main.java.models.colorspaces.OklabColorSpace;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.decays.*;
 import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.ColorSpace;
 import main.java.models.interfaces.Decay;
 import main.java.models.interfaces.Distance;
 import main.java.models.interfaces.Quantizer;
 import main.java.models.minibatchkmeans.MiniBatchKMeans;
 import main.java.models.som.SOM;
+import main.java.models.training.EarlyStopping;
+import main.java.models.training.SampledTrainingListener;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 import static main.java.controllers.utils.GeneralUtils.*;
 import static main.java.controllers.utils.ImageUtils.*;
@@ -46,6 +70,18 @@ public class QuantizerController implements Initializable {
     private static final int DISPLAY_IMAGE_MAX_WIDTH = 350;
     private static final int MAX_TOTAL_PIXELS = 49_000_000;
     private static final int MAX_SIZE = 50;
+    // The fraction of the progress bar taken up by training (the rest is taken up by remapping)
+    private static final double TRAINING_PROGRESS = 0.8;
+    // The approximate number of progress updates during training
+    private static final int PROGRESS_UPDATES = 100;
+    // The maximum number of epochs of the preview in progressive mode
+    private static final int PREVIEW_EPOCHS = 100;
+    // The number of pixels above which the converted size is extrapolated from sampled rows
+    private static final int SAMPLED_SIZE_MIN_PIXELS = 4_000_000;
+    // The maximum signature distance of a stored palette to be reused for a new image
+    private static final double WARM_START_MAX_DISTANCE = 0.1;
+    // The fraction of the epochs trained when starting from a stored palette
+    private static final double WARM_START_EPOCH_FRACTION = 0.2;
     @FXML
     public TilePane learnedColorsPane;
     // A copy of the original units
@@ -57,6 +93,16 @@ public class QuantizerController implements Initializable {
     @FXML
     private ComboBox<String> algorithmComboBox;
     @FXML
+    private ComboBox<String> colorSpaceComboBox;
+    @FXML
+    private ComboBox<String> decayComboBox;
+    @FXML
+    private CheckBox earlyStoppingCheckBox;
+    @FXML
+    private CheckBox progressiveCheckBox;
+    @FXML
+    private CheckBox reusePalettesCheckBox;
+    @FXML
     private TextField mapWidthField;
     @FXML
     private TextField mapHeightField;
@@ -94,6 +140,20 @@ public class QuantizerController implements Initializable {
     private Pane somPane;
     @FXML
     private Pane miniBatchKmeansPane;
+    @FXML
+    private Button uploadButton;
+    @FXML
+    private Button quantizeButton;
+    @FXML
+    private Button clearButton;
+    @FXML
+    private Button cancelButton;
+    @FXML
+    private Button quantizeFramesButton;
+    @FXML
+    private Button quantizeBatchButton;
+    @FXML
+    private ProgressBar progressBar;
     // Global objects needed for the program to function correctly
     private String originalFormat;
     private BufferedImage fullQuantizedImage;
@@ -101,10 +161,33 @@ public class QuantizerController implements Initializable {
     private BufferedImage originalImage;
     private Object selectedUnit;
     private Quantizer quantizer;
+    // The color space the quantizer is trained in
+    private ColorSpace colorSpace;
     // Mapping for each BMU/centroid to corresponding pixels
     private Map<Object, List<Point>> pixelMap;
     // Mapping to store color squares for easy access when colors change
     private Map<Object, Rectangle> colorSquares;
+    // The metrics of loading the original image (decoding, alpha flattening and preview scaling)
+    private QuantizationMetrics imageMetrics;
+    // The metrics of the last color-quantization run
+    private QuantizationMetrics metrics;
+    // The running color-quantization task of an image or a batch (null if no color-quantization is running)
+    private Task<?> quantizationTask;
+    // The subscription to the running frame-sequence quantization (null if no frame sequence is being quantized)
+    private volatile Flow.Subscription frameSubscription;
+    // Render the downscaled previews of the original and color-quantized images
+    private final PreviewRenderer originalPreview = new PreviewRenderer(DISPLAY_IMAGE_MAX_WIDTH, DISPLAY_IMAGE_MAX_HEIGHT);
+    private final PreviewRenderer quantizedPreview = new PreviewRenderer(DISPLAY_IMAGE_MAX_WIDTH, DISPLAY_IMAGE_MAX_HEIGHT);
+    // Estimates the converted size of the color-quantized image in the background
+    private final SizeEstimator sizeEstimator = new SizeEstimator();
+    // The palettes trained so far, reused as the starting point for images with similar colors
+    private final PaletteStore paletteStore = new PaletteStore();
+    // The last assigned image version (every change to the color-quantized image gets a new version)
+    private long imageVersionCounter;
+    // The version of the displayed color-quantized image (0 if there is none)
+    private long quantizedImageVersion;
+    // The version of the color-quantized image before any palette edits
+    private long originalQuantizedImageVersion;
 
     /**
      * Initializes the controller and sets up the UI components, event listeners, and initial state of the app.
@@ -133,6 +216,14 @@ public class QuantizerController implements Initializable {
         // Add SOM as the initial algorithm
         algorithmComboBox.setValue("SOM");
 
+        // Add sRGB as the initial color space
+        colorSpaceComboBox.getItems().addAll("sRGB", "Oklab", "CIELAB");
+        colorSpaceComboBox.setValue("sRGB");
+
+        // Add linear decay as the initial decay
+        decayComboBox.getItems().addAll("Linear", "Exponential", "Inverse Time", "Cosine", "Step");
+        decayComboBox.setValue("Linear");
+
         imageBox.setSpacing(10);
 
         learnedColorsPane.setHgap(5);
@@ -146,6 +237,10 @@ public class QuantizerController implements Initializable {
 
         resetColorButton.setVisible(false);
 
+        // Hide the progress controls until a color-quantization is running
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+
         filterIntegerTextField(epochsField, "500", 100, 10000);
 
         // Filter fields for SOM parameters
@@ -214,7 +309,10 @@ public class QuantizerController implements Initializable {
      * @throws IOException if an expectation occurs while reading the image
      */
     private void loadAndDisplayOriginalImage(File selectedFile) throws IOException {
+        QuantizationMetrics loadMetrics = new QuantizationMetrics();
+        loadMetrics.start(QuantizationMetrics.Phase.DECODE);
         BufferedImage bufferedImage = ImageIO.read(selectedFile);
+        loadMetrics.stop();
 
         if (bufferedImage.getHeight() * bufferedImage.getWidth() > MAX_TOTAL_PIXELS) {
             showAlert("Image resolution is too large. Choose a smaller image!");
@@ -225,12 +323,15 @@ public class QuantizerController implements Initializable {
 
         if (bufferedImage.getColorModel().hasAlpha()) {
             // Replace the transparent background with white background
+            loadMetrics.start(QuantizationMetrics.Phase.ALPHA_FLATTENING);
             bufferedImage = convertTransparentToColor(bufferedImage, Color.WHITE);
+            loadMetrics.stop();
         }
-        // Resize and convert the image to a JavaFX Image
-        javafx.scene.image.Image image = resizeAndConvertToFxImage(
-                bufferedImage, DISPLAY_IMAGE_MAX_WIDTH, DISPLAY_IMAGE_MAX_HEIGHT
-        );
+        // Render a downscaled preview of the image
+        loadMetrics.start(QuantizationMetrics.Phase.PREVIEW_SCALING);
+        Image image = originalPreview.render(bufferedImage, ++imageVersionCounter);
+        loadMetrics.stop();
+        imageMetrics = loadMetrics;
         originalImage = bufferedImage;
         originalImageView.setImage(image);
         originalLabel.setVisible(true);
@@ -241,7 +342,8 @@ public class QuantizerController implements Initializable {
 
     /**
      * Handles the color-quantization of the uploaded image (when the quantize button is clicked), using the selected
-     * algorithm and parameters.
+     * algorithm and parameters. The color-quantization runs in a background task, so the UI stays responsive
+     * and the run can be canceled.
      */
     @FXML
     private void quantizeImage() {
@@ -249,59 +351,552 @@ public class QuantizerController implements Initializable {
             showAlert("Please upload an image.");
             return;
         }
-        // Start timing the quantization process
-        long startTime = System.nanoTime();
-
+        if (quantizationTask != null || frameSubscription != null) {
+            return;
+        }
         // Reset all variable fields and UI fields required for quantization
         resetCommonComponents();
+        // Include the metrics of loading the image in the metrics of this run
+        metrics = new QuantizationMetrics();
+        metrics.merge(imageMetrics);
 
         Distance distance = new EuclideanDistance();
-        Decay decay = new LinearDecay();
+        Decay decay = createDecay(decayComboBox.getValue());
         String algorithm = algorithmComboBox.getValue();
-        // Extract colors from the image
-        ColorExtractionResult result = extractColors(originalImage);
-        double[][] inputColors = result.getColors();
-        int uniqueColorCount = result.getUniqueColorCount();
-        countColorsOriginalImageLabel.setText("Count of Unique Colors in the Original Image: " + uniqueColorCount);
+        colorSpace = createColorSpace(colorSpaceComboBox.getValue());
         int epochs = Integer.parseInt(epochsField.getText());
+        boolean earlyStopping = earlyStoppingCheckBox.isSelected();
 
         if (algorithm.equals("SOM")) {
             int mapWidth = Integer.parseInt(mapWidthField.getText());
             int mapHeight = Integer.parseInt(mapHeightField.getText());
+            String configuration = "SOM " + mapWidth + "x" + mapHeight + " " + colorSpaceComboBox.getValue();
+            startQuantization(() -> createSOM(mapWidth, mapHeight, distance, decay, earlyStopping), configuration, mapWidth * mapHeight, epochs);
+        } else if (algorithm.equals("Mini Batch K-means")) {
+            int k = Integer.parseInt(kField.getText());
+            String configuration = "Mini Batch K-means " + k + " " + colorSpaceComboBox.getValue();
+            startQuantization(() -> createMiniBatchKMeans(k, distance, decay, earlyStopping), configuration, k, epochs);
+        }
+    }
 
-            if (uniqueColorCount <= mapWidth * mapHeight) {
-                showAlert("The image has fewer unique colors than the number specified for quantization. Please choose a lower color count or a different image.");
-                return;
+    /**
+     * Handles the color-quantization of a sequence of frames (when the quantize frames button is clicked): asks for
+     * a directory of PNG or JPEG frames and an output directory, and saves every frame as an 8-bit PNG with the same
+     * name. Each frame is trained from the palette of the previous frame for a fraction of the epochs, unless its
+     * colors changed too much (a scene cut), in which case it is trained from scratch.
+     */
+    @FXML
+    private void quantizeFrames() {
+        if (quantizationTask != null || frameSubscription != null) {
+            return;
+        }
+        Stage stage = (Stage) originalImageView.getScene().getWindow();
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Frames Directory");
+        File inputDirectory = directoryChooser.showDialog(stage);
+        if (inputDirectory == null) {
+            return;
+        }
+        List<File> frames = FrameSequenceQuantizer.listFrames(inputDirectory);
+        if (frames.isEmpty()) {
+            showAlert("The selected directory contains no PNG or JPEG frames.");
+            return;
+        }
+        directoryChooser.setTitle("Select Output Directory");
+        File outputDirectory = directoryChooser.showDialog(stage);
+        if (outputDirectory == null) {
+            return;
+        }
+
+        resetCommonComponents();
+        ColorSpace frameColorSpace = createColorSpace(colorSpaceComboBox.getValue());
+        int epochs = Integer.parseInt(epochsField.getText());
+        FrameSequenceQuantizer frameSequenceQuantizer = new FrameSequenceQuantizer(
+                createQuantizerFactory(), frameColorSpace, epochs,
+                Math.max(1, (int) (epochs * WARM_START_EPOCH_FRACTION)),
+                FrameSequenceQuantizer.DEFAULT_SCENE_CUT_THRESHOLD
+        );
+
+        long startTime = System.nanoTime();
+        progressBar.setProgress(0);
+        setQuantizationControlsRunning(true);
+        // The frames are delivered one at a time, and each one is encoded before the next one is requested
+        frameSequenceQuantizer.quantize(frames).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription; // The subscription to the quantized frames
+            private int sceneCuts; // The number of frames trained from scratch
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                frameSubscription = subscription;
+                subscription.request(1);
             }
 
-            fullQuantizedImage = performSOMQuantization(
-                    originalImage,
-                    inputColors,
-                    mapWidth,
-                    mapHeight,
-                    epochs,
-                    distance,
-                    decay
-            );
+            @Override
+            public void onNext(QuantizedFrame frame) {
+                // Ignore the frames delivered after the run was canceled
+                if (frameSubscription != subscription) {
+                    return;
+                }
+                RemapResult result = frame.getResult();
+                String name = frame.getSource().getName();
+                File outputFile = new File(outputDirectory, name.substring(0, name.lastIndexOf('.')) + ".png");
+                try {
+                    saveAs8BitPng(result.getQuantizedImage(), result.getPixelMap(), outputFile, frame.getQuantizer(), frameColorSpace);
+                } catch (IOException e) {
+                    subscription.cancel();
+                    onError(e);
+                    return;
+                }
+                if (frame.isSceneCut()) {
+                    sceneCuts++;
+                }
+                int frameNumber = frame.getIndex() + 1;
+                Platform.runLater(() -> {
+                    if (frameSubscription == subscription) {
+                        quantizedImageView.setImage(quantizedPreview.render(result.getQuantizedImage(), 0));
+                        progressBar.setProgress((double) frameNumber / frames.size());
+                        timeLabel.setText("Frame " + frameNumber + " of " + frames.size()
+                                + (frame.isSceneCut() ? " (scene cut)" : ""));
+                    }
+                });
+                subscription.request(1);
+            }
 
-        } else if (algorithm.equals("Mini Batch K-means")) {
-            int k = Integer.parseInt(kField.getText());
+            @Override
+            public void onError(Throwable throwable) {
+                Platform.runLater(() -> {
+                    if (frameSubscription == subscription) {
+                        finishFrameQuantization();
+                        timeLabel.setText("");
+                        showAlert("Error quantizing the frames: " + throwable.getMessage());
+                    }
+                });
+            }
 
-            if (uniqueColorCount <= k) {
-                showAlert("The image has fewer unique colors than the number specified for quantization. Please choose a lower color count or a different image.");
-                return;
+            @Override
+            public void onComplete() {
+                double duration = (System.nanoTime() - startTime) / 1e9;
+                int totalSceneCuts = sceneCuts;
+                Platform.runLater(() -> {
+                    if (frameSubscription == subscription) {
+                        finishFrameQuantization();
+                        timeLabel.setText(String.format("%d frames in %.3f seconds (%d scene cuts)",
+                                frames.size(), duration, totalSceneCuts));
+                    }
+                });
             }
-            fullQuantizedImage = performKMeansQuantization(originalImage, inputColors, k, epochs, distance, decay);
+        });
+    }
+
+    /**
+     * Handles the color-quantization of a batch of images with one shared palette (when the quantize batch button is
+     * clicked): asks for the images and an output directory, trains the quantizer once on the merged colors of all
+     * images, and saves every image remapped to the shared palette as an 8-bit PNG with the same name.
+     */
+    @FXML
+    private void quantizeBatch() {
+        if (quantizationTask != null || frameSubscription != null) {
+            return;
         }
-        quantizedImageView.setDisable(false);
-        displayQuantizedImage(fullQuantizedImage);
-        // Save the original quantized image
-        originalQuantizedImage = copyBufferedImage(fullQuantizedImage);
-        long endTime = System.nanoTime();
-        // Time in seconds
-        long duration = (endTime - startTime) / 1_000_000_000;
-        timeLabel.setText("Execution time: " + duration + " seconds");
-        quantLabel.setVisible(true);
+        Stage stage = (Stage) originalImageView.getScene().getWindow();
+        FileChooser fileChooser = createFileChooser(
+                "Select Images",
+                new FileChooser.ExtensionFilter("Image File", "*.png", "*.jpg", "*.jpeg")
+        );
+        List<File> files = fileChooser.showOpenMultipleDialog(stage);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Output Directory");
+        File outputDirectory = directoryChooser.showDialog(stage);
+        if (outputDirectory == null) {
+            return;
+        }
+
+        resetCommonComponents();
+        long startTime = System.nanoTime();
+        ColorSpace batchColorSpace = createColorSpace(colorSpaceComboBox.getValue());
+        int epochs = Integer.parseInt(epochsField.getText());
+        Quantizer batchQuantizer = createQuantizerFactory().get();
+        int unitCount = getConfiguredUnitCount();
+        QuantizationMetrics batchMetrics = new QuantizationMetrics();
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                updateProgress(-1, 1);
+                List<BufferedImage> images = new ArrayList<>(files.size());
+                long totalPixels = 0;
+                for (File file : files) {
+                    batchMetrics.start(QuantizationMetrics.Phase.DECODE);
+                    BufferedImage image = ImageIO.read(file);
+                    batchMetrics.stop();
+                    if (image == null) {
+                        throw new IOException("Unrecognized image format: " + file.getName());
+                    }
+                    totalPixels += (long) image.getWidth() * image.getHeight();
+                    if (totalPixels > MAX_TOTAL_PIXELS) {
+                        throw new IllegalArgumentException("The total resolution of the images is too large. Choose fewer or smaller images!");
+                    }
+                    if (image.getColorModel().hasAlpha()) {
+                        batchMetrics.start(QuantizationMetrics.Phase.ALPHA_FLATTENING);
+                        image = convertTransparentToColor(image, Color.WHITE);
+                        batchMetrics.stop();
+                    }
+                    images.add(image);
+                }
+
+                // Train once on the merged colors of all images
+                SharedPaletteQuantizer sharedPaletteQuantizer = new SharedPaletteQuantizer(batchColorSpace);
+                batchQuantizer.setTrainingListener(new SampledTrainingListener(
+                        (epoch, totalEpochs, learningRate, radius, movement, inertia, elapsedNanos) ->
+                                updateProgress(TRAINING_PROGRESS * epoch / totalEpochs, 1),
+                        Math.max(1, epochs / PROGRESS_UPDATES)
+                ));
+                sharedPaletteQuantizer.train(batchQuantizer, unitCount, images, epochs, batchMetrics);
+
+                // Remap every image to the shared palette and save it
+                for (int i = 0; i < images.size() && !isCancelled(); i++) {
+                    RemapResult result = sharedPaletteQuantizer.remap(batchQuantizer, images.get(i), batchMetrics);
+                    String name = files.get(i).getName();
+                    File outputFile = new File(outputDirectory, name.substring(0, name.lastIndexOf('.')) + ".png");
+                    batchMetrics.start(QuantizationMetrics.Phase.ENCODING);
+                    saveAs8BitPng(result.getQuantizedImage(), result.getPixelMap(), outputFile, batchQuantizer, batchColorSpace);
+                    batchMetrics.stop();
+                    updateProgress(TRAINING_PROGRESS + (1 - TRAINING_PROGRESS) * (i + 1) / images.size(), 1);
+                }
+                return null;
+            }
+        };
+        task.setOnSucceeded(event -> {
+            finishQuantization();
+            metrics = batchMetrics;
+            double duration = (System.nanoTime() - startTime) / 1e9;
+            timeLabel.setText(String.format("%d images in %.3f seconds (shared palette)", files.size(), duration));
+            timeLabel.setTooltip(new Tooltip(formatPhaseTimings(batchMetrics)));
+        });
+        task.setOnCancelled(event -> {
+            finishQuantization();
+            timeLabel.setText("Batch quantization canceled.");
+        });
+        task.setOnFailed(event -> {
+            finishQuantization();
+            showAlert(task.getException().getMessage());
+        });
+
+        quantizationTask = task;
+        progressBar.progressProperty().bind(task.progressProperty());
+        setQuantizationControlsRunning(true);
+
+        Thread thread = new Thread(task, "batch-quantization");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Creates a factory of quantizers with the selected algorithm and parameters. The parameters are read from the UI
+     * once, so the factory can be used from any thread.
+     *
+     * @return the quantizer factory
+     */
+    private Supplier<Quantizer> createQuantizerFactory() {
+        Distance distance = new EuclideanDistance();
+        Decay decay = createDecay(decayComboBox.getValue());
+        boolean earlyStopping = earlyStoppingCheckBox.isSelected();
+        if (algorithmComboBox.getValue().equals("SOM")) {
+            int mapWidth = Integer.parseInt(mapWidthField.getText());
+            int mapHeight = Integer.parseInt(mapHeightField.getText());
+            return () -> createSOM(mapWidth, mapHeight, distance, decay, earlyStopping);
+        }
+        int k = Integer.parseInt(kField.getText());
+        return () -> createMiniBatchKMeans(k, distance, decay, earlyStopping);
+    }
+
+    /**
+     * Returns the number of units of the selected algorithm and parameters, as read from the UI.
+     *
+     * @return the configured number of units
+     */
+    private int getConfiguredUnitCount() {
+        if (algorithmComboBox.getValue().equals("SOM")) {
+            return Integer.parseInt(mapWidthField.getText()) * Integer.parseInt(mapHeightField.getText());
+        }
+        return Integer.parseInt(kField.getText());
+    }
+
+    /**
+     * Resets the UI state once the frame-sequence quantization is done or canceled.
+     */
+    private void finishFrameQuantization() {
+        frameSubscription = null;
+        quantizedImageView.setImage(null);
+        setQuantizationControlsRunning(false);
+    }
+
+    /**
+     * Starts a background task which extracts the colors of the original image, trains the quantizer and remaps
+     * the image. The progress bar follows the training epochs and the remapped rows, and the results are displayed
+     * on the JavaFX Application Thread once the task succeeds.
+     * <p>
+     * In progressive mode, a downscaled copy of the image is quantized first with a few epochs and shown as a preview,
+     * and the full-resolution training then starts from the palette of the preview.
+     * <p>
+     * When palettes are reused, the trained palette is stored with the color signature of the image. If a palette of
+     * the same configuration was stored for an image with similar colors, training starts from it instead (skipping the
+     * preview) and only runs for a fraction of the epochs.
+     *
+     * @param quantizerFactory creates a new quantizer with the selected parameters
+     * @param configuration    the configuration key of the quantizer, for storing and reusing palettes
+     * @param unitCount        the number of units of the quantizer
+     * @param epochs           the number of epochs to train
+     */
+    private void startQuantization(Supplier<Quantizer> quantizerFactory, String configuration, int unitCount, int epochs) {
+        // Start timing the quantization process
+        long startTime = System.nanoTime();
+        // The task only works with its own copies of the state, since the fields can change on the UI thread
+        BufferedImage image = originalImage;
+        ColorSpace taskColorSpace = colorSpace;
+        QuantizationMetrics taskMetrics = metrics;
+        Quantizer newQuantizer = quantizerFactory.get();
+        Quantizer previewQuantizer = progressiveCheckBox.isSelected() ? quantizerFactory.get() : null;
+        boolean reusePalettes = reusePalettesCheckBox.isSelected();
+
+        Task<RemapResult> task = new Task<>() {
+            @Override
+            protected RemapResult call() {
+                updateProgress(-1, 1);
+                // One histogram serves the signature and the extraction (the pixels are only counted for the signature)
+                taskMetrics.start(QuantizationMetrics.Phase.UNIQUE_COLOR_COUNTING);
+                ColorHistogram histogram = ColorHistogram.of(image, reusePalettes);
+                taskMetrics.stop();
+                ColorSignature signature = null;
+                List<Object> storedUnits = null;
+                if (reusePalettes) {
+                    signature = ColorSignature.of(histogram);
+                    storedUnits = paletteStore.findNearest(configuration, signature, WARM_START_MAX_DISTANCE);
+                }
+
+                int trainingEpochs = epochs;
+                if (storedUnits != null) {
+                    // Warm start the training from the palette of an image with similar colors
+                    newQuantizer.warmStart(storedUnits);
+                    trainingEpochs = Math.max(1, (int) (epochs * WARM_START_EPOCH_FRACTION));
+                    taskMetrics.setCounter(QuantizationMetrics.WARM_STARTS, 1);
+                } else if (previewQuantizer != null) {
+                    RemapResult preview = quantizePreview(image, previewQuantizer, unitCount, Math.min(epochs, PREVIEW_EPOCHS), taskColorSpace);
+                    if (preview != null && !isCancelled()) {
+                        Platform.runLater(() -> {
+                            if (!isCancelled()) {
+                                quantizedImageView.setImage(quantizedPreview.render(preview.getQuantizedImage(), 0));
+                            }
+                        });
+                        // Warm start the full-resolution training from the palette of the preview
+                        newQuantizer.warmStart(previewQuantizer.getUnitsDeepCopy());
+                    }
+                }
+
+                // Extract colors from the image (converted to the selected color space, in the precision of the quantizer)
+                ColorExtractionResult result = extractColors(image, histogram, taskColorSpace, taskMetrics, newQuantizer.getPrecision());
+                int uniqueColorCount = result.getUniqueColorCount();
+                Platform.runLater(() -> countColorsOriginalImageLabel.setText(
+                        "Count of Unique Colors in the Original Image: " + uniqueColorCount
+                ));
+                if (uniqueColorCount <= unitCount) {
+                    throw new IllegalArgumentException("The image has fewer unique colors than the number specified for quantization. Please choose a lower color count or a different image.");
+                }
+
+                // Training takes up most of the progress bar, and remapping the rest of it
+                newQuantizer.setTrainingListener(new SampledTrainingListener(
+                        (epoch, totalEpochs, learningRate, radius, movement, inertia, elapsedNanos) ->
+                                updateProgress(TRAINING_PROGRESS * epoch / totalEpochs, 1),
+                        Math.max(1, trainingEpochs / PROGRESS_UPDATES)
+                ));
+                taskMetrics.start(QuantizationMetrics.Phase.TRAINING);
+                result.train(newQuantizer, trainingEpochs);
+                taskMetrics.stop();
+                taskMetrics.setCounter(QuantizationMetrics.EPOCHS_RUN, newQuantizer.getEpochsRun());
+                // Training stops early when the task is canceled
+                if (isCancelled()) {
+                    return null;
+                }
+                if (signature != null) {
+                    paletteStore.save(configuration, signature, newQuantizer.getUnitsDeepCopy());
+                }
+
+                // Map every pixel to the closest unit
+                int height = image.getHeight();
+                IntConsumer rowProgress = rows -> {
+                    if (isCancelled()) {
+                        throw new CancellationException("The color quantization was canceled.");
+                    }
+                    updateProgress(TRAINING_PROGRESS + (1 - TRAINING_PROGRESS) * rows / height, 1);
+                };
+                if (taskColorSpace instanceof SRGBColorSpace) {
+                    // The quantizers use the Euclidean distance, so sRGB pixels are matched in integer arithmetic
+                    return remapColorsToPalette(image, histogram, newQuantizer, taskColorSpace, taskMetrics, rowProgress);
+                }
+                return remapColors(image, result, newQuantizer, taskColorSpace, taskMetrics, rowProgress);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            finishQuantization();
+            quantizer = newQuantizer;
+            // The per-unit errors and the heatmap are exported with the metrics of the run
+            metrics.setQualityMetrics(task.getValue().getQualityMetrics());
+            fullQuantizedImage = displayRemapResult(task.getValue());
+            quantizedImageVersion = ++imageVersionCounter;
+            originalQuantizedImageVersion = quantizedImageVersion;
+            quantizedImageView.setDisable(false);
+            displayQuantizedImage(fullQuantizedImage, metrics);
+            // Save the original quantized image
+            originalQuantizedImage = copyBufferedImage(fullQuantizedImage);
+            long endTime = System.nanoTime();
+            // Time in seconds
+            double duration = (endTime - startTime) / 1e9;
+            timeLabel.setText(String.format("Execution time: %.3f seconds", duration));
+            timeLabel.setTooltip(new Tooltip(formatPhaseTimings(metrics)));
+            quantLabel.setVisible(true);
+        });
+        task.setOnCancelled(event -> {
+            finishQuantization();
+            metrics = null;
+            // Remove the preview of a progressive run
+            quantizedImageView.setImage(null);
+            timeLabel.setText("Color quantization canceled.");
+        });
+        task.setOnFailed(event -> {
+            finishQuantization();
+            metrics = null;
+            quantizedImageView.setImage(null);
+            showAlert(task.getException().getMessage());
+        });
+
+        quantizationTask = task;
+        progressBar.progressProperty().bind(task.progressProperty());
+        setQuantizationControlsRunning(true);
+
+        Thread thread = new Thread(task, "color-quantization");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Quantizes a copy of the image downscaled to the display size, for the preview of a progressive run.
+     *
+     * @param image            the image to preview
+     * @param previewQuantizer the quantizer to train on the downscaled image
+     * @param unitCount        the number of units of the quantizer
+     * @param epochs           the number of epochs to train
+     * @param colorSpace       the color space to train in
+     * @return the result of remapping the downscaled image, or null if the image is not larger than the display size
+     * or the downscaled image has too few unique colors
+     */
+    private RemapResult quantizePreview(BufferedImage image, Quantizer previewQuantizer, int unitCount, int epochs, ColorSpace colorSpace) {
+        if (image.getWidth() * image.getHeight() <= DISPLAY_IMAGE_MAX_WIDTH * DISPLAY_IMAGE_MAX_HEIGHT) {
+            // A preview would not be faster than the full-resolution run
+            return null;
+        }
+        BufferedImage previewImage = resizeImage(image, DISPLAY_IMAGE_MAX_WIDTH, DISPLAY_IMAGE_MAX_HEIGHT);
+        ColorExtractionResult result = extractColors(previewImage, colorSpace, new QuantizationMetrics(), previewQuantizer.getPrecision());
+        if (result.getUniqueColorCount() <= unitCount) {
+            return null;
+        }
+        result.train(previewQuantizer, epochs);
+        return remapColors(previewImage, result, previewQuantizer, colorSpace);
+    }
+
+    /**
+     * Cancels the running color-quantization (when the cancel button is clicked).
+     * Training stops at the end of the current epoch.
+     */
+    @FXML
+    private void cancelQuantization() {
+        if (quantizationTask != null) {
+            quantizationTask.cancel(true);
+        }
+        Flow.Subscription subscription = frameSubscription;
+        if (subscription != null) {
+            subscription.cancel();
+            finishFrameQuantization();
+            timeLabel.setText("Frame quantization canceled.");
+        }
+    }
+
+    /**
+     * Resets the UI state once the color-quantization task is done.
+     */
+    private void finishQuantization() {
+        quantizationTask = null;
+        progressBar.progressProperty().unbind();
+        setQuantizationControlsRunning(false);
+    }
+
+    /**
+     * Shows or hides the progress controls, and disables the controls that cannot be used
+     * while a color-quantization is running.
+     *
+     * @param running whether a color-quantization is running
+     */
+    private void setQuantizationControlsRunning(boolean running) {
+        progressBar.setVisible(running);
+        cancelButton.setVisible(running);
+        quantizeButton.setDisable(running);
+        quantizeFramesButton.setDisable(running);
+        quantizeBatchButton.setDisable(running);
+        uploadButton.setDisable(running);
+        clearButton.setDisable(running);
+    }
+
+    /**
+     * Returns the metrics of the last color-quantization run.
+     *
+     * @return the metrics of the last run, or null if no image has been color-quantized yet
+     */
+    public QuantizationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Exports the metrics of the last color-quantization run as a JSON file (when the export metrics button is clicked).
+     */
+    @FXML
+    private void exportMetrics() {
+        if (metrics == null) {
+            showAlert("No metrics to export. Please quantize an image first.");
+            return;
+        }
+        FileChooser fileChooser = createFileChooser(
+                "Export Metrics",
+                new FileChooser.ExtensionFilter("JSON File", "*.json")
+        );
+        File file = fileChooser.showSaveDialog(null);
+        if (file != null) {
+            try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                writer.println(metrics.toJson());
+            } catch (IOException e) {
+                showAlert("Error exporting the metrics: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Formats the wall time and allocations of every measured phase, one phase per line.
+     *
+     * @param metrics the metrics to format
+     * @return the formatted phase timings
+     */
+    private String formatPhaseTimings(QuantizationMetrics metrics) {
+        StringBuilder timings = new StringBuilder();
+        for (QuantizationMetrics.Phase phase : QuantizationMetrics.Phase.values()) {
+            if (metrics.isMeasured(phase)) {
+                timings.append(String.format("%s: %.3f ms, %.2f MB allocated%n",
+                        phase, metrics.getNanos(phase) / 1e6, metrics.getAllocatedBytes(phase) / (1024.0 * 1024)));
+            }
+        }
+        timings.append(String.format("Remap cache hit rate: %.2f%%", metrics.getRemapCacheHitRate() * 100));
+        return timings.toString();
     }
 
     private void resetCommonComponents() {
@@ -309,6 +904,8 @@ public class QuantizerController implements Initializable {
         convertedSizeLabel.setText("");
         meanSquaredErrorLabel.setText("");
         timeLabel.setText("");
+        timeLabel.setTooltip(null);
+        quantizedImageVersion = 0;
         countColorsOriginalImageLabel.setText("");
         countColorsQuantizedImageLabel.setText("");
         quantLabel.setVisible(false);
@@ -363,7 +960,7 @@ public class QuantizerController implements Initializable {
             try {
                 String description = fileChooser.getSelectedExtensionFilter().getDescription();
                 switch (description) {
-                    case "8-bit PNG File" -> saveAs8BitPng(fullQuantizedImage, pixelMap, file, quantizer);
+                    case "8-bit PNG File" -> saveAs8BitPng(fullQuantizedImage, pixelMap, file, quantizer, colorSpace);
                     case "Standard PNG File" -> ImageIO.write(fullQuantizedImage, "png", file);
                     case "JPEG File" -> ImageIO.write(fullQuantizedImage, "jpg", file);
                     default -> showAlert("Unsupported file format.");
@@ -386,9 +983,11 @@ public class QuantizerController implements Initializable {
         originalLabel.setVisible(false);
         originalImage = null;
         originalFormat = null;
+        imageMetrics = null;
 
         // Reset other UI components
         resetCommonComponents();
+        metrics = null;
     }
 
     /**
@@ -398,6 +997,8 @@ public class QuantizerController implements Initializable {
     private void resetQuantizedImage() {
         // Reset the quantized image view and display the original quantized image again
         fullQuantizedImage = copyBufferedImage(originalQuantizedImage);
+        // The restored image is the same as the original one, so its converted size is already known
+        quantizedImageVersion = originalQuantizedImageVersion;
 
         if (originalUnits != null) {
             // Reset the quantizer to its original units
@@ -416,70 +1017,52 @@ public class QuantizerController implements Initializable {
     }
 
     /**
-     * Performs color-quantization on the input image and returns a new color-quantized image.
+     * Creates the color space with the specified name.
      *
-     * @param image       a BufferedImage to color-quantize
-     * @param inputColors the colors of the buffered image
-     * @param epochs      the number of epochs to train
-     * @param distance    the distance metric
-     * @return a color-quantized version of the image
+     * @param name the name of the color space, as displayed in the color space combo box
+     * @return the color space with that name (sRGB for unrecognized names)
      */
-    private BufferedImage performQuantization(BufferedImage image, double[][] inputColors, int epochs, Distance distance) {
-        int width = image.getWidth();
-        int height = image.getHeight();
+    private ColorSpace createColorSpace(String name) {
+        return switch (name) {
+            case "Oklab" -> new OklabColorSpace();
+            case "CIELAB" -> new CIELabColorSpace();
+            default -> new SRGBColorSpace();
+        };
+    }
 
-        // Initialize and train the quantizer (either a Mini Batch K-means or a SOM)
-        quantizer.train(inputColors, epochs);
+    /**
+     * Creates the decay with the specified name.
+     *
+     * @param name the name of the decay, as displayed in the decay combo box
+     * @return the decay with that name (linear decay for unrecognized names)
+     */
+    private Decay createDecay(String name) {
+        return switch (name) {
+            case "Exponential" -> new ExponentialDecay();
+            case "Inverse Time" -> new InverseTimeDecay();
+            case "Cosine" -> new CosineDecay();
+            case "Step" -> new StepDecay();
+            default -> new LinearDecay();
+        };
+    }
 
+    /**
+     * Displays the results of remapping the image to the trained quantizer and returns the color-quantized image.
+     *
+     * @param result the result of remapping the image
+     * @return the color-quantized image
+     */
+    private BufferedImage displayRemapResult(RemapResult result) {
         // Store original units
         originalUnits = new ArrayList<>(quantizer.getUnitsDeepCopy());
+        pixelMap = result.getPixelMap();
 
-        // Cache to store previously processed colors and their closest units
-        Map<Integer, Object> cache = new HashMap<>();
-
-        BufferedImage quantizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        int index = 0;
-        double totalSquaredError = 0.0;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                double[] normalizedColor = inputColors[index];
-
-                Color currentColor = getColorFromUnitCoordinates(normalizedColor);
-                int colorKey = currentColor.getRGB();
-
-                // Check the cache
-                Object closestUnit;
-                // If the cache contains the color key, fetch from the cache and avoid finding the closest unit
-                if (cache.containsKey(colorKey)) {
-                    closestUnit = cache.get(colorKey);
-                } else {
-                    // Find the nearest quantizer unit and store it in the cache
-                    closestUnit = quantizer.findClosestUnit(normalizedColor);
-                    cache.put(colorKey, closestUnit);
-                }
-
-                // Convert unit coordinates back to RGB
-                double[] coordinates = quantizer.getUnitCoordinates(closestUnit);
-                Color quantizedColor = getColorFromUnitCoordinates(coordinates);
-
-                // Calculate and accumulate current error
-                double error = distance.compute(normalizedColor, coordinates);
-                totalSquaredError += Math.pow(error, 2);
-
-                // Set the pixel value in the color-quantized image
-                quantizedImage.setRGB(x, y, quantizedColor.getRGB());
-                // Add the pixel to the centroid's list in the map
-                pixelMap.computeIfAbsent(closestUnit, n -> new ArrayList<>()).add(new Point(x, y));
-                index++;
-            }
-        }
-        // Compute the MSQE
-        double meanSquaredQuantizationError = totalSquaredError / (width * height) * Math.pow(255, 2);
-        meanSquaredErrorLabel.setText(String.format("MSQE: %.4f", meanSquaredQuantizationError));
+        meanSquaredErrorLabel.setText(String.format("MSQE: %.4f (PSNR: %.2f dB)",
+                result.getMeanSquaredQuantizationError(), result.getQualityMetrics().getPeakSignalToNoiseRatio()));
         countColorsQuantizedImageLabel.setText("Count of Colors in the Quantized Image: " + pixelMap.size());
         displayLearnedColors();
         resetColorButton.setVisible(true);
-        return quantizedImage;
+        return result.getQuantizedImage();
     }
 
     /**
@@ -493,7 +1076,7 @@ public class QuantizerController implements Initializable {
             }
             Object unit = entry.getKey();
             double[] unitCoordinates = quantizer.getUnitCoordinates(unit);
-            Color color = getColorFromUnitCoordinates(unitCoordinates);
+            Color color = getColorFromUnitCoordinates(unitCoordinates, colorSpace);
 
             // Display each color as a square
             javafx.scene.shape.Rectangle colorSquare = new javafx.scene.shape.Rectangle(20, 20);
@@ -514,49 +1097,38 @@ public class QuantizerController implements Initializable {
     }
 
     /**
-     * Quantizes the colors in the input image using the Self-Organizing Map (SOM) algorithm.
+     * Creates a Self-Organizing Map (SOM) quantizer with the selected training options.
      *
-     * @param image       the input image
-     * @param inputColors the RGB colors in the inout image
-     * @param mapWidth    the width of the map
-     * @param mapHeight   the height of the map
-     * @param epochs      the amount of epochs for training
-     * @param distance    the distance metric
-     * @return the color-quantized image
+     * @param mapWidth      the width of the map
+     * @param mapHeight     the height of the map
+     * @param distance      the distance metric
+     * @param decay         the decay metric
+     * @param earlyStopping whether to stop training early once it no longer improves
+     * @return the SOM quantizer
      */
-    private BufferedImage performSOMQuantization(
-            BufferedImage image,
-            double[][] inputColors,
-            int mapWidth,
-            int mapHeight,
-            int epochs,
-            Distance distance,
-            Decay decay
-    ) {
-        quantizer = new SOM(3, mapWidth, mapHeight, distance, decay);
-        return performQuantization(image, inputColors, epochs, distance);
+    private Quantizer createSOM(int mapWidth, int mapHeight, Distance distance, Decay decay, boolean earlyStopping) {
+        SOM som = new SOM(3, mapWidth, mapHeight, distance, decay);
+        if (earlyStopping) {
+            som.setEarlyStopping(new EarlyStopping());
+        }
+        return som;
     }
 
     /**
-     * Quantizes the colors in the input image using the Mini Batch K-means algorithm.
+     * Creates a Mini Batch K-means quantizer with the selected training options.
      *
-     * @param image       the input image
-     * @param inputColors the RGB colors in the inout image
-     * @param k           the amount of clusters
-     * @param epochs      the amount of epochs for training
-     * @param distance    the distance metric
-     * @return the color-quantized image
+     * @param k             the amount of clusters
+     * @param distance      the distance metric
+     * @param decay         the decay metric
+     * @param earlyStopping whether to stop training early once it no longer improves
+     * @return the Mini Batch K-means quantizer
      */
-    private BufferedImage performKMeansQuantization(
-            BufferedImage image,
-            double[][] inputColors,
-            int k,
-            int epochs,
-            Distance distance,
-            Decay decay
-    ) {
-        quantizer = new MiniBatchKMeans(k, distance, decay);
-        return performQuantization(image, inputColors, epochs, distance);
+    private Quantizer createMiniBatchKMeans(int k, Distance distance, Decay decay, boolean earlyStopping) {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(k, distance, decay);
+        if (earlyStopping) {
+            miniBatchKMeans.setEarlyStopping(new EarlyStopping());
+        }
+        return miniBatchKMeans;
     }
 
     /**
@@ -565,21 +1137,52 @@ public class QuantizerController implements Initializable {
      * @param quantizedImage the quantized image to display
      */
     private void displayQuantizedImage(BufferedImage quantizedImage) {
-        // Convert a BufferedImage to a JavaFX Image and set it to the quantizedImageView
-        Image fxImage = resizeAndConvertToFxImage(quantizedImage, DISPLAY_IMAGE_MAX_WIDTH, DISPLAY_IMAGE_MAX_HEIGHT);
+        displayQuantizedImage(quantizedImage, new QuantizationMetrics());
+    }
+
+    /**
+     * Displays the color-quantized image in the quantizedImageView and calculate its size in memory, recording
+     * the preview scaling and encoding phases.
+     *
+     * @param quantizedImage the quantized image to display
+     * @param metrics        the metrics to record the phases in
+     */
+    private void displayQuantizedImage(BufferedImage quantizedImage, QuantizationMetrics metrics) {
+        // Render a downscaled preview of the image (cached until the image changes) and set it to the quantizedImageView
+        metrics.start(QuantizationMetrics.Phase.PREVIEW_SCALING);
+        Image fxImage = quantizedPreview.render(quantizedImage, quantizedImageVersion);
+        metrics.stop();
         quantizedImageView.setImage(fxImage);
+        updateConvertedSize(quantizedImage, metrics);
+    }
 
-        // Calculate converted image size in memory
-        try {
-            ByteArrayOutputStream b = new ByteArrayOutputStream();
-            ImageIO.write(quantizedImage, originalFormat, b);
-            b.flush();
-            long convertedSize = b.size();
-            b.close();
-            convertedSizeLabel.setText(String.format("Converted Size (%s): %.4f MB", originalFormat, (double) convertedSize / (1024 * 1024)));
-        } catch (IOException e) {
-            showAlert("Error calculating converted image size: " + e.getMessage());
-        }
+    /**
+     * Estimates the converted size of the color-quantized image in the background and displays it once it is known.
+     * Large images get a fast estimate from sampled rows. The encoding time of the first estimate of a run is added
+     * to the metrics of the run.
+     *
+     * @param quantizedImage the quantized image to estimate the size of
+     * @param metrics        the metrics to add the encoding phase to
+     */
+    private void updateConvertedSize(BufferedImage quantizedImage, QuantizationMetrics metrics) {
+        long version = quantizedImageVersion;
+        String format = originalFormat;
+        boolean sampled = (long) quantizedImage.getWidth() * quantizedImage.getHeight() > SAMPLED_SIZE_MIN_PIXELS;
+        convertedSizeLabel.setText(String.format("Converted Size (%s): estimating...", format));
+        sizeEstimator.requestEstimate(quantizedImage, version, format, sampled, estimate -> Platform.runLater(() -> {
+            // Skip estimates of images that are no longer displayed
+            if (estimate.getVersion() != quantizedImageVersion) {
+                return;
+            }
+            convertedSizeLabel.setText(String.format(
+                    "Converted Size (%s): %s%.4f MB", format, estimate.isSampled() ? "~" : "", (double) estimate.getBytes() / (1024 * 1024)
+            ));
+            if (metrics == this.metrics && !metrics.isMeasured(QuantizationMetrics.Phase.ENCODING)
+                    && estimate.getMetrics().isMeasured(QuantizationMetrics.Phase.ENCODING)) {
+                metrics.merge(estimate.getMetrics());
+                timeLabel.setTooltip(new Tooltip(formatPhaseTimings(metrics)));
+            }
+        }));
     }
 
     /**
@@ -596,12 +1199,11 @@ public class QuantizerController implements Initializable {
             );
             List<Point> pixels = pixelMap.get(selectedUnit);
             if (pixels != null) {
+                // The image must not change while its size is being estimated
+                sizeEstimator.cancelPending();
+                quantizedImageVersion = ++imageVersionCounter;
                 updateImageWithNewColor(fullQuantizedImage, pixels, newAwtColor);
-                double[] newCoordinates = new double[]{
-                        newAwtColor.getRed() / 255.0,
-                        newAwtColor.getGreen() / 255.0,
-                        newAwtColor.getBlue() / 255.0
-                };
+                double[] newCoordinates = colorSpace.fromRgb(newAwtColor.getRGB());
                 Rectangle squareToUpdate = colorSquares.get(selectedUnit);
                 // Update color square in the palette
                 if (squareToUpdate != null) {
@@ -1,39 +1,132 @@
 package main.java.controllers.utils;
 
+import main.java.models.interfaces.Quantizer;
+
 /**
  * Represents the result of the color extraction process, containing the extracted colors
- * and the count of unique colors.
+ * and the unique colors of the image.
+ * The colors are extracted either in double precision, as one coordinates array per pixel (shared by the pixels of
+ * the same color), or in single precision, as the coordinates of every unique color back to back and the index of the
+ * unique color of every pixel.
  */
 public class ColorExtractionResult {
-    private final double[][] colors; // A 2D array representing the extracted colors.
-    private final int uniqueColorCount; // The count of unique colors in the extracted result
+    private final double[][] colors; // A 2D array representing the extracted colors (null in single precision).
+    private final float[] uniqueColorCoordinates; // The coordinates of every unique color back to back, in the order of the histogram (null in double precision)
+    private final int[] pixelColorIndexes; // The index of the unique color of every pixel, row by row (null in double precision)
+    private final int dimension; // The dimension of the coordinates of a color
+    private final ColorHistogram histogram; // The unique colors of the image the colors were extracted from
 
     /**
-     * Constructs a new ColorExtractionResult with the specified extracted colors and unique color count.
+     * Constructs a new ColorExtractionResult with the specified extracted colors and unique colors.
      *
-     * @param colors           A 2D array of extracted colors.
-     * @param uniqueColorCount The number of unique colors in the extracted result.
+     * @param colors    A 2D array of extracted colors.
+     * @param histogram The unique colors of the image the colors were extracted from.
      */
-    public ColorExtractionResult(double[][] colors, int uniqueColorCount) {
+    public ColorExtractionResult(double[][] colors, ColorHistogram histogram) {
         this.colors = colors;
-        this.uniqueColorCount = uniqueColorCount;
+        this.uniqueColorCoordinates = null;
+        this.pixelColorIndexes = null;
+        this.dimension = colors.length > 0 ? colors[0].length : 0;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Constructs a new ColorExtractionResult with colors extracted in single precision.
+     *
+     * @param uniqueColorCoordinates The coordinates of every unique color back to back, in the order of the histogram.
+     * @param dimension              The dimension of the coordinates of a color.
+     * @param pixelColorIndexes      The index of the unique color of every pixel, row by row.
+     * @param histogram              The unique colors of the image the colors were extracted from.
+     */
+    public ColorExtractionResult(float[] uniqueColorCoordinates, int dimension, int[] pixelColorIndexes, ColorHistogram histogram) {
+        this.colors = null;
+        this.uniqueColorCoordinates = uniqueColorCoordinates;
+        this.pixelColorIndexes = pixelColorIndexes;
+        this.dimension = dimension;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Returns the precision the colors were extracted in.
+     *
+     * @return The precision of the extracted colors.
+     */
+    public Quantizer.Precision getPrecision() {
+        return colors != null ? Quantizer.Precision.DOUBLE : Quantizer.Precision.FLOAT;
     }
 
     /**
      * Returns the extracted colors.
      *
      * @return A 2D array of extracted colors.
+     * @throws IllegalStateException if the colors were extracted in single precision.
      */
     public double[][] getColors() {
+        if (colors == null) {
+            throw new IllegalStateException("The colors were extracted in single precision.");
+        }
         return colors;
     }
 
+    /**
+     * Returns the coordinates of every unique color back to back, in the order of the histogram, if the colors were
+     * extracted in single precision.
+     *
+     * @return The coordinates of the unique colors, or null if the colors were extracted in double precision.
+     */
+    public float[] getUniqueColorCoordinates() {
+        return uniqueColorCoordinates;
+    }
+
+    /**
+     * Returns the index of the unique color of every pixel, row by row, if the colors were extracted in single
+     * precision.
+     *
+     * @return The unique color indexes of the pixels, or null if the colors were extracted in double precision.
+     */
+    public int[] getPixelColorIndexes() {
+        return pixelColorIndexes;
+    }
+
+    /**
+     * Returns the dimension of the coordinates of a color.
+     *
+     * @return The dimension of the colors.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Trains a quantizer on the extracted colors, in whichever precision they were extracted in.
+     *
+     * @param quantizer The quantizer to train.
+     * @param epochs    The number of epochs.
+     */
+    public void train(Quantizer quantizer, int epochs) {
+        if (colors != null) {
+            quantizer.train(colors, epochs);
+        } else {
+            quantizer.train(uniqueColorCoordinates, dimension, pixelColorIndexes, epochs);
+        }
+    }
+
     /**
      * Returns the count of unique colors in the extracted result.
      *
      * @return The count of unique colors.
      */
     public int getUniqueColorCount() {
-        return uniqueColorCount;
+        return histogram.getUniqueColorCount();
+    }
+
+    /**
+     * Returns the unique colors of the image the colors were extracted from, so they are not searched for again
+     * when the image is remapped.
+     *
+     * @return The color histogram of the image.
+     */
+    public ColorHistogram getHistogram() {
+        return histogram;
     }
 }
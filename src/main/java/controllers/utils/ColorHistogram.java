@@ -0,0 +1,293 @@
+package main.java.controllers.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Represents the unique colors of an image, in ascending RGB order, optionally with the number of pixels
+ * of each color. The unique colors are found with a bitset over the whole 24-bit RGB space (2^24 bits, 2 MB),
+ * which is filled in parallel over bands of rows (one bitset per band, merged at the end), so no pixel is boxed
+ * or hashed. A rank table over the bitset maps every color to its index in constant time.
+ */
+public class ColorHistogram {
+    private static final int COLOR_COUNT = 1 << 24; // The number of 24-bit RGB colors
+    private static final int WORD_COUNT = COLOR_COUNT / Long.SIZE; // The number of words of the bitset
+    private static final int MAX_BANDS = 8; // The maximum number of bands (and bitsets) processed in parallel
+    private static final long MAX_COUNTING_BYTES = 64L * 1024 * 1024; // The memory budget of the per-band counters
+
+    private final long[] bitset; // The bitset of the colors present in the image
+    private final int[] ranks; // The number of colors before each word of the bitset
+    private final int[] colors; // The unique colors, in ascending RGB order
+    private final int[] counts; // The number of pixels of each unique color (null if not counted)
+
+    /**
+     * Constructs a new ColorHistogram from a bitset of the present colors and the pixel counts.
+     *
+     * @param bitset the bitset of the colors present in the image
+     * @param ranks  the number of colors before each word of the bitset
+     * @param colors the unique colors, in ascending RGB order
+     * @param counts the number of pixels of each unique color, or null
+     */
+    private ColorHistogram(long[] bitset, int[] ranks, int[] colors, int[] counts) {
+        this.bitset = bitset;
+        this.ranks = ranks;
+        this.colors = colors;
+        this.counts = counts;
+    }
+
+    /**
+     * Counts the unique colors of an image (ignoring the alpha channel).
+     *
+     * @param image the image
+     * @return the number of unique colors
+     */
+    public static int countUniqueColors(BufferedImage image) {
+        long[] bitset = buildBitset(image);
+        int count = 0;
+        for (long word : bitset) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the unique colors of an image (ignoring the alpha channel), optionally counting the pixels of each color.
+     *
+     * @param image       the image
+     * @param countPixels whether to count the pixels of each color (the full histogram)
+     * @return the unique colors of the image
+     */
+    public static ColorHistogram of(BufferedImage image, boolean countPixels) {
+        ColorHistogram histogram = fromBitset(buildBitset(image));
+        if (!countPixels) {
+            return histogram;
+        }
+        return new ColorHistogram(histogram.bitset, histogram.ranks, histogram.colors, histogram.countPixels(image));
+    }
+
+    /**
+     * Creates a histogram without pixel counts from a bitset of the present colors.
+     *
+     * @param bitset the bitset of the present colors
+     * @return the histogram of the colors
+     */
+    private static ColorHistogram fromBitset(long[] bitset) {
+        int[] ranks = new int[WORD_COUNT + 1];
+        for (int word = 0; word < WORD_COUNT; word++) {
+            ranks[word + 1] = ranks[word] + Long.bitCount(bitset[word]);
+        }
+        int uniqueColorCount = ranks[WORD_COUNT];
+
+        int[] colors = new int[uniqueColorCount];
+        int index = 0;
+        for (int word = 0; word < WORD_COUNT; word++) {
+            long bits = bitset[word];
+            while (bits != 0) {
+                colors[index++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+
+        return new ColorHistogram(bitset, ranks, colors, null);
+    }
+
+    /**
+     * Merges the histograms of several images into the histogram of all their pixels.
+     *
+     * @param histograms the histograms to merge, with pixel counts
+     * @return the merged histogram, with pixel counts
+     * @throws IllegalArgumentException if there are no histograms or a histogram has no pixel counts
+     */
+    public static ColorHistogram merge(List<ColorHistogram> histograms) {
+        if (histograms.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one histogram to merge.");
+        }
+        long[] bitset = new long[WORD_COUNT];
+        for (ColorHistogram histogram : histograms) {
+            if (histogram.counts == null) {
+                throw new IllegalArgumentException("The histograms to merge must have pixel counts.");
+            }
+            for (int word = 0; word < WORD_COUNT; word++) {
+                bitset[word] |= histogram.bitset[word];
+            }
+        }
+        ColorHistogram merged = fromBitset(bitset);
+
+        int[] counts = new int[merged.colors.length];
+        for (ColorHistogram histogram : histograms) {
+            for (int i = 0; i < histogram.colors.length; i++) {
+                int index = merged.indexOf(histogram.colors[i]);
+                counts[index] = Math.addExact(counts[index], histogram.counts[i]);
+            }
+        }
+        return new ColorHistogram(bitset, merged.ranks, merged.colors, counts);
+    }
+
+    /**
+     * Returns the index of a color among the unique colors.
+     *
+     * @param rgb the color (the alpha channel is ignored)
+     * @return the index of the color, or -1 if the image does not contain the color
+     */
+    public int indexOf(int rgb) {
+        int color = rgb & 0xFFFFFF;
+        int word = color >>> 6;
+        long bit = 1L << color;
+        if ((bitset[word] & bit) == 0) {
+            return -1;
+        }
+        return ranks[word] + Long.bitCount(bitset[word] & (bit - 1));
+    }
+
+    /**
+     * Returns the unique colors, in ascending RGB order.
+     *
+     * @return the unique colors as RGB values
+     */
+    public int[] getColors() {
+        return colors;
+    }
+
+    /**
+     * Returns the number of pixels of each unique color, in the order of {@link #getColors()}.
+     *
+     * @return the pixel counts, or null if the pixels were not counted
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Returns the number of unique colors.
+     *
+     * @return the unique color count
+     */
+    public int getUniqueColorCount() {
+        return colors.length;
+    }
+
+    /**
+     * Counts the pixels of each unique color in parallel over bands of rows. The number of bands is limited
+     * so that the per-band counters stay within a memory budget.
+     *
+     * @param image the image
+     * @return the number of pixels of each unique color
+     */
+    private int[] countPixels(BufferedImage image) {
+        int bandCount = getCountingBandCount(image.getHeight(), colors.length);
+        int[][] bandCounts = new int[bandCount][];
+        forEachBand(image, bandCount, (band, row) -> {
+            int[] localCounts = bandCounts[band];
+            if (localCounts == null) {
+                localCounts = new int[colors.length];
+                bandCounts[band] = localCounts;
+            }
+            for (int rgb : row) {
+                localCounts[indexOf(rgb)]++;
+            }
+        });
+
+        int[] totalCounts = new int[colors.length];
+        for (int[] localCounts : bandCounts) {
+            if (localCounts != null) {
+                for (int i = 0; i < totalCounts.length; i++) {
+                    totalCounts[i] += localCounts[i];
+                }
+            }
+        }
+        return totalCounts;
+    }
+
+    /**
+     * Returns the number of bands the pixels of an image are counted in. Every band has a counter per unique color,
+     * so the number of bands is limited to keep the counters within a memory budget of 64 MB.
+     *
+     * @param height           the height of the image
+     * @param uniqueColorCount the number of unique colors of the image
+     * @return the number of bands
+     */
+    public static int getCountingBandCount(int height, int uniqueColorCount) {
+        return Math.max(1, (int) Math.min(
+                getBandCount(height),
+                MAX_COUNTING_BYTES / ((long) Integer.BYTES * Math.max(1, uniqueColorCount))
+        ));
+    }
+
+    /**
+     * Builds the bitset of the colors present in an image, with one bitset per band merged at the end.
+     *
+     * @param image the image
+     * @return the bitset of the present colors
+     */
+    private static long[] buildBitset(BufferedImage image) {
+        int bandCount = getBandCount(image.getHeight());
+        long[][] bandBitsets = new long[bandCount][];
+        forEachBand(image, bandCount, (band, row) -> {
+            long[] bitset = bandBitsets[band];
+            if (bitset == null) {
+                bitset = new long[WORD_COUNT];
+                bandBitsets[band] = bitset;
+            }
+            for (int rgb : row) {
+                int color = rgb & 0xFFFFFF;
+                bitset[color >>> 6] |= 1L << color;
+            }
+        });
+
+        long[] merged = bandBitsets[0] != null ? bandBitsets[0] : new long[WORD_COUNT];
+        for (int band = 1; band < bandCount; band++) {
+            if (bandBitsets[band] != null) {
+                for (int word = 0; word < WORD_COUNT; word++) {
+                    merged[word] |= bandBitsets[band][word];
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the number of bands to split an image into, based on the number of available processors.
+     *
+     * @param height the height of the image
+     * @return the number of bands
+     */
+    private static int getBandCount(int height) {
+        return Math.max(1, Math.min(height, Math.min(MAX_BANDS, Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * Processes the rows of an image in parallel, split into consecutive bands of rows.
+     * The rows of each band are processed in order on a single thread.
+     *
+     * @param image     the image
+     * @param bandCount the number of bands
+     * @param consumer  receives the index of the band and each row of the band (the row array is reused)
+     */
+    private static void forEachBand(BufferedImage image, int bandCount, BandRowConsumer consumer) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        IntStream.range(0, bandCount).parallel().forEach(band -> {
+            int startY = (int) ((long) band * height / bandCount);
+            int endY = (int) ((long) (band + 1) * height / bandCount);
+            int[] row = new int[width];
+            for (int y = startY; y < endY; y++) {
+                ImageUtils.readRow(image, y, row);
+                consumer.accept(band, row);
+            }
+        });
+    }
+
+    /**
+     * Receives the rows of a band of an image.
+     */
+    private interface BandRowConsumer {
+        /**
+         * Processes a row of a band.
+         *
+         * @param band the index of the band
+         * @param row  the RGB values of the row
+         */
+        void accept(int band, int[] row);
+    }
+}
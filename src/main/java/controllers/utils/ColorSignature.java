@@ -0,0 +1,91 @@
+package main.java.controllers.utils;
+
+/**
+ * Represents a compact signature of the colors of an image: a coarse color histogram with a few bits per channel,
+ * normalized so that the weights of its bins sum up to 1. Images with similar colors (such as product shots against
+ * the same backdrop) have close signatures, so a palette trained on one of them is a good starting point for the others.
+ */
+public class ColorSignature {
+    private static final int BITS_PER_CHANNEL = 3; // The number of most significant bits of each channel used for binning
+    private static final int BIN_COUNT = 1 << (3 * BITS_PER_CHANNEL); // The number of bins of the histogram
+
+    private final double[] weights; // The fraction of the pixels of the image in each bin
+
+    /**
+     * Constructs a new ColorSignature from the fractions of the pixels in each bin.
+     *
+     * @param weights the fraction of the pixels in each bin
+     * @throws IllegalArgumentException if the number of weights does not match the number of bins
+     */
+    public ColorSignature(double[] weights) {
+        if (weights == null || weights.length != BIN_COUNT) {
+            throw new IllegalArgumentException("A color signature must have exactly " + BIN_COUNT + " weights.");
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Computes the signature of an image from its color histogram.
+     *
+     * @param histogram the color histogram of the image, with pixel counts
+     * @return the color signature of the image
+     * @throws IllegalArgumentException if the histogram has no pixel counts
+     */
+    public static ColorSignature of(ColorHistogram histogram) {
+        int[] counts = histogram.getCounts();
+        if (counts == null) {
+            throw new IllegalArgumentException("The color histogram must have pixel counts.");
+        }
+        int[] colors = histogram.getColors();
+        double[] weights = new double[BIN_COUNT];
+        long total = 0;
+        for (int i = 0; i < colors.length; i++) {
+            weights[binOf(colors[i])] += counts[i];
+            total += counts[i];
+        }
+        if (total > 0) {
+            for (int bin = 0; bin < BIN_COUNT; bin++) {
+                weights[bin] /= total;
+            }
+        }
+        return new ColorSignature(weights);
+    }
+
+    /**
+     * Computes the distance to another signature: the fraction of the pixels that would have to move to another bin
+     * to turn one histogram into the other (half of the L1 distance).
+     *
+     * @param other the other signature
+     * @return the distance, in [0, 1] (0 for identical signatures)
+     */
+    public double distanceTo(ColorSignature other) {
+        double distance = 0.0;
+        for (int bin = 0; bin < BIN_COUNT; bin++) {
+            distance += Math.abs(weights[bin] - other.weights[bin]);
+        }
+        return distance / 2;
+    }
+
+    /**
+     * Returns the fraction of the pixels in each bin.
+     *
+     * @return the weights of the bins
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Returns the bin of an RGB color.
+     *
+     * @param rgb the color
+     * @return the index of the bin
+     */
+    private static int binOf(int rgb) {
+        int shift = 8 - BITS_PER_CHANNEL;
+        int red = (rgb >> 16 & 0xFF) >> shift;
+        int green = (rgb >> 8 & 0xFF) >> shift;
+        int blue = (rgb & 0xFF) >> shift;
+        return (red << (2 * BITS_PER_CHANNEL)) | (green << BITS_PER_CHANNEL) | blue;
+    }
+}
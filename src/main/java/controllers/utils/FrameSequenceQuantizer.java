@@ -0,0 +1,357 @@
+package main.java.controllers.utils;
+
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.interfaces.Quantizer;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static main.java.controllers.utils.ImageUtils.*;
+
+/**
+ * Color-quantizes a sequence of frames (such as the frames of a video), reusing the palette of each frame as the
+ * starting point of the next one. Frame N+1 is trained for a few incremental epochs from the units of frame N, which is
+ * much faster than training from random units and keeps the palette from flickering between frames. When the colors
+ * change too much between two frames (a scene cut, detected by the distance of their color signatures), the quantizer
+ * is trained from scratch instead.
+ * <p>
+ * The frames are published through a {@link Flow.Publisher}, and decoding, quantizing and consuming (for example
+ * encoding) the frames run on separate threads, so the stages overlap. Each subscription quantizes the sequence once,
+ * on threads of its own that are shut down once the subscriber has received the last signal or has canceled.
+ */
+public class FrameSequenceQuantizer {
+    // The default signature distance between two frames above which the second frame starts a new scene
+    public static final double DEFAULT_SCENE_CUT_THRESHOLD = 0.3;
+    // The number of frames buffered between two stages
+    private static final int BUFFER_CAPACITY = 4;
+
+    private final Supplier<Quantizer> quantizerFactory; // Creates a new quantizer for each frame
+    private final ColorSpace colorSpace; // The color space the quantizers are trained in
+    private final int epochs; // The number of epochs to train at a scene cut
+    private final int incrementalEpochs; // The number of epochs to train from the palette of the previous frame
+    private final double sceneCutThreshold; // The signature distance above which a frame starts a new scene
+
+    /**
+     * Constructs a new FrameSequenceQuantizer.
+     *
+     * @param quantizerFactory  creates a new quantizer for each frame
+     * @param colorSpace        the color space the quantizers are trained in
+     * @param epochs            the number of epochs to train at a scene cut
+     * @param incrementalEpochs the number of epochs to train from the palette of the previous frame
+     * @param sceneCutThreshold the signature distance (in [0, 1]) above which a frame starts a new scene
+     * @throws IllegalArgumentException if the epochs are not positive or the threshold is not in [0, 1]
+     */
+    public FrameSequenceQuantizer(Supplier<Quantizer> quantizerFactory, ColorSpace colorSpace, int epochs,
+                                  int incrementalEpochs, double sceneCutThreshold) {
+        if (epochs <= 0 || incrementalEpochs <= 0) {
+            throw new IllegalArgumentException("The number of epochs must be positive.");
+        }
+        if (sceneCutThreshold < 0 || sceneCutThreshold > 1) {
+            throw new IllegalArgumentException("The scene cut threshold must be between 0 and 1.");
+        }
+        this.quantizerFactory = quantizerFactory;
+        this.colorSpace = colorSpace;
+        this.epochs = epochs;
+        this.incrementalEpochs = incrementalEpochs;
+        this.sceneCutThreshold = sceneCutThreshold;
+    }
+
+    /**
+     * Lists the PNG and JPEG frames of a directory, in the order of their file names.
+     *
+     * @param directory the directory of the frames
+     * @return the frame files, sorted by name
+     */
+    public static List<File> listFrames(File directory) {
+        File[] files = directory.listFiles((dir, name) -> {
+            String lowerCaseName = name.toLowerCase(Locale.ROOT);
+            return lowerCaseName.endsWith(".png") || lowerCaseName.endsWith(".jpg") || lowerCaseName.endsWith(".jpeg");
+        });
+        if (files == null) {
+            return List.of();
+        }
+        Arrays.sort(files);
+        return List.of(files);
+    }
+
+    /**
+     * Returns a publisher of the color-quantized frames, in sequence order. Nothing is decoded until a subscriber
+     * subscribes; canceling the subscription stops decoding and training after the current frame. Decoding or
+     * quantization errors are signaled to the subscriber with onError.
+     *
+     * @param frames the frame files, in sequence order
+     * @return the publisher of the color-quantized frames
+     */
+    public Flow.Publisher<QuantizedFrame> quantize(List<File> frames) {
+        return subscriber -> {
+            ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "frame-sequence");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // The executor delivers the signals of both stages, so it is shut down once both have terminated
+            AtomicInteger runningStages = new AtomicInteger(2);
+            Runnable stageTerminated = () -> {
+                if (runningStages.decrementAndGet() == 0) {
+                    executor.shutdown();
+                }
+            };
+            SubmissionPublisher<DecodedFrame> decoded = new SubmissionPublisher<>(executor, BUFFER_CAPACITY);
+            QuantizingProcessor processor = new QuantizingProcessor(executor, stageTerminated);
+            decoded.subscribe(processor);
+            processor.subscribe(new TerminatingSubscriber(subscriber, stageTerminated));
+            executor.execute(() -> decodeFrames(frames, decoded));
+        };
+    }
+
+    /**
+     * Decodes the frames one after another and submits them to the next stage, blocking while its buffer is full.
+     *
+     * @param frames  the frame files
+     * @param decoded the publisher of the decoded frames
+     */
+    private void decodeFrames(List<File> frames, SubmissionPublisher<DecodedFrame> decoded) {
+        try {
+            for (int index = 0; index < frames.size(); index++) {
+                // Stop when the quantization stage has canceled its subscription
+                if (!decoded.hasSubscribers()) {
+                    break;
+                }
+                QuantizationMetrics metrics = new QuantizationMetrics();
+                // Decoding runs no parallel streams, while the quantization stage uses the common pool at the same time
+                metrics.start(QuantizationMetrics.Phase.DECODE, false);
+                BufferedImage image = ImageIO.read(frames.get(index));
+                metrics.stop();
+                if (image == null) {
+                    throw new IOException("Unrecognized image format: " + frames.get(index).getName());
+                }
+                if (image.getColorModel().hasAlpha()) {
+                    metrics.start(QuantizationMetrics.Phase.ALPHA_FLATTENING, false);
+                    image = convertTransparentToColor(image, Color.WHITE);
+                    metrics.stop();
+                }
+                decoded.submit(new DecodedFrame(index, frames.get(index), image, metrics));
+            }
+            decoded.close();
+        } catch (IOException | RuntimeException e) {
+            decoded.closeExceptionally(e);
+        }
+    }
+
+    /**
+     * A decoded frame waiting to be quantized.
+     */
+    private static class DecodedFrame {
+        private final int index; // The index of the frame in the sequence
+        private final File source; // The file the frame was read from
+        private final BufferedImage image; // The decoded frame
+        private final QuantizationMetrics metrics; // The metrics of decoding the frame
+
+        /**
+         * Constructs a new DecodedFrame.
+         *
+         * @param index   the index of the frame in the sequence
+         * @param source  the file the frame was read from
+         * @param image   the decoded frame
+         * @param metrics the metrics of decoding the frame
+         */
+        private DecodedFrame(int index, File source, BufferedImage image, QuantizationMetrics metrics) {
+            this.index = index;
+            this.source = source;
+            this.image = image;
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Quantizes the decoded frames one at a time, starting each frame from the palette of the previous one unless
+     * there is a scene cut, and publishes the color-quantized frames.
+     */
+    private class QuantizingProcessor extends SubmissionPublisher<QuantizedFrame> implements Flow.Processor<DecodedFrame, QuantizedFrame> {
+        private final Runnable terminated; // Called once no more decoded frames will be received
+        private Flow.Subscription subscription; // The subscription to the decoded frames
+        private boolean done; // Whether the subscription to the decoded frames has ended
+        private Quantizer previousQuantizer; // The quantizer of the previous frame (null before the first frame)
+        private ColorSignature previousSignature; // The color signature of the previous frame
+
+        /**
+         * Constructs a new QuantizingProcessor.
+         *
+         * @param executor   the executor delivering the quantized frames to the subscriber
+         * @param terminated called once no more decoded frames will be received
+         */
+        private QuantizingProcessor(ExecutorService executor, Runnable terminated) {
+            super(executor, BUFFER_CAPACITY);
+            this.terminated = terminated;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(DecodedFrame frame) {
+            if (done) {
+                return;
+            }
+            // Stop when the consumer has canceled its subscription
+            if (!hasSubscribers()) {
+                subscription.cancel();
+                finish(null);
+                return;
+            }
+            try {
+                submit(quantizeFrame(frame));
+                subscription.request(1);
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                finish(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                finish(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                finish(null);
+            }
+        }
+
+        /**
+         * Ends the subscription to the decoded frames and closes the publisher of the quantized frames.
+         *
+         * @param throwable the error to signal to the subscriber, or null to complete normally
+         */
+        private void finish(Throwable throwable) {
+            done = true;
+            if (throwable == null) {
+                close();
+            } else {
+                closeExceptionally(throwable);
+            }
+            terminated.run();
+        }
+
+        /**
+         * Quantizes one frame, from the palette of the previous frame unless the colors changed too much.
+         *
+         * @param frame the decoded frame
+         * @return the color-quantized frame
+         */
+        private QuantizedFrame quantizeFrame(DecodedFrame frame) {
+            // One histogram serves both the scene cut detection and the extraction
+            QuantizationMetrics metrics = frame.metrics;
+            metrics.start(QuantizationMetrics.Phase.UNIQUE_COLOR_COUNTING);
+            ColorHistogram histogram = computeColorHistogram(frame.image);
+            metrics.stop();
+            ColorSignature signature = ColorSignature.of(histogram);
+            boolean sceneCut = previousQuantizer == null || previousSignature.distanceTo(signature) > sceneCutThreshold;
+
+            Quantizer quantizer = quantizerFactory.get();
+            ColorExtractionResult extraction = extractColors(frame.image, histogram, colorSpace, metrics, quantizer.getPrecision());
+            if (!sceneCut) {
+                quantizer.warmStart(previousQuantizer.getUnitsDeepCopy());
+                metrics.setCounter(QuantizationMetrics.WARM_STARTS, 1);
+            }
+            metrics.start(QuantizationMetrics.Phase.TRAINING);
+            extraction.train(quantizer, sceneCut ? epochs : incrementalEpochs);
+            metrics.stop();
+            metrics.setCounter(QuantizationMetrics.EPOCHS_RUN, quantizer.getEpochsRun());
+            RemapResult result = remapColors(frame.image, extraction, quantizer, colorSpace, metrics);
+
+            previousQuantizer = quantizer;
+            previousSignature = signature;
+            return new QuantizedFrame(frame.index, frame.source, result, quantizer, sceneCut, metrics);
+        }
+    }
+
+    /**
+     * Forwards the signals of the quantized frames to the subscriber of a sequence, and reports when the subscriber
+     * has received the last signal or has canceled its subscription.
+     */
+    private static class TerminatingSubscriber implements Flow.Subscriber<QuantizedFrame> {
+        private final Flow.Subscriber<? super QuantizedFrame> subscriber; // The subscriber of the sequence
+        private final Runnable terminated; // Called once the subscriber will not receive any more signals
+        private final AtomicBoolean done = new AtomicBoolean(); // Whether the terminated callback has been called
+
+        /**
+         * Constructs a new TerminatingSubscriber.
+         *
+         * @param subscriber the subscriber of the sequence
+         * @param terminated called once the subscriber will not receive any more signals
+         */
+        private TerminatingSubscriber(Flow.Subscriber<? super QuantizedFrame> subscriber, Runnable terminated) {
+            this.subscriber = subscriber;
+            this.terminated = terminated;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    terminate();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(QuantizedFrame frame) {
+            subscriber.onNext(frame);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            try {
+                subscriber.onError(throwable);
+            } finally {
+                terminate();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                subscriber.onComplete();
+            } finally {
+                terminate();
+            }
+        }
+
+        /**
+         * Reports the termination once, however the subscription ended.
+         */
+        private void terminate() {
+            if (done.compareAndSet(false, true)) {
+                terminated.run();
+            }
+        }
+    }
+}
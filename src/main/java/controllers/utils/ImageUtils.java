@@ -2,21 +2,33 @@ package main.java.controllers.utils;
 
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.interfaces.ColorSpace;
 import main.java.models.interfaces.Quantizer;
+import main.java.models.utils.ErrorHeatmap;
+import main.java.models.utils.IntegerPaletteSearch;
+import main.java.models.utils.QualityMetrics;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.image.IndexColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Provides utility methods for working with images.
  */
 public class ImageUtils {
+    private static final int HEATMAP_TILE_SIZE = 16; // The width and height of a tile of the error heatmap
+
     /**
      * Determines the file format on a provided image file based on the file extension.
      *
@@ -37,34 +49,524 @@ public class ImageUtils {
     }
 
     /**
-     * Extracts the colors from a BufferedImage and returns a result containing color data
+     * Extracts the colors from a BufferedImage and returns a result containing normalized sRGB color data
      * and the count of unique colors in the image.
      *
      * @param image the input BufferedImage
      * @return a ColorExtractionResult containing extracted color data
      */
     public static ColorExtractionResult extractColors(BufferedImage image) {
-        // A set to track unique colors
-        Set<Integer> uniqueColors = new HashSet<>();
+        return extractColors(image, new SRGBColorSpace());
+    }
+
+    /**
+     * Extracts the colors from a BufferedImage, converted to the specified color space, and returns a result
+     * containing color data and the count of unique colors in the image.
+     * Each unique color is converted only once, and pixels of the same color share the same coordinates array.
+     *
+     * @param image      the input BufferedImage
+     * @param colorSpace the color space to convert the colors to
+     * @return a ColorExtractionResult containing extracted color data
+     */
+    public static ColorExtractionResult extractColors(BufferedImage image, ColorSpace colorSpace) {
+        return extractColors(image, colorSpace, new QuantizationMetrics());
+    }
+
+    /**
+     * Extracts the colors from a BufferedImage, converted to the specified color space, and returns a result
+     * containing color data and the count of unique colors in the image.
+     * Each unique color is converted only once, and pixels of the same color share the same coordinates array.
+     * The unique colors are found with a parallel bitset ({@link ColorHistogram}), recorded as the unique color
+     * counting phase; converting them and filling the rows in parallel is recorded as the extraction phase.
+     *
+     * @param image      the input BufferedImage
+     * @param colorSpace the color space to convert the colors to
+     * @param metrics    the metrics to record the phases and the unique color count in
+     * @return a ColorExtractionResult containing extracted color data
+     */
+    public static ColorExtractionResult extractColors(BufferedImage image, ColorSpace colorSpace, QuantizationMetrics metrics) {
+        return extractColors(image, colorSpace, metrics, Quantizer.Precision.DOUBLE);
+    }
+
+    /**
+     * Extracts the colors from a BufferedImage, converted to the specified color space, in the specified precision.
+     * The unique colors are found as in {@link #extractColors(BufferedImage, ColorSpace, QuantizationMetrics)}.
+     *
+     * @param image      the input BufferedImage
+     * @param colorSpace the color space to convert the colors to
+     * @param metrics    the metrics to record the phases and the unique color count in
+     * @param precision  the precision to extract the colors in, usually the precision of the quantizer to train
+     * @return a ColorExtractionResult containing extracted color data
+     */
+    public static ColorExtractionResult extractColors(BufferedImage image, ColorSpace colorSpace, QuantizationMetrics metrics, Quantizer.Precision precision) {
+        metrics.start(QuantizationMetrics.Phase.UNIQUE_COLOR_COUNTING);
+        ColorHistogram histogram = ColorHistogram.of(image, false);
+        metrics.stop();
+        return extractColors(image, histogram, colorSpace, metrics, precision);
+    }
+
+    /**
+     * Extracts the colors from a BufferedImage whose unique colors have already been found, converted to the specified
+     * color space. Converting the unique colors and filling the rows in parallel is recorded as the extraction phase.
+     *
+     * @param image      the input BufferedImage
+     * @param histogram  the color histogram of the image (with or without pixel counts)
+     * @param colorSpace the color space to convert the colors to
+     * @param metrics    the metrics to record the phase and the unique color count in
+     * @return a ColorExtractionResult containing extracted color data
+     */
+    public static ColorExtractionResult extractColors(BufferedImage image, ColorHistogram histogram, ColorSpace colorSpace, QuantizationMetrics metrics) {
+        return extractColors(image, histogram, colorSpace, metrics, Quantizer.Precision.DOUBLE);
+    }
+
+    /**
+     * Extracts the colors from a BufferedImage whose unique colors have already been found, converted to the specified
+     * color space, in the specified precision. In single precision, the coordinates of the unique colors are stored
+     * back to back in one float array, and every pixel holds the index of its unique color, so the pixels take four
+     * bytes each and the colors half the bytes of double precision. Converting the unique colors and filling the rows
+     * in parallel is recorded as the extraction phase.
+     *
+     * @param image      the input BufferedImage
+     * @param histogram  the color histogram of the image (with or without pixel counts)
+     * @param colorSpace the color space to convert the colors to
+     * @param metrics    the metrics to record the phase and the unique color count in
+     * @param precision  the precision to extract the colors in, usually the precision of the quantizer to train
+     * @return a ColorExtractionResult containing extracted color data
+     */
+    public static ColorExtractionResult extractColors(
+            BufferedImage image,
+            ColorHistogram histogram,
+            ColorSpace colorSpace,
+            QuantizationMetrics metrics,
+            Quantizer.Precision precision
+    ) {
+        if (precision == Quantizer.Precision.FLOAT) {
+            return extractFloatColors(image, histogram, colorSpace, metrics);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        metrics.start(QuantizationMetrics.Phase.EXTRACTION);
+        // The converted coordinates of each unique color, shared by all pixels of that color
+        int[] uniqueColors = histogram.getColors();
+        double[][] convertedColors = new double[uniqueColors.length][];
+        IntStream.range(0, uniqueColors.length).parallel()
+                .forEach(i -> convertedColors[i] = colorSpace.fromRgb(uniqueColors[i]));
+
+        double[][] colors = new double[width * height][];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int[] row = new int[width];
+            readRow(image, y, row);
+            int index = y * width;
+            for (int x = 0; x < width; x++) {
+                colors[index + x] = convertedColors[histogram.indexOf(row[x])];
+            }
+        });
+        metrics.stop();
+
+        metrics.setCounter(QuantizationMetrics.PIXELS, (long) width * height);
+        metrics.setCounter(QuantizationMetrics.UNIQUE_COLORS, uniqueColors.length);
+        return new ColorExtractionResult(colors, histogram);
+    }
+
+    /**
+     * Extracts the colors from a BufferedImage in single precision: the converted coordinates of the unique colors
+     * back to back, and the index of the unique color of every pixel.
+     *
+     * @param image      the input BufferedImage
+     * @param histogram  the color histogram of the image
+     * @param colorSpace the color space to convert the colors to
+     * @param metrics    the metrics to record the phase and the unique color count in
+     * @return a ColorExtractionResult containing the single-precision color data
+     */
+    private static ColorExtractionResult extractFloatColors(BufferedImage image, ColorHistogram histogram, ColorSpace colorSpace, QuantizationMetrics metrics) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        metrics.start(QuantizationMetrics.Phase.EXTRACTION);
+        int[] uniqueColors = histogram.getColors();
+        int dimension = colorSpace.fromRgb(0).length;
+        float[] coordinates = new float[uniqueColors.length * dimension];
+        IntStream.range(0, uniqueColors.length).parallel().forEach(i -> {
+            double[] converted = colorSpace.fromRgb(uniqueColors[i]);
+            for (int d = 0; d < dimension; d++) {
+                coordinates[i * dimension + d] = (float) converted[d];
+            }
+        });
+
+        int[] pixelColorIndexes = new int[width * height];
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int[] row = new int[width];
+            readRow(image, y, row);
+            int index = y * width;
+            for (int x = 0; x < width; x++) {
+                pixelColorIndexes[index + x] = histogram.indexOf(row[x]);
+            }
+        });
+        metrics.stop();
+
+        metrics.setCounter(QuantizationMetrics.PIXELS, (long) width * height);
+        metrics.setCounter(QuantizationMetrics.UNIQUE_COLORS, uniqueColors.length);
+        return new ColorExtractionResult(coordinates, dimension, pixelColorIndexes, histogram);
+    }
+
+    /**
+     * Finds the unique colors of an image and the number of pixels of each of them (the full color histogram),
+     * for example to weight the colors during training.
+     *
+     * @param image the image
+     * @return the color histogram of the image
+     */
+    public static ColorHistogram computeColorHistogram(BufferedImage image) {
+        return ColorHistogram.of(image, true);
+    }
+
+    /**
+     * Reads one row of an image into an array. Images with integer pixels are copied directly from their
+     * data buffer, so the alpha bits of the values are unspecified for images without an alpha channel.
+     *
+     * @param image the image
+     * @param y     the row to read
+     * @param row   the array receiving the RGB values of the row (at least as long as the width of the image)
+     */
+    public static void readRow(BufferedImage image, int y, int[] row) {
+        int width = image.getWidth();
+        WritableRaster raster = image.getRaster();
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && raster.getDataBuffer() instanceof DataBufferInt dataBuffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+            int stride = sampleModel.getScanlineStride();
+            int offset = dataBuffer.getOffset() + (y - raster.getSampleModelTranslateY()) * stride
+                    - raster.getSampleModelTranslateX();
+            System.arraycopy(dataBuffer.getData(), offset, row, 0, width);
+        } else {
+            image.getRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+
+    /**
+     * Remaps every pixel of an image to the closest unit of a trained quantizer and builds the color-quantized image.
+     * The closest unit of each unique color is only searched for once.
+     *
+     * @param image      the input BufferedImage
+     * @param extraction the colors extracted from the image in the color space the quantizer was trained in
+     * @param quantizer  the trained quantizer
+     * @param colorSpace the color space the quantizer was trained in
+     * @return a RemapResult containing the color-quantized image, the pixels of each unit and the quality metrics
+     */
+    public static RemapResult remapColors(BufferedImage image, ColorExtractionResult extraction, Quantizer quantizer, ColorSpace colorSpace) {
+        return remapColors(image, extraction, quantizer, colorSpace, new QuantizationMetrics());
+    }
+
+    /**
+     * Remaps every pixel of an image to the closest unit of a trained quantizer and builds the color-quantized image.
+     * The closest unit of each unique color is only searched for once, and is cached in a primitive array indexed by
+     * the unique colors found during the extraction ({@link ColorHistogram}). The colors first seen in a row are searched for
+     * together with one bulk search ({@link Quantizer#findClosestIndices}), in the precision the colors were extracted
+     * in. The heatmap of the largest errors is
+     * recorded in the same pass over the pixels, and the other quality metrics ({@link QualityMetrics}) are computed
+     * afterwards from the pixel count of each unique color, as a separate phase. The errors are measured in sRGB
+     * against the colors the quantized image is drawn with.
+     *
+     * @param image      the input BufferedImage
+     * @param extraction the colors extracted from the image in the color space the quantizer was trained in
+     * @param quantizer  the trained quantizer
+     * @param colorSpace the color space the quantizer was trained in
+     * @param metrics    the metrics to record the phases and the remap cache hits and misses in
+     * @return a RemapResult containing the color-quantized image, the pixels of each unit and the quality metrics
+     */
+    public static RemapResult remapColors(
+            BufferedImage image,
+            ColorExtractionResult extraction,
+            Quantizer quantizer,
+            ColorSpace colorSpace,
+            QuantizationMetrics metrics
+    ) {
+        return remapColors(image, extraction, quantizer, colorSpace, metrics, rows -> {
+        });
+    }
+
+    /**
+     * Remaps every pixel of an image to the closest unit of a trained quantizer and builds the color-quantized image,
+     * reporting the progress after every row. The progress callback may throw an unchecked exception
+     * (such as a CancellationException) to abort the remapping.
+     *
+     * @param image       the input BufferedImage
+     * @param extraction  the colors extracted from the image in the color space the quantizer was trained in
+     * @param quantizer   the trained quantizer
+     * @param colorSpace  the color space the quantizer was trained in
+     * @param metrics     the metrics to record the phases and the remap cache hits and misses in
+     * @param rowProgress a callback which receives the number of rows remapped so far
+     * @return a RemapResult containing the color-quantized image, the pixels of each unit and the quality metrics
+     */
+    public static RemapResult remapColors(
+            BufferedImage image,
+            ColorExtractionResult extraction,
+            Quantizer quantizer,
+            ColorSpace colorSpace,
+            QuantizationMetrics metrics,
+            IntConsumer rowProgress
+    ) {
+        metrics.start(QuantizationMetrics.Phase.REMAP);
         int width = image.getWidth();
         int height = image.getHeight();
-        double[][] colors = new double[width * height][3];
+        // The colors of the pixels in double precision, or the colors of the unique colors in single precision
+        boolean single = extraction.getPrecision() == Quantizer.Precision.FLOAT;
+        double[][] inputColors = single ? null : extraction.getColors();
+        float[] uniqueColorCoordinates = extraction.getUniqueColorCoordinates();
+
+        // The color of every unit as an RGB value
+        int[] unitRgb = snapPalette(quantizer, colorSpace);
+        int unitCount = unitRgb.length;
 
+        // The index of the closest unit (-1 until the color is first seen) and the pixel count of each unique color
+        ColorHistogram histogram = extraction.getHistogram();
+        int[] closestUnits = new int[histogram.getUniqueColorCount()];
+        Arrays.fill(closestUnits, -1);
+        int[] pixelCounts = new int[histogram.getUniqueColorCount()];
+        // The pixels of each unit (null for units without pixels)
+        List<List<Point>> unitPixels = new ArrayList<>(Collections.nCopies(unitCount, null));
+
+        BufferedImage quantizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[width];
+        int[] quantizedRow = new int[width];
+        // The squared error of every pixel of the row, recorded in the heatmap
+        int[] rowErrors = new int[width];
+        ErrorHeatmap heatmap = new ErrorHeatmap(width, height, HEATMAP_TILE_SIZE);
+        // The unique color of every pixel of the row, and the colors of the row that were not seen before,
+        // whose closest units are searched for in bulk
+        int[] rowColorIndexes = new int[width];
+        int dimension = extraction.getDimension();
+        double[] newColors = single ? null : new double[width * dimension];
+        float[] newFloatColors = single ? new float[width * dimension] : null;
+        int[] newColorIndexes = new int[width];
+        int[] newColorUnits = new int[width];
         int index = 0;
+        long cacheHits = 0;
         for (int y = 0; y < height; y++) {
+            readRow(image, y, row);
+            int newColorCount = 0;
             for (int x = 0; x < width; x++) {
-                int rgbColor = image.getRGB(x, y);
-                Color color = new Color(rgbColor);
-                colors[index] = new double[]{
-                        color.getRed() / 255.0,
-                        color.getGreen() / 255.0,
-                        color.getBlue() / 255.0
-                };
-                uniqueColors.add(rgbColor);
+                int colorIndex = histogram.indexOf(row[x]);
+                rowColorIndexes[x] = colorIndex;
+                if (closestUnits[colorIndex] == -1) {
+                    // Mark the color as pending, so it is only searched for once even if it repeats in the row
+                    closestUnits[colorIndex] = -2;
+                    if (single) {
+                        System.arraycopy(uniqueColorCoordinates, colorIndex * dimension, newFloatColors, newColorCount * dimension, dimension);
+                    } else {
+                        System.arraycopy(inputColors[index], 0, newColors, newColorCount * dimension, dimension);
+                    }
+                    newColorIndexes[newColorCount] = colorIndex;
+                    newColorCount++;
+                } else {
+                    // The closest unit of the color is already known (or pending)
+                    cacheHits++;
+                }
                 index++;
             }
+            if (single) {
+                quantizer.findClosestIndices(newFloatColors, 0, newColorCount, newColorUnits, null);
+            } else {
+                quantizer.findClosestIndices(newColors, 0, newColorCount, newColorUnits, null);
+            }
+            for (int i = 0; i < newColorCount; i++) {
+                closestUnits[newColorIndexes[i]] = newColorUnits[i];
+            }
+
+            for (int x = 0; x < width; x++) {
+                int colorIndex = rowColorIndexes[x];
+                int unit = closestUnits[colorIndex];
+                pixelCounts[colorIndex]++;
+
+                quantizedRow[x] = unitRgb[unit];
+                rowErrors[x] = IntegerPaletteSearch.squaredDistance(row[x], unitRgb[unit]);
+                addPixel(unitPixels, unit, x, y);
+            }
+            heatmap.recordRow(y, rowErrors, width);
+            quantizedImage.setRGB(0, y, width, 1, quantizedRow, 0, width);
+            rowProgress.accept(y + 1);
+        }
+
+        Map<Object, List<Point>> pixelMap = keyPixelsByUnit(quantizer, unitPixels);
+        metrics.stop();
+        metrics.incrementCounter(QuantizationMetrics.REMAP_CACHE_HITS, cacheHits);
+        metrics.incrementCounter(QuantizationMetrics.REMAP_CACHE_MISSES, closestUnits.length);
+
+        // Compute the quality metrics (always measured in sRGB) from the pixel count of each unique color
+        metrics.start(QuantizationMetrics.Phase.ERROR_COMPUTATION);
+        QualityMetrics qualityMetrics = QualityMetrics.fromHistogram(histogram.getColors(), pixelCounts, closestUnits, unitRgb, heatmap);
+        metrics.stop();
+        return new RemapResult(quantizedImage, pixelMap, qualityMetrics);
+    }
+
+    /**
+     * Remaps every pixel of an image to the closest color of the palette of a trained quantizer, in integer arithmetic,
+     * and builds the color-quantized image. The units are snapped to the 8-bit RGB colors the quantized image is drawn
+     * with, and each unique color of the image is matched to the closest of them with squared integer distances on the
+     * packed RGB values read from the raster ({@link IntegerPaletteSearch}), so no pixel is converted to floating
+     * point. Only the unique colors of the image are needed, not the colors extracted for training. The quality metrics
+     * are computed as in {@link #remapColors}.
+     * <p>
+     * This matches the remapping of {@link #remapColors} for quantizers that are trained in sRGB with the Euclidean
+     * distance, except that pixels are matched to the snapped palette colors rather than to the unit coordinates.
+     *
+     * @param image       the input BufferedImage
+     * @param histogram   the color histogram of the image (with or without pixel counts)
+     * @param quantizer   the trained quantizer
+     * @param colorSpace  the color space the quantizer was trained in
+     * @param metrics     the metrics to record the phases and the remap cache hits and misses in
+     * @param rowProgress a callback which receives the number of rows remapped so far
+     * @return a RemapResult containing the color-quantized image, the pixels of each unit and the quality metrics
+     */
+    public static RemapResult remapColorsToPalette(
+            BufferedImage image,
+            ColorHistogram histogram,
+            Quantizer quantizer,
+            ColorSpace colorSpace,
+            QuantizationMetrics metrics,
+            IntConsumer rowProgress
+    ) {
+        metrics.start(QuantizationMetrics.Phase.REMAP);
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        // The palette the quantized image is drawn with
+        int[] unitRgb = snapPalette(quantizer, colorSpace);
+        int unitCount = unitRgb.length;
+        IntegerPaletteSearch paletteSearch = new IntegerPaletteSearch(unitRgb);
+
+        // The index of the closest palette color (-1 until the color is first seen) and the pixel count
+        // of each unique color
+        int[] closestUnits = new int[histogram.getUniqueColorCount()];
+        Arrays.fill(closestUnits, -1);
+        int[] pixelCounts = new int[histogram.getUniqueColorCount()];
+        // The pixels of each unit (null for units without pixels)
+        List<List<Point>> unitPixels = new ArrayList<>(Collections.nCopies(unitCount, null));
+
+        BufferedImage quantizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[width];
+        int[] quantizedRow = new int[width];
+        // The squared error of every pixel of the row, recorded in the heatmap
+        int[] rowErrors = new int[width];
+        ErrorHeatmap heatmap = new ErrorHeatmap(width, height, HEATMAP_TILE_SIZE);
+        long cacheHits = 0;
+        for (int y = 0; y < height; y++) {
+            readRow(image, y, row);
+            for (int x = 0; x < width; x++) {
+                int colorIndex = histogram.indexOf(row[x]);
+                int unit = closestUnits[colorIndex];
+                if (unit == -1) {
+                    unit = paletteSearch.findClosestIndex(row[x]);
+                    closestUnits[colorIndex] = unit;
+                } else {
+                    cacheHits++;
+                }
+                pixelCounts[colorIndex]++;
+
+                quantizedRow[x] = unitRgb[unit];
+                rowErrors[x] = IntegerPaletteSearch.squaredDistance(row[x], unitRgb[unit]);
+                addPixel(unitPixels, unit, x, y);
+            }
+            heatmap.recordRow(y, rowErrors, width);
+            quantizedImage.setRGB(0, y, width, 1, quantizedRow, 0, width);
+            rowProgress.accept(y + 1);
         }
-        return new ColorExtractionResult(colors, uniqueColors.size());
+
+        Map<Object, List<Point>> pixelMap = keyPixelsByUnit(quantizer, unitPixels);
+        metrics.stop();
+        metrics.incrementCounter(QuantizationMetrics.REMAP_CACHE_HITS, cacheHits);
+        metrics.incrementCounter(QuantizationMetrics.REMAP_CACHE_MISSES, closestUnits.length);
+
+        // Compute the quality metrics from the pixel count of each unique color
+        metrics.start(QuantizationMetrics.Phase.ERROR_COMPUTATION);
+        QualityMetrics qualityMetrics = QualityMetrics.fromHistogram(histogram.getColors(), pixelCounts, closestUnits, unitRgb, heatmap);
+        metrics.stop();
+        return new RemapResult(quantizedImage, pixelMap, qualityMetrics);
+    }
+
+    /**
+     * Estimates the quality metrics of remapping an image to the palette of a trained quantizer from a random sample
+     * of its pixels, without remapping the image. This is much faster than a remap for parameter sweeps, where the
+     * histogram of the image is computed once and the palettes of many quantizers are scored against it. The sampled
+     * colors are converted to the color space and assigned with the bulk search of the quantizer, and their errors are
+     * measured against the snapped palette, exactly as {@link #remapColors} maps and measures the pixels, so the
+     * estimate converges to the metrics of the remap.
+     *
+     * @param histogram  the histogram of the image, with pixel counts
+     * @param quantizer  the trained quantizer
+     * @param colorSpace the color space the quantizer was trained in
+     * @param sampleSize the number of pixels to sample
+     * @param seed       the seed of the random number generator for the sample
+     * @return the estimated quality metrics
+     * @throws IllegalArgumentException if the histogram has no pixel counts, the quantizer has no units
+     *                                  or the sample size is not positive
+     */
+    public static QualityMetrics estimateQuality(ColorHistogram histogram, Quantizer quantizer, ColorSpace colorSpace, int sampleSize, long seed) {
+        if (histogram.getCounts() == null) {
+            throw new IllegalArgumentException("The histogram must have pixel counts.");
+        }
+        int[] colors = histogram.getColors();
+        int[] sampledColors = QualityMetrics.samplePixels(histogram.getCounts(), sampleSize, seed);
+        int dimension = colorSpace.fromRgb(0).length;
+        double[] inputs = new double[sampleSize * dimension];
+        for (int sample = 0; sample < sampleSize; sample++) {
+            System.arraycopy(colorSpace.fromRgb(colors[sampledColors[sample]]), 0, inputs, sample * dimension, dimension);
+        }
+        int[] sampleUnits = new int[sampleSize];
+        quantizer.findClosestIndices(inputs, 0, sampleSize, sampleUnits, null);
+        return QualityMetrics.estimate(colors, histogram.getCounts(), sampledColors, sampleUnits, snapPalette(quantizer, colorSpace));
+    }
+
+    /**
+     * Returns the palette of a trained quantizer as the 8-bit RGB colors the quantized image is drawn with.
+     *
+     * @param quantizer  the trained quantizer
+     * @param colorSpace the color space the quantizer was trained in
+     * @return the RGB value of every unit, by unit index
+     */
+    private static int[] snapPalette(Quantizer quantizer, ColorSpace colorSpace) {
+        int[] unitRgb = new int[quantizer.unitCount()];
+        for (int unit = 0; unit < unitRgb.length; unit++) {
+            unitRgb[unit] = getColorFromUnitCoordinates(quantizer.getUnitCoordinates(unit), colorSpace).getRGB();
+        }
+        return unitRgb;
+    }
+
+    /**
+     * Adds a pixel to the pixels of a unit, creating the list of the unit on its first pixel.
+     *
+     * @param unitPixels the pixels of each unit (null for units without pixels)
+     * @param unit       the index of the unit
+     * @param x          the x coordinate of the pixel
+     * @param y          the y coordinate of the pixel
+     */
+    private static void addPixel(List<List<Point>> unitPixels, int unit, int x, int y) {
+        List<Point> pixels = unitPixels.get(unit);
+        if (pixels == null) {
+            pixels = new ArrayList<>();
+            unitPixels.set(unit, pixels);
+        }
+        pixels.add(new Point(x, y));
+    }
+
+    /**
+     * Keys the pixels of each unit by the unit objects of the quantizer, leaving out the units without pixels.
+     *
+     * @param quantizer  the quantizer
+     * @param unitPixels the pixels of each unit, by unit index (null for units without pixels)
+     * @return a map of each unit with pixels to its pixels
+     */
+    private static Map<Object, List<Point>> keyPixelsByUnit(Quantizer quantizer, List<List<Point>> unitPixels) {
+        Map<Object, List<Point>> pixelMap = new HashMap<>();
+        List<Object> units = quantizer.getUnits();
+        for (int unit = 0; unit < unitPixels.size(); unit++) {
+            if (unitPixels.get(unit) != null) {
+                pixelMap.put(units.get(unit), unitPixels.get(unit));
+            }
+        }
+        return pixelMap;
     }
 
     /**
@@ -76,6 +578,19 @@ public class ImageUtils {
      * @return the resized FX image
      */
     public static Image resizeAndConvertToFxImage(BufferedImage originalImage, int width, int height) {
+        // Convert the resized BufferedImage to a FX Image
+        return SwingFXUtils.toFXImage(resizeImage(originalImage, width, height), null);
+    }
+
+    /**
+     * Resizes a BufferedImage to the specified dimensions using bilinear interpolation.
+     *
+     * @param originalImage the original BufferedImage to resize
+     * @param width         the target width
+     * @param height        the target height
+     * @return the resized BufferedImage
+     */
+    public static BufferedImage resizeImage(BufferedImage originalImage, int width, int height) {
         // Create a new BufferedImage with the desired dimensions
         BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
@@ -84,9 +599,7 @@ public class ImageUtils {
         g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
         g2d.drawImage(originalImage, 0, 0, width, height, null);
         g2d.dispose();
-
-        // Convert the BufferedImage to a FX Image
-        return SwingFXUtils.toFXImage(resizedImage, null);
+        return resizedImage;
     }
 
     /**
@@ -125,9 +638,16 @@ public class ImageUtils {
      * @param colorToPixelsMap a map of color keys to pixel coordinates
      * @param outputFile       the file to save the image to
      * @param quantizer        the quantizer used to determine colors
+     * @param colorSpace       the color space the quantizer was trained in
      * @throws IOException if an error occurs during file writing
      */
-    public static void saveAs8BitPng(BufferedImage image, Map<Object, List<Point>> colorToPixelsMap, File outputFile, Quantizer quantizer) throws IOException {
+    public static void saveAs8BitPng(
+            BufferedImage image,
+            Map<Object, List<Point>> colorToPixelsMap,
+            File outputFile,
+            Quantizer quantizer,
+            ColorSpace colorSpace
+    ) throws IOException {
         int width = image.getWidth();
         int height = image.getHeight();
 
@@ -139,7 +659,7 @@ public class ImageUtils {
         // Collect unique colors and map them to indices
         int colorIndex = 0;
         for (Object key : colorToPixelsMap.keySet()) {
-            Color color = getColorFromUnitCoordinates(quantizer.getUnitCoordinates(key));
+            Color color = getColorFromUnitCoordinates(quantizer.getUnitCoordinates(key), colorSpace);
             int rgb = color.getRGB();
 
             // If this color hasn't been added to the map yet, add it
@@ -164,7 +684,7 @@ public class ImageUtils {
         // Iterate over the map to set the pixel values in the indexed image
         for (Map.Entry<Object, List<Point>> entry : colorToPixelsMap.entrySet()) {
             double[] unitCoordinates = quantizer.getUnitCoordinates(entry.getKey());
-            int rgb = getColorFromUnitCoordinates(unitCoordinates).getRGB();
+            int rgb = getColorFromUnitCoordinates(unitCoordinates, colorSpace).getRGB();
             int colorIndexForPixel = colorToIndex.get(rgb);
 
             for (Point p : entry.getValue()) {
@@ -190,6 +710,17 @@ public class ImageUtils {
         );
     }
 
+    /**
+     * Converts an array of unit coordinates in the specified color space to a Color object.
+     *
+     * @param unitCoordinates the unit coordinates
+     * @param colorSpace      the color space of the unit coordinates
+     * @return a Color object corresponding to the unit coordinates
+     */
+    public static Color getColorFromUnitCoordinates(double[] unitCoordinates, ColorSpace colorSpace) {
+        return getColorFromUnitCoordinates(colorSpace.toNormalizedRgb(unitCoordinates));
+    }
+
     /**
      * Converts a BufferedImage with transparency (alpha channel) to a BufferedImage with a solid background color.
      * The method creates a new BufferedImage without an alpha channel, fills it with a specified background color,
@@ -0,0 +1,141 @@
+package main.java.controllers.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores trained palettes (the units of a quantizer) together with the color signature of the image they were trained
+ * on, so that quantizing a similar image can start from the palette of the nearest signature (through
+ * {@link main.java.models.interfaces.Quantizer#setUnits(List)}) and train for far fewer epochs.
+ * <p>
+ * Palettes are grouped by a configuration key (such as the algorithm, the number of units and the color space), since
+ * units can only be reused by a quantizer with the same configuration. The store keeps a limited number of palettes and
+ * evicts the least recently used one when it is full. Instances are thread-safe.
+ */
+public class PaletteStore {
+    // The default maximum number of stored palettes
+    public static final int DEFAULT_CAPACITY = 32;
+    // Palettes whose signatures are closer than this replace each other instead of being stored twice
+    private static final double DUPLICATE_DISTANCE = 0.01;
+
+    private final int capacity; // The maximum number of stored palettes
+    private final List<Entry> entries = new ArrayList<>(); // The stored palettes, from least to most recently used
+
+    /**
+     * Constructs a new PaletteStore with the default capacity.
+     */
+    public PaletteStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new PaletteStore with the specified capacity.
+     *
+     * @param capacity the maximum number of stored palettes
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public PaletteStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Stores a trained palette. A stored palette with the same configuration and a (nearly) identical signature
+     * is replaced.
+     *
+     * @param configuration the configuration key of the quantizer
+     * @param signature     the color signature of the image the palette was trained on
+     * @param units         a deep copy of the units of the trained quantizer
+     */
+    public synchronized void save(String configuration, ColorSignature signature, List<Object> units) {
+        Entry nearest = findNearestEntry(configuration, signature);
+        if (nearest != null && nearest.signature.distanceTo(signature) < DUPLICATE_DISTANCE) {
+            entries.remove(nearest);
+        } else if (entries.size() == capacity) {
+            entries.remove(0);
+        }
+        entries.add(new Entry(configuration, signature, units));
+    }
+
+    /**
+     * Finds the stored palette with the nearest signature. The palette is shared with the store, so it must not
+     * be modified (quantizers copy the units they are given).
+     *
+     * @param configuration the configuration key of the quantizer
+     * @param signature     the color signature of the image to quantize
+     * @param maxDistance   the maximum distance between the signatures
+     * @return the units of the nearest palette, or null if no palette of the configuration is close enough
+     */
+    public synchronized List<Object> findNearest(String configuration, ColorSignature signature, double maxDistance) {
+        Entry nearest = findNearestEntry(configuration, signature);
+        if (nearest == null || nearest.signature.distanceTo(signature) > maxDistance) {
+            return null;
+        }
+        // Mark the palette as the most recently used
+        entries.remove(nearest);
+        entries.add(nearest);
+        return nearest.units;
+    }
+
+    /**
+     * Returns the number of stored palettes.
+     *
+     * @return the number of stored palettes
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all stored palettes.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Finds the stored palette of a configuration with the nearest signature.
+     *
+     * @param configuration the configuration key of the quantizer
+     * @param signature     the color signature
+     * @return the nearest entry, or null if there is no palette of the configuration
+     */
+    private Entry findNearestEntry(String configuration, ColorSignature signature) {
+        Entry nearest = null;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (Entry entry : entries) {
+            if (entry.configuration.equals(configuration)) {
+                double distance = entry.signature.distanceTo(signature);
+                if (distance < nearestDistance) {
+                    nearest = entry;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * A stored palette.
+     */
+    private static class Entry {
+        private final String configuration; // The configuration key of the quantizer
+        private final ColorSignature signature; // The color signature of the image the palette was trained on
+        private final List<Object> units; // The trained units
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param configuration the configuration key of the quantizer
+         * @param signature     the color signature of the image the palette was trained on
+         * @param units         the trained units
+         */
+        private Entry(String configuration, ColorSignature signature, List<Object> units) {
+            this.configuration = configuration;
+            this.signature = signature;
+            this.units = units;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package main.java.controllers.utils;
+
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.nio.IntBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * Renders downscaled previews of BufferedImages into a reusable JavaFX image. The preview is computed directly from
+ * the raster of the source image by averaging the source pixels covered by each preview pixel (in parallel over the
+ * preview rows), and written into a {@link WritableImage} backed by a {@link PixelBuffer}, so no intermediate
+ * images are allocated. The preview is cached until the source image or its version changes.
+ * <p>
+ * Rendering updates the JavaFX image, so {@link #render(BufferedImage, long)} must be called on the
+ * JavaFX Application Thread.
+ */
+public class PreviewRenderer {
+    private final int width; // The width of the preview
+    private final int height; // The height of the preview
+    private final int[] pixels; // The pixels of the preview, shared with the pixel buffer
+    private final PixelBuffer<IntBuffer> pixelBuffer; // The pixel buffer backing the preview image
+    private final WritableImage image; // The preview image
+    private BufferedImage renderedSource; // The source image of the current preview, or null
+    private long renderedVersion; // The version of the source image of the current preview
+
+    /**
+     * Constructs a PreviewRenderer which renders previews of the specified size.
+     *
+     * @param width  the width of the preview
+     * @param height the height of the preview
+     * @throws IllegalArgumentException if the width or height is not positive
+     */
+    public PreviewRenderer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("The width and height of the preview must be greater than zero.");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.pixelBuffer = new PixelBuffer<>(width, height, IntBuffer.wrap(pixels), PixelFormat.getIntArgbPreInstance());
+        this.image = new WritableImage(pixelBuffer);
+    }
+
+    /**
+     * Renders a preview of an image. If the same image with the same version was rendered last, the cached preview
+     * is returned without rendering it again. The same JavaFX image is returned (and updated) by every call.
+     *
+     * @param source  the image to render a preview of
+     * @param version the version of the image (it must change whenever the pixels of the image change)
+     * @return the preview image
+     */
+    public WritableImage render(BufferedImage source, long version) {
+        if (source == renderedSource && version == renderedVersion) {
+            return image;
+        }
+        pixelBuffer.updateBuffer(buffer -> {
+            downscale(source, pixels, width, height);
+            // The whole buffer changed
+            return null;
+        });
+        renderedSource = source;
+        renderedVersion = version;
+        return image;
+    }
+
+    /**
+     * Scales an image to the specified size by averaging the source pixels covered by each target pixel
+     * (or by repeating source pixels when scaling up). The target rows are computed in parallel.
+     * Images with integer pixels are read directly from their data buffer, and other images one row at a time
+     * through {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+     *
+     * @param source       the image to scale
+     * @param target       the array to write the opaque ARGB pixels of the scaled image to, in row-major order
+     * @param targetWidth  the width of the scaled image
+     * @param targetHeight the height of the scaled image
+     * @throws IllegalArgumentException if the target array is smaller than the scaled image
+     */
+    public static void downscale(BufferedImage source, int[] target, int targetWidth, int targetHeight) {
+        if (target.length < targetWidth * targetHeight) {
+            throw new IllegalArgumentException("The target array is smaller than the scaled image.");
+        }
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        // The source columns covered by each target column
+        int[] columnStarts = new int[targetWidth];
+        int[] columnEnds = new int[targetWidth];
+        for (int x = 0; x < targetWidth; x++) {
+            columnStarts[x] = (int) ((long) x * sourceWidth / targetWidth);
+            columnEnds[x] = Math.max(columnStarts[x] + 1, (int) ((long) (x + 1) * sourceWidth / targetWidth));
+        }
+
+        // The data buffer of images with integer pixels (null for other images)
+        int[] data = null;
+        int dataOffset = 0;
+        int stride = 0;
+        Raster raster = source.getRaster();
+        int type = source.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && raster.getDataBuffer() instanceof DataBufferInt dataBuffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+            data = dataBuffer.getData();
+            stride = sampleModel.getScanlineStride();
+            dataOffset = dataBuffer.getOffset()
+                    - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+        }
+        int[] sourceData = data;
+        int sourceOffset = dataOffset;
+        int sourceStride = stride;
+
+        IntStream.range(0, targetHeight).parallel().forEach(targetY -> {
+            int startY = (int) ((long) targetY * sourceHeight / targetHeight);
+            int endY = Math.max(startY + 1, (int) ((long) (targetY + 1) * sourceHeight / targetHeight));
+            // The sums of the red, green and blue values of the source pixels covered by each target pixel
+            long[] sums = new long[targetWidth * 3];
+            int[] row = sourceData == null ? new int[sourceWidth] : null;
+
+            for (int y = startY; y < endY; y++) {
+                int[] pixels;
+                int offset;
+                if (sourceData != null) {
+                    pixels = sourceData;
+                    offset = sourceOffset + y * sourceStride;
+                } else {
+                    source.getRGB(0, y, sourceWidth, 1, row, 0, sourceWidth);
+                    pixels = row;
+                    offset = 0;
+                }
+                for (int targetX = 0; targetX < targetWidth; targetX++) {
+                    int red = 0;
+                    int green = 0;
+                    int blue = 0;
+                    for (int x = offset + columnStarts[targetX], end = offset + columnEnds[targetX]; x < end; x++) {
+                        int rgb = pixels[x];
+                        red += (rgb >> 16) & 0xFF;
+                        green += (rgb >> 8) & 0xFF;
+                        blue += rgb & 0xFF;
+                    }
+                    sums[targetX * 3] += red;
+                    sums[targetX * 3 + 1] += green;
+                    sums[targetX * 3 + 2] += blue;
+                }
+            }
+
+            int rowCount = endY - startY;
+            for (int targetX = 0; targetX < targetWidth; targetX++) {
+                long count = (long) rowCount * (columnEnds[targetX] - columnStarts[targetX]);
+                // Round to the nearest value
+                target[targetY * targetWidth + targetX] = 0xFF000000
+                        | (int) ((sums[targetX * 3] + count / 2) / count) << 16
+                        | (int) ((sums[targetX * 3 + 1] + count / 2) / count) << 8
+                        | (int) ((sums[targetX * 3 + 2] + count / 2) / count);
+            }
+        });
+    }
+}
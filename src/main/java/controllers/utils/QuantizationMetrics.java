@@ -0,0 +1,401 @@
+package main.java.controllers.utils;
+
+import main.java.models.utils.ErrorHeatmap;
+import main.java.models.utils.QualityMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Represents the metrics of one run of the color-quantization pipeline: the wall time and the bytes allocated by
+ * each phase, a set of named counters (such as the remap cache hits and the epochs actually run) and optionally the
+ * quality metrics of the quantized image. A phase can be measured several times, in which case its measurements
+ * are summed.
+ * <p>
+ * Allocations are measured with the {@link com.sun.management.ThreadMXBean}, summed over the thread that measures the
+ * phase and, unless the phase is started with {@link #start(Phase, boolean)} without them, the worker threads of the
+ * common fork-join pool, which run the parallel streams of the phases. The pool workers are resolved once when a phase
+ * starts, and again when it stops only if the pool has started workers in the meantime (they are counted from their
+ * start). Every phase must be started and stopped on the same thread.
+ * <p>
+ * The common pool is shared by the whole JVM, so the allocations of the pool workers cannot be attributed to a single
+ * pipeline. Everything the workers allocate while a phase is measured is counted in it, including the parallel work
+ * of other pipelines that run at the same time (such as the stages of a {@link FrameSequenceQuantizer}). Workers that
+ * end during a phase, or that replace an ended worker without growing the pool, are not counted. The allocated bytes of a phase are therefore exact for the
+ * measuring thread and an approximation for the pool. Phases that run no parallel streams and overlap other pipelines
+ * should be measured without the pool.
+ * If the JVM does not support measuring allocations, the allocated bytes of every phase are reported as -1.
+ * Instances are not thread-safe.
+ */
+public class QuantizationMetrics {
+    /**
+     * The phases of the color-quantization pipeline.
+     */
+    public enum Phase {
+        DECODE, // Reading and decoding the image file
+        ALPHA_FLATTENING, // Replacing the transparent background of the image
+        EXTRACTION, // Converting the unique colors to the color space and building the input data
+        UNIQUE_COLOR_COUNTING, // Finding the unique colors of the image
+        TRAINING, // Training the quantizer
+        REMAP, // Mapping every pixel to the closest unit
+        ERROR_COMPUTATION, // Computing the mean squared quantization error
+        PREVIEW_SCALING, // Scaling images down for display
+        ENCODING // Encoding the color-quantized image
+    }
+
+    // The name of the counter of the colors found in the remap cache
+    public static final String REMAP_CACHE_HITS = "remapCacheHits";
+    // The name of the counter of the colors not found in the remap cache
+    public static final String REMAP_CACHE_MISSES = "remapCacheMisses";
+    // The name of the counter of the epochs the quantizer actually ran
+    public static final String EPOCHS_RUN = "epochsRun";
+    // The name of the counter of the trainings started from a stored palette
+    public static final String WARM_STARTS = "warmStarts";
+    // The name of the counter of the unique colors in the image
+    public static final String UNIQUE_COLORS = "uniqueColors";
+    // The name of the counter of the pixels in the image
+    public static final String PIXELS = "pixels";
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = createThreadMXBean();
+    // The name prefix of the worker threads of the common fork-join pool
+    private static final String COMMON_POOL_WORKER_PREFIX = "ForkJoinPool.commonPool-worker-";
+    private static final long[] NO_THREADS = new long[0]; // The thread IDs measured without the common pool
+
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class); // The wall time of each measured phase
+    private final Map<Phase, Long> allocatedBytes = new EnumMap<>(Phase.class); // The bytes allocated by each measured phase
+    private final Map<String, Long> counters = new LinkedHashMap<>(); // The counters, in insertion order
+    private QualityMetrics qualityMetrics; // The quality metrics of the quantized image (null if not set)
+    private Phase currentPhase; // The phase being measured, or null
+    private long phaseStartNanos; // The time the current phase was started at
+    private long phaseStartBytes; // The bytes allocated by the measuring thread when the current phase was started
+    private long[] phaseWorkerIds; // The IDs of the pool workers measured in the current phase
+    private long[] phaseWorkerStartBytes; // The bytes allocated by each measured pool worker when the phase was started
+    private int phasePoolSize; // The number of workers of the common pool when the current phase was started
+
+    /**
+     * Starts measuring a phase, counting the allocations of the current thread and of the workers of the common
+     * fork-join pool.
+     *
+     * @param phase the phase to measure
+     * @throws IllegalStateException if another phase is already being measured
+     */
+    public void start(Phase phase) {
+        start(phase, true);
+    }
+
+    /**
+     * Starts measuring a phase. The allocations of the current thread are always counted. The workers of the
+     * common fork-join pool should only be counted if the phase runs parallel streams.
+     *
+     * @param phase             the phase to measure
+     * @param includeCommonPool whether to count the allocations of the workers of the common fork-join pool
+     * @throws IllegalStateException if another phase is already being measured
+     */
+    public void start(Phase phase, boolean includeCommonPool) {
+        if (currentPhase != null) {
+            throw new IllegalStateException("The phase " + currentPhase + " is already being measured.");
+        }
+        currentPhase = phase;
+        if (THREAD_MX_BEAN != null) {
+            phasePoolSize = includeCommonPool ? ForkJoinPool.commonPool().getPoolSize() : -1;
+            phaseWorkerIds = includeCommonPool ? commonPoolWorkerIds() : NO_THREADS;
+            phaseWorkerStartBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(phaseWorkerIds);
+            phaseStartBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        }
+        phaseStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops measuring the current phase and adds its measurements to the phase.
+     *
+     * @throws IllegalStateException if no phase is being measured
+     */
+    public void stop() {
+        long elapsedNanos = System.nanoTime() - phaseStartNanos;
+        if (currentPhase == null) {
+            throw new IllegalStateException("No phase is being measured.");
+        }
+        record(currentPhase, elapsedNanos, THREAD_MX_BEAN == null ? -1 : allocatedBytesSinceStart());
+        currentPhase = null;
+    }
+
+    /**
+     * Adds measurements to a phase.
+     *
+     * @param phase          the phase
+     * @param elapsedNanos   the wall time of the phase in nanoseconds
+     * @param allocatedBytes the bytes allocated by the phase, or -1 if unknown
+     */
+    public void record(Phase phase, long elapsedNanos, long allocatedBytes) {
+        nanos.merge(phase, elapsedNanos, Long::sum);
+        this.allocatedBytes.merge(phase, allocatedBytes, (a, b) -> a < 0 || b < 0 ? -1 : a + b);
+    }
+
+    /**
+     * Adds a value to a counter.
+     *
+     * @param name  the name of the counter
+     * @param delta the value to add
+     */
+    public void incrementCounter(String name, long delta) {
+        counters.merge(name, delta, Long::sum);
+    }
+
+    /**
+     * Sets the value of a counter.
+     *
+     * @param name  the name of the counter
+     * @param value the value of the counter
+     */
+    public void setCounter(String name, long value) {
+        counters.put(name, value);
+    }
+
+    /**
+     * Sets the quality metrics of the quantized image, which are exported with the other metrics.
+     *
+     * @param qualityMetrics the quality metrics, or null to remove them
+     */
+    public void setQualityMetrics(QualityMetrics qualityMetrics) {
+        this.qualityMetrics = qualityMetrics;
+    }
+
+    /**
+     * Returns the quality metrics of the quantized image.
+     *
+     * @return the quality metrics, or null if they have not been set
+     */
+    public QualityMetrics getQualityMetrics() {
+        return qualityMetrics;
+    }
+
+    /**
+     * Adds all measurements and counters of other metrics to these metrics. The quality metrics are not added,
+     * since they describe a single image.
+     *
+     * @param other the metrics to add
+     */
+    public void merge(QuantizationMetrics other) {
+        for (Phase phase : other.nanos.keySet()) {
+            record(phase, other.nanos.get(phase), other.allocatedBytes.get(phase));
+        }
+        other.counters.forEach(this::incrementCounter);
+    }
+
+    /**
+     * Returns whether a phase has been measured.
+     *
+     * @param phase the phase
+     * @return true if the phase has been measured, false otherwise
+     */
+    public boolean isMeasured(Phase phase) {
+        return nanos.containsKey(phase);
+    }
+
+    /**
+     * Returns the wall time of a phase.
+     *
+     * @param phase the phase
+     * @return the wall time in nanoseconds (0 if the phase has not been measured)
+     */
+    public long getNanos(Phase phase) {
+        return nanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * Returns the bytes allocated by a phase.
+     *
+     * @param phase the phase
+     * @return the allocated bytes (0 if the phase has not been measured, -1 if allocations cannot be measured)
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * Returns the sum of the wall times of all measured phases.
+     *
+     * @return the total wall time in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long phaseNanos : nanos.values()) {
+            total += phaseNanos;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the value of a counter.
+     *
+     * @param name the name of the counter
+     * @return the value of the counter (0 if it has not been set)
+     */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Returns the fraction of the remapped pixels whose color was found in the remap cache.
+     *
+     * @return the remap cache hit rate, in [0, 1] (0 if nothing has been remapped)
+     */
+    public double getRemapCacheHitRate() {
+        long hits = getCounter(REMAP_CACHE_HITS);
+        long lookups = hits + getCounter(REMAP_CACHE_MISSES);
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the metrics as a JSON object, with the measured phases in pipeline order, the counters,
+     * the remap cache hit rate and the quality metrics if they are set: the MSQE, the PSNR (null if the image is
+     * reproduced exactly), the population and MSQE of every palette color, and the error heatmap (null if it was not
+     * recorded) as the largest squared error of every tile in row-major order.
+     *
+     * @return the JSON representation of the metrics
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"phases\": {");
+        String separator = "\n";
+        for (Map.Entry<Phase, Long> entry : nanos.entrySet()) {
+            json.append(separator)
+                    .append("    \"").append(entry.getKey().name().toLowerCase(Locale.ROOT)).append("\": {")
+                    .append("\"nanos\": ").append(entry.getValue())
+                    .append(", \"allocatedBytes\": ").append(allocatedBytes.get(entry.getKey()))
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append(nanos.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"totalNanos\": ").append(getTotalNanos()).append(",\n");
+        json.append("  \"counters\": {");
+        separator = "\n";
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ",\n";
+        }
+        json.append(counters.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"remapCacheHitRate\": ").append(String.format(Locale.ROOT, "%.6f", getRemapCacheHitRate()));
+        if (qualityMetrics != null) {
+            json.append(",\n  \"quality\": ");
+            appendQualityMetrics(json);
+        }
+        return json.append("\n}").toString();
+    }
+
+    /**
+     * Appends the quality metrics to a JSON object being built.
+     *
+     * @param json the JSON being built
+     */
+    private void appendQualityMetrics(StringBuilder json) {
+        double peakSignalToNoiseRatio = qualityMetrics.getPeakSignalToNoiseRatio();
+        json.append("{\n    \"meanSquaredError\": ")
+                .append(String.format(Locale.ROOT, "%.6f", qualityMetrics.getMeanSquaredError()))
+                .append(",\n    \"peakSignalToNoiseRatio\": ")
+                .append(Double.isInfinite(peakSignalToNoiseRatio) ? "null" : String.format(Locale.ROOT, "%.6f", peakSignalToNoiseRatio))
+                .append(",\n    \"maxSquaredError\": ").append(qualityMetrics.getMaxSquaredError())
+                .append(",\n    \"estimate\": ").append(qualityMetrics.isEstimate())
+                .append(",\n    \"units\": [");
+        for (int unit = 0; unit < qualityMetrics.getUnitCount(); unit++) {
+            json.append(unit == 0 ? "\n" : ",\n")
+                    .append("      {\"population\": ").append(qualityMetrics.getUnitPopulation(unit))
+                    .append(", \"meanSquaredError\": ")
+                    .append(String.format(Locale.ROOT, "%.6f", qualityMetrics.getUnitMeanSquaredError(unit)))
+                    .append('}');
+        }
+        json.append(qualityMetrics.getUnitCount() == 0 ? "],\n" : "\n    ],\n");
+        ErrorHeatmap heatmap = qualityMetrics.getHeatmap();
+        json.append("    \"heatmap\": ");
+        if (heatmap == null) {
+            json.append("null");
+        } else {
+            json.append("{\"tileSize\": ").append(heatmap.getTileSize())
+                    .append(", \"columns\": ").append(heatmap.getColumns())
+                    .append(", \"rows\": ").append(heatmap.getRows())
+                    .append(", \"maxSquaredErrors\": [");
+            int[] maxSquaredErrors = heatmap.getMaxSquaredErrors();
+            for (int tile = 0; tile < maxSquaredErrors.length; tile++) {
+                json.append(tile == 0 ? "" : ", ").append(maxSquaredErrors[tile]);
+            }
+            json.append("]}");
+        }
+        json.append("\n  }");
+    }
+
+    /**
+     * Returns the bytes allocated by the measuring thread and the measured pool workers since the current phase was
+     * started. A pool worker that has ended since is not counted. If the pool has grown during the phase, the workers
+     * are resolved again and the new ones are counted from their start.
+     *
+     * @return the allocated bytes
+     */
+    private long allocatedBytesSinceStart() {
+        long total = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - phaseStartBytes;
+        long[] workerIds = phaseWorkerIds;
+        if (phasePoolSize >= 0 && ForkJoinPool.commonPool().getPoolSize() > phasePoolSize) {
+            workerIds = commonPoolWorkerIds();
+        }
+        long[] workerBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(workerIds);
+        for (int i = 0; i < workerIds.length; i++) {
+            if (workerBytes[i] < 0) {
+                continue;
+            }
+            long startBytes = 0;
+            for (int j = 0; j < phaseWorkerIds.length; j++) {
+                if (phaseWorkerIds[j] == workerIds[i]) {
+                    startBytes = Math.max(0, phaseWorkerStartBytes[j]);
+                    break;
+                }
+            }
+            total += workerBytes[i] - startBytes;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the IDs of the running workers of the common fork-join pool, except the current thread. The threads are
+     * looked up by name through the thread MX bean, without their stack traces, and only if the pool has any workers.
+     *
+     * @return the thread IDs of the pool workers
+     */
+    private static long[] commonPoolWorkerIds() {
+        if (ForkJoinPool.commonPool().getPoolSize() == 0) {
+            return NO_THREADS;
+        }
+        String currentThreadName = Thread.currentThread().getName();
+        ThreadInfo[] threads = THREAD_MX_BEAN.getThreadInfo(THREAD_MX_BEAN.getAllThreadIds(), 0);
+        long[] threadIds = new long[threads.length];
+        int count = 0;
+        for (ThreadInfo thread : threads) {
+            // Worker names are unique, so a phase measured on a pool worker does not count that worker twice
+            if (thread != null && thread.getThreadName().startsWith(COMMON_POOL_WORKER_PREFIX)
+                    && !thread.getThreadName().equals(currentThreadName)) {
+                threadIds[count++] = thread.getThreadId();
+            }
+        }
+        return Arrays.copyOf(threadIds, count);
+    }
+
+    /**
+     * Returns the thread MX bean if it supports measuring allocations, enabling the measurement if needed.
+     *
+     * @return the thread MX bean, or null if allocations cannot be measured
+     */
+    private static com.sun.management.ThreadMXBean createThreadMXBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return sunBean;
+        }
+        return null;
+    }
+}
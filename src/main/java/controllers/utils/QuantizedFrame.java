@@ -0,0 +1,91 @@
+package main.java.controllers.utils;
+
+import main.java.models.interfaces.Quantizer;
+
+import java.io.File;
+
+/**
+ * Represents one color-quantized frame of an image sequence.
+ */
+public class QuantizedFrame {
+    private final int index; // The index of the frame in the sequence
+    private final File source; // The file the frame was read from
+    private final RemapResult result; // The color-quantized frame and its pixel map
+    private final Quantizer quantizer; // The quantizer trained for the frame
+    private final boolean sceneCut; // Whether the quantizer was trained from scratch (first frame or scene change)
+    private final QuantizationMetrics metrics; // The metrics of decoding and quantizing the frame
+
+    /**
+     * Constructs a new QuantizedFrame.
+     *
+     * @param index     the index of the frame in the sequence
+     * @param source    the file the frame was read from
+     * @param result    the color-quantized frame and its pixel map
+     * @param quantizer the quantizer trained for the frame
+     * @param sceneCut  whether the quantizer was trained from scratch
+     * @param metrics   the metrics of decoding and quantizing the frame
+     */
+    public QuantizedFrame(int index, File source, RemapResult result, Quantizer quantizer, boolean sceneCut, QuantizationMetrics metrics) {
+        this.index = index;
+        this.source = source;
+        this.result = result;
+        this.quantizer = quantizer;
+        this.sceneCut = sceneCut;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the index of the frame in the sequence.
+     *
+     * @return the index of the frame
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the file the frame was read from.
+     *
+     * @return the source file
+     */
+    public File getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the color-quantized frame and its pixel map.
+     *
+     * @return the remap result of the frame
+     */
+    public RemapResult getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the quantizer trained for the frame.
+     *
+     * @return the quantizer
+     */
+    public Quantizer getQuantizer() {
+        return quantizer;
+    }
+
+    /**
+     * Returns whether the quantizer was trained from scratch, because this is the first frame or the colors
+     * changed too much since the previous frame.
+     *
+     * @return true if the frame starts a new scene, false if it reused the palette of the previous frame
+     */
+    public boolean isSceneCut() {
+        return sceneCut;
+    }
+
+    /**
+     * Returns the metrics of decoding and quantizing the frame.
+     *
+     * @return the metrics of the frame
+     */
+    public QuantizationMetrics getMetrics() {
+        return metrics;
+    }
+}
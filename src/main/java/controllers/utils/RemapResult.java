@@ -0,0 +1,68 @@
+package main.java.controllers.utils;
+
+import main.java.models.utils.QualityMetrics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the result of remapping an image to the units of a trained quantizer, containing the color-quantized
+ * image, the pixels assigned to each unit and the quality metrics of the quantized image.
+ */
+public class RemapResult {
+    private final BufferedImage quantizedImage; // The color-quantized image
+    private final Map<Object, List<Point>> pixelMap; // The pixels assigned to each unit
+    private final QualityMetrics qualityMetrics; // The quality metrics of the quantized image
+
+    /**
+     * Constructs a new RemapResult with the specified image, pixel mapping and quality metrics.
+     *
+     * @param quantizedImage the color-quantized image
+     * @param pixelMap       a map of each unit to the coordinates of the pixels assigned to it
+     * @param qualityMetrics the quality metrics of the quantized image
+     */
+    public RemapResult(BufferedImage quantizedImage, Map<Object, List<Point>> pixelMap, QualityMetrics qualityMetrics) {
+        this.quantizedImage = quantizedImage;
+        this.pixelMap = pixelMap;
+        this.qualityMetrics = qualityMetrics;
+    }
+
+    /**
+     * Returns the color-quantized image.
+     *
+     * @return the color-quantized image
+     */
+    public BufferedImage getQuantizedImage() {
+        return quantizedImage;
+    }
+
+    /**
+     * Returns the mapping of each unit to the coordinates of the pixels assigned to it.
+     *
+     * @return a map of units to pixel coordinates
+     */
+    public Map<Object, List<Point>> getPixelMap() {
+        return pixelMap;
+    }
+
+    /**
+     * Returns the mean squared quantization error, measured in sRGB on the 0 - 255 scale.
+     *
+     * @return the MSQE
+     */
+    public double getMeanSquaredQuantizationError() {
+        return qualityMetrics.getMeanSquaredError();
+    }
+
+    /**
+     * Returns the quality metrics of the quantized image (MSQE, PSNR, the error and population of every unit
+     * and the heatmap of the largest errors).
+     *
+     * @return the quality metrics
+     */
+    public QualityMetrics getQualityMetrics() {
+        return qualityMetrics;
+    }
+}
@@ -0,0 +1,225 @@
+package main.java.controllers.utils;
+
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.interfaces.Quantizer;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static main.java.controllers.utils.ImageUtils.*;
+
+/**
+ * Trains one palette for a whole batch of images (such as a sprite sheet or a set of UI icons), so that all of them
+ * share the same colors. The color histograms of the images are computed in parallel and merged, the quantizer is
+ * trained once on the merged colors weighted by their pixel counts, and every image is then remapped to the shared
+ * palette.
+ * <p>
+ * The training data holds every unique color of the batch as many times as its share of the pixels, reduced to at most
+ * a fixed number of samples, so large batches do not need one entry per pixel. Pixels of the same color share the same
+ * coordinates array, or, for a quantizer in single precision, the same coordinates in one float array of all colors.
+ */
+public class SharedPaletteQuantizer {
+    // The default maximum number of samples in the training data
+    public static final int DEFAULT_MAX_TRAINING_SAMPLES = 1 << 22;
+
+    private final ColorSpace colorSpace; // The color space the quantizer is trained in
+    private final int maxTrainingSamples; // The maximum number of samples in the training data
+
+    /**
+     * Constructs a new SharedPaletteQuantizer with the default maximum number of training samples.
+     *
+     * @param colorSpace the color space the quantizer is trained in
+     */
+    public SharedPaletteQuantizer(ColorSpace colorSpace) {
+        this(colorSpace, DEFAULT_MAX_TRAINING_SAMPLES);
+    }
+
+    /**
+     * Constructs a new SharedPaletteQuantizer.
+     *
+     * @param colorSpace         the color space the quantizer is trained in
+     * @param maxTrainingSamples the maximum number of samples in the training data
+     * @throws IllegalArgumentException if the maximum number of training samples is not positive
+     */
+    public SharedPaletteQuantizer(ColorSpace colorSpace, int maxTrainingSamples) {
+        if (maxTrainingSamples <= 0) {
+            throw new IllegalArgumentException("The maximum number of training samples must be positive.");
+        }
+        this.colorSpace = colorSpace;
+        this.maxTrainingSamples = maxTrainingSamples;
+    }
+
+    /**
+     * Computes the color histograms of the images in parallel and merges them.
+     *
+     * @param images the images of the batch
+     * @return the histogram of all pixels of the batch, with pixel counts
+     * @throws IllegalArgumentException if there are no images
+     */
+    public ColorHistogram computeMergedHistogram(List<BufferedImage> images) {
+        if (images.isEmpty()) {
+            throw new IllegalArgumentException("The batch must contain at least one image.");
+        }
+        // Reducing in pairs keeps only a few histograms alive at a time
+        return images.parallelStream()
+                .map(ImageUtils::computeColorHistogram)
+                .reduce((first, second) -> ColorHistogram.merge(List.of(first, second)))
+                .orElseThrow();
+    }
+
+    /**
+     * Creates the training data of a histogram: its colors converted to the color space, each one repeated in
+     * proportion to its pixel count (by systematic sampling over the cumulative pixel counts).
+     *
+     * @param histogram the histogram, with pixel counts
+     * @return the weighted training data
+     * @throws IllegalArgumentException if the histogram has no pixel counts
+     */
+    public double[][] createTrainingData(ColorHistogram histogram) {
+        int[] counts = histogram.getCounts();
+        if (counts == null) {
+            throw new IllegalArgumentException("The histogram must have pixel counts.");
+        }
+        int[] colors = histogram.getColors();
+        double[][] convertedColors = new double[colors.length][];
+        IntStream.range(0, colors.length).parallel()
+                .forEach(i -> convertedColors[i] = colorSpace.fromRgb(colors[i]));
+
+        int[] sampleColors = sampleColors(counts);
+        double[][] data = new double[sampleColors.length][];
+        for (int sample = 0; sample < sampleColors.length; sample++) {
+            data[sample] = convertedColors[sampleColors[sample]];
+        }
+        return data;
+    }
+
+    /**
+     * Picks the unique color of every training sample of a histogram, each color repeated in proportion to its pixel
+     * count (by systematic sampling over the cumulative pixel counts).
+     *
+     * @param counts the pixel count of every unique color
+     * @return the index of the unique color of every sample
+     */
+    private int[] sampleColors(int[] counts) {
+        long totalPixels = 0;
+        for (int count : counts) {
+            totalPixels += count;
+        }
+        int sampleCount = (int) Math.min(totalPixels, maxTrainingSamples);
+        int[] sampleColors = new int[sampleCount];
+        int color = 0;
+        long cumulativeCount = counts[0];
+        for (int sample = 0; sample < sampleCount; sample++) {
+            // The pixel at the middle of the sample's share of all pixels
+            long pixel = (long) ((sample + 0.5) * totalPixels / sampleCount);
+            while (pixel >= cumulativeCount) {
+                color++;
+                cumulativeCount += counts[color];
+            }
+            sampleColors[sample] = color;
+        }
+        return sampleColors;
+    }
+
+    /**
+     * Converts the colors of a histogram to the color space in single precision, back to back in one float array,
+     * for training a quantizer in single precision.
+     *
+     * @param histogram the histogram
+     * @param dimension the dimension of the coordinates of a color
+     * @return the coordinates of the colors, color i at index i * dimension
+     */
+    private float[] convertColorsInSinglePrecision(ColorHistogram histogram, int dimension) {
+        int[] colors = histogram.getColors();
+        float[] convertedColors = new float[colors.length * dimension];
+        IntStream.range(0, colors.length).parallel().forEach(i -> {
+            double[] converted = colorSpace.fromRgb(colors[i]);
+            for (int d = 0; d < dimension; d++) {
+                convertedColors[i * dimension + d] = (float) converted[d];
+            }
+        });
+        return convertedColors;
+    }
+
+    /**
+     * Trains the quantizer once on the merged colors of all images.
+     *
+     * @param quantizer the quantizer to train
+     * @param unitCount the number of units the quantizer is configured with (an untrained quantizer may have none yet)
+     * @param images    the images of the batch
+     * @param epochs    the number of epochs to train
+     * @param metrics   the metrics to record the phases in
+     * @throws IllegalArgumentException if there are no images, or the batch has no more unique colors than the
+     *                                  quantizer has units
+     */
+    public void train(Quantizer quantizer, int unitCount, List<BufferedImage> images, int epochs, QuantizationMetrics metrics) {
+        metrics.start(QuantizationMetrics.Phase.UNIQUE_COLOR_COUNTING);
+        ColorHistogram histogram = computeMergedHistogram(images);
+        metrics.stop();
+        metrics.setCounter(QuantizationMetrics.UNIQUE_COLORS, histogram.getUniqueColorCount());
+        if (histogram.getUniqueColorCount() <= unitCount) {
+            throw new IllegalArgumentException("The images have fewer unique colors than the number specified for quantization. Please choose a lower color count or different images.");
+        }
+
+        if (quantizer.getPrecision() == Quantizer.Precision.FLOAT) {
+            // The samples are the indexes of their colors in one float array of all colors
+            metrics.start(QuantizationMetrics.Phase.EXTRACTION);
+            int dimension = colorSpace.fromRgb(0).length;
+            float[] convertedColors = convertColorsInSinglePrecision(histogram, dimension);
+            int[] sampleColors = sampleColors(histogram.getCounts());
+            metrics.stop();
+
+            metrics.start(QuantizationMetrics.Phase.TRAINING);
+            quantizer.train(convertedColors, dimension, sampleColors, epochs);
+            metrics.stop();
+        } else {
+            metrics.start(QuantizationMetrics.Phase.EXTRACTION);
+            double[][] data = createTrainingData(histogram);
+            metrics.stop();
+
+            metrics.start(QuantizationMetrics.Phase.TRAINING);
+            quantizer.train(data, epochs);
+            metrics.stop();
+        }
+        metrics.setCounter(QuantizationMetrics.EPOCHS_RUN, quantizer.getEpochsRun());
+    }
+
+    /**
+     * Remaps every image of the batch to the palette of a trained quantizer.
+     *
+     * @param quantizer the trained quantizer
+     * @param images    the images of the batch
+     * @param metrics   the metrics to record the phases in
+     * @return the remap result of each image, in the order of the images
+     */
+    public List<RemapResult> remap(Quantizer quantizer, List<BufferedImage> images, QuantizationMetrics metrics) {
+        List<RemapResult> results = new ArrayList<>(images.size());
+        for (BufferedImage image : images) {
+            results.add(remap(quantizer, image, metrics));
+        }
+        return results;
+    }
+
+    /**
+     * Remaps one image of the batch to the palette of a trained quantizer.
+     *
+     * @param quantizer the trained quantizer
+     * @param image     the image
+     * @param metrics   the metrics to record the phases in
+     * @return the remap result of the image
+     */
+    public RemapResult remap(Quantizer quantizer, BufferedImage image, QuantizationMetrics metrics) {
+        // The extraction counters describe a single image, so only its phases and pixels are added to the batch
+        QuantizationMetrics extractionMetrics = new QuantizationMetrics();
+        ColorExtractionResult extraction = extractColors(image, colorSpace, extractionMetrics, quantizer.getPrecision());
+        for (QuantizationMetrics.Phase phase : QuantizationMetrics.Phase.values()) {
+            if (extractionMetrics.isMeasured(phase)) {
+                metrics.record(phase, extractionMetrics.getNanos(phase), extractionMetrics.getAllocatedBytes(phase));
+            }
+        }
+        metrics.incrementCounter(QuantizationMetrics.PIXELS, extractionMetrics.getCounter(QuantizationMetrics.PIXELS));
+        return remapColors(image, extraction, quantizer, colorSpace, metrics);
+    }
+}
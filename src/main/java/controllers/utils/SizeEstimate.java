@@ -0,0 +1,62 @@
+package main.java.controllers.utils;
+
+/**
+ * Represents an estimate of the encoded size of an image, together with the metrics of the encoding.
+ */
+public class SizeEstimate {
+    private final long version; // The version of the image the estimate is for
+    private final long bytes; // The (estimated) encoded size in bytes
+    private final boolean sampled; // Whether the size was extrapolated from sampled rows
+    private final QuantizationMetrics metrics; // The metrics of the encoding phase
+
+    /**
+     * Constructs a new SizeEstimate with the specified image version, size and metrics.
+     *
+     * @param version the version of the image the estimate is for
+     * @param bytes   the (estimated) encoded size in bytes
+     * @param sampled whether the size was extrapolated from sampled rows
+     * @param metrics the metrics of the encoding phase
+     */
+    public SizeEstimate(long version, long bytes, boolean sampled, QuantizationMetrics metrics) {
+        this.version = version;
+        this.bytes = bytes;
+        this.sampled = sampled;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the version of the image the estimate is for.
+     *
+     * @return the image version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the (estimated) encoded size.
+     *
+     * @return the size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns whether the size was extrapolated from sampled rows instead of encoding the whole image.
+     *
+     * @return true if the size is an extrapolation, false if it is exact
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * Returns the metrics of the encoding phase.
+     *
+     * @return the encoding metrics
+     */
+    public QuantizationMetrics getMetrics() {
+        return metrics;
+    }
+}
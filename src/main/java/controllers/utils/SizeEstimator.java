@@ -0,0 +1,204 @@
+package main.java.controllers.utils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Estimates the encoded size of images in the background. The image is encoded into a sink that only counts bytes,
+ * so the encoded data is never kept in memory. Requests are debounced (only the latest request within the debounce
+ * delay is encoded) and the results are cached by image version, so that showing an unchanged image again
+ * does not encode it again.
+ * <p>
+ * Images are versioned by the caller: every change to an image must come with a new version. Results of requests
+ * that were superseded by a newer request are discarded, since their image may have changed while it was encoded.
+ */
+public class SizeEstimator {
+    private static final int CACHE_SIZE = 16; // The number of cached estimates
+    private static final int SAMPLE_BAND_HEIGHT = 16; // The height of each band of sampled rows
+
+    private final ScheduledExecutorService executor; // Runs the encoding in the background
+    private final long debounceMillis; // The delay before encoding, during which newer requests replace older ones
+    private final int sampledRows; // The number of rows encoded by a sampled estimate
+    private final Map<String, Long> cache; // The cached sizes by image version, format and mode
+    private ScheduledFuture<?> pendingEstimate; // The scheduled estimate, or null
+    private long latestVersion; // The image version of the latest request
+
+    /**
+     * Constructs a SizeEstimator which waits 200 ms before encoding and samples 256 rows in the fast mode.
+     */
+    public SizeEstimator() {
+        this(200, 256);
+    }
+
+    /**
+     * Constructs a SizeEstimator with a specified debounce delay and number of sampled rows.
+     *
+     * @param debounceMillis the delay before encoding, in milliseconds
+     * @param sampledRows    the number of rows encoded by a sampled estimate
+     * @throws IllegalArgumentException if the delay is negative or the number of sampled rows is not positive
+     */
+    public SizeEstimator(long debounceMillis, int sampledRows) {
+        if (debounceMillis < 0 || sampledRows <= 0) {
+            throw new IllegalArgumentException("The debounce delay cannot be negative and the number of sampled rows must be greater than zero.");
+        }
+        this.debounceMillis = debounceMillis;
+        this.sampledRows = sampledRows;
+        this.cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "size-estimator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests an estimate of the encoded size of an image. Cached estimates are delivered immediately on the calling
+     * thread; otherwise the image is encoded after the debounce delay and the estimate is delivered on the background
+     * thread, unless a newer request was made in the meantime. Failed estimates are not delivered.
+     *
+     * @param image    the image to estimate the size of
+     * @param version  the version of the image
+     * @param format   the image format (for example "png" or "jpg")
+     * @param sampled  whether to extrapolate the size from sampled rows instead of encoding the whole image
+     * @param callback receives the estimate
+     */
+    public synchronized void requestEstimate(BufferedImage image, long version, String format, boolean sampled, Consumer<SizeEstimate> callback) {
+        latestVersion = version;
+        if (pendingEstimate != null) {
+            pendingEstimate.cancel(false);
+            pendingEstimate = null;
+        }
+        String key = version + ":" + format + ":" + sampled;
+        Long cachedBytes = cache.get(key);
+        if (cachedBytes != null) {
+            callback.accept(new SizeEstimate(version, cachedBytes, sampled, new QuantizationMetrics()));
+            return;
+        }
+        pendingEstimate = executor.schedule(() -> {
+            QuantizationMetrics metrics = new QuantizationMetrics();
+            long bytes;
+            try {
+                // The estimate runs in the background, so the common pool may be busy with another pipeline
+                metrics.start(QuantizationMetrics.Phase.ENCODING, false);
+                bytes = sampled ? estimateSizeFromSample(image, format, sampledRows) : computeSize(image, format);
+                metrics.stop();
+            } catch (IOException e) {
+                return;
+            }
+            synchronized (this) {
+                if (version != latestVersion) {
+                    // The image may have changed while it was encoded
+                    return;
+                }
+                cache.put(key, bytes);
+            }
+            callback.accept(new SizeEstimate(version, bytes, sampled, metrics));
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the pending estimate and discards the result of the estimate in progress, if any.
+     * This must be called before modifying an image that may still be being encoded.
+     */
+    public synchronized void cancelPending() {
+        latestVersion = Long.MIN_VALUE;
+        if (pendingEstimate != null) {
+            pendingEstimate.cancel(false);
+            pendingEstimate = null;
+        }
+    }
+
+    /**
+     * Computes the exact encoded size of an image by encoding it into a byte-counting sink.
+     *
+     * @param image  the image to encode
+     * @param format the image format
+     * @return the encoded size in bytes
+     * @throws IOException if the image cannot be encoded in the format
+     */
+    public static long computeSize(BufferedImage image, String format) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer found for the format " + format);
+        }
+        ImageWriter writer = writers.next();
+        CountingOutputStream sink = new CountingOutputStream();
+        // The memory cache only holds the data the writer may still seek back to, not the whole encoded image
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(sink)) {
+            writer.setOutput(output);
+            writer.write(image);
+        } finally {
+            writer.dispose();
+        }
+        return sink.getCount();
+    }
+
+    /**
+     * Estimates the encoded size of an image by encoding evenly spaced bands of rows and scaling the result
+     * to the height of the image. Images with no more rows than the sample are encoded exactly.
+     *
+     * @param image       the image to encode
+     * @param format      the image format
+     * @param sampledRows the number of rows to encode
+     * @return the estimated encoded size in bytes
+     * @throws IOException if the image cannot be encoded in the format
+     */
+    public static long estimateSizeFromSample(BufferedImage image, String format, int sampledRows) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int bandCount = Math.max(1, sampledRows / SAMPLE_BAND_HEIGHT);
+        int bandHeight = sampledRows / bandCount;
+        if (height <= bandCount * bandHeight) {
+            return computeSize(image, format);
+        }
+
+        // Copy evenly spaced bands of rows into a smaller image
+        BufferedImage sample = new BufferedImage(width, bandCount * bandHeight, BufferedImage.TYPE_INT_RGB);
+        int[] rows = new int[width * bandHeight];
+        for (int band = 0; band < bandCount; band++) {
+            int sourceY = (int) ((long) band * (height - bandHeight) / Math.max(1, bandCount - 1));
+            image.getRGB(0, sourceY, width, bandHeight, rows, 0, width);
+            sample.setRGB(0, band * bandHeight, width, bandHeight, rows, 0, width);
+        }
+        return Math.round((double) computeSize(sample, format) * height / sample.getHeight());
+    }
+
+    /**
+     * Represents an output stream which discards all data and only counts the written bytes.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long count; // The number of written bytes
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
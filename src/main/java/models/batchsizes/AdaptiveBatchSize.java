@@ -0,0 +1,94 @@
+package main.java.models.batchsizes;
+
+import main.java.models.interfaces.BatchSizeSchedule;
+
+/**
+ * Implements a batch size schedule which adapts to the measured noise of the updates. It keeps an exponentially
+ * smoothed estimate of how much the mini-batch inertia improves per epoch, and an estimate of the variance of the
+ * inertia measurements (from their second differences, which cancel out the trend). The batch size is doubled
+ * whenever the improvement becomes smaller than the noise in the measurements.
+ */
+public class AdaptiveBatchSize implements BatchSizeSchedule {
+    private static final double SMOOTHING = 0.3; // The weight of the newest measurement in the smoothed estimates
+    private final int initialBatchSize; // The batch size of the first epoch
+    private final double noiseTolerance; // How many standard deviations of noise the improvement must exceed
+    private final int maxBatchSize; // The largest allowed batch size
+    private double previousInertia; // The inertia measured in the previous epoch
+    private double beforePreviousInertia; // The inertia measured two epochs ago
+    private double smoothedImprovement; // The smoothed improvement of the inertia per epoch
+    private double noiseVariance; // The smoothed variance of the inertia measurements
+    private int measurements; // The number of inertia measurements since the last reset
+
+    /**
+     * Constructs an AdaptiveBatchSize instance which starts at 32 items and is capped at 4096.
+     */
+    public AdaptiveBatchSize() {
+        this(32, 1.0, 4096);
+    }
+
+    /**
+     * Constructs an AdaptiveBatchSize instance with a specified initial batch size, noise tolerance and cap.
+     *
+     * @param initialBatchSize the batch size of the first epoch
+     * @param noiseTolerance   how many standard deviations of noise the improvement of the inertia must exceed
+     *                         for the batch size to stay the same
+     * @param maxBatchSize     the largest allowed batch size
+     * @throws IllegalArgumentException if any size is not positive, the initial size is larger than the cap
+     *                                  or the noise tolerance is negative
+     */
+    public AdaptiveBatchSize(int initialBatchSize, double noiseTolerance, int maxBatchSize) {
+        if (initialBatchSize <= 0 || maxBatchSize < initialBatchSize || noiseTolerance < 0) {
+            throw new IllegalArgumentException("The batch sizes must be positive with initialBatchSize <= maxBatchSize, and noiseTolerance cannot be negative.");
+        }
+        this.initialBatchSize = initialBatchSize;
+        this.noiseTolerance = noiseTolerance;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the initial batch size (at most the data size) and resets the smoothed estimates.
+     *
+     * @param dataSize the number of items in the training data
+     * @return the batch size of the first epoch
+     */
+    @Override
+    public int initialBatchSize(int dataSize) {
+        measurements = 0;
+        smoothedImprovement = 0.0;
+        noiseVariance = 0.0;
+        return Math.max(1, Math.min(initialBatchSize, dataSize));
+    }
+
+    /**
+     * Updates the smoothed estimates with the inertia of the last epoch and doubles the batch size
+     * if the improvement was smaller than the noise. At least three measurements are needed before the batch size
+     * can change.
+     *
+     * @param batchSize the batch size of the epoch that just finished
+     * @param dataSize  the number of items in the training data
+     * @param movement  the largest distance a unit moved during the epoch (ignored)
+     * @param inertia   the mean squared distance between the mini-batch items and their closest units
+     * @return the batch size of the next epoch, capped at the maximum batch size and the data size
+     */
+    @Override
+    public int nextBatchSize(int batchSize, int dataSize, double movement, double inertia) {
+        measurements++;
+        int nextBatchSize = batchSize;
+        if (measurements == 2) {
+            smoothedImprovement = previousInertia - inertia;
+        } else if (measurements > 2) {
+            // The second difference cancels a linear trend, and its variance is 6 times the measurement variance
+            double secondDifference = inertia - 2 * previousInertia + beforePreviousInertia;
+            double noise = secondDifference * secondDifference / 6;
+            noiseVariance = measurements == 3 ? noise : noiseVariance + SMOOTHING * (noise - noiseVariance);
+            smoothedImprovement += SMOOTHING * ((previousInertia - inertia) - smoothedImprovement);
+
+            if (smoothedImprovement < noiseTolerance * Math.sqrt(noiseVariance)) {
+                nextBatchSize = batchSize * 2;
+            }
+        }
+        beforePreviousInertia = previousInertia;
+        previousInertia = inertia;
+        return Math.max(1, Math.min(nextBatchSize, Math.min(maxBatchSize, dataSize)));
+    }
+}
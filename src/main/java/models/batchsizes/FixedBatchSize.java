@@ -0,0 +1,59 @@
+package main.java.models.batchsizes;
+
+import main.java.models.interfaces.BatchSizeSchedule;
+
+/**
+ * Implements a batch size schedule which uses the same batch size, a fraction of the data size, for every epoch.
+ */
+public class FixedBatchSize implements BatchSizeSchedule {
+    private final double fraction; // The fraction of the data used in each batch
+    private final int maxBatchSize; // The largest allowed batch size
+
+    /**
+     * Constructs a FixedBatchSize instance which uses 2% of the data size, capped at 1024.
+     */
+    public FixedBatchSize() {
+        this(0.02, 1024);
+    }
+
+    /**
+     * Constructs a FixedBatchSize instance with a specified fraction of the data size and cap.
+     *
+     * @param fraction     the fraction of the data size used in each batch
+     * @param maxBatchSize the largest allowed batch size
+     * @throws IllegalArgumentException if the fraction is not in the range (0, 1] or the cap is not positive
+     */
+    public FixedBatchSize(double fraction, int maxBatchSize) {
+        if (fraction <= 0 || fraction > 1 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("The fraction must be in the range (0, 1] and maxBatchSize must be greater than zero.");
+        }
+        this.fraction = fraction;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Computes the batch size as the fraction of the data size, capped at the maximum batch size.
+     * There is at least 1 item in the batch.
+     *
+     * @param dataSize the number of items in the training data
+     * @return the batch size
+     */
+    @Override
+    public int initialBatchSize(int dataSize) {
+        return Math.max(1, Math.min((int) (dataSize * fraction), maxBatchSize));
+    }
+
+    /**
+     * Returns the same batch size for every epoch.
+     *
+     * @param batchSize the batch size of the epoch that just finished
+     * @param dataSize  the number of items in the training data
+     * @param movement  the largest distance a unit moved during the epoch (ignored)
+     * @param inertia   the mean squared distance between the mini-batch items and their closest units (ignored)
+     * @return the batch size of the epoch that just finished
+     */
+    @Override
+    public int nextBatchSize(int batchSize, int dataSize, double movement, double inertia) {
+        return batchSize;
+    }
+}
@@ -0,0 +1,73 @@
+package main.java.models.batchsizes;
+
+import main.java.models.interfaces.BatchSizeSchedule;
+
+/**
+ * Implements a batch size schedule which starts with small batches, for fast but noisy early epochs,
+ * and grows the batch size geometrically whenever the movement of the units shrinks.
+ */
+public class GeometricBatchSize implements BatchSizeSchedule {
+    private final int initialBatchSize; // The batch size of the first epoch
+    private final double growthFactor; // The factor the batch size is multiplied by when it grows
+    private final int maxBatchSize; // The largest allowed batch size
+    private double previousMovement; // The movement measured in the previous epoch, NaN before the first epoch
+
+    /**
+     * Constructs a GeometricBatchSize instance which starts at 32 items, doubles, and is capped at 4096.
+     */
+    public GeometricBatchSize() {
+        this(32, 2.0, 4096);
+    }
+
+    /**
+     * Constructs a GeometricBatchSize instance with a specified initial batch size, growth factor and cap.
+     *
+     * @param initialBatchSize the batch size of the first epoch
+     * @param growthFactor     the factor the batch size is multiplied by when it grows
+     * @param maxBatchSize     the largest allowed batch size
+     * @throws IllegalArgumentException if any size is not positive, the initial size is larger than the cap
+     *                                  or the growth factor is not greater than 1
+     */
+    public GeometricBatchSize(int initialBatchSize, double growthFactor, int maxBatchSize) {
+        if (initialBatchSize <= 0 || maxBatchSize < initialBatchSize || growthFactor <= 1) {
+            throw new IllegalArgumentException("The batch sizes must be positive with initialBatchSize <= maxBatchSize, and growthFactor must be greater than 1.");
+        }
+        this.initialBatchSize = initialBatchSize;
+        this.growthFactor = growthFactor;
+        this.maxBatchSize = maxBatchSize;
+        this.previousMovement = Double.NaN;
+    }
+
+    /**
+     * Returns the initial batch size (at most the data size) and resets the tracked movement, so the first call to
+     * {@link #nextBatchSize} only records the movement.
+     *
+     * @param dataSize the number of items in the training data
+     * @return the batch size of the first epoch
+     */
+    @Override
+    public int initialBatchSize(int dataSize) {
+        previousMovement = Double.NaN;
+        return Math.max(1, Math.min(initialBatchSize, dataSize));
+    }
+
+    /**
+     * Grows the batch size by the growth factor if the units moved less than in the previous epoch. After the first
+     * epoch there is no previous movement to compare against, so the batch size stays the same.
+     *
+     * @param batchSize the batch size of the epoch that just finished
+     * @param dataSize  the number of items in the training data
+     * @param movement  the largest distance a unit moved during the epoch
+     * @param inertia   the mean squared distance between the mini-batch items and their closest units (ignored)
+     * @return the batch size of the next epoch, capped at the maximum batch size and the data size
+     */
+    @Override
+    public int nextBatchSize(int batchSize, int dataSize, double movement, double inertia) {
+        int nextBatchSize = batchSize;
+        if (!Double.isNaN(previousMovement) && movement < previousMovement) {
+            nextBatchSize = (int) Math.ceil(batchSize * growthFactor);
+        }
+        previousMovement = movement;
+        return Math.max(1, Math.min(nextBatchSize, Math.min(maxBatchSize, dataSize)));
+    }
+}
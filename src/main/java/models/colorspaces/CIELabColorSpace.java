@@ -0,0 +1,88 @@
+package main.java.models.colorspaces;
+
+import main.java.models.interfaces.ColorSpace;
+
+import static main.java.models.utils.ColorSpaceUtils.linearToSrgb;
+import static main.java.models.utils.ColorSpaceUtils.srgbToLinear;
+
+/**
+ * Implements the CIELAB color space (D65 white point). All coordinates are divided by {@link #SCALE}, so that
+ * the lightness (L) is in the range [0, 1] and the values are of the same magnitude as normalized RGB.
+ */
+public class CIELabColorSpace implements ColorSpace {
+    /**
+     * The factor by which the standard CIELAB coordinates are divided.
+     */
+    public static final double SCALE = 100.0;
+    private static final double WHITE_X = 0.95047; // The X tristimulus value of the D65 white point
+    private static final double WHITE_Y = 1.0; // The Y tristimulus value of the D65 white point
+    private static final double WHITE_Z = 1.08883; // The Z tristimulus value of the D65 white point
+    private static final double DELTA = 6.0 / 29.0; // The threshold of the linear segment of the CIELAB function
+
+    /**
+     * Converts a packed RGB color to scaled CIELAB coordinates.
+     *
+     * @param rgb the packed RGB color
+     * @return an array with the scaled L, a and b coordinates
+     */
+    @Override
+    public double[] fromRgb(int rgb) {
+        double r = srgbToLinear((rgb >> 16) & 0xFF);
+        double g = srgbToLinear((rgb >> 8) & 0xFF);
+        double b = srgbToLinear(rgb & 0xFF);
+
+        // Linear sRGB to CIE XYZ, relative to the white point
+        double fx = f((0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / WHITE_X);
+        double fy = f((0.2126729 * r + 0.7151522 * g + 0.0721750 * b) / WHITE_Y);
+        double fz = f((0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / WHITE_Z);
+
+        return new double[]{
+                (116.0 * fy - 16.0) / SCALE,
+                500.0 * (fx - fy) / SCALE,
+                200.0 * (fy - fz) / SCALE
+        };
+    }
+
+    /**
+     * Converts scaled CIELAB coordinates back to normalized sRGB values.
+     *
+     * @param coordinates the scaled L, a and b coordinates
+     * @return an array with the red, green and blue values, each clamped to the range [0, 1]
+     */
+    @Override
+    public double[] toNormalizedRgb(double[] coordinates) {
+        double fy = (coordinates[0] * SCALE + 16.0) / 116.0;
+        double fx = fy + coordinates[1] * SCALE / 500.0;
+        double fz = fy - coordinates[2] * SCALE / 200.0;
+
+        double x = WHITE_X * fInverse(fx);
+        double y = WHITE_Y * fInverse(fy);
+        double z = WHITE_Z * fInverse(fz);
+
+        return new double[]{
+                linearToSrgb(3.2404542 * x - 1.5371385 * y - 0.4985314 * z),
+                linearToSrgb(-0.9692660 * x + 1.8760108 * y + 0.0415560 * z),
+                linearToSrgb(0.0556434 * x - 0.2040259 * y + 1.0572252 * z)
+        };
+    }
+
+    /**
+     * The CIELAB compression function (cube root with a linear segment near zero).
+     *
+     * @param t the relative tristimulus value
+     * @return the compressed value
+     */
+    private static double f(double t) {
+        return t > DELTA * DELTA * DELTA ? Math.cbrt(t) : t / (3 * DELTA * DELTA) + 4.0 / 29.0;
+    }
+
+    /**
+     * The inverse of the CIELAB compression function.
+     *
+     * @param t the compressed value
+     * @return the relative tristimulus value
+     */
+    private static double fInverse(double t) {
+        return t > DELTA ? t * t * t : 3 * DELTA * DELTA * (t - 4.0 / 29.0);
+    }
+}
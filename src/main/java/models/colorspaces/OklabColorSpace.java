@@ -0,0 +1,59 @@
+package main.java.models.colorspaces;
+
+import main.java.models.interfaces.ColorSpace;
+
+import static main.java.models.utils.ColorSpaceUtils.linearToSrgb;
+import static main.java.models.utils.ColorSpaceUtils.srgbToLinear;
+
+/**
+ * Implements the Oklab perceptual color space. The lightness (L) is in the range [0, 1]
+ * and the a and b components are roughly in the range [-0.4, 0.4].
+ * Euclidean distances in Oklab closely follow perceived color differences.
+ */
+public class OklabColorSpace implements ColorSpace {
+    /**
+     * Converts a packed RGB color to Oklab coordinates.
+     *
+     * @param rgb the packed RGB color
+     * @return an array with the L, a and b coordinates
+     */
+    @Override
+    public double[] fromRgb(int rgb) {
+        double r = srgbToLinear((rgb >> 16) & 0xFF);
+        double g = srgbToLinear((rgb >> 8) & 0xFF);
+        double b = srgbToLinear(rgb & 0xFF);
+
+        // Linear sRGB to LMS cone responses, followed by the cube root non-linearity
+        double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+        double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+        double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+
+        return new double[]{
+                0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s,
+                1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s,
+                0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s
+        };
+    }
+
+    /**
+     * Converts Oklab coordinates back to normalized sRGB values.
+     *
+     * @param coordinates the L, a and b coordinates
+     * @return an array with the red, green and blue values, each clamped to the range [0, 1]
+     */
+    @Override
+    public double[] toNormalizedRgb(double[] coordinates) {
+        double l = coordinates[0] + 0.3963377774 * coordinates[1] + 0.2158037573 * coordinates[2];
+        double m = coordinates[0] - 0.1055613458 * coordinates[1] - 0.0638541728 * coordinates[2];
+        double s = coordinates[0] - 0.0894841775 * coordinates[1] - 1.2914855480 * coordinates[2];
+        l = l * l * l;
+        m = m * m * m;
+        s = s * s * s;
+
+        return new double[]{
+                linearToSrgb(4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s),
+                linearToSrgb(-1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s),
+                linearToSrgb(-0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s)
+        };
+    }
+}
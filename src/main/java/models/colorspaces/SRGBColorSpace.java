@@ -0,0 +1,39 @@
+package main.java.models.colorspaces;
+
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.utils.ColorSpaceUtils;
+
+/**
+ * Implements the sRGB color space with each channel normalized to the range [0, 1].
+ */
+public class SRGBColorSpace implements ColorSpace {
+    /**
+     * Converts a packed RGB color to normalized sRGB coordinates.
+     *
+     * @param rgb the packed RGB color
+     * @return an array with the normalized red, green and blue values
+     */
+    @Override
+    public double[] fromRgb(int rgb) {
+        return new double[]{
+                ((rgb >> 16) & 0xFF) / 255.0,
+                ((rgb >> 8) & 0xFF) / 255.0,
+                (rgb & 0xFF) / 255.0
+        };
+    }
+
+    /**
+     * Returns the normalized sRGB coordinates clamped to the range [0, 1].
+     *
+     * @param coordinates the normalized sRGB coordinates
+     * @return an array with the clamped red, green and blue values
+     */
+    @Override
+    public double[] toNormalizedRgb(double[] coordinates) {
+        return new double[]{
+                ColorSpaceUtils.clamp(coordinates[0]),
+                ColorSpaceUtils.clamp(coordinates[1]),
+                ColorSpaceUtils.clamp(coordinates[2])
+        };
+    }
+}
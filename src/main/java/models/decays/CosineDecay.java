@@ -0,0 +1,28 @@
+package main.java.models.decays;
+
+import main.java.models.interfaces.Decay;
+
+/**
+ * Implements a cosine decay functionality for reducing values.
+ * The value follows half a cosine wave, staying high in the first epochs and approaching 0 smoothly at the end.
+ */
+public class CosineDecay implements Decay {
+    /**
+     * Applies a cosine decay function to reduce the initial value based on the
+     * current epoch and total number of epochs.
+     *
+     * @param initialValue the initial value to be decayed
+     * @param epoch        the current epoch
+     * @param totalEpochs  the total number of epochs
+     * @return the decayed value
+     * @throws IllegalArgumentException if any input value is negative or the total epochs is 0
+     */
+    @Override
+    public double compute(double initialValue, int epoch, int totalEpochs) {
+        if (initialValue < 0 || epoch < 0 || totalEpochs <= 0) {
+            throw new IllegalArgumentException("All input values must be positive, and totalEpochs must be greater than zero.");
+        }
+        double progress = Math.min(1.0, (double) epoch / totalEpochs);
+        return initialValue * 0.5 * (1.0 + Math.cos(Math.PI * progress));
+    }
+}
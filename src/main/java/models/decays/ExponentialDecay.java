@@ -0,0 +1,50 @@
+package main.java.models.decays;
+
+import main.java.models.interfaces.Decay;
+
+/**
+ * Implements an exponential decay functionality for reducing values.
+ * The value is multiplied by the same factor in every epoch, and reaches a set fraction of the initial value
+ * at the last epoch.
+ */
+public class ExponentialDecay implements Decay {
+    private final double finalFraction; // The fraction of the initial value reached at the last epoch
+
+    /**
+     * Constructs an ExponentialDecay instance which decays to 1% of the initial value.
+     */
+    public ExponentialDecay() {
+        this(0.01);
+    }
+
+    /**
+     * Constructs an ExponentialDecay instance which decays to a specified fraction of the initial value.
+     *
+     * @param finalFraction the fraction of the initial value reached at the last epoch
+     * @throws IllegalArgumentException if the fraction is not in the range (0, 1)
+     */
+    public ExponentialDecay(double finalFraction) {
+        if (finalFraction <= 0 || finalFraction >= 1) {
+            throw new IllegalArgumentException("The final fraction must be in the range (0, 1).");
+        }
+        this.finalFraction = finalFraction;
+    }
+
+    /**
+     * Applies an exponential decay function to reduce the initial value based on the
+     * current epoch and total number of epochs.
+     *
+     * @param initialValue the initial value to be decayed
+     * @param epoch        the current epoch
+     * @param totalEpochs  the total number of epochs
+     * @return the decayed value
+     * @throws IllegalArgumentException if any input value is negative or the total epochs is 0
+     */
+    @Override
+    public double compute(double initialValue, int epoch, int totalEpochs) {
+        if (initialValue < 0 || epoch < 0 || totalEpochs <= 0) {
+            throw new IllegalArgumentException("All input values must be positive, and totalEpochs must be greater than zero.");
+        }
+        return initialValue * Math.pow(finalFraction, (double) epoch / totalEpochs);
+    }
+}
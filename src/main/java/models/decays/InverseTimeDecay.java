@@ -0,0 +1,50 @@
+package main.java.models.decays;
+
+import main.java.models.interfaces.Decay;
+
+/**
+ * Implements an inverse time decay functionality for reducing values.
+ * The value drops quickly in the first epochs and then decreases more and more slowly.
+ */
+public class InverseTimeDecay implements Decay {
+    private final double decayRate; // How many times the initial value is divided by at the last epoch, minus one
+
+    /**
+     * Constructs an InverseTimeDecay instance which decays to a tenth of the initial value.
+     */
+    public InverseTimeDecay() {
+        this(9.0);
+    }
+
+    /**
+     * Constructs an InverseTimeDecay instance with a specified decay rate.
+     * The value at the last epoch is the initial value divided by (1 + decayRate).
+     *
+     * @param decayRate the decay rate
+     * @throws IllegalArgumentException if the decay rate is not positive
+     */
+    public InverseTimeDecay(double decayRate) {
+        if (decayRate <= 0) {
+            throw new IllegalArgumentException("The decay rate must be greater than zero.");
+        }
+        this.decayRate = decayRate;
+    }
+
+    /**
+     * Applies an inverse time decay function to reduce the initial value based on the
+     * current epoch and total number of epochs.
+     *
+     * @param initialValue the initial value to be decayed
+     * @param epoch        the current epoch
+     * @param totalEpochs  the total number of epochs
+     * @return the decayed value
+     * @throws IllegalArgumentException if any input value is negative or the total epochs is 0
+     */
+    @Override
+    public double compute(double initialValue, int epoch, int totalEpochs) {
+        if (initialValue < 0 || epoch < 0 || totalEpochs <= 0) {
+            throw new IllegalArgumentException("All input values must be positive, and totalEpochs must be greater than zero.");
+        }
+        return initialValue / (1.0 + decayRate * epoch / totalEpochs);
+    }
+}
@@ -0,0 +1,54 @@
+package main.java.models.decays;
+
+import main.java.models.interfaces.Decay;
+
+/**
+ * Implements a step decay functionality for reducing values.
+ * The epochs are split into a number of equally long steps, and the value is multiplied by a factor
+ * at the start of each new step.
+ */
+public class StepDecay implements Decay {
+    private final int steps; // The number of steps the epochs are split into
+    private final double factor; // The factor the value is multiplied by at each step
+
+    /**
+     * Constructs a StepDecay instance which halves the value 4 times.
+     */
+    public StepDecay() {
+        this(4, 0.5);
+    }
+
+    /**
+     * Constructs a StepDecay instance with a specified number of steps and factor.
+     *
+     * @param steps  the number of steps the epochs are split into
+     * @param factor the factor the value is multiplied by at each step
+     * @throws IllegalArgumentException if the number of steps is not positive or the factor is not in the range (0, 1)
+     */
+    public StepDecay(int steps, double factor) {
+        if (steps <= 0 || factor <= 0 || factor >= 1) {
+            throw new IllegalArgumentException("The number of steps must be greater than zero, and the factor must be in the range (0, 1).");
+        }
+        this.steps = steps;
+        this.factor = factor;
+    }
+
+    /**
+     * Applies a step decay function to reduce the initial value based on the
+     * current epoch and total number of epochs.
+     *
+     * @param initialValue the initial value to be decayed
+     * @param epoch        the current epoch
+     * @param totalEpochs  the total number of epochs
+     * @return the decayed value
+     * @throws IllegalArgumentException if any input value is negative or the total epochs is 0
+     */
+    @Override
+    public double compute(double initialValue, int epoch, int totalEpochs) {
+        if (initialValue < 0 || epoch < 0 || totalEpochs <= 0) {
+            throw new IllegalArgumentException("All input values must be positive, and totalEpochs must be greater than zero.");
+        }
+        long step = Math.min(steps, (long) epoch * steps / totalEpochs);
+        return initialValue * Math.pow(factor, step);
+    }
+}
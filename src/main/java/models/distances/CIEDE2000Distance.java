@@ -0,0 +1,148 @@
+package main.java.models.distances;
+
+import main.java.models.colorspaces.CIELabColorSpace;
+import main.java.models.interfaces.Distance;
+
+/**
+ * Implements the CIEDE2000 color difference for colors in the CIELAB color space.
+ * The inputs are expected to be produced by {@link CIELabColorSpace}, and the result is divided by the same
+ * {@link CIELabColorSpace#SCALE}, so that it is comparable to Euclidean distances between the scaled coordinates.
+ */
+public class CIEDE2000Distance implements Distance {
+    private static final double POW_25_7 = Math.pow(25, 7); // A constant used in the chroma compensation
+
+    /**
+     * Computes the CIEDE2000 color difference between two scaled CIELAB colors.
+     *
+     * @param a the first color
+     * @param b the second color
+     * @return the scaled CIEDE2000 color difference between colors a and b
+     * @throws IllegalArgumentException if any of the input vectors does not have exactly three components
+     */
+    @Override
+    public double compute(double[] a, double[] b) {
+        if (a.length != 3 || b.length != 3) {
+            throw new IllegalArgumentException("Vectors must be CIELAB colors with exactly three components");
+        }
+        return compute(a[0], a[1], a[2], b[0], b[1], b[2]);
+    }
+
+    /**
+     * Computes the CIEDE2000 color difference between two scaled CIELAB colors in single precision.
+     * The components are widened, so the difference itself is computed in double precision.
+     *
+     * @param a the first color
+     * @param b the second color
+     * @return the scaled CIEDE2000 color difference between colors a and b
+     * @throws IllegalArgumentException if any of the input vectors does not have exactly three components
+     */
+    @Override
+    public double compute(float[] a, float[] b) {
+        if (a.length != 3 || b.length != 3) {
+            throw new IllegalArgumentException("Vectors must be CIELAB colors with exactly three components");
+        }
+        return compute(a[0], a[1], a[2], b[0], b[1], b[2]);
+    }
+
+    /**
+     * Computes the CIEDE2000 color difference between two scaled CIELAB colors given by their components.
+     *
+     * @param scaledL1 the scaled L component of the first color
+     * @param scaledA1 the scaled a component of the first color
+     * @param scaledB1 the scaled b component of the first color
+     * @param scaledL2 the scaled L component of the second color
+     * @param scaledA2 the scaled a component of the second color
+     * @param scaledB2 the scaled b component of the second color
+     * @return the scaled CIEDE2000 color difference between the colors
+     */
+    private static double compute(double scaledL1, double scaledA1, double scaledB1,
+                                  double scaledL2, double scaledA2, double scaledB2) {
+        double l1 = scaledL1 * CIELabColorSpace.SCALE;
+        double a1 = scaledA1 * CIELabColorSpace.SCALE;
+        double b1 = scaledB1 * CIELabColorSpace.SCALE;
+        double l2 = scaledL2 * CIELabColorSpace.SCALE;
+        double a2 = scaledA2 * CIELabColorSpace.SCALE;
+        double b2 = scaledB2 * CIELabColorSpace.SCALE;
+
+        // Compensate the a components for the chroma of the colors
+        double meanC = (Math.hypot(a1, b1) + Math.hypot(a2, b2)) / 2;
+        double meanC7 = Math.pow(meanC, 7);
+        double g = 0.5 * (1 - Math.sqrt(meanC7 / (meanC7 + POW_25_7)));
+        double a1Prime = a1 * (1 + g);
+        double a2Prime = a2 * (1 + g);
+
+        double c1Prime = Math.hypot(a1Prime, b1);
+        double c2Prime = Math.hypot(a2Prime, b2);
+        double h1Prime = hueAngle(a1Prime, b1);
+        double h2Prime = hueAngle(a2Prime, b2);
+
+        // Differences in lightness, chroma and hue
+        double deltaLPrime = l2 - l1;
+        double deltaCPrime = c2Prime - c1Prime;
+        double deltahPrime;
+        if (c1Prime * c2Prime == 0) {
+            deltahPrime = 0;
+        } else if (Math.abs(h2Prime - h1Prime) <= 180) {
+            deltahPrime = h2Prime - h1Prime;
+        } else if (h2Prime - h1Prime > 180) {
+            deltahPrime = h2Prime - h1Prime - 360;
+        } else {
+            deltahPrime = h2Prime - h1Prime + 360;
+        }
+        double deltaHPrime = 2 * Math.sqrt(c1Prime * c2Prime) * Math.sin(Math.toRadians(deltahPrime / 2));
+
+        // Mean values of lightness, chroma and hue
+        double meanLPrime = (l1 + l2) / 2;
+        double meanCPrime = (c1Prime + c2Prime) / 2;
+        double meanHPrime;
+        if (c1Prime * c2Prime == 0) {
+            meanHPrime = h1Prime + h2Prime;
+        } else if (Math.abs(h1Prime - h2Prime) <= 180) {
+            meanHPrime = (h1Prime + h2Prime) / 2;
+        } else if (h1Prime + h2Prime < 360) {
+            meanHPrime = (h1Prime + h2Prime + 360) / 2;
+        } else {
+            meanHPrime = (h1Prime + h2Prime - 360) / 2;
+        }
+
+        // Weighting functions
+        double t = 1
+                - 0.17 * Math.cos(Math.toRadians(meanHPrime - 30))
+                + 0.24 * Math.cos(Math.toRadians(2 * meanHPrime))
+                + 0.32 * Math.cos(Math.toRadians(3 * meanHPrime + 6))
+                - 0.20 * Math.cos(Math.toRadians(4 * meanHPrime - 63));
+        double meanLOffset = Math.pow(meanLPrime - 50, 2);
+        double sL = 1 + (0.015 * meanLOffset) / Math.sqrt(20 + meanLOffset);
+        double sC = 1 + 0.045 * meanCPrime;
+        double sH = 1 + 0.015 * meanCPrime * t;
+
+        // Rotation term for the blue region
+        double deltaTheta = 30 * Math.exp(-Math.pow((meanHPrime - 275) / 25, 2));
+        double meanCPrime7 = Math.pow(meanCPrime, 7);
+        double rC = 2 * Math.sqrt(meanCPrime7 / (meanCPrime7 + POW_25_7));
+        double rT = -rC * Math.sin(Math.toRadians(2 * deltaTheta));
+
+        double lightnessTerm = deltaLPrime / sL;
+        double chromaTerm = deltaCPrime / sC;
+        double hueTerm = deltaHPrime / sH;
+        double deltaE = Math.sqrt(
+                lightnessTerm * lightnessTerm + chromaTerm * chromaTerm + hueTerm * hueTerm + rT * chromaTerm * hueTerm
+        );
+        return deltaE / CIELabColorSpace.SCALE;
+    }
+
+    /**
+     * Computes the hue angle of a color in degrees.
+     *
+     * @param a the a component
+     * @param b the b component
+     * @return the hue angle in the range [0, 360)
+     */
+    private static double hueAngle(double a, double b) {
+        if (a == 0 && b == 0) {
+            return 0;
+        }
+        double angle = Math.toDegrees(Math.atan2(b, a));
+        return angle < 0 ? angle + 360 : angle;
+    }
+}
@@ -28,4 +28,27 @@ public class EuclideanDistance implements Distance {
         // Return the square root of the sum
         return Math.sqrt(sum);
     }
+
+    /**
+     * Computes the Euclidean distance between two single-precision vectors, summing the squared differences
+     * in single precision.
+     *
+     * @param a the first vector
+     * @param b the second vector
+     * @return the Euclidean distance between vectors a and b
+     * @throws IllegalArgumentException if the input vectors do not have the same length
+     */
+    @Override
+    public double compute(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vectors must have the same length");
+        }
+
+        float sum = 0.0f;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum);
+    }
 }
@@ -0,0 +1,25 @@
+package main.java.models.interfaces;
+
+/**
+ * Defines a schedule for the mini-batch size used in each training epoch.
+ */
+public interface BatchSizeSchedule {
+    /**
+     * Computes the batch size of the first epoch. This also resets any state kept from a previous training run.
+     *
+     * @param dataSize the number of items in the training data
+     * @return the batch size of the first epoch
+     */
+    int initialBatchSize(int dataSize);
+
+    /**
+     * Computes the batch size of the next epoch based on the statistics measured in the epoch that just finished.
+     *
+     * @param batchSize the batch size of the epoch that just finished
+     * @param dataSize  the number of items in the training data
+     * @param movement  the largest distance a unit moved during the epoch
+     * @param inertia   the mean squared distance between the mini-batch items and their closest units
+     * @return the batch size of the next epoch
+     */
+    int nextBatchSize(int batchSize, int dataSize, double movement, double inertia);
+}
@@ -0,0 +1,23 @@
+package main.java.models.interfaces;
+
+/**
+ * Defines a color space that 24-bit sRGB colors can be converted to and from.
+ * The quantizers are trained on the coordinates produced by a color space.
+ */
+public interface ColorSpace {
+    /**
+     * Converts a packed 24-bit RGB color (0xRRGGBB, any alpha bits are ignored) to coordinates in this color space.
+     *
+     * @param rgb the packed RGB color
+     * @return an array representing the coordinates of the color in this color space
+     */
+    double[] fromRgb(int rgb);
+
+    /**
+     * Converts coordinates in this color space back to normalized sRGB values.
+     *
+     * @param coordinates the coordinates in this color space
+     * @return an array with the red, green and blue values, each clamped to the range [0, 1]
+     */
+    double[] toNormalizedRgb(double[] coordinates);
+}
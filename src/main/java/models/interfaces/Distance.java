@@ -12,4 +12,25 @@ public interface Distance {
      * @return the distance between the two vectors
      */
     double compute(double[] a, double[] b);
+
+    /**
+     * Computes the distance between two single-precision vectors. By default the vectors are widened to double
+     * precision for {@link #compute(double[], double[])}, which allocates them on every call, so metrics that are used
+     * by quantizers in single precision override it.
+     *
+     * @param a the first input vector
+     * @param b the second input vector
+     * @return the distance between the two vectors
+     */
+    default double compute(float[] a, float[] b) {
+        double[] wideA = new double[a.length];
+        double[] wideB = new double[b.length];
+        for (int i = 0; i < a.length; i++) {
+            wideA[i] = a[i];
+        }
+        for (int i = 0; i < b.length; i++) {
+            wideB[i] = b[i];
+        }
+        return compute(wideA, wideB);
+    }
 }
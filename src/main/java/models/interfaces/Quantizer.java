@@ -7,14 +7,135 @@ import java.util.List;
  * and provide details about its units.
  */
 public interface Quantizer {
+    /**
+     * The floating-point precision a quantizer stores its units and trains and searches in.
+     */
+    enum Precision {
+        /**
+         * Double precision, the default.
+         */
+        DOUBLE,
+        /**
+         * Single precision, which halves the bytes per coordinate of the units, the mini-batches and the searched
+         * inputs. The units are also updated in single precision, so very small training steps are lost to rounding.
+         */
+        FLOAT
+    }
+
     /**
      * Trains the quantizer using the provided input data over a specified number of epochs.
+     * If the training thread is interrupted, training stops at the end of the current epoch
+     * and the interrupt status of the thread is preserved.
      *
      * @param data   a 2D array representing the input data
      * @param epochs the number of epochs
      */
     void train(double[][] data, int epochs);
 
+    /**
+     * Trains the quantizer on single-precision vectors stored back to back over a specified number of epochs.
+     * Sample i is the vector at {@code vectorIndexes[i]}, so samples can share the coordinates of a vector, as the
+     * pixels of the same color do in {@code vectors} from a single-precision color extraction.
+     * The training is otherwise the same as {@link #train(double[][], int)}.
+     *
+     * @param vectors       the vectors, vector i at {@code vectors[i * dimension]}
+     * @param dimension     the dimension of the vectors
+     * @param vectorIndexes the index of the vector of each sample, or null if sample i is vector i
+     * @param epochs        the number of epochs
+     * @throws IllegalArgumentException if the vectors are empty or do not match the dimension, or if there are fewer
+     *                                  samples than the quantizer needs
+     */
+    void train(float[] vectors, int dimension, int[] vectorIndexes, int epochs);
+
+    /**
+     * Returns the precision the quantizer stores its units and trains and searches in.
+     *
+     * @return the precision
+     */
+    Precision getPrecision();
+
+    /**
+     * Returns the number of epochs the last training run actually ran for
+     * (fewer than requested if training converged or stopped early).
+     *
+     * @return the number of epochs run
+     */
+    int getEpochsRun();
+
+    /**
+     * Sets the listener that is notified about the progress of training ({@link TrainingListener#NONE} by default).
+     *
+     * @param trainingListener the training listener
+     */
+    void setTrainingListener(TrainingListener trainingListener);
+
+    /**
+     * Returns the number of units. Units are indexed from 0 to {@code unitCount() - 1}, in the order of
+     * {@link #getUnits()}, so the index-based methods need no unit objects or lists.
+     *
+     * @return the number of units (0 if the quantizer has no units yet)
+     */
+    int unitCount();
+
+    /**
+     * Finds the index of the unit that is the closest to the given input vector.
+     *
+     * @param input the input vector
+     * @return the index of the closest unit
+     */
+    int findClosestIndex(double[] input);
+
+    /**
+     * Finds the index of the closest unit for each of a range of input vectors stored back to back in a flat buffer,
+     * and optionally the squared distance to it. This is the bulk form of {@link #findClosestIndex(double[])}, which
+     * avoids a call and an input array per vector and lets the search run over contiguous memory.
+     *
+     * @param inputs        the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the closest unit of input {@code offset + i}
+     *                      at position i
+     * @param squaredErrors the array that receives the squared distance (in the distance metric of the quantizer)
+     *                      to the closest unit of input {@code offset + i} at position i, or null if not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    void findClosestIndices(double[] inputs, int offset, int length, int[] indices, double[] squaredErrors);
+
+    /**
+     * Finds the index of the closest unit for each of a range of single-precision input vectors stored back to back
+     * in a flat buffer, and optionally the squared distance to it. A quantizer in single precision searches the inputs
+     * as they are, while a quantizer in double precision widens them.
+     *
+     * @param inputs        the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the closest unit of input {@code offset + i}
+     *                      at position i
+     * @param squaredErrors the array that receives the squared distance (in the distance metric of the quantizer)
+     *                      to the closest unit of input {@code offset + i} at position i, or null if not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    void findClosestIndices(float[] inputs, int offset, int length, int[] indices, double[] squaredErrors);
+
+    /**
+     * Returns the coordinates/weights of the unit at the specified index.
+     *
+     * @param index the index of the unit
+     * @return an array representing the unit's coordinates/weights
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    double[] getUnitCoordinates(int index);
+
+    /**
+     * Updates the coordinates/weights of the unit at the specified index with the provided values.
+     *
+     * @param index       the index of the unit
+     * @param coordinates an array representing the new coordinates/weights for the unit
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalArgumentException  if the array dimensions do not match the expected size
+     */
+    void updateUnit(int index, double[] coordinates);
+
     /**
      * Finds the unit that is the closest to the given input vector.
      *
@@ -58,6 +179,19 @@ public interface Quantizer {
      */
     void setUnits(List<Object> units);
 
+    /**
+     * Sets the units of a quantizer to a palette learned before, such as the palette of the previous frame or of a
+     * preview, so that the next training run refines it instead of learning a palette from scratch. Quantizers whose
+     * training schedule starts with large updates start the refining run with smaller ones, so that the palette stays
+     * close to the one it was set to. By default, this only sets the units.
+     *
+     * @param units the list of units to refine
+     * @throws IllegalArgumentException if the units cannot be set, as in {@link #setUnits(List)}
+     */
+    default void warmStart(List<Object> units) {
+        setUnits(units);
+    }
+
     /**
      * Returns a deep copy list of all units in the quantizer.
      *
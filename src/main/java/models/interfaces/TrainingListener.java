@@ -0,0 +1,36 @@
+package main.java.models.interfaces;
+
+/**
+ * Defines a listener that is notified about the progress of a quantizer during training.
+ * Quantizers skip all progress bookkeeping when their listener is {@link #NONE}, so training without a listener
+ * pays nothing for it.
+ */
+public interface TrainingListener {
+    /**
+     * A listener that ignores all notifications (the default listener of the quantizers).
+     */
+    TrainingListener NONE = (epoch, epochs, learningRate, radius, movement, inertia, elapsedNanos) -> {
+    };
+
+    /**
+     * Called after every training epoch.
+     *
+     * @param epoch        the number of the epoch that just finished, starting from 1
+     * @param epochs       the maximum number of epochs of the training run
+     * @param learningRate the learning rate used in the epoch
+     * @param radius       the neighborhood radius used in the epoch (NaN for quantizers without a neighborhood)
+     * @param movement     the largest distance a unit moved during the epoch
+     * @param inertia      the mean squared distance between the mini-batch items and their closest units
+     * @param elapsedNanos the time elapsed since the start of the training run, in nanoseconds
+     */
+    void onEpoch(int epoch, int epochs, double learningRate, double radius, double movement, double inertia, long elapsedNanos);
+
+    /**
+     * Called once training finishes, whether it ran for all epochs, converged or stopped early.
+     *
+     * @param epochsRun    the number of epochs the training run actually ran for
+     * @param elapsedNanos the duration of the training run, in nanoseconds
+     */
+    default void onTrainingEnd(int epochsRun, long elapsedNanos) {
+    }
+}
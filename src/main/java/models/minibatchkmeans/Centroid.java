@@ -1,42 +1,122 @@
 package main.java.models.minibatchkmeans;
 
+import java.util.Arrays;
+
 /**
- * Represents a centroid with coordinates in a K-Means cluster.
+ * Represents a centroid with coordinates in a K-Means cluster. The centroids of a {@link MiniBatchKMeans} model are
+ * views over the contiguous coordinate array of the model, while centroids created with the public constructor
+ * own their coordinates. In both cases the coordinates are copied in and out, so a centroid never shares its
+ * coordinates with the caller. The views also write through to the transposed copy of the coordinates that the model
+ * keeps for its bulk search. The views of a model in single precision are stored in single precision, and their
+ * coordinates are widened when read and narrowed when written.
  */
 public class Centroid {
-    private double[] coordinates; // The coordinates of the centroid
+    private final double[] storage; // The array the coordinates are stored in (null in single precision)
+    private final double[] transposedStorage; // The transposed coordinates of all centroids of the model (null if the centroid owns its coordinates)
+    private final float[] floatStorage; // The single-precision array the coordinates are stored in (null in double precision)
+    private final float[] transposedFloatStorage; // The transposed single-precision coordinates of all centroids of the model (null in double precision)
+    private final int offset; // The index of the first coordinate in the storage
+    private final int dimension; // The number of coordinates
 
     /**
      * Constructs a Centroid instance with specified coordinates.
      *
-     * @param coordinates an array with the initial coordinates of the centroid
+     * @param coordinates an array with the initial coordinates of the centroid (copied)
      */
     public Centroid(double[] coordinates) {
-        this.coordinates = coordinates;
+        this(coordinates.clone(), null, 0, coordinates.length);
+    }
+
+    /**
+     * Constructs a Centroid instance that is a view over a range of a coordinate array.
+     *
+     * @param storage           the array the coordinates are stored in
+     * @param transposedStorage the coordinates of all centroids in the storage transposed (coordinate after
+     *                          coordinate), which are kept in sync with the storage, or null
+     * @param offset            the index of the first coordinate in the storage
+     * @param dimension         the number of coordinates
+     */
+    Centroid(double[] storage, double[] transposedStorage, int offset, int dimension) {
+        this.storage = storage;
+        this.transposedStorage = transposedStorage;
+        this.floatStorage = null;
+        this.transposedFloatStorage = null;
+        this.offset = offset;
+        this.dimension = dimension;
     }
 
     /**
-     * Returns the coordinates of the centroid.
+     * Constructs a Centroid instance that is a view over a range of a single-precision coordinate array.
+     *
+     * @param floatStorage           the array the coordinates are stored in
+     * @param transposedFloatStorage the coordinates of all centroids in the storage transposed (coordinate after
+     *                               coordinate), which are kept in sync with the storage
+     * @param offset                 the index of the first coordinate in the storage
+     * @param dimension              the number of coordinates
+     */
+    Centroid(float[] floatStorage, float[] transposedFloatStorage, int offset, int dimension) {
+        this.storage = null;
+        this.transposedStorage = null;
+        this.floatStorage = floatStorage;
+        this.transposedFloatStorage = transposedFloatStorage;
+        this.offset = offset;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Returns a copy of the coordinates of the centroid.
      *
      * @return an array with the coordinates of the centroid
      */
     public double[] getCoordinates() {
-        return coordinates;
+        if (floatStorage != null) {
+            double[] coordinates = new double[dimension];
+            for (int d = 0; d < dimension; d++) {
+                coordinates[d] = floatStorage[offset + d];
+            }
+            return coordinates;
+        }
+        return Arrays.copyOfRange(storage, offset, offset + dimension);
     }
 
     /**
-     * Sets new coordinates for the centroid.
+     * Sets new coordinates for the centroid. The coordinates are copied.
      *
      * @param coordinates an array with the new coordinates
      * @throws IllegalArgumentException if the input coordinates are null
      *                                  or if the input length coordinates are of different length than the original ones
      */
     public void setCoordinates(double[] coordinates) {
-        if (coordinates == null || coordinates.length != this.coordinates.length) {
+        if (coordinates == null || coordinates.length != dimension) {
             throw new IllegalArgumentException(
                     "Coordinates array must not be null and must have the same length as the existing coordinates."
             );
         }
-        this.coordinates = coordinates;
+        // Coordinate d of centroid i is at d * unitCount + i in the transposed layout
+        int index = offset / dimension;
+        if (floatStorage != null) {
+            int unitCount = transposedFloatStorage.length / dimension;
+            for (int d = 0; d < dimension; d++) {
+                floatStorage[offset + d] = (float) coordinates[d];
+                transposedFloatStorage[d * unitCount + index] = (float) coordinates[d];
+            }
+            return;
+        }
+        System.arraycopy(coordinates, 0, storage, offset, dimension);
+        if (transposedStorage != null) {
+            int unitCount = transposedStorage.length / dimension;
+            for (int d = 0; d < dimension; d++) {
+                transposedStorage[d * unitCount + index] = coordinates[d];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of coordinates of the centroid.
+     *
+     * @return the dimension of the centroid
+     */
+    public int getDimension() {
+        return dimension;
     }
 }
@@ -1,134 +1,361 @@
 package main.java.models.minibatchkmeans;
 
+import main.java.models.batchsizes.FixedBatchSize;
+import main.java.models.interfaces.BatchSizeSchedule;
 import main.java.models.interfaces.Decay;
 import main.java.models.interfaces.Distance;
 import main.java.models.interfaces.Quantizer;
-import main.java.models.utils.BatchUtils;
+import main.java.models.interfaces.TrainingListener;
+import main.java.models.training.EarlyStopping;
+import main.java.models.utils.MiniBatchSampler;
+import main.java.models.utils.NearestUnitSearch;
+import main.java.models.utils.TrainingData;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Implements the Mini-Batch K-Means clustering algorithm. This is a version of the traditional K-Means algorithm which
  * picks random batches of data on each iteration and uses them for training.
  * This speeds up conversion and training times.
+ * The coordinates of all centroids are stored in one contiguous array (centroid after centroid), and the
+ * {@link Centroid} units are views over it. A transposed copy (coordinate after coordinate) is kept in sync for the
+ * bulk search, and the mini-batch buffers are reused across epochs, so training allocates nothing per epoch.
+ * In single precision ({@link Quantizer.Precision#FLOAT}), the coordinates, their transposed copy and the mini-batches
+ * are stored in single precision, and the closest centroids are searched for in single precision. Only the sums of
+ * the points assigned to each centroid are accumulated in double precision.
+ * An instance must only be used by one thread at a time, since the bulk search reuses a scratch buffer.
  */
 public class MiniBatchKMeans implements Quantizer {
-    private final List<Cluster> clusters; // A list of clusters in the model
     private final int k; // The number of clusters
+    private final Precision precision; // The precision the centroids are stored and searched in
+    private double[] centroids; // The coordinates of all centroids, centroid i at index i * dimension (null until initialized or in single precision)
+    private double[] transposedCentroids; // The coordinates of all centroids transposed, coordinate d of centroid i at index d * k + i
+    private float[] floatCentroids; // The single-precision coordinates of all centroids (null until initialized or in double precision)
+    private float[] transposedFloatCentroids; // The single-precision coordinates of all centroids transposed
+    private Centroid[] units; // The centroid views over the coordinates, in the order of the centroids
+    private double[] sums; // The sum of the points assigned to each centroid in the current mini-batch
+    private int[] counts; // The number of points assigned to each centroid in the current mini-batch
+    private double[] distances; // The distances from an input to every centroid in the bulk search
+    private float[] floatDistances; // The single-precision distances from an input to every centroid in the bulk search
+    private double[] batch; // The points of the current mini-batch back to back (sized to the largest mini-batch)
+    private float[] floatBatch; // The points of the current mini-batch in single precision
+    private int[] batchAssignments; // The index of the closest centroid of each point of the current mini-batch
+    private double[] batchSquaredErrors; // The squared distance of each point of the current mini-batch to its closest centroid
+    private double[] oldCoordinates; // The coordinates of a centroid before an update
+    private double[] newCoordinates; // The coordinates of a centroid after an update
+    private float[] oldFloatCoordinates; // The single-precision coordinates of a centroid before an update
+    private float[] newFloatCoordinates; // The single-precision coordinates of a centroid after an update
+    private float[] narrowedInputs; // The inputs of a search narrowed to single precision (single precision only)
+    private double[] widenedInputs; // The inputs of a search widened to double precision (double precision only)
+    private int dimension; // The dimension of the centroids (0 until initialized)
     private final Distance distance; // The distance metric used to find the closest centroids
     private final double initialLearningRate; // The initial learning rate for training (set to 0.5 by default)
     private final Decay decay; // The decay metric used to decay the value of the learning rate
     private final double convergenceThreshold; // The convergence threshold (set to 0.0001 by default)
-    private final Random random; // A random generator for selecting mini-batches
+    private final SplittableRandom random; // A random generator for initializing the centroids
+    private MiniBatchSampler sampler; // The sampler used for selecting mini-batches
+    private BatchSizeSchedule batchSizeSchedule; // The schedule of the mini-batch size in each epoch
+    private EarlyStopping earlyStopping; // The early stopping controller (null if early stopping is disabled)
+    private int epochsRun; // The number of epochs the last training run ran for
+    private TrainingListener trainingListener; // The listener notified about the progress of training
 
     /**
      * Constructs a MiniBatchKMeans instance with a specified number of clusters and distance metric.
      *
      * @param k        the number of clusters
      * @param distance the distance metric used to compute distances between points and centroids
+     * @param decay    the decay metric to use in the model
      */
     public MiniBatchKMeans(int k, Distance distance, Decay decay) {
+        this(k, distance, decay, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructs a MiniBatchKMeans instance with a specified number of clusters, distance metric and random seed.
+     * Instances constructed with the same parameters and seed produce the same results when trained on the same data.
+     *
+     * @param k        the number of clusters
+     * @param distance the distance metric used to compute distances between points and centroids
+     * @param decay    the decay metric to use in the model
+     * @param seed     the seed used for initializing the centroids and for selecting mini-batches
+     */
+    public MiniBatchKMeans(int k, Distance distance, Decay decay, long seed) {
+        this(k, distance, decay, seed, Precision.DOUBLE);
+    }
+
+    /**
+     * Constructs a MiniBatchKMeans instance with a specified number of clusters, distance metric, random seed and
+     * precision. In single precision, the centroids and the mini-batches take half the memory, and the points are
+     * matched to the centroids with single-precision kernels.
+     *
+     * @param k         the number of clusters
+     * @param distance  the distance metric used to compute distances between points and centroids
+     * @param decay     the decay metric to use in the model
+     * @param seed      the seed used for initializing the centroids and for selecting mini-batches
+     * @param precision the precision the centroids are stored and searched in
+     */
+    public MiniBatchKMeans(int k, Distance distance, Decay decay, long seed, Precision precision) {
         this.k = k;
+        this.precision = precision;
         this.distance = distance;
         this.decay = decay;
         this.convergenceThreshold = 0.0001;
         this.initialLearningRate = 0.5;
-        this.random = new Random();
-        this.clusters = new ArrayList<>();
+        this.random = new SplittableRandom(seed);
+        this.sampler = new MiniBatchSampler(random.nextLong());
+        this.batchSizeSchedule = new FixedBatchSize();
+        this.trainingListener = TrainingListener.NONE;
     }
 
     /**
-     * Initializes clusters with random centroids from the input data.
+     * Sets the strategy used for selecting mini-batches (sampling with replacement by default).
      *
-     * @param data the input data used for initialization
+     * @param mode the sampling mode
      */
-    private void initializeClusters(double[][] data) {
-        // Initialize clusters with random centroids from the data
-        for (int i = 0; i < k; i++) {
-            Centroid centroid = new Centroid(data[random.nextInt(data.length)]);
-            clusters.add(new Cluster(centroid));
-        }
+    public void setSamplingMode(MiniBatchSampler.Mode mode) {
+        this.sampler = new MiniBatchSampler(random.nextLong(), mode);
     }
 
     /**
-     * Clears all points from the clusters.
-     * This is used as a preparation step for the next assignment phase.
+     * Sets the schedule of the mini-batch size in each epoch
+     * (2% of the data size, capped at 1024, by default).
+     *
+     * @param batchSizeSchedule the batch size schedule
      */
-    private void clearClusters() {
-        for (Cluster cluster : clusters) {
-            cluster.clearPoints();
-        }
+    public void setBatchSizeSchedule(BatchSizeSchedule batchSizeSchedule) {
+        this.batchSizeSchedule = batchSizeSchedule;
     }
 
     /**
-     * Assigns each point in the input data to the closest cluster.
+     * Sets the early stopping controller used during training (early stopping is disabled by default).
      *
-     * @param data the input data points to be assigned
+     * @param earlyStopping the early stopping controller, or null to disable early stopping
      */
-    private void assignPointsToClusters(double[][] data) {
-        for (double[] point : data) {
-            Cluster closestCluster = findClosestCluster(point);
-            closestCluster.addPoint(point);
-        }
+    public void setEarlyStopping(EarlyStopping earlyStopping) {
+        this.earlyStopping = earlyStopping;
     }
 
     /**
-     * Updates the centroids of the clusters based on the assigned points
-     * and checks for convergence based on the set threshold.
+     * Sets the listener that is notified about the progress of training ({@link TrainingListener#NONE} by default).
      *
-     * @return true if centroids have converged, false otherwise
+     * @param trainingListener the training listener, or null to remove the current listener
      */
-    private boolean updateCentroids(double learningRate) {
-        boolean isConverged = true;
-
-        for (Cluster cluster : clusters) {
-            double[] newCoordinates = new double[cluster.getCentroid().getCoordinates().length];
-            List<double[]> points = cluster.getPoints();
+    @Override
+    public void setTrainingListener(TrainingListener trainingListener) {
+        this.trainingListener = trainingListener != null ? trainingListener : TrainingListener.NONE;
+    }
 
-            if (points.isEmpty()) {
-                continue;
-            }
+    /**
+     * Returns the number of epochs the last training run actually ran for.
+     *
+     * @return the number of epochs run
+     */
+    @Override
+    public int getEpochsRun() {
+        return epochsRun;
+    }
 
-            // Calculate the mean for each dimension using points in the mini-batch
+    /**
+     * Returns the precision the centroids are stored and searched in.
+     *
+     * @return the precision
+     */
+    @Override
+    public Precision getPrecision() {
+        return precision;
+    }
 
-            // Sum up all point coordinates
-            for (double[] point : points) {
-                for (int i = 0; i < newCoordinates.length; i++) {
-                    newCoordinates[i] += point[i];
-                }
+    /**
+     * Allocates the contiguous coordinate array of the centroids, its transposed copy, the views over them and the
+     * buffers used in every epoch. The mini-batch buffers are allocated by the first epoch.
+     *
+     * @param dimension the dimension of the centroids
+     */
+    private void allocateCentroids(int dimension) {
+        this.dimension = dimension;
+        sums = new double[k * dimension];
+        counts = new int[k];
+        batchAssignments = new int[0];
+        batchSquaredErrors = new double[0];
+        units = new Centroid[k];
+        if (precision == Precision.FLOAT) {
+            floatCentroids = new float[k * dimension];
+            transposedFloatCentroids = new float[k * dimension];
+            floatDistances = new float[k];
+            floatBatch = new float[0];
+            oldFloatCoordinates = new float[dimension];
+            newFloatCoordinates = new float[dimension];
+            for (int i = 0; i < k; i++) {
+                units[i] = new Centroid(floatCentroids, transposedFloatCentroids, i * dimension, dimension);
             }
-
-            // Get the mean
-            for (int i = 0; i < newCoordinates.length; i++) {
-                newCoordinates[i] /= points.size();
+        } else {
+            centroids = new double[k * dimension];
+            transposedCentroids = new double[k * dimension];
+            distances = new double[k];
+            batch = new double[0];
+            oldCoordinates = new double[dimension];
+            newCoordinates = new double[dimension];
+            for (int i = 0; i < k; i++) {
+                units[i] = new Centroid(centroids, transposedCentroids, i * dimension, dimension);
             }
+        }
+    }
 
-            double[] centroidCoords = cluster.getCentroid().getCoordinates();
+    /**
+     * Initializes the centroids with random points from the input data.
+     * The points are copied, so training never updates the input data.
+     *
+     * @param data the input data used for initialization
+     */
+    private void initializeCentroids(TrainingData data) {
+        allocateCentroids(data.dimension());
+        for (int i = 0; i < k; i++) {
+            int sample = random.nextInt(data.size());
+            if (precision == Precision.FLOAT) {
+                data.copySample(sample, floatCentroids, i * dimension);
+            } else {
+                data.copySample(sample, centroids, i * dimension);
+            }
+        }
+        transposeCentroids();
+    }
 
-            // Store the old centroid coordinates for the convergence check
-            double[] oldCoordinates = cluster.getCentroid().getCoordinates().clone();
+    /**
+     * Brings the transposed copy of the coordinates up to date after the centroids were updated in place.
+     */
+    private void transposeCentroids() {
+        if (precision == Precision.FLOAT) {
+            NearestUnitSearch.transposeUnits(floatCentroids, k, dimension, transposedFloatCentroids);
+        } else {
+            NearestUnitSearch.transposeUnits(centroids, k, dimension, transposedCentroids);
+        }
+    }
 
-            // Apply the learning rate to update the centroid position (coordinates are updated in place)
-            for (int i = 0; i < centroidCoords.length; i++) {
-                centroidCoords[i] = (1 - learningRate) * centroidCoords[i] + learningRate * newCoordinates[i];
+    /**
+     * Assigns each point of a mini-batch to the closest centroid, summing up the points assigned to each centroid.
+     * The points are copied into a flat buffer, so the closest centroids of the whole mini-batch are found in one
+     * bulk search. The buffers are only reallocated when the mini-batch is larger than any before.
+     *
+     * @param data      the input data
+     * @param indexes   the indexes of the mini-batch points in the input data
+     * @param batchSize the number of points in the mini-batch
+     * @return the mini-batch inertia (the mean squared distance between the points and their closest centroids)
+     */
+    private double assignPointsToClusters(TrainingData data, int[] indexes, int batchSize) {
+        boolean single = precision == Precision.FLOAT;
+        if (batchAssignments.length < batchSize) {
+            if (single) {
+                floatBatch = new float[batchSize * dimension];
+            } else {
+                batch = new double[batchSize * dimension];
+            }
+            batchAssignments = new int[batchSize];
+            batchSquaredErrors = new double[batchSize];
+        }
+        for (int i = 0; i < batchSize; i++) {
+            if (single) {
+                data.copySample(indexes[i], floatBatch, i * dimension);
+            } else {
+                data.copySample(indexes[i], batch, i * dimension);
             }
+        }
+        if (single) {
+            findClosestIndices(floatBatch, 0, batchSize, batchAssignments, batchSquaredErrors);
+        } else {
+            findClosestIndices(batch, 0, batchSize, batchAssignments, batchSquaredErrors);
+        }
 
-            // Calculate the distance moved
-            double movement = distance.compute(oldCoordinates, centroidCoords);
+        Arrays.fill(sums, 0.0);
+        Arrays.fill(counts, 0);
+        double inertia = 0.0;
+        for (int i = 0; i < batchSize; i++) {
+            int sumStart = batchAssignments[i] * dimension;
+            int pointStart = i * dimension;
+            if (single) {
+                for (int d = 0; d < dimension; d++) {
+                    sums[sumStart + d] += floatBatch[pointStart + d];
+                }
+            } else {
+                for (int d = 0; d < dimension; d++) {
+                    sums[sumStart + d] += batch[pointStart + d];
+                }
+            }
+            counts[batchAssignments[i]]++;
+            inertia += batchSquaredErrors[i];
+        }
+        return inertia / batchSize;
+    }
 
-            // Check for convergence based on the movement
-            if (movement > convergenceThreshold) {
-                isConverged = false;
+    /**
+     * Updates the centroids based on the assigned points.
+     *
+     * @param learningRate the current learning rate
+     * @return the largest distance a centroid moved, used for the convergence check
+     */
+    private double updateCentroids(double learningRate) {
+        double maxMovement = 0.0;
+        // The old and new coordinates of a centroid are copied into the reused arrays, since the distance metric
+        // takes arrays
+        for (int c = 0; c < k; c++) {
+            if (counts[c] == 0) {
+                continue;
             }
+            double movement = precision == Precision.FLOAT ? moveFloatCentroid(c, learningRate) : moveCentroid(c, learningRate);
+            maxMovement = Math.max(maxMovement, movement);
         }
+        transposeCentroids();
 
-        return isConverged;
+        return maxMovement;
+    }
+
+    /**
+     * Moves a centroid towards the mean of the points assigned to it in the mini-batch by the learning rate.
+     *
+     * @param c            the index of the centroid
+     * @param learningRate the current learning rate
+     * @return the distance the centroid moved
+     */
+    private double moveCentroid(int c, double learningRate) {
+        int start = c * dimension;
+        System.arraycopy(centroids, start, oldCoordinates, 0, dimension);
+        for (int d = 0; d < dimension; d++) {
+            double mean = sums[start + d] / counts[c];
+            newCoordinates[d] = (1 - learningRate) * oldCoordinates[d] + learningRate * mean;
+        }
+        System.arraycopy(newCoordinates, 0, centroids, start, dimension);
+        return distance.compute(oldCoordinates, newCoordinates);
+    }
+
+    /**
+     * Moves a single-precision centroid towards the mean of the points assigned to it in the mini-batch by the
+     * learning rate, in single precision.
+     *
+     * @param c            the index of the centroid
+     * @param learningRate the current learning rate
+     * @return the distance the centroid moved
+     */
+    private double moveFloatCentroid(int c, double learningRate) {
+        int start = c * dimension;
+        float rate = (float) learningRate;
+        System.arraycopy(floatCentroids, start, oldFloatCoordinates, 0, dimension);
+        for (int d = 0; d < dimension; d++) {
+            float mean = (float) (sums[start + d] / counts[c]);
+            newFloatCoordinates[d] = (1 - rate) * oldFloatCoordinates[d] + rate * mean;
+        }
+        System.arraycopy(newFloatCoordinates, 0, floatCentroids, start, dimension);
+        return distance.compute(oldFloatCoordinates, newFloatCoordinates);
     }
 
     /**
      * Trains the Mini-Batch K-Means model using the provided data over a specified number of epochs.
+     * The centroids are initialized from random data points on the first run. If the model has already been trained,
+     * or its centroids were set with {@link #setUnits(List)}, training continues from the current centroids
+     * (a warm start).
+     * If the training thread is interrupted, training stops before the next epoch.
      *
      * @param data   the input data for training
      * @param epochs the number of epochs
@@ -139,72 +366,217 @@ public class MiniBatchKMeans implements Quantizer {
         if (data == null || data.length == 0 || data.length < k) {
             throw new IllegalArgumentException("Input data cannot be null or empty or smaller than k.");
         }
-        initializeClusters(data);
+        train(TrainingData.of(data), epochs);
+    }
+
+    /**
+     * Trains the Mini-Batch K-Means model on single-precision vectors stored back to back over a specified number
+     * of epochs, in the same way as {@link #train(double[][], int)}.
+     *
+     * @param vectors       the vectors, vector i at {@code vectors[i * dimension]}
+     * @param dimension     the dimension of the vectors
+     * @param vectorIndexes the index of the vector of each sample, or null if sample i is vector i
+     * @param epochs        the number of epochs
+     * @throws IllegalArgumentException if the vectors are empty or do not match the dimension, or if there are fewer
+     *                                  samples than clusters
+     */
+    @Override
+    public void train(float[] vectors, int dimension, int[] vectorIndexes, int epochs) {
+        TrainingData data = TrainingData.of(vectors, dimension, vectorIndexes);
+        if (data.size() < k) {
+            throw new IllegalArgumentException("Input data cannot be null or empty or smaller than k.");
+        }
+        train(data, epochs);
+    }
+
+    /**
+     * Trains the Mini-Batch K-Means model on training data of either precision.
+     *
+     * @param data   the input data for training
+     * @param epochs the number of epochs
+     * @throws IllegalArgumentException if the samples do not have the dimension of the centroids
+     */
+    private void train(TrainingData data, int epochs) {
+        if (units == null) {
+            initializeCentroids(data);
+        } else if (data.dimension() != dimension) {
+            throw new IllegalArgumentException("Each input sample must have a dimensionality of " + dimension);
+        }
 
-        boolean converged = false;
         double learningRate = initialLearningRate;
-        // Get batch size. Batch size is 2% of the data size, capped at 1024. At least 1 item in the batch.
-        int batchSize = Math.max(1, Math.min((int) (data.length * 0.02), 1024));
-        System.out.println("Batch size: " + batchSize);
+        int batchSize = batchSizeSchedule.initialBatchSize(data.size());
+        if (earlyStopping != null) {
+            earlyStopping.reset();
+        }
+        epochsRun = 0;
+        // The progress bookkeeping is skipped entirely when nobody is listening
+        boolean notifyListener = trainingListener != TrainingListener.NONE;
+        long startTime = notifyListener ? System.nanoTime() : 0;
         for (int epoch = 0; epoch < epochs; epoch++) {
-            System.out.println("Epoch " + (epoch + 1) + " | Learning rate: " + learningRate);
-            clearClusters();
+            // Stop cooperatively if the training thread was interrupted (for example, when training is canceled)
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            epochsRun = epoch + 1;
 
-            // Get a mini-batch of random points from data
-            double[][] miniBatch = BatchUtils.getMiniBatch(data, batchSize, random);
+            // Get the indexes of a mini-batch of random points from data
+            int[] miniBatch = sampler.nextBatch(data.size(), batchSize);
 
-            // Assign the mini-batch points to clusters
-            assignPointsToClusters(miniBatch);
+            // Assign the mini-batch points to the closest centroids
+            double inertia = assignPointsToClusters(data, miniBatch, batchSize);
 
-            // Update centroids based on the mini-batch and check for convergence
-            converged = updateCentroids(learningRate);
-            if (converged) {
-                System.out.println("Converged at epoch " + (epoch + 1));
+            // Update centroids based on the mini-batch and check for convergence based on the set threshold
+            double movement = updateCentroids(learningRate);
+            if (notifyListener) {
+                trainingListener.onEpoch(epoch + 1, epochs, learningRate, Double.NaN, movement, inertia, System.nanoTime() - startTime);
+            }
+            if (movement <= convergenceThreshold) {
+                break;
+            }
+            // Stop if the inertia or movement no longer improves
+            if (earlyStopping != null && earlyStopping.update(inertia, movement)) {
                 break;
             }
             //Apply decay and get the learning rate for next epoch
             learningRate = decay.compute(initialLearningRate, epoch, epochs);
+
+            // Get the batch size for next epoch
+            batchSize = batchSizeSchedule.nextBatchSize(batchSize, data.size(), movement, inertia);
         }
 
-        if (!converged) {
-            System.out.println("Reached maximum epochs without convergence.");
+        if (notifyListener) {
+            trainingListener.onTrainingEnd(epochsRun, System.nanoTime() - startTime);
         }
     }
 
     /**
-     * Returns the cluster whose centroid is the closest to the given input vector.
+     * Returns the centroid that is closest to the specified input vector.
      *
      * @param input the input vector
-     * @return the closest cluster
-     */
-    private Cluster findClosestCluster(double[] input) {
-        Cluster closestCluster = null;
-        double minDist = Double.MAX_VALUE;
-
-        // Find the closest cluster for each point in the mini-batch
-        for (Cluster cluster : clusters) {
-            double dist = distance.compute(input, cluster.getCentroid().getCoordinates());
-            if (dist < minDist) {
-                minDist = dist;
-                closestCluster = cluster;
-            }
-        }
-        return closestCluster;
+     * @return the closest unit (centroid), or null if the model has not been trained yet
+     */
+    @Override
+    public Object findClosestUnit(double[] input) {
+        return units == null ? null : units[findClosestIndex(input)];
     }
 
     /**
-     * Returns the centroid that is closest to the specified input vector.
+     * Returns the number of centroids in the model.
+     *
+     * @return the number of centroids (0 if the model has not been trained yet)
+     */
+    @Override
+    public int unitCount() {
+        return units == null ? 0 : k;
+    }
+
+    /**
+     * Returns the index of the centroid that is closest to the specified input vector.
      *
      * @param input the input vector
-     * @return the closest unit (centroid)
+     * @return the index of the closest centroid
      */
     @Override
-    public Object findClosestUnit(double[] input) {
-        return findClosestCluster(input).getCentroid();
+    public int findClosestIndex(double[] input) {
+        if (precision == Precision.FLOAT) {
+            float[] narrowedInput = NearestUnitSearch.narrowInputs(input, 0, 1, input.length, null);
+            return NearestUnitSearch.findClosestIndex(floatCentroids, unitCount(), dimension, distance, narrowedInput);
+        }
+        return NearestUnitSearch.findClosestIndex(centroids, unitCount(), dimension, distance, input);
     }
 
     /**
-     * Returns the coordinates of the specified unit if it is a Centroid.
+     * Finds the index of the closest centroid for each of a range of input vectors stored back to back in a flat
+     * buffer, and optionally the squared distance to it. The search runs directly over the contiguous coordinates
+     * of the centroids and their transposed copy, with a reused buffer for the distances. In single precision, the
+     * inputs are narrowed into a reused buffer first.
+     *
+     * @param inputs        the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the closest centroid of input {@code offset + i}
+     *                      at position i
+     * @param squaredErrors the array that receives the squared distance to the closest centroid of input
+     *                      {@code offset + i} at position i, or null if not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    @Override
+    public void findClosestIndices(double[] inputs, int offset, int length, int[] indices, double[] squaredErrors) {
+        if (precision == Precision.FLOAT) {
+            narrowedInputs = NearestUnitSearch.narrowInputs(inputs, offset, length, dimension, narrowedInputs);
+            findClosestIndices(narrowedInputs, 0, length, indices, squaredErrors);
+            return;
+        }
+        NearestUnitSearch.findClosestIndices(centroids, transposedCentroids, distances, unitCount(), dimension, distance,
+                inputs, offset, length, indices, squaredErrors);
+    }
+
+    /**
+     * Finds the index of the closest centroid for each of a range of single-precision input vectors stored back to
+     * back in a flat buffer, and optionally the squared distance to it. In double precision, the inputs are widened
+     * into a reused buffer first.
+     *
+     * @param inputs        the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the closest centroid of input {@code offset + i}
+     *                      at position i
+     * @param squaredErrors the array that receives the squared distance to the closest centroid of input
+     *                      {@code offset + i} at position i, or null if not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    @Override
+    public void findClosestIndices(float[] inputs, int offset, int length, int[] indices, double[] squaredErrors) {
+        if (precision == Precision.DOUBLE) {
+            widenedInputs = NearestUnitSearch.widenInputs(inputs, offset, length, dimension, widenedInputs);
+            findClosestIndices(widenedInputs, 0, length, indices, squaredErrors);
+            return;
+        }
+        NearestUnitSearch.findClosestIndices(floatCentroids, transposedFloatCentroids, floatDistances, unitCount(),
+                dimension, distance, inputs, offset, length, indices, squaredErrors);
+    }
+
+    /**
+     * Returns a copy of the coordinates of the centroid at the specified index.
+     *
+     * @param index the index of the centroid
+     * @return the coordinates of the centroid
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public double[] getUnitCoordinates(int index) {
+        return getCentroid(index).getCoordinates();
+    }
+
+    /**
+     * Updates the coordinates of the centroid at the specified index with the provided values.
+     *
+     * @param index       the index of the centroid
+     * @param coordinates an array representing the new coordinates for the centroid
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalArgumentException  if the array dimensions do not match the coordinates of the centroid
+     */
+    @Override
+    public void updateUnit(int index, double[] coordinates) {
+        getCentroid(index).setCoordinates(coordinates);
+    }
+
+    /**
+     * Returns the centroid at the specified index.
+     *
+     * @param index the index of the centroid
+     * @return the centroid
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private Centroid getCentroid(int index) {
+        if (index < 0 || index >= unitCount()) {
+            throw new IndexOutOfBoundsException("Unit index " + index + " is out of range.");
+        }
+        return units[index];
+    }
+
+    /**
+     * Returns a copy of the coordinates of the specified unit if it is a Centroid.
      *
      * @param unit the unit to coordinates from
      * @return the coordinates of the unit
@@ -231,49 +603,58 @@ public class MiniBatchKMeans implements Quantizer {
         if (!(unit instanceof Centroid)) {
             throw new IllegalArgumentException("Invalid unit type provided. Must be an instance of Centroid.");
         }
-        // Check if the node belongs to the current instance
-        if (getUnits().contains(unit)) {
-            ((Centroid) unit).setCoordinates(arr);
-        } else {
-            throw new IllegalArgumentException("The specified unit does not belong to this Mini Batch K-Means instance.");
+        // Check if the centroid is one of the views of the current instance
+        for (int i = 0; i < unitCount(); i++) {
+            if (units[i] == unit) {
+                ((Centroid) unit).setCoordinates(arr);
+                return;
+            }
         }
+        throw new IllegalArgumentException("The specified unit does not belong to this Mini Batch K-Means instance.");
     }
 
     /**
-     * Returns a list of all centroids in the model.
+     * Returns a list of all centroids in the model. The centroids are views over the coordinates of the model,
+     * so the same centroid objects are returned on every call.
      *
      * @return a list containing all centroids
      */
     @Override
     public List<Object> getUnits() {
-        ArrayList<Object> centroids = new ArrayList<>();
-        for (Cluster cluster : clusters) {
-            centroids.add(cluster.getCentroid());
-        }
-        return centroids;
+        return unitCount() == 0 ? new ArrayList<>() : new ArrayList<>(Arrays.asList(units));
     }
 
     /**
-     * Sets the centroids of the clusters to a predefined list of Centroids.
+     * Sets the centroids to a predefined list of Centroids. If the model has not been trained yet,
+     * the centroids are initialized from them, so that training starts from them (a warm start).
+     * The coordinates are copied, so the provided centroids are never updated by training.
      *
      * @param units the list of centroids to set as the clusters
-     * @throws IllegalArgumentException if the number of units does not match the number of clusters
-     *                                  or if any unit is not a Centroid
+     * @throws IllegalArgumentException if the number of units does not match the number of clusters,
+     *                                  if any unit is not a Centroid or if the centroids have different dimensions
      */
     @Override
     public void setUnits(List<Object> units) {
-        if (units.size() != clusters.size()) {
+        if (units.size() != k) {
             throw new IllegalArgumentException("The number of units does not match the number of clusters.");
         }
-
-        for (int i = 0; i < k; i++) {
-            Object unit = units.get(i);
-            if (!(unit instanceof Centroid newCentroid)) {
+        int unitDimension = this.units != null ? dimension : -1;
+        for (Object unit : units) {
+            if (!(unit instanceof Centroid centroid)) {
                 throw new IllegalArgumentException("All units must be of type Centroid.");
             }
+            if (unitDimension == -1) {
+                unitDimension = centroid.getDimension();
+            } else if (centroid.getDimension() != unitDimension) {
+                throw new IllegalArgumentException("All units must have the same dimension as the centroids.");
+            }
+        }
 
-            // Update the cluster's centroid
-            clusters.get(i).getCentroid().setCoordinates(newCentroid.getCoordinates());
+        if (this.units == null) {
+            allocateCentroids(unitDimension);
+        }
+        for (int i = 0; i < k; i++) {
+            this.units[i].setCoordinates(((Centroid) units.get(i)).getCoordinates());
         }
     }
 
@@ -284,11 +665,9 @@ public class MiniBatchKMeans implements Quantizer {
      */
     public List<Object> getUnitsDeepCopy() {
         List<Object> centroidsDeepCopy = new ArrayList<>();
-        for (Cluster cluster : clusters) {
-            Centroid originalCentroid = cluster.getCentroid();
-            // Create a deep copy of the centroid
-            Centroid deepCopyCentroid = new Centroid(originalCentroid.getCoordinates().clone());
-            centroidsDeepCopy.add(deepCopyCentroid);
+        for (int i = 0; i < unitCount(); i++) {
+            // Create a standalone centroid that owns a copy of the coordinates
+            centroidsDeepCopy.add(new Centroid(units[i].getCoordinates()));
         }
         return centroidsDeepCopy;
     }
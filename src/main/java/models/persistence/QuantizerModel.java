@@ -0,0 +1,76 @@
+package main.java.models.persistence;
+
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.interfaces.Quantizer;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Represents a trained quantizer loaded from a model file, together with the color space its units are in and
+ * an optional prebuilt lookup table. The lookup table maps every color, reduced to a few bits per channel, to the
+ * index of its closest unit, so an image can be remapped
+ * approximately without any distance computations.
+ */
+public class QuantizerModel {
+    private final Quantizer quantizer; // The trained quantizer
+    private final ColorSpace colorSpace; // The color space of the units (null if unknown)
+    private final ShortBuffer lookupTable; // The index of the closest unit of every reduced color (null if absent)
+    private final int lookupBits; // The number of bits per channel of the lookup table (0 if absent)
+
+    /**
+     * Constructs a new QuantizerModel.
+     *
+     * @param quantizer   the trained quantizer
+     * @param colorSpace  the color space of the units, or null if unknown
+     * @param lookupTable the index of the closest unit of every reduced color, or null if absent
+     * @param lookupBits  the number of bits per channel of the lookup table (0 if absent)
+     */
+    public QuantizerModel(Quantizer quantizer, ColorSpace colorSpace, ShortBuffer lookupTable, int lookupBits) {
+        this.quantizer = quantizer;
+        this.colorSpace = colorSpace;
+        this.lookupTable = lookupTable;
+        this.lookupBits = lookupBits;
+    }
+
+    /**
+     * Returns the trained quantizer.
+     *
+     * @return the quantizer
+     */
+    public Quantizer getQuantizer() {
+        return quantizer;
+    }
+
+    /**
+     * Returns the color space the units of the quantizer are in.
+     *
+     * @return the color space, or null if unknown
+     */
+    public ColorSpace getColorSpace() {
+        return colorSpace;
+    }
+
+    /**
+     * Returns whether the model has a prebuilt lookup table.
+     *
+     * @return true if the model has a lookup table, false otherwise
+     */
+    public boolean hasLookupTable() {
+        return lookupTable != null;
+    }
+
+    /**
+     * Returns the index of the closest unit of a color from the lookup table. The color is reduced to the
+     * precision of the table first, so the result is the closest unit of the center of its cell.
+     *
+     * @param rgb the RGB color (the alpha channel is ignored)
+     * @return the index of the closest unit
+     * @throws IllegalArgumentException if the model has no lookup table
+     */
+    public int lookupUnitIndex(int rgb) {
+        if (lookupTable == null) {
+            throw new IllegalArgumentException("The model has no lookup table.");
+        }
+        return lookupTable.get(QuantizerModelFormat.lookupIndex(rgb, lookupBits)) & 0xFFFF;
+    }
+}
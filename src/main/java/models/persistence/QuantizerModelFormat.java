@@ -0,0 +1,347 @@
+package main.java.models.persistence;
+
+import main.java.models.colorspaces.CIELabColorSpace;
+import main.java.models.colorspaces.OklabColorSpace;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.interfaces.Decay;
+import main.java.models.interfaces.Distance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.Centroid;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.som.SOM;
+import main.java.models.som.SOMNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves and loads trained quantizers in a compact, versioned binary format, so a palette can be trained once and
+ * reused across JVM restarts. Model files are read through a memory mapping, so loading does not parse or copy
+ * more than the units themselves, and the optional lookup table is used directly from the mapping.
+ * <p>
+ * All values are big-endian. A file starts with a 32-byte header:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic number ("QMDL")
+ *      4     2  format version
+ *      6     1  algorithm (1 = SOM, 2 = Mini Batch K-means)
+ *      7     1  color space (0 = unknown, 1 = sRGB, 2 = Oklab, 3 = CIELAB)
+ *      8     4  input dimension
+ *     12     4  map width (SOM) or number of clusters (Mini Batch K-means)
+ *     16     4  map height (SOM) or 1 (Mini Batch K-means)
+ *     20     4  bits per channel of the lookup table (0 if there is no lookup table)
+ *     24     8  reserved (0)
+ * </pre>
+ * The header is followed by the coordinates of every unit as doubles, in the order of the unit indexes
+ * (SOM nodes column by column, so the grid position of each node follows from its index), and then by the optional
+ * lookup table: one unsigned short unit index for every color reduced to the given bits per channel.
+ */
+public class QuantizerModelFormat {
+    // The magic number at the start of every model file ("QMDL")
+    public static final int MAGIC = 0x514D444C;
+    // The current version of the format
+    public static final int VERSION = 1;
+    // The default number of bits per channel of the lookup table (32768 entries)
+    public static final int DEFAULT_LOOKUP_BITS = 5;
+    private static final int HEADER_SIZE = 32; // The size of the header in bytes
+    private static final int MAX_LOOKUP_BITS = 8; // The largest supported number of bits per channel
+    private static final int MAX_UNITS = Character.MAX_VALUE + 1; // The most units a lookup table entry can index
+    private static final byte SOM_ALGORITHM = 1; // The algorithm code of SOM
+    private static final byte MINI_BATCH_K_MEANS_ALGORITHM = 2; // The algorithm code of Mini Batch K-means
+
+    /**
+     * Prevents instantiation, since all methods are static.
+     */
+    private QuantizerModelFormat() {
+    }
+
+    /**
+     * Saves a trained quantizer to a file, without a lookup table.
+     *
+     * @param quantizer  the trained quantizer (a SOM or a MiniBatchKMeans)
+     * @param colorSpace the color space of the units, or null if unknown
+     * @param path       the file to write
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if the quantizer is not supported or has not been trained
+     */
+    public static void save(Quantizer quantizer, ColorSpace colorSpace, Path path) throws IOException {
+        save(quantizer, colorSpace, 0, path);
+    }
+
+    /**
+     * Saves a trained quantizer to a file, optionally with a lookup table of the closest unit of every color
+     * reduced to the given bits per channel. Building the lookup table requires the color space of the units.
+     *
+     * @param quantizer  the trained quantizer (a SOM or a MiniBatchKMeans)
+     * @param colorSpace the color space of the units, or null if unknown
+     * @param lookupBits the bits per channel of the lookup table (1 to 8), or 0 for no lookup table
+     * @param path       the file to write
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if the quantizer is not supported or has not been trained, or if a lookup
+     *                                  table is requested with invalid bits or without a color space
+     */
+    public static void save(Quantizer quantizer, ColorSpace colorSpace, int lookupBits, Path path) throws IOException {
+        if (lookupBits < 0 || lookupBits > MAX_LOOKUP_BITS) {
+            throw new IllegalArgumentException("The lookup table must have between 0 (no lookup table) and " + MAX_LOOKUP_BITS + " bits per channel.");
+        }
+        if (lookupBits > 0 && colorSpace == null) {
+            throw new IllegalArgumentException("Building a lookup table requires the color space of the units.");
+        }
+
+        byte algorithm;
+        int width;
+        int height;
+        if (quantizer instanceof SOM som) {
+            algorithm = SOM_ALGORITHM;
+            width = som.getMapWidth();
+            height = som.getMapHeight();
+        } else if (quantizer instanceof MiniBatchKMeans) {
+            algorithm = MINI_BATCH_K_MEANS_ALGORITHM;
+            width = quantizer.unitCount();
+            height = 1;
+        } else {
+            throw new IllegalArgumentException("Only SOM and MiniBatchKMeans quantizers can be saved.");
+        }
+        int unitCount = quantizer.unitCount();
+        if (unitCount == 0) {
+            throw new IllegalArgumentException("The quantizer has not been trained.");
+        }
+        if (unitCount > MAX_UNITS) {
+            throw new IllegalArgumentException("The quantizer has too many units to be saved.");
+        }
+        int inputDimension = quantizer.getUnitCoordinates(0).length;
+
+        int lookupEntries = lookupBits == 0 ? 0 : 1 << (3 * lookupBits);
+        long size = HEADER_SIZE + (long) unitCount * inputDimension * Double.BYTES + (long) lookupEntries * Short.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putShort((short) VERSION)
+                .put(algorithm)
+                .put(colorSpaceCode(colorSpace))
+                .putInt(inputDimension)
+                .putInt(width)
+                .putInt(height)
+                .putInt(lookupBits)
+                .putLong(0);
+        for (int unit = 0; unit < unitCount; unit++) {
+            for (double coordinate : quantizer.getUnitCoordinates(unit)) {
+                buffer.putDouble(coordinate);
+            }
+        }
+        if (lookupBits > 0) {
+            for (short index : buildLookupTable(quantizer, colorSpace, lookupBits)) {
+                buffer.putShort(index);
+            }
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Loads a trained quantizer from a file through a memory mapping. The distance is used for finding the closest
+     * units and the decay for any further training, since neither is part of the model.
+     *
+     * @param path     the file to read
+     * @param distance the distance metric of the quantizer
+     * @param decay    the decay of the quantizer
+     * @return the loaded model
+     * @throws IOException if the file cannot be read, is not a valid model file (a wrong magic number, an invalid
+     *                     header, a size that does not match the header or a lookup table entry that refers to
+     *                     a unit that does not exist) or has an unsupported version or algorithm
+     */
+    public static QuantizerModel load(Path path, Distance distance, Decay decay) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("The file is too small to be a model file.");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("The file is not a model file.");
+        }
+        int version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported model file version: " + version);
+        }
+        byte algorithm = buffer.get(6);
+        ColorSpace colorSpace = colorSpaceFromCode(buffer.get(7));
+        int inputDimension = buffer.getInt(8);
+        int width = buffer.getInt(12);
+        int height = buffer.getInt(16);
+        int lookupBits = buffer.getInt(20);
+        if (inputDimension <= 0 || width <= 0 || height <= 0 || lookupBits < 0 || lookupBits > MAX_LOOKUP_BITS) {
+            throw new IOException("The model file has an invalid header.");
+        }
+        // The sizes are computed as longs, so a corrupt header cannot overflow past the checks
+        long unitCount = (long) width * height;
+        if (unitCount > MAX_UNITS) {
+            throw new IOException("The model file has too many units: " + unitCount);
+        }
+        int lookupEntries = lookupBits == 0 ? 0 : 1 << (3 * lookupBits);
+        long coordinateCount = unitCount * inputDimension;
+        long unitsSize = coordinateCount * Double.BYTES;
+        if (buffer.capacity() != HEADER_SIZE + unitsSize + (long) lookupEntries * Short.BYTES) {
+            throw new IOException("The size of the model file does not match its header.");
+        }
+
+        double[] coordinates = new double[(int) coordinateCount];
+        buffer.position(HEADER_SIZE);
+        buffer.asDoubleBuffer().get(coordinates);
+
+        Quantizer quantizer;
+        List<Object> units = new ArrayList<>((int) unitCount);
+        if (algorithm == SOM_ALGORITHM) {
+            quantizer = new SOM(inputDimension, width, height, distance, decay);
+            int index = 0;
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    SOMNode node = new SOMNode(inputDimension, i, j);
+                    node.setWeights(copyUnit(coordinates, index++, inputDimension));
+                    units.add(node);
+                }
+            }
+        } else if (algorithm == MINI_BATCH_K_MEANS_ALGORITHM && height == 1) {
+            quantizer = new MiniBatchKMeans(width, distance, decay);
+            for (int index = 0; index < unitCount; index++) {
+                units.add(new Centroid(copyUnit(coordinates, index, inputDimension)));
+            }
+        } else {
+            throw new IOException("The model file has an unsupported algorithm: " + algorithm);
+        }
+        quantizer.setUnits(units);
+
+        if (lookupBits == 0) {
+            return new QuantizerModel(quantizer, colorSpace, null, 0);
+        }
+        buffer.position((int) (HEADER_SIZE + unitsSize));
+        ShortBuffer lookupTable = buffer.slice().order(ByteOrder.BIG_ENDIAN).asShortBuffer();
+        // Every entry is checked once here, so a corrupt table cannot fail later during a remap
+        for (int entry = 0; entry < lookupEntries; entry++) {
+            int index = Short.toUnsignedInt(lookupTable.get(entry));
+            if (index >= unitCount) {
+                throw new IOException("The lookup table of the model file refers to unit " + index
+                        + ", but the model has " + unitCount + " units.");
+            }
+        }
+        return new QuantizerModel(quantizer, colorSpace, lookupTable, lookupBits);
+    }
+
+    /**
+     * Returns the index of a color in a lookup table with the given bits per channel.
+     *
+     * @param rgb        the RGB color (the alpha channel is ignored)
+     * @param lookupBits the bits per channel of the lookup table
+     * @return the index of the color in the lookup table
+     */
+    static int lookupIndex(int rgb, int lookupBits) {
+        int shift = 8 - lookupBits;
+        int red = (rgb >> 16 & 0xFF) >> shift;
+        int green = (rgb >> 8 & 0xFF) >> shift;
+        int blue = (rgb & 0xFF) >> shift;
+        return (red << (2 * lookupBits)) | (green << lookupBits) | blue;
+    }
+
+    /**
+     * Builds a lookup table of the closest unit of the center of every cell of the reduced RGB cube.
+     *
+     * @param quantizer  the trained quantizer
+     * @param colorSpace the color space of the units
+     * @param lookupBits the bits per channel of the lookup table
+     * @return the index of the closest unit of every reduced color
+     */
+    private static short[] buildLookupTable(Quantizer quantizer, ColorSpace colorSpace, int lookupBits) {
+        int levels = 1 << lookupBits;
+        int shift = 8 - lookupBits;
+        // The offset of the center of a cell from its lowest color
+        int center = (1 << shift) >> 1;
+        short[] table = new short[levels * levels * levels];
+        // The cells are searched for in bulk, one red slice at a time (in the order of their lookup indexes)
+        int sliceSize = levels * levels;
+        double[] slice = null;
+        int[] closestUnits = new int[sliceSize];
+        for (int red = 0; red < levels; red++) {
+            int cell = 0;
+            for (int green = 0; green < levels; green++) {
+                for (int blue = 0; blue < levels; blue++) {
+                    int rgb = ((red << shift) + center) << 16 | ((green << shift) + center) << 8 | ((blue << shift) + center);
+                    double[] coordinates = colorSpace.fromRgb(rgb);
+                    if (slice == null) {
+                        slice = new double[sliceSize * coordinates.length];
+                    }
+                    System.arraycopy(coordinates, 0, slice, cell * coordinates.length, coordinates.length);
+                    cell++;
+                }
+            }
+            quantizer.findClosestIndices(slice, 0, sliceSize, closestUnits, null);
+            for (int i = 0; i < sliceSize; i++) {
+                table[red * sliceSize + i] = (short) closestUnits[i];
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Copies the coordinates of one unit out of the coordinates of all units.
+     *
+     * @param coordinates    the coordinates of all units
+     * @param index          the index of the unit
+     * @param inputDimension the number of coordinates of each unit
+     * @return the coordinates of the unit
+     */
+    private static double[] copyUnit(double[] coordinates, int index, int inputDimension) {
+        double[] unit = new double[inputDimension];
+        System.arraycopy(coordinates, index * inputDimension, unit, 0, inputDimension);
+        return unit;
+    }
+
+    /**
+     * Returns the code of a color space.
+     *
+     * @param colorSpace the color space, or null
+     * @return the code of the color space (0 if unknown)
+     */
+    private static byte colorSpaceCode(ColorSpace colorSpace) {
+        if (colorSpace instanceof SRGBColorSpace) {
+            return 1;
+        } else if (colorSpace instanceof OklabColorSpace) {
+            return 2;
+        } else if (colorSpace instanceof CIELabColorSpace) {
+            return 3;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the color space of a code.
+     *
+     * @param code the code of the color space
+     * @return the color space, or null if unknown
+     */
+    private static ColorSpace colorSpaceFromCode(byte code) {
+        return switch (code) {
+            case 1 -> new SRGBColorSpace();
+            case 2 -> new OklabColorSpace();
+            case 3 -> new CIELabColorSpace();
+            default -> null;
+        };
+    }
+}
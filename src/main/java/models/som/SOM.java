@@ -1,28 +1,64 @@
 package main.java.models.som;
 
+import main.java.models.batchsizes.FixedBatchSize;
+import main.java.models.interfaces.BatchSizeSchedule;
 import main.java.models.interfaces.Decay;
 import main.java.models.interfaces.Distance;
 import main.java.models.interfaces.Quantizer;
-import main.java.models.utils.BatchUtils;
+import main.java.models.interfaces.TrainingListener;
+import main.java.models.training.EarlyStopping;
+import main.java.models.utils.MiniBatchSampler;
+import main.java.models.utils.NearestUnitSearch;
+import main.java.models.utils.TrainingData;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Implements a Self-Organizing Map (SOM). This is a neural network which uses a two-dimensional grid of nodes
  * to represent high-dimensional input data.
+ * The weights of all nodes are stored in one contiguous array, in the order of the node indexes
+ * ({@code x * mapHeight + y}), and the {@link SOMNode} units are views over it. A transposed copy (weight after
+ * weight) is brought up to date after every epoch for the bulk search.
+ * In single precision ({@link Quantizer.Precision#FLOAT}), the weights, their transposed copy and the current input
+ * are stored in single precision, and the BMUs are searched for and the weights updated in single precision.
+ * An instance must only be used by one thread at a time, since the bulk search reuses a scratch buffer.
  */
 public class SOM implements Quantizer {
-    private final SOMNode[][] map; // A 2D grid representing the SOM
+    private final SOMNode[][] map; // A 2D grid representing the SOM (views over the weights)
+    private final Precision precision; // The precision the weights are stored and searched in
+    private final double[] weights; // The weights of all nodes, node i at index i * inputDimension (null in single precision)
+    private final double[] transposedWeights; // The weights of all nodes transposed, weight d of node i at index d * nodeCount + i
+    private final double[] distances; // The distances from an input to every node in the bulk search
+    private final double[] previousNodeWeights; // The weights of a node before an epoch, when measuring the movement
+    private final double[] currentNodeWeights; // The weights of a node after an epoch, when measuring the movement
+    private final double[] sample; // The input sample currently being trained on
+    private final float[] floatWeights; // The single-precision weights of all nodes (null in double precision)
+    private final float[] transposedFloatWeights; // The single-precision weights of all nodes transposed
+    private final float[] floatDistances; // The single-precision distances from an input to every node in the bulk search
+    private final float[] previousFloatNodeWeights; // The single-precision weights of a node before an epoch
+    private final float[] currentFloatNodeWeights; // The single-precision weights of a node after an epoch
+    private final float[] floatSample; // The single-precision input sample currently being trained on
+    private float[] narrowedInputs; // The inputs of a search narrowed to single precision (single precision only)
+    private double[] widenedInputs; // The inputs of a search widened to double precision (double precision only)
     private final int inputDimension; // The dimension of input data
     private final int mapWidth; // The width of the SOM grid
     private final int mapHeight; // The height of the SOM grid
     private final double initialLearningRate; // The initial learning rate for training (set to 0.5 by default)
     private final double initialRadius; // The initial neighborhood radius for training
+    private double warmStartLearningRate; // The learning rate a warm-started training run starts at (0.1 by default)
+    private double warmStartRadius; // The radius a warm-started training run starts at (0.5 by default)
+    private boolean warmStarted; // Whether the next training run refines the units set by warmStart
     private final Distance distance; // The distance metric used to find the closest units
     private final Decay decay; // The decay metric used to decay the values of the learning rate and radius
-    private final Random random; // A random generator for selecting input samples
+    private final SplittableRandom random; // A random generator for initializing the node weights
+    private MiniBatchSampler sampler; // The sampler used for selecting input samples
+    private BatchSizeSchedule batchSizeSchedule; // The schedule of the mini-batch size in each epoch
+    private EarlyStopping earlyStopping; // The early stopping controller (null if early stopping is disabled)
+    private int epochsRun; // The number of epochs the last training run ran for
+    private TrainingListener trainingListener; // The listener notified about the progress of training
 
     /**
      * Constructs a Self-Organizing Map (SOM) instance with the specified input dimensions, map width and height
@@ -35,27 +71,175 @@ public class SOM implements Quantizer {
      * @param decay          the decay metric to use in the model
      */
     public SOM(int inputDimension, int mapWidth, int mapHeight, Distance distance, Decay decay) {
+        this(inputDimension, mapWidth, mapHeight, distance, decay, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructs a Self-Organizing Map (SOM) instance with the specified input dimensions, map width and height,
+     * distance metric and random seed. Instances constructed with the same parameters and seed produce the same
+     * results when trained on the same data.
+     *
+     * @param inputDimension the dimensionality of input vectors
+     * @param mapWidth       the width of the SOM grid
+     * @param mapHeight      the height of the SOM grid
+     * @param distance       the distance metric used to compute distance between nodes and input vectors
+     * @param decay          the decay metric to use in the model
+     * @param seed           the seed used for initializing the weights and for selecting input samples
+     */
+    public SOM(int inputDimension, int mapWidth, int mapHeight, Distance distance, Decay decay, long seed) {
+        this(inputDimension, mapWidth, mapHeight, distance, decay, seed, Precision.DOUBLE);
+    }
+
+    /**
+     * Constructs a Self-Organizing Map (SOM) instance with the specified input dimensions, map width and height,
+     * distance metric, random seed and precision. In single precision, the weights take half the memory, and the
+     * inputs are matched to the nodes and the nodes updated with single-precision kernels.
+     *
+     * @param inputDimension the dimensionality of input vectors
+     * @param mapWidth       the width of the SOM grid
+     * @param mapHeight      the height of the SOM grid
+     * @param distance       the distance metric used to compute distance between nodes and input vectors
+     * @param decay          the decay metric to use in the model
+     * @param seed           the seed used for initializing the weights and for selecting input samples
+     * @param precision      the precision the weights are stored and searched in
+     */
+    public SOM(int inputDimension, int mapWidth, int mapHeight, Distance distance, Decay decay, long seed, Precision precision) {
+        this.precision = precision;
         this.inputDimension = inputDimension;
         this.mapWidth = mapWidth;
         this.mapHeight = mapHeight;
         this.initialLearningRate = 0.5;
         this.initialRadius = Math.max(mapWidth, mapHeight) / 2.0;
+        this.warmStartLearningRate = 0.1;
+        this.warmStartRadius = 0.5;
         this.distance = distance;
         this.decay = decay;
         this.map = new SOMNode[mapWidth][mapHeight];
-        this.random = new Random();
+        int nodeCount = mapWidth * mapHeight;
+        boolean single = precision == Precision.FLOAT;
+        this.weights = single ? null : new double[nodeCount * inputDimension];
+        this.transposedWeights = single ? null : new double[nodeCount * inputDimension];
+        this.distances = single ? null : new double[nodeCount];
+        this.previousNodeWeights = single ? null : new double[inputDimension];
+        this.currentNodeWeights = single ? null : new double[inputDimension];
+        this.sample = single ? null : new double[inputDimension];
+        this.floatWeights = single ? new float[nodeCount * inputDimension] : null;
+        this.transposedFloatWeights = single ? new float[nodeCount * inputDimension] : null;
+        this.floatDistances = single ? new float[nodeCount] : null;
+        this.previousFloatNodeWeights = single ? new float[inputDimension] : null;
+        this.currentFloatNodeWeights = single ? new float[inputDimension] : null;
+        this.floatSample = single ? new float[inputDimension] : null;
+        this.random = new SplittableRandom(seed);
+        this.sampler = new MiniBatchSampler(random.nextLong());
+        this.batchSizeSchedule = new FixedBatchSize();
+        this.trainingListener = TrainingListener.NONE;
         this.initializeMap();
     }
 
     /**
-     * Initializes the nodes in the SOM grid by creating a new SOMNode for each position in the grid.
+     * Sets the strategy used for selecting input samples (sampling with replacement by default).
+     *
+     * @param mode the sampling mode
+     */
+    public void setSamplingMode(MiniBatchSampler.Mode mode) {
+        this.sampler = new MiniBatchSampler(random.nextLong(), mode);
+    }
+
+    /**
+     * Sets the schedule of the mini-batch size in each epoch
+     * (2% of the data size, capped at 1024, by default).
+     *
+     * @param batchSizeSchedule the batch size schedule
+     */
+    public void setBatchSizeSchedule(BatchSizeSchedule batchSizeSchedule) {
+        this.batchSizeSchedule = batchSizeSchedule;
+    }
+
+    /**
+     * Sets the early stopping controller used during training (early stopping is disabled by default).
+     *
+     * @param earlyStopping the early stopping controller, or null to disable early stopping
+     */
+    public void setEarlyStopping(EarlyStopping earlyStopping) {
+        this.earlyStopping = earlyStopping;
+    }
+
+    /**
+     * Sets the learning rate and neighborhood radius a training run starts at after {@link #warmStart(List)}
+     * (0.1 and 0.5 by default). Both decay over the run as in a training run from scratch. A radius below 1 only
+     * updates the best-matching unit of each sample, so the neighbors of a node no longer pull it around.
+     *
+     * @param learningRate the starting learning rate of a warm-started run
+     * @param radius       the starting neighborhood radius of a warm-started run
+     * @throws IllegalArgumentException if the learning rate is not in (0, 1] or the radius is not positive
+     */
+    public void setWarmStartSchedule(double learningRate, double radius) {
+        if (learningRate <= 0 || learningRate > 1 || radius <= 0) {
+            throw new IllegalArgumentException("The learning rate must be in (0, 1] and the radius greater than zero.");
+        }
+        this.warmStartLearningRate = learningRate;
+        this.warmStartRadius = radius;
+    }
+
+    /**
+     * Sets the listener that is notified about the progress of training ({@link TrainingListener#NONE} by default).
+     *
+     * @param trainingListener the training listener, or null to remove the current listener
+     */
+    @Override
+    public void setTrainingListener(TrainingListener trainingListener) {
+        this.trainingListener = trainingListener != null ? trainingListener : TrainingListener.NONE;
+    }
+
+    /**
+     * Returns the number of epochs the last training run actually ran for.
+     *
+     * @return the number of epochs run
+     */
+    @Override
+    public int getEpochsRun() {
+        return epochsRun;
+    }
+
+    /**
+     * Returns the precision the weights are stored and searched in.
+     *
+     * @return the precision
+     */
+    @Override
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Initializes the nodes in the SOM grid by creating a SOMNode view with random weights for each position
+     * in the grid.
      */
     private void initializeMap() {
         for (int i = 0; i < mapWidth; i++) {
             for (int j = 0; j < mapHeight; j++) {
-                map[i][j] = new SOMNode(inputDimension, i, j);
+                int offset = (i * mapHeight + j) * inputDimension;
+                if (precision == Precision.FLOAT) {
+                    SOMNode.randomWeights(floatWeights, offset, inputDimension, random);
+                    map[i][j] = new SOMNode(floatWeights, transposedFloatWeights, offset, inputDimension, i, j);
+                } else {
+                    SOMNode.randomWeights(weights, offset, inputDimension, random);
+                    map[i][j] = new SOMNode(weights, transposedWeights, offset, inputDimension, i, j);
+                }
             }
         }
+        transposeWeights();
+    }
+
+    /**
+     * Brings the transposed copy of the weights up to date after the weights were updated in place.
+     */
+    private void transposeWeights() {
+        if (precision == Precision.FLOAT) {
+            NearestUnitSearch.transposeUnits(floatWeights, mapWidth * mapHeight, inputDimension, transposedFloatWeights);
+        } else {
+            NearestUnitSearch.transposeUnits(weights, mapWidth * mapHeight, inputDimension, transposedWeights);
+        }
     }
 
     /**
@@ -87,6 +271,7 @@ public class SOM implements Quantizer {
 
     /**
      * Trains the SOM using the specified input data for a specific number of epochs.
+     * If the training thread is interrupted, training stops before the next epoch.
      *
      * @param data   a 2D array representing the input data
      * @param epochs the number of epochs for training
@@ -98,57 +283,192 @@ public class SOM implements Quantizer {
         if (data == null || data.length == 0 || data.length < getMapWidth() * getMapHeight()) {
             throw new IllegalArgumentException("Input data cannot be null or empty or smaller than the number of nodes.");
         }
-        double learningRate = initialLearningRate;
-        double radius = initialRadius;
-        // Get batch size. Batch size is 2% of the data size, capped at 1024. At least 1 item in the batch.
-        int batchSize = Math.max(1, Math.min((int) (data.length * 0.02), 1024));
-        System.out.println("Batch size: " + batchSize);
+        train(TrainingData.of(data), epochs);
+    }
+
+    /**
+     * Trains the SOM on single-precision vectors stored back to back for a specific number of epochs,
+     * in the same way as {@link #train(double[][], int)}.
+     *
+     * @param vectors       the vectors, vector i at {@code vectors[i * dimension]}
+     * @param dimension     the dimension of the vectors
+     * @param vectorIndexes the index of the vector of each sample, or null if sample i is vector i
+     * @param epochs        the number of epochs for training
+     * @throws IllegalArgumentException if the vectors are empty or do not match the dimension, if there are fewer
+     *                                  samples than nodes, or if the dimension is not the input dimension of the map
+     */
+    @Override
+    public void train(float[] vectors, int dimension, int[] vectorIndexes, int epochs) {
+        TrainingData data = TrainingData.of(vectors, dimension, vectorIndexes);
+        if (data.size() < getMapWidth() * getMapHeight()) {
+            throw new IllegalArgumentException("Input data cannot be null or empty or smaller than the number of nodes.");
+        }
+        train(data, epochs);
+    }
+
+    /**
+     * Trains the SOM on training data of either precision.
+     *
+     * @param data   the input data for training
+     * @param epochs the number of epochs for training
+     * @throws IllegalArgumentException if the samples do not have the input dimension of the map
+     */
+    private void train(TrainingData data, int epochs) {
+        if (data.dimension() != inputDimension) {
+            throw new IllegalArgumentException("Each input sample must have a dimensionality of " + inputDimension);
+        }
+        // A warm-started run starts with a small neighborhood and learning rate, so it refines the units it was set to
+        // instead of pulling them back towards each other
+        double startLearningRate = warmStarted ? warmStartLearningRate : initialLearningRate;
+        double startRadius = warmStarted ? warmStartRadius : initialRadius;
+        warmStarted = false;
+        double learningRate = startLearningRate;
+        double radius = startRadius;
+        int batchSize = batchSizeSchedule.initialBatchSize(data.size());
+        if (earlyStopping != null) {
+            earlyStopping.reset();
+        }
+        epochsRun = 0;
+        // The progress bookkeeping is skipped entirely when nobody is listening
+        boolean notifyListener = trainingListener != TrainingListener.NONE;
+        long startTime = notifyListener ? System.nanoTime() : 0;
+        // The weights of the nodes before each epoch, used to measure how far the nodes moved
+        boolean single = precision == Precision.FLOAT;
+        double[] previousWeights = single ? null : new double[weights.length];
+        float[] previousFloatWeights = single ? new float[floatWeights.length] : null;
+        // The index of and squared distance to the BMU of the current input
+        int[] bmuIndex = new int[1];
+        double[] bmuSquaredDistance = new double[1];
         for (int epoch = 0; epoch < epochs; epoch++) {
-            System.out.println("Epoch " + (epoch + 1) + " | Learning rate: " + learningRate + " | Radius: " + radius);
+            // Stop cooperatively if the training thread was interrupted (for example, when training is canceled)
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            epochsRun = epoch + 1;
+
+            if (single) {
+                System.arraycopy(floatWeights, 0, previousFloatWeights, 0, floatWeights.length);
+            } else {
+                System.arraycopy(weights, 0, previousWeights, 0, weights.length);
+            }
 
-            // Get a mini-batch of random points from data
-            double[][] miniBatch = BatchUtils.getMiniBatch(data, batchSize, random);
+            // Get the indexes of a mini-batch of random points from data
+            int[] miniBatch = sampler.nextBatch(data.size(), batchSize);
 
-            for (double[] input : miniBatch) {
-                if (input.length != inputDimension) {
-                    throw new IllegalArgumentException("Each input sample must have a dimensionality of " + inputDimension);
+            double inertia = 0.0;
+            for (int i = 0; i < batchSize; i++) {
+                // The sample is copied into the input buffer of the precision of the map
+                if (single) {
+                    data.copySample(miniBatch[i], floatSample, 0);
+                    findClosestIndices(floatSample, 0, 1, bmuIndex, bmuSquaredDistance);
+                } else {
+                    data.copySample(miniBatch[i], sample, 0);
+                    findClosestIndices(sample, 0, 1, bmuIndex, bmuSquaredDistance);
                 }
-                SOMNode bmu = findClosestUnit(input);
+                inertia += bmuSquaredDistance[0];
 
                 // Update the weights of the SOM Nodes
-                updateMapWeights(input, bmu, learningRate, radius);
+                updateMapWeights(bmuIndex[0], learningRate, radius);
+            }
+            // The BMUs within an epoch are found with single searches, which do not use the transposed weights
+            transposeWeights();
+
+            double movement = single ? computeMovement(previousFloatWeights) : computeMovement(previousWeights);
+            inertia /= batchSize;
+            if (notifyListener) {
+                trainingListener.onEpoch(epoch + 1, epochs, learningRate, radius, movement, inertia, System.nanoTime() - startTime);
             }
 
             // Apply decay and get the learning rate and neighborhood radius for next epoch
-            learningRate = decay.compute(initialLearningRate, epoch, epochs);
+            learningRate = decay.compute(startLearningRate, epoch, epochs);
 
             // Adjusting radius
             // For 80% of the epochs update the BMU and its nodes closest to it.
             // For 20% of epochs the radius will drop below 1, to allow for only updating the BMU.
+            // A warm-started run that starts below 1 only ever updates the BMU.
             if (epoch < 0.8 * epochs) {
-                radius = Math.max(1.0, decay.compute(initialRadius, epoch, epochs));
+                radius = Math.max(Math.min(1.0, startRadius), decay.compute(startRadius, epoch, epochs));
             } else {
-                radius = decay.compute(initialRadius, epoch, epochs);
+                radius = decay.compute(startRadius, epoch, epochs);
             }
+
+            // Stop if the inertia or movement no longer improves
+            if (earlyStopping != null && earlyStopping.update(inertia, movement)) {
+                break;
+            }
+
+            // Get the batch size for next epoch
+            batchSize = batchSizeSchedule.nextBatchSize(batchSize, data.size(), movement, inertia);
+        }
+        if (notifyListener) {
+            trainingListener.onTrainingEnd(epochsRun, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Computes the largest distance a node moved compared to the specified previous weights.
+     *
+     * @param previousWeights the previous weights of the nodes, in the order of the node indexes
+     * @return the largest distance a node moved
+     */
+    private double computeMovement(double[] previousWeights) {
+        double maxMovement = 0.0;
+        // The distance metric takes arrays, so the weights of every node are copied into reused vectors
+        for (int start = 0; start < weights.length; start += inputDimension) {
+            System.arraycopy(previousWeights, start, previousNodeWeights, 0, inputDimension);
+            System.arraycopy(weights, start, currentNodeWeights, 0, inputDimension);
+            maxMovement = Math.max(maxMovement, distance.compute(previousNodeWeights, currentNodeWeights));
+        }
+        return maxMovement;
+    }
+
+    /**
+     * Computes the largest distance a node moved compared to the specified previous single-precision weights,
+     * with the single-precision kernel of the distance metric.
+     *
+     * @param previousFloatWeights the previous weights of the nodes, in the order of the node indexes
+     * @return the largest distance a node moved
+     */
+    private double computeMovement(float[] previousFloatWeights) {
+        double maxMovement = 0.0;
+        for (int start = 0; start < floatWeights.length; start += inputDimension) {
+            System.arraycopy(previousFloatWeights, start, previousFloatNodeWeights, 0, inputDimension);
+            System.arraycopy(floatWeights, start, currentFloatNodeWeights, 0, inputDimension);
+            maxMovement = Math.max(maxMovement, distance.compute(previousFloatNodeWeights, currentFloatNodeWeights));
         }
+        return maxMovement;
     }
 
     /**
-     * Updates the weights in the nodes of the map. Nodes closer to the BMU will be updated more.
+     * Updates the weights in the nodes of the map towards the current input sample. Nodes closer to the BMU will be
+     * updated more. Only the nodes in the square around the BMU that contains the neighborhood are visited,
+     * so the cost of an update depends on the radius instead of the size of the map.
      *
-     * @param input        the input vector being processed
-     * @param bmu          the best-matching unit of input
+     * @param bmuIndex     the index of the best-matching unit of the current input sample
      * @param learningRate the current learning rate
      * @param radius       the current radius
      */
-    private void updateMapWeights(double[] input, SOMNode bmu, double learningRate, double radius) {
-        for (int i = 0; i < mapWidth; i++) {
-            for (int j = 0; j < mapHeight; j++) {
-                SOMNode node = map[i][j];
-                double dist = distance.compute(new double[]{bmu.getX(), bmu.getY()}, new double[]{node.getX(), node.getY()});
+    private void updateMapWeights(int bmuIndex, double learningRate, double radius) {
+        int bmuX = bmuIndex / mapHeight;
+        int bmuY = bmuIndex % mapHeight;
+        int reach = (int) Math.floor(radius);
+        for (int i = Math.max(0, bmuX - reach); i <= Math.min(mapWidth - 1, bmuX + reach); i++) {
+            for (int j = Math.max(0, bmuY - reach); j <= Math.min(mapHeight - 1, bmuY + reach); j++) {
+                // The grid distance is always Euclidean, independently of the distance metric used for the inputs
+                double dist = Math.hypot(bmuX - i, bmuY - j);
                 if (dist <= radius) {
-                    double influence = calculateInfluence(dist, radius);
-                    node.updateWeights(input, learningRate, influence);
+                    double rate = learningRate * calculateInfluence(dist, radius);
+                    int start = (i * mapHeight + j) * inputDimension;
+                    if (precision == Precision.FLOAT) {
+                        float floatRate = (float) rate;
+                        for (int d = 0; d < inputDimension; d++) {
+                            floatWeights[start + d] += floatRate * (floatSample[d] - floatWeights[start + d]);
+                        }
+                    } else {
+                        for (int d = 0; d < inputDimension; d++) {
+                            weights[start + d] += rate * (sample[d] - weights[start + d]);
+                        }
+                    }
                 }
             }
         }
@@ -173,24 +493,126 @@ public class SOM implements Quantizer {
      */
     @Override
     public SOMNode findClosestUnit(double[] input) {
-        // Find the node with the closest distance to the input vector
-        SOMNode bmu = null;
-        double minDist = Double.MAX_VALUE;
-
-        for (SOMNode[] somNodes : map) {
-            for (SOMNode somNode : somNodes) {
-                double dist = distance.compute(input, somNode.getWeights());
-                if (dist < minDist) {
-                    minDist = dist;
-                    bmu = somNode;
-                }
-            }
+        int index = findClosestIndex(input);
+        return map[index / mapHeight][index % mapHeight];
+    }
+
+    /**
+     * Returns the number of nodes in the map.
+     *
+     * @return the number of nodes
+     */
+    @Override
+    public int unitCount() {
+        return mapWidth * mapHeight;
+    }
+
+    /**
+     * Returns the index of the node in the map that is closest to the specified input vector.
+     * The node at (x, y) has the index {@code x * mapHeight + y}.
+     *
+     * @param input the input vector to match
+     * @return the index of the Best Matching Unit (BMU) for the input
+     */
+    @Override
+    public int findClosestIndex(double[] input) {
+        if (precision == Precision.FLOAT) {
+            float[] narrowedInput = NearestUnitSearch.narrowInputs(input, 0, 1, input.length, null);
+            return NearestUnitSearch.findClosestIndex(floatWeights, mapWidth * mapHeight, inputDimension, distance, narrowedInput);
         }
-        return bmu;
+        return NearestUnitSearch.findClosestIndex(weights, mapWidth * mapHeight, inputDimension, distance, input);
     }
 
     /**
-     * Returns the weights of the specified unit if it is a SOMNode.
+     * Finds the index of the closest node for each of a range of input vectors stored back to back in a flat buffer,
+     * and optionally the squared distance to it. The search runs directly over the contiguous weights of the map and
+     * their transposed copy, with a reused buffer for the distances. In single precision, the inputs are narrowed
+     * into a reused buffer first.
+     *
+     * @param inputs        the input vectors, vector i at {@code inputs[i * inputDimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the BMU of input {@code offset + i} at position i
+     * @param squaredErrors the array that receives the squared distance to the BMU of input {@code offset + i}
+     *                      at position i, or null if not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    @Override
+    public void findClosestIndices(double[] inputs, int offset, int length, int[] indices, double[] squaredErrors) {
+        if (precision == Precision.FLOAT) {
+            narrowedInputs = NearestUnitSearch.narrowInputs(inputs, offset, length, inputDimension, narrowedInputs);
+            findClosestIndices(narrowedInputs, 0, length, indices, squaredErrors);
+            return;
+        }
+        NearestUnitSearch.findClosestIndices(weights, transposedWeights, distances, mapWidth * mapHeight, inputDimension,
+                distance, inputs, offset, length, indices, squaredErrors);
+    }
+
+    /**
+     * Finds the index of the closest node for each of a range of single-precision input vectors stored back to back
+     * in a flat buffer, and optionally the squared distance to it. In double precision, the inputs are widened into
+     * a reused buffer first.
+     *
+     * @param inputs        the input vectors, vector i at {@code inputs[i * inputDimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the BMU of input {@code offset + i} at position i
+     * @param squaredErrors the array that receives the squared distance to the BMU of input {@code offset + i}
+     *                      at position i, or null if not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    @Override
+    public void findClosestIndices(float[] inputs, int offset, int length, int[] indices, double[] squaredErrors) {
+        if (precision == Precision.DOUBLE) {
+            widenedInputs = NearestUnitSearch.widenInputs(inputs, offset, length, inputDimension, widenedInputs);
+            findClosestIndices(widenedInputs, 0, length, indices, squaredErrors);
+            return;
+        }
+        NearestUnitSearch.findClosestIndices(floatWeights, transposedFloatWeights, floatDistances, mapWidth * mapHeight,
+                inputDimension, distance, inputs, offset, length, indices, squaredErrors);
+    }
+
+    /**
+     * Returns a copy of the weights of the node at the specified index.
+     *
+     * @param index the index of the node
+     * @return the weights of the node
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public double[] getUnitCoordinates(int index) {
+        return getNode(index).getWeights();
+    }
+
+    /**
+     * Updates the weights of the node at the specified index with the provided values.
+     *
+     * @param index       the index of the node
+     * @param coordinates an array representing the new weights for the node
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalArgumentException  if the array dimensions do not match the weights of the node
+     */
+    @Override
+    public void updateUnit(int index, double[] coordinates) {
+        getNode(index).setWeights(coordinates);
+    }
+
+    /**
+     * Returns the node at the specified index.
+     *
+     * @param index the index of the node
+     * @return the node
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    private SOMNode getNode(int index) {
+        if (index < 0 || index >= mapWidth * mapHeight) {
+            throw new IndexOutOfBoundsException("Unit index " + index + " is out of range.");
+        }
+        return map[index / mapHeight][index % mapHeight];
+    }
+
+    /**
+     * Returns a copy of the weights of the specified unit if it is a SOMNode.
      *
      * @param unit the unit to retrieve weights from
      * @return the weights of the unit
@@ -214,12 +636,14 @@ public class SOM implements Quantizer {
      */
     @Override
     public void updateUnitCoordinates(Object unit, double[] arr) {
-        if (!(unit instanceof SOMNode)) {
+        if (!(unit instanceof SOMNode node)) {
             throw new IllegalArgumentException("Invalid unit type provided. Must be an instance of SOMNode.");
         }
-        // Check if the node belongs to the SOM
-        if (getUnits().contains(unit)) {
-            ((SOMNode) unit).setWeights(arr);
+        // Check if the node belongs to the SOM (the node at its grid position must be the node itself)
+        int x = node.getX();
+        int y = node.getY();
+        if (x >= 0 && x < mapWidth && y >= 0 && y < mapHeight && map[x][y] == node) {
+            node.setWeights(arr);
         } else {
             throw new IllegalArgumentException("The specified unit does not belong to this SOM instance.");
         }
@@ -257,7 +681,7 @@ public class SOM implements Quantizer {
                         originalNode.getX(),
                         originalNode.getY()
                 );
-                deepCopyNode.setWeights(originalNode.getWeights().clone());
+                deepCopyNode.setWeights(originalNode.getWeights());
                 flattenedMapDeepCopy.add(deepCopyNode);
             }
         }
@@ -284,9 +708,25 @@ public class SOM implements Quantizer {
                 if (!(unit instanceof SOMNode newNode)) {
                     throw new IllegalArgumentException("All units must be of type SOMNode.");
                 }
-                map[i][j].setWeights(newNode.getWeights().clone());
+                map[i][j].setWeights(newNode.getWeights());
                 index++;
             }
         }
     }
+
+    /**
+     * Sets the nodes of the SOM to a palette learned before and makes the next training run start at the warm start
+     * learning rate and radius ({@link #setWarmStartSchedule(double, double)}) instead of the initial ones. Starting
+     * with the full radius would pull every node towards the samples of its large neighborhood and undo the
+     * organization of the palette, so two runs on near-identical data would produce different palettes.
+     *
+     * @param units the list of nodes to refine
+     * @throws IllegalArgumentException if the number of units does not match the number of nodes
+     *                                  or if any unit is not a SOMNode
+     */
+    @Override
+    public void warmStart(List<Object> units) {
+        setUnits(units);
+        warmStarted = true;
+    }
 }
@@ -1,12 +1,25 @@
 package main.java.models.som;
 
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
 /**
- * Represents a node in a Self-Organizing Map (SOM) with a set of weights and coordinates.
+ * Represents a node in a Self-Organizing Map (SOM) with a set of weights and coordinates. The nodes of a {@link SOM}
+ * are views over the contiguous weight array of the map, while nodes created with the public constructors own their
+ * weights. In both cases the weights are copied in and out, so a node never shares its weights with the caller.
+ * The views also write through to the transposed copy of the weights that the map keeps for its bulk search.
+ * The views of a map in single precision are stored in single precision, and their weights are widened when read
+ * and narrowed when written.
  */
 public class SOMNode {
     private final int x; // The X-coordinate of the node in the grid
     private final int y; // The Y-coordinate of the node in the grid
-    private double[] weights; // The weight vector for the node
+    private final double[] storage; // The array the weights are stored in (null in single precision)
+    private final double[] transposedStorage; // The transposed weights of all nodes of the map (null if the node owns its weights)
+    private final float[] floatStorage; // The single-precision array the weights are stored in (null in double precision)
+    private final float[] transposedFloatStorage; // The transposed single-precision weights of all nodes of the map (null in double precision)
+    private final int offset; // The index of the first weight in the storage
+    private final int dimension; // The number of weights
 
     /**
      * Constructs a SOMNode instance with a specified dimensionality for weights and 2D coordinates in the grid.
@@ -16,44 +29,135 @@ public class SOMNode {
      * @param y         the y-coordinate of the node in the grid
      */
     public SOMNode(int dimension, int x, int y) {
-        this.weights = new double[dimension];
+        this(dimension, x, y, new SplittableRandom());
+    }
+
+    /**
+     * Constructs a SOMNode instance with a specified dimensionality for weights, 2D coordinates in the grid
+     * and random generator for the initial weights.
+     *
+     * @param dimension the number of dimensions
+     * @param x         the x-coordinate of the node in the grid
+     * @param y         the y-coordinate of the node in the grid
+     * @param random    the random generator used to initialize the weights
+     */
+    public SOMNode(int dimension, int x, int y, SplittableRandom random) {
+        this(randomWeights(new double[dimension], 0, dimension, random), null, 0, dimension, x, y);
+    }
+
+    /**
+     * Constructs a SOMNode instance that is a view over a range of a weight array.
+     *
+     * @param storage           the array the weights are stored in
+     * @param transposedStorage the weights of all nodes in the storage transposed (weight after weight), which are
+     *                          kept in sync with the storage, or null
+     * @param offset            the index of the first weight in the storage
+     * @param dimension         the number of weights
+     * @param x                 the x-coordinate of the node in the grid
+     * @param y                 the y-coordinate of the node in the grid
+     */
+    SOMNode(double[] storage, double[] transposedStorage, int offset, int dimension, int x, int y) {
+        this.storage = storage;
+        this.transposedStorage = transposedStorage;
+        this.floatStorage = null;
+        this.transposedFloatStorage = null;
+        this.offset = offset;
+        this.dimension = dimension;
         this.x = x;
         this.y = y;
-        initializeWeights();
     }
 
     /**
-     * Initializes the weights of the node to random values between 0 and 1.
+     * Constructs a SOMNode instance that is a view over a range of a single-precision weight array.
+     *
+     * @param floatStorage           the array the weights are stored in
+     * @param transposedFloatStorage the weights of all nodes in the storage transposed (weight after weight), which
+     *                               are kept in sync with the storage
+     * @param offset                 the index of the first weight in the storage
+     * @param dimension              the number of weights
+     * @param x                      the x-coordinate of the node in the grid
+     * @param y                      the y-coordinate of the node in the grid
      */
-    private void initializeWeights() {
-        for (int i = 0; i < weights.length; i++) {
-            weights[i] = Math.random();
+    SOMNode(float[] floatStorage, float[] transposedFloatStorage, int offset, int dimension, int x, int y) {
+        this.storage = null;
+        this.transposedStorage = null;
+        this.floatStorage = floatStorage;
+        this.transposedFloatStorage = transposedFloatStorage;
+        this.offset = offset;
+        this.dimension = dimension;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Sets a range of a weight array to random values between 0 and 1. It is static, so the constructors can
+     * initialize the weights before the node is constructed.
+     *
+     * @param storage   the array the weights are stored in
+     * @param offset    the index of the first weight in the storage
+     * @param dimension the number of weights
+     * @param random    the random generator used to initialize the weights
+     * @return the storage
+     */
+    static double[] randomWeights(double[] storage, int offset, int dimension, SplittableRandom random) {
+        for (int i = offset; i < offset + dimension; i++) {
+            storage[i] = random.nextDouble();
         }
+        return storage;
     }
 
     /**
-     * Returns the weights of the node.
+     * Sets a range of a single-precision weight array to random values between 0 and 1, drawing the same values
+     * from the random generator as {@link #randomWeights(double[], int, int, SplittableRandom)}.
+     *
+     * @param storage   the array the weights are stored in
+     * @param offset    the index of the first weight in the storage
+     * @param dimension the number of weights
+     * @param random    the random generator used to initialize the weights
+     */
+    static void randomWeights(float[] storage, int offset, int dimension, SplittableRandom random) {
+        for (int i = offset; i < offset + dimension; i++) {
+            storage[i] = (float) random.nextDouble();
+        }
+    }
+
+    /**
+     * Returns a copy of the weights of the node.
      *
      * @return an array of weights
      */
     public double[] getWeights() {
-        return weights;
+        if (floatStorage != null) {
+            double[] weights = new double[dimension];
+            for (int i = 0; i < dimension; i++) {
+                weights[i] = floatStorage[offset + i];
+            }
+            return weights;
+        }
+        return Arrays.copyOfRange(storage, offset, offset + dimension);
     }
 
     /**
-     * Sets the weights of the node to the specified values.
+     * Sets the weights of the node to the specified values. The weights are copied.
      *
      * @param weights an array of new weight values
      * @throws IllegalArgumentException if the input weights are null
      * or if the input length weights are of different length than the original ones
      */
     public void setWeights(double[] weights) {
-        if (weights == null || weights.length != this.weights.length) {
+        if (weights == null || weights.length != dimension) {
             throw new IllegalArgumentException(
                     "Weights array must not be null and must have the same length as the existing weights."
             );
         }
-        this.weights = weights;
+        if (floatStorage != null) {
+            for (int i = 0; i < dimension; i++) {
+                floatStorage[offset + i] = (float) weights[i];
+            }
+        } else {
+            System.arraycopy(weights, 0, storage, offset, dimension);
+        }
+        copyToTransposedStorage();
     }
 
     /**
@@ -64,8 +168,35 @@ public class SOMNode {
      * @param influence    the neighbourhood influence factor based on the distance to the Best Matching Unit (BMU)
      */
     public void updateWeights(double[] input, double learningRate, double influence) {
-        for (int i = 0; i < weights.length; i++) {
-            weights[i] += learningRate * influence * (input[i] - weights[i]);
+        if (floatStorage != null) {
+            float rate = (float) (learningRate * influence);
+            for (int i = 0; i < dimension; i++) {
+                floatStorage[offset + i] += rate * ((float) input[i] - floatStorage[offset + i]);
+            }
+        } else {
+            for (int i = 0; i < dimension; i++) {
+                storage[offset + i] += learningRate * influence * (input[i] - storage[offset + i]);
+            }
+        }
+        copyToTransposedStorage();
+    }
+
+    /**
+     * Copies the weights of the node to the transposed weights of the map, if the node is a view.
+     */
+    private void copyToTransposedStorage() {
+        // Weight d of node i is at d * nodeCount + i in the transposed layout
+        int index = offset / dimension;
+        if (transposedFloatStorage != null) {
+            int nodeCount = transposedFloatStorage.length / dimension;
+            for (int d = 0; d < dimension; d++) {
+                transposedFloatStorage[d * nodeCount + index] = floatStorage[offset + d];
+            }
+        } else if (transposedStorage != null) {
+            int nodeCount = transposedStorage.length / dimension;
+            for (int d = 0; d < dimension; d++) {
+                transposedStorage[d * nodeCount + index] = storage[offset + d];
+            }
         }
     }
 
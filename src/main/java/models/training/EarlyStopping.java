@@ -0,0 +1,94 @@
+package main.java.models.training;
+
+/**
+ * Decides when training should stop early because it no longer improves. It tracks an exponentially smoothed
+ * training statistic (the mini-batch inertia or the movement of the units) and stops once the smoothed value
+ * has not improved by a minimum relative amount for a number of consecutive epochs (the patience window).
+ */
+public class EarlyStopping {
+    /**
+     * The training statistics that can be monitored.
+     */
+    public enum Monitor {
+        /**
+         * The mean squared distance between the mini-batch items and their closest units.
+         */
+        INERTIA,
+        /**
+         * The largest distance a unit moved during an epoch.
+         */
+        MOVEMENT
+    }
+
+    private final Monitor monitor; // The monitored training statistic
+    private final int patience; // The number of epochs without improvement before stopping
+    private final double minRelativeImprovement; // The smallest relative decrease that counts as an improvement
+    private final double smoothing; // The weight of the newest value in the smoothed value
+    private double smoothedValue; // The smoothed value of the monitored statistic
+    private double bestValue; // The best smoothed value so far
+    private int epochsWithoutImprovement; // The number of consecutive epochs without improvement
+    private boolean hasValues; // Whether any values have been recorded since the last reset
+
+    /**
+     * Constructs an EarlyStopping instance which monitors the inertia and stops after 50 epochs
+     * without a 0.1% improvement.
+     */
+    public EarlyStopping() {
+        this(Monitor.INERTIA, 50, 0.001, 0.1);
+    }
+
+    /**
+     * Constructs an EarlyStopping instance with a specified monitored statistic, patience,
+     * minimum relative improvement and smoothing factor.
+     *
+     * @param monitor                the monitored training statistic
+     * @param patience               the number of epochs without improvement before stopping
+     * @param minRelativeImprovement the smallest relative decrease of the smoothed value that counts as an improvement
+     * @param smoothing              the weight of the newest value in the smoothed value, in the range (0, 1]
+     * @throws IllegalArgumentException if the patience is not positive, the minimum improvement is negative,
+     *                                  or the smoothing factor is not in the range (0, 1]
+     */
+    public EarlyStopping(Monitor monitor, int patience, double minRelativeImprovement, double smoothing) {
+        if (patience <= 0 || minRelativeImprovement < 0 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Patience must be greater than zero, minRelativeImprovement cannot be negative, and smoothing must be in the range (0, 1].");
+        }
+        this.monitor = monitor;
+        this.patience = patience;
+        this.minRelativeImprovement = minRelativeImprovement;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Resets the tracked values. This is called at the start of every training run.
+     */
+    public void reset() {
+        hasValues = false;
+        epochsWithoutImprovement = 0;
+    }
+
+    /**
+     * Records the statistics of an epoch and decides whether training should stop.
+     *
+     * @param inertia  the mini-batch inertia of the epoch
+     * @param movement the largest distance a unit moved during the epoch
+     * @return true if training should stop, false otherwise
+     */
+    public boolean update(double inertia, double movement) {
+        double value = monitor == Monitor.INERTIA ? inertia : movement;
+        if (!hasValues) {
+            smoothedValue = value;
+            bestValue = value;
+            hasValues = true;
+            return false;
+        }
+        smoothedValue += smoothing * (value - smoothedValue);
+
+        if (smoothedValue < bestValue * (1 - minRelativeImprovement)) {
+            bestValue = smoothedValue;
+            epochsWithoutImprovement = 0;
+        } else {
+            epochsWithoutImprovement++;
+        }
+        return epochsWithoutImprovement >= patience;
+    }
+}
@@ -0,0 +1,285 @@
+package main.java.models.training;
+
+import main.java.models.interfaces.Quantizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Trains several independently seeded quantizers on the same data concurrently and keeps the best one (multi-start
+ * training). The results of a single run depend on the random initialization and mini-batches, so the best of several
+ * runs is usually better than any one of them, and on a machine with several cores it takes about as long as a single
+ * run. The quantizers are created by a factory that receives the number of the start, so they can use different
+ * seeds and even different algorithms. The data is shared by all runs and only read.
+ * <p>
+ * Each quantizer is scored by its mean squared quantization error on a random sample of the data, in the distance
+ * metric of the quantizer (so mixed quantizers should use the same metric). With a time budget, training runs that
+ * are still going when the budget runs out are interrupted, which stops them after their current epoch, and starts
+ * that have not begun are skipped.
+ */
+public class MultiStartTrainer {
+    private static final int DEFAULT_SAMPLE_SIZE = 10000; // The default number of data points scored
+
+    private final IntFunction<Quantizer> quantizerFactory; // Creates the quantizer of each start
+    private final int starts; // The number of quantizers to train
+    private final Random random; // Random number generator for the scoring sample
+    private int threadCount; // The number of quantizers trained at a time
+    private long timeBudgetMillis; // The wall-clock budget of a training run (0 for no budget)
+    private int sampleSize = DEFAULT_SAMPLE_SIZE; // The number of data points the quantizers are scored on
+    private double[] scores = new double[0]; // The score of each start in the last run (NaN if it did not run)
+    private int bestIndex = -1; // The start with the best score in the last run
+
+    /**
+     * Constructs a MultiStartTrainer instance which trains up to as many quantizers at a time as there are
+     * available processors.
+     *
+     * @param quantizerFactory creates the quantizer of each start, given its number from 0 to {@code starts - 1}
+     * @param starts           the number of quantizers to train
+     * @param seed             the seed of the random number generator for the scoring sample
+     * @throws IllegalArgumentException if the number of starts is not positive
+     */
+    public MultiStartTrainer(IntFunction<Quantizer> quantizerFactory, int starts, long seed) {
+        if (starts <= 0) {
+            throw new IllegalArgumentException("The number of starts must be greater than zero.");
+        }
+        this.quantizerFactory = quantizerFactory;
+        this.starts = starts;
+        this.random = new Random(seed);
+        this.threadCount = Math.min(starts, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets the number of quantizers trained at a time.
+     *
+     * @param threadCount the number of training threads
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("The number of threads must be greater than zero.");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Sets the wall-clock budget of a training run. When it runs out, the running quantizers are stopped after their
+     * current epoch and the remaining starts are skipped.
+     *
+     * @param timeBudgetMillis the time budget in milliseconds, or 0 for no budget
+     * @throws IllegalArgumentException if the time budget is negative
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        if (timeBudgetMillis < 0) {
+            throw new IllegalArgumentException("The time budget cannot be negative.");
+        }
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sets the number of data points the quantizers are scored on (all points if the data is smaller).
+     *
+     * @param sampleSize the size of the scoring sample
+     * @throws IllegalArgumentException if the sample size is not positive
+     */
+    public void setSampleSize(int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("The sample size must be greater than zero.");
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Trains the quantizers of all starts on the data and returns the one with the lowest sampled MSQE.
+     * If the calling thread is interrupted, the running quantizers are stopped after their current epoch,
+     * the best of them is returned and the interrupt status of the thread is preserved.
+     *
+     * @param data   the input data, shared by all quantizers
+     * @param epochs the number of epochs of each quantizer
+     * @return the quantizer with the lowest sampled MSQE
+     * @throws IllegalArgumentException if the data is null or empty
+     * @throws IllegalStateException    if no quantizer finished within the time budget
+     * @throws RuntimeException         if training a quantizer failed (the exception of the first failed start)
+     */
+    public Quantizer train(double[][] data, int epochs) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Input data cannot be null or empty.");
+        }
+        double[] sample = sample(data);
+        int dimension = data[0].length;
+
+        Quantizer[] quantizers = new Quantizer[starts];
+        double[] startScores = new double[starts];
+        Arrays.fill(startScores, Double.NaN);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "multi-start");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < starts; start++) {
+            int index = start;
+            futures.add(executor.submit(() -> {
+                Quantizer quantizer = quantizerFactory.apply(index);
+                quantizer.train(data, epochs);
+                // Scored even if training was stopped early, since the units are valid after every epoch
+                startScores[index] = score(quantizer, sample, dimension);
+                quantizers[index] = quantizer;
+            }));
+        }
+        executor.shutdown();
+        boolean interrupted = awaitTraining(executor);
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            // The starts skipped when the budget ran out never finish
+            if (future.isDone()) {
+                failure = failure != null ? failure : failureOf(future);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        scores = startScores;
+        bestIndex = -1;
+        for (int start = 0; start < starts; start++) {
+            if (quantizers[start] != null && (bestIndex == -1 || startScores[start] < startScores[bestIndex])) {
+                bestIndex = start;
+            }
+        }
+        if (bestIndex == -1) {
+            throw new IllegalStateException("No quantizer finished training within the time budget.");
+        }
+        return quantizers[bestIndex];
+    }
+
+    /**
+     * Returns the sampled MSQE of each start of the last training run.
+     *
+     * @return a copy of the scores, by start (NaN for starts that did not run)
+     */
+    public double[] getScores() {
+        return scores.clone();
+    }
+
+    /**
+     * Returns the number of the start with the lowest sampled MSQE in the last training run.
+     *
+     * @return the best start (-1 before the first training run)
+     */
+    public int getBestIndex() {
+        return bestIndex;
+    }
+
+    /**
+     * Waits for the training runs to finish, stopping them when the time budget runs out or the calling thread is
+     * interrupted. After that, it waits for the stopped runs to finish their current epoch.
+     *
+     * @param executor the executor running the training runs (already shut down)
+     * @return true if the calling thread was interrupted, false otherwise
+     */
+    private boolean awaitTraining(ExecutorService executor) {
+        boolean interrupted = false;
+        try {
+            if (timeBudgetMillis > 0) {
+                if (!executor.awaitTermination(timeBudgetMillis, TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            executor.shutdownNow();
+        }
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Returns the exception a finished training run failed with.
+     *
+     * @param future the future of the training run
+     * @return the exception, or null if the run succeeded
+     */
+    private static RuntimeException failureOf(Future<?> future) {
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                return runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            return new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            // The executor has terminated, so the result is already available
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Draws the scoring sample from the data (without replacement), stored back to back in a flat array.
+     *
+     * @param data the input data
+     * @return the sampled points
+     */
+    private double[] sample(double[][] data) {
+        int dimension = data[0].length;
+        int size = Math.min(sampleSize, data.length);
+        int[] indexes = new int[data.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        // A partial Fisher-Yates shuffle picks the first size indexes
+        double[] sample = new double[size * dimension];
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(indexes.length - i);
+            int index = indexes[j];
+            indexes[j] = indexes[i];
+            indexes[i] = index;
+            System.arraycopy(data[index], 0, sample, i * dimension, dimension);
+        }
+        return sample;
+    }
+
+    /**
+     * Computes the mean squared quantization error of a quantizer on the scoring sample.
+     *
+     * @param quantizer the trained quantizer
+     * @param sample    the sampled points
+     * @param dimension the dimension of the points
+     * @return the sampled MSQE
+     */
+    private static double score(Quantizer quantizer, double[] sample, int dimension) {
+        int size = sample.length / dimension;
+        int[] indices = new int[size];
+        double[] squaredErrors = new double[size];
+        quantizer.findClosestIndices(sample, 0, size, indices, squaredErrors);
+        double total = 0.0;
+        for (double squaredError : squaredErrors) {
+            total += squaredError;
+        }
+        return total / size;
+    }
+}
@@ -0,0 +1,57 @@
+package main.java.models.training;
+
+import main.java.models.interfaces.TrainingListener;
+
+/**
+ * Forwards the progress of every n-th epoch (and of the last epoch of a run) to another listener.
+ * This keeps listeners which are expensive to notify, such as progress bars or loggers, off the hot path
+ * of long training runs.
+ */
+public class SampledTrainingListener implements TrainingListener {
+    private final TrainingListener delegate; // The listener the sampled epochs are forwarded to
+    private final int interval; // The number of epochs between forwarded epochs
+
+    /**
+     * Constructs a SampledTrainingListener which forwards every n-th epoch to the specified listener.
+     *
+     * @param delegate the listener to forward the sampled epochs to
+     * @param interval the number of epochs between forwarded epochs
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public SampledTrainingListener(TrainingListener delegate, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The interval must be greater than zero.");
+        }
+        this.delegate = delegate;
+        this.interval = interval;
+    }
+
+    /**
+     * Forwards the epoch if its number is a multiple of the interval or if it is the last epoch of the run.
+     *
+     * @param epoch        the number of the epoch that just finished, starting from 1
+     * @param epochs       the maximum number of epochs of the training run
+     * @param learningRate the learning rate used in the epoch
+     * @param radius       the neighborhood radius used in the epoch
+     * @param movement     the largest distance a unit moved during the epoch
+     * @param inertia      the mean squared distance between the mini-batch items and their closest units
+     * @param elapsedNanos the time elapsed since the start of the training run, in nanoseconds
+     */
+    @Override
+    public void onEpoch(int epoch, int epochs, double learningRate, double radius, double movement, double inertia, long elapsedNanos) {
+        if (epoch % interval == 0 || epoch == epochs) {
+            delegate.onEpoch(epoch, epochs, learningRate, radius, movement, inertia, elapsedNanos);
+        }
+    }
+
+    /**
+     * Forwards the end of training.
+     *
+     * @param epochsRun    the number of epochs the training run actually ran for
+     * @param elapsedNanos the duration of the training run, in nanoseconds
+     */
+    @Override
+    public void onTrainingEnd(int epochsRun, long elapsedNanos) {
+        delegate.onTrainingEnd(epochsRun, elapsedNanos);
+    }
+}
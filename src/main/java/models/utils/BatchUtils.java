@@ -9,6 +9,8 @@ public class BatchUtils {
 
     /**
      * Selects and returns a mini-batch of random data points from the input data.
+     * The indexes are picked with replacement by a {@link MiniBatchSampler} seeded from the random instance, so the
+     * same random state selects the same mini-batch.
      *
      * @param data      the input data
      * @param batchSize the size of the mini-batch to select
@@ -16,9 +18,14 @@ public class BatchUtils {
      * @return a 2D array representing the mini-batch
      */
     public static double[][] getMiniBatch(double[][] data, int batchSize, Random random) {
-        double[][] miniBatch = new double[batchSize][data[0].length];
+        // Only the outer array is allocated, since the rows reference the rows of the input data
+        double[][] miniBatch = new double[batchSize][];
+        if (batchSize == 0) {
+            return miniBatch;
+        }
+        int[] indexes = new MiniBatchSampler(random.nextLong()).nextBatch(data.length, batchSize);
         for (int i = 0; i < batchSize; i++) {
-            miniBatch[i] = data[random.nextInt(data.length)];
+            miniBatch[i] = data[indexes[i]];
         }
         return miniBatch;
     }
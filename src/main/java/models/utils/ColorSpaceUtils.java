@@ -0,0 +1,47 @@
+package main.java.models.utils;
+
+/**
+ * Provides utility methods and precomputed tables for converting between color spaces.
+ */
+public class ColorSpaceUtils {
+    // Lookup table with the linear light value of every 8-bit sRGB channel value
+    private static final double[] SRGB_TO_LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < SRGB_TO_LINEAR.length; i++) {
+            double value = i / 255.0;
+            SRGB_TO_LINEAR[i] = value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    /**
+     * Returns the linear light value of an 8-bit sRGB channel value, using a precomputed table.
+     *
+     * @param channel the 8-bit channel value (0 - 255)
+     * @return the linear light value in the range [0, 1]
+     */
+    public static double srgbToLinear(int channel) {
+        return SRGB_TO_LINEAR[channel];
+    }
+
+    /**
+     * Applies the sRGB transfer function to a linear light value.
+     *
+     * @param linear the linear light value
+     * @return the sRGB channel value, clamped to the range [0, 1]
+     */
+    public static double linearToSrgb(double linear) {
+        double value = linear <= 0.0031308 ? 12.92 * linear : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+        return clamp(value);
+    }
+
+    /**
+     * Clamps a value to the range [0, 1].
+     *
+     * @param value the value to clamp
+     * @return the clamped value
+     */
+    public static double clamp(double value) {
+        return Math.max(0.0, Math.min(1.0, value));
+    }
+}
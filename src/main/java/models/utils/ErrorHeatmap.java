@@ -0,0 +1,101 @@
+package main.java.models.utils;
+
+import java.util.Arrays;
+
+/**
+ * Records the largest squared quantization error in each square tile of an image, as a coarse map of where the
+ * palette fits the image worst. The errors are recorded one row of pixels at a time, so the map can be filled in
+ * the same pass over the pixels that remaps them.
+ */
+public class ErrorHeatmap {
+    private final int tileSize; // The width and height of a tile, in pixels
+    private final int columns; // The number of tiles across the image
+    private final int rows; // The number of tiles down the image
+    private final int[] maxSquaredErrors; // The largest squared error of each tile, in row-major order
+
+    /**
+     * Constructs an ErrorHeatmap instance for an image of the specified size.
+     *
+     * @param width    the width of the image
+     * @param height   the height of the image
+     * @param tileSize the width and height of a tile, in pixels
+     * @throws IllegalArgumentException if the size of the image or of the tiles is not positive
+     */
+    public ErrorHeatmap(int width, int height, int tileSize) {
+        if (width <= 0 || height <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("The image and tile sizes must be greater than zero.");
+        }
+        this.tileSize = tileSize;
+        this.columns = (width + tileSize - 1) / tileSize;
+        this.rows = (height + tileSize - 1) / tileSize;
+        this.maxSquaredErrors = new int[columns * rows];
+    }
+
+    /**
+     * Records the squared errors of one row of pixels.
+     *
+     * @param y             the row of the pixels
+     * @param squaredErrors the squared error of every pixel of the row
+     * @param width         the number of pixels in the row
+     */
+    public void recordRow(int y, int[] squaredErrors, int width) {
+        int tileStart = (y / tileSize) * columns;
+        for (int x = 0; x < width; x++) {
+            int tile = tileStart + x / tileSize;
+            if (squaredErrors[x] > maxSquaredErrors[tile]) {
+                maxSquaredErrors[tile] = squaredErrors[x];
+            }
+        }
+    }
+
+    /**
+     * Returns the largest squared error recorded in a tile.
+     *
+     * @param column the column of the tile
+     * @param row    the row of the tile
+     * @return the largest squared error of the tile
+     * @throws IndexOutOfBoundsException if the tile is outside the map
+     */
+    public int getMaxSquaredError(int column, int row) {
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Tile (" + column + ", " + row + ") is outside the heatmap.");
+        }
+        return maxSquaredErrors[row * columns + column];
+    }
+
+    /**
+     * Returns the largest squared error of every tile.
+     *
+     * @return a copy of the largest squared errors, in row-major order
+     */
+    public int[] getMaxSquaredErrors() {
+        return Arrays.copyOf(maxSquaredErrors, maxSquaredErrors.length);
+    }
+
+    /**
+     * Returns the width and height of a tile.
+     *
+     * @return the tile size, in pixels
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Returns the number of tiles across the image.
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of tiles down the image.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+}
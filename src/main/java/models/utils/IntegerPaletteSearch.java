@@ -0,0 +1,137 @@
+package main.java.models.utils;
+
+/**
+ * Provides the search for the closest color of a fixed palette of 8-bit RGB colors, in fixed-point integer arithmetic.
+ * The colors are packed RGB values ({@code 0xRRGGBB}, the alpha bits are ignored), as read from an image raster,
+ * and are compared with the squared Euclidean distance on the 0 - 255 scale, which is exact in an int. This is the
+ * search of {@link NearestUnitSearch} with the Euclidean distance over the palette colors divided by 255, without
+ * floating point. Ties are resolved in favor of the palette color with the lowest index.
+ * An instance keeps the distances of the current search in a scratch array, so it must not be used by several
+ * threads at once.
+ */
+public class IntegerPaletteSearch {
+    private final int[] reds; // The red component of every palette color
+    private final int[] greens; // The green component of every palette color
+    private final int[] blues; // The blue component of every palette color
+    private final int[] distances; // The squared distances from the current pixel to every palette color
+
+    /**
+     * Constructs an IntegerPaletteSearch instance over the specified palette.
+     *
+     * @param palette the packed RGB values of the palette colors
+     * @throws IllegalArgumentException if the palette is empty
+     */
+    public IntegerPaletteSearch(int[] palette) {
+        if (palette.length == 0) {
+            throw new IllegalArgumentException("The palette must have at least one color.");
+        }
+        // The components are stored separately, so the distances to all colors are computed in vectorizable loops
+        reds = new int[palette.length];
+        greens = new int[palette.length];
+        blues = new int[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            reds[i] = (palette[i] >> 16) & 0xFF;
+            greens[i] = (palette[i] >> 8) & 0xFF;
+            blues[i] = palette[i] & 0xFF;
+        }
+        distances = new int[palette.length];
+    }
+
+    /**
+     * Returns the number of colors in the palette.
+     *
+     * @return the palette size
+     */
+    public int getPaletteSize() {
+        return reds.length;
+    }
+
+    /**
+     * Finds the index of the palette color closest to a packed RGB value.
+     *
+     * @param rgb the packed RGB value
+     * @return the index of the closest palette color
+     */
+    public int findClosestIndex(int rgb) {
+        computeDistances(rgb);
+        return closestIndex();
+    }
+
+    /**
+     * Finds the index of the closest palette color for each of a range of packed RGB values, and optionally the
+     * squared distance to it. Nothing is allocated, so this is safe to call once per image row.
+     *
+     * @param pixels        the packed RGB values
+     * @param offset        the index of the first value to search for
+     * @param length        the number of values to search for
+     * @param indices       the array that receives the index of the closest palette color of value {@code offset + i}
+     *                      at position i
+     * @param squaredErrors the array that receives the squared distance (on the 0 - 255 scale) to the closest palette
+     *                      color of value {@code offset + i} at position i, or null if the distances are not needed
+     * @throws IllegalArgumentException if the range is outside the values or the output arrays are too small
+     */
+    public void findClosestIndices(int[] pixels, int offset, int length, int[] indices, int[] squaredErrors) {
+        if (offset < 0 || length < 0 || offset + length > pixels.length) {
+            throw new IllegalArgumentException("The pixel range is outside the pixel buffer.");
+        }
+        if (indices.length < length || (squaredErrors != null && squaredErrors.length < length)) {
+            throw new IllegalArgumentException("The output arrays must have room for every pixel in the range.");
+        }
+        for (int i = 0; i < length; i++) {
+            computeDistances(pixels[offset + i]);
+            int closestIndex = closestIndex();
+            indices[i] = closestIndex;
+            if (squaredErrors != null) {
+                squaredErrors[i] = distances[closestIndex];
+            }
+        }
+    }
+
+    /**
+     * Computes the squared Euclidean distance between two packed RGB values, on the 0 - 255 scale.
+     *
+     * @param rgb1 the first packed RGB value
+     * @param rgb2 the second packed RGB value
+     * @return the squared distance (at most 3 * 255 * 255)
+     */
+    public static int squaredDistance(int rgb1, int rgb2) {
+        int dr = ((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF);
+        int dg = ((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF);
+        int db = (rgb1 & 0xFF) - (rgb2 & 0xFF);
+        return dr * dr + dg * dg + db * db;
+    }
+
+    /**
+     * Computes the squared distances from a packed RGB value to every palette color into the scratch array.
+     *
+     * @param rgb the packed RGB value
+     */
+    private void computeDistances(int rgb) {
+        int red = (rgb >> 16) & 0xFF;
+        int green = (rgb >> 8) & 0xFF;
+        int blue = rgb & 0xFF;
+        for (int i = 0; i < distances.length; i++) {
+            int dr = red - reds[i];
+            int dg = green - greens[i];
+            int db = blue - blues[i];
+            distances[i] = dr * dr + dg * dg + db * db;
+        }
+    }
+
+    /**
+     * Picks the palette color with the smallest distance in the scratch array.
+     *
+     * @return the index of the closest palette color
+     */
+    private int closestIndex() {
+        int closestIndex = 0;
+        int minDist = distances[0];
+        for (int i = 1; i < distances.length; i++) {
+            if (distances[i] < minDist) {
+                minDist = distances[i];
+                closestIndex = i;
+            }
+        }
+        return closestIndex;
+    }
+}
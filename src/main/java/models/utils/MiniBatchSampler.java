@@ -0,0 +1,141 @@
+package main.java.models.utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples mini-batches of data indexes into a reusable buffer, using a seeded random stream.
+ * Two samplers created with the same seed and mode produce the same sequence of mini-batches.
+ * <p>
+ * A sampler must only be used by one thread at a time. Parallel workers should each use their own sampler,
+ * obtained through {@link #split()}, which gives independent and reproducible streams without contention.
+ */
+public class MiniBatchSampler {
+    /**
+     * The strategies for picking the indexes of a mini-batch.
+     */
+    public enum Mode {
+        /**
+         * Every index is picked uniformly at random, so the same index may appear more than once in a mini-batch.
+         */
+        WITH_REPLACEMENT,
+        /**
+         * Every index appears at most once in a mini-batch.
+         */
+        WITHOUT_REPLACEMENT,
+        /**
+         * The data is split into as many equally sized consecutive strata as the mini-batch size,
+         * and one index is picked at random from each stratum.
+         */
+        STRATIFIED
+    }
+
+    private final SplittableRandom random; // The random stream used for sampling
+    private final Mode mode; // The sampling strategy
+    private int[] indexes; // The reusable buffer holding the indexes of the current mini-batch
+    private int[] permutation; // A permutation of the data indexes (only used when sampling without replacement)
+
+    /**
+     * Constructs a MiniBatchSampler instance which samples with replacement.
+     *
+     * @param seed the seed of the random stream
+     */
+    public MiniBatchSampler(long seed) {
+        this(seed, Mode.WITH_REPLACEMENT);
+    }
+
+    /**
+     * Constructs a MiniBatchSampler instance with a specified seed and sampling mode.
+     *
+     * @param seed the seed of the random stream
+     * @param mode the sampling mode
+     */
+    public MiniBatchSampler(long seed, Mode mode) {
+        this(new SplittableRandom(seed), mode);
+    }
+
+    /**
+     * Constructs a MiniBatchSampler instance which uses a specified random stream.
+     *
+     * @param random the random stream
+     * @param mode   the sampling mode
+     */
+    private MiniBatchSampler(SplittableRandom random, Mode mode) {
+        this.random = random;
+        this.mode = mode;
+        this.indexes = new int[0];
+        this.permutation = new int[0];
+    }
+
+    /**
+     * Returns the sampling mode of the sampler.
+     *
+     * @return the sampling mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Creates a new sampler with the same mode and an independent random stream derived from this one.
+     * The derived streams only depend on the seed and on the order of the calls to this method.
+     *
+     * @return a new sampler
+     */
+    public synchronized MiniBatchSampler split() {
+        return new MiniBatchSampler(random.split(), mode);
+    }
+
+    /**
+     * Samples the indexes of the next mini-batch. The returned buffer is reused between calls and only its first
+     * batchSize entries belong to the mini-batch (the buffer can be longer if a larger batch was sampled before).
+     *
+     * @param dataSize  the number of items in the data
+     * @param batchSize the size of the mini-batch
+     * @return the buffer holding the indexes of the mini-batch
+     * @throws IllegalArgumentException if any size is not positive,
+     *                                  or if the batch size is larger than the data size when sampling without replacement
+     */
+    public int[] nextBatch(int dataSize, int batchSize) {
+        if (dataSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("The data size and the batch size must be greater than zero.");
+        }
+        if (mode != Mode.WITH_REPLACEMENT && batchSize > dataSize) {
+            throw new IllegalArgumentException("The batch size cannot be larger than the data size for mode " + mode + ".");
+        }
+        if (indexes.length < batchSize) {
+            indexes = new int[batchSize];
+        }
+
+        switch (mode) {
+            case WITH_REPLACEMENT -> {
+                for (int i = 0; i < batchSize; i++) {
+                    indexes[i] = random.nextInt(dataSize);
+                }
+            }
+            case WITHOUT_REPLACEMENT -> {
+                if (permutation.length != dataSize) {
+                    permutation = new int[dataSize];
+                    for (int i = 0; i < dataSize; i++) {
+                        permutation[i] = i;
+                    }
+                }
+                // Partial Fisher-Yates shuffle. The array stays a permutation, so it can be reused by the next call
+                for (int i = 0; i < batchSize; i++) {
+                    int j = i + random.nextInt(dataSize - i);
+                    int swap = permutation[i];
+                    permutation[i] = permutation[j];
+                    permutation[j] = swap;
+                    indexes[i] = permutation[i];
+                }
+            }
+            case STRATIFIED -> {
+                for (int i = 0; i < batchSize; i++) {
+                    int start = (int) ((long) i * dataSize / batchSize);
+                    int end = (int) ((long) (i + 1) * dataSize / batchSize);
+                    indexes[i] = start + random.nextInt(end - start);
+                }
+            }
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,592 @@
+package main.java.models.utils;
+
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Distance;
+
+import java.util.Arrays;
+
+/**
+ * Provides the bulk search for the closest units of many input vectors, shared by the quantizers.
+ * The units and the inputs are stored back to back in flat arrays, so the search runs over contiguous memory.
+ * Every search has a double-precision and a single-precision form, for the two precisions of the quantizers
+ * ({@link main.java.models.interfaces.Quantizer.Precision}), and inputs of the other precision are converted
+ * into a buffer of the precision of the units first.
+ */
+public class NearestUnitSearch {
+    private static final int MIN_TRANSPOSED_SEARCH = 4; // The fewest inputs for which the units are transposed
+
+    /**
+     * Finds the index of the closest unit to a single input vector. For the Euclidean distance, squared distances are
+     * compared directly on the flat array. Ties are resolved in favor of the unit with the lowest index.
+     *
+     * @param units     the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param unitCount the number of units
+     * @param dimension the dimension of the units and the input
+     * @param distance  the distance metric
+     * @param input     the input vector
+     * @return the index of the closest unit (0 if there are no units)
+     */
+    public static int findClosestIndex(double[] units, int unitCount, int dimension, Distance distance, double[] input) {
+        int closestIndex = 0;
+        double minDist = Double.MAX_VALUE;
+        if (distance instanceof EuclideanDistance) {
+            if (input.length != dimension) {
+                throw new IllegalArgumentException("Vectors must have the same length");
+            }
+            if (dimension == 3) {
+                // Colors are three-dimensional, so the input is kept in registers for the whole search
+                double i0 = input[0];
+                double i1 = input[1];
+                double i2 = input[2];
+                for (int unit = 0, start = 0; unit < unitCount; unit++, start += 3) {
+                    double d0 = i0 - units[start];
+                    double d1 = i1 - units[start + 1];
+                    double d2 = i2 - units[start + 2];
+                    double dist = d0 * d0 + d1 * d1 + d2 * d2;
+                    if (dist < minDist) {
+                        minDist = dist;
+                        closestIndex = unit;
+                    }
+                }
+                return closestIndex;
+            }
+            for (int unit = 0, start = 0; unit < unitCount; unit++, start += dimension) {
+                double dist = 0.0;
+                for (int d = 0; d < dimension; d++) {
+                    double diff = input[d] - units[start + d];
+                    dist += diff * diff;
+                }
+                if (dist < minDist) {
+                    minDist = dist;
+                    closestIndex = unit;
+                }
+            }
+        } else {
+            // The distance metric takes arrays, so every unit is copied into a reused vector
+            double[] unitCoordinates = new double[dimension];
+            for (int unit = 0; unit < unitCount; unit++) {
+                System.arraycopy(units, unit * dimension, unitCoordinates, 0, dimension);
+                double dist = distance.compute(input, unitCoordinates);
+                if (dist < minDist) {
+                    minDist = dist;
+                    closestIndex = unit;
+                }
+            }
+        }
+        return closestIndex;
+    }
+
+    /**
+     * Copies the coordinates of units into the transposed layout of the bulk search, where coordinate d of unit i is
+     * at {@code transposedUnits[d * unitCount + i]}. Quantizers keep their units in this layout as well, so repeated
+     * bulk searches do not transpose the units again.
+     *
+     * @param units           the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param unitCount       the number of units
+     * @param dimension       the dimension of the units
+     * @param transposedUnits the array that receives the transposed coordinates (at least unitCount * dimension long)
+     */
+    public static void transposeUnits(double[] units, int unitCount, int dimension, double[] transposedUnits) {
+        for (int unit = 0; unit < unitCount; unit++) {
+            for (int d = 0; d < dimension; d++) {
+                transposedUnits[d * unitCount + unit] = units[unit * dimension + d];
+            }
+        }
+    }
+
+    /**
+     * Finds the index of the closest unit for each of a range of input vectors, and optionally the squared distance
+     * to it. The transposed units and the distance buffer are allocated for this call.
+     *
+     * @param units         the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param unitCount     the number of units
+     * @param dimension     the dimension of the units and inputs
+     * @param distance      the distance metric
+     * @param inputs        the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset        the index of the first input vector to search for
+     * @param length        the number of input vectors to search for
+     * @param indices       the array that receives the index of the closest unit of input {@code offset + i}
+     *                      at position i (0 if there are no units)
+     * @param squaredErrors the array that receives the squared distance to the closest unit of input
+     *                      {@code offset + i} at position i, or null if the distances are not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     * @see #findClosestIndices(double[], double[], double[], int, int, Distance, double[], int, int, int[], double[])
+     */
+    public static void findClosestIndices(
+            double[] units,
+            int unitCount,
+            int dimension,
+            Distance distance,
+            double[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        findClosestIndices(units, null, null, unitCount, dimension, distance, inputs, offset, length, indices, squaredErrors);
+    }
+
+    /**
+     * Finds the index of the closest unit for each of a range of input vectors, and optionally the squared distance
+     * to it. For the Euclidean distance and more than a few inputs, the squared distances from an input to all units
+     * are computed on the transposed units (coordinate after coordinate), in loops over consecutive units that the JIT
+     * compiler can vectorize, and the closest unit is picked in a separate loop. The caller can pass the transposed
+     * units and the buffer of the distances, so repeated searches allocate nothing.
+     * Other distance metrics are computed per input and unit.
+     * Ties are resolved in favor of the unit with the lowest index, as in a sequential search.
+     *
+     * @param units           the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param transposedUnits the units transposed by {@link #transposeUnits}, or null to transpose them in this call
+     * @param distances       a buffer of at least unitCount distances, or null to allocate one in this call
+     * @param unitCount       the number of units
+     * @param dimension       the dimension of the units and inputs
+     * @param distance        the distance metric
+     * @param inputs          the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset          the index of the first input vector to search for
+     * @param length          the number of input vectors to search for
+     * @param indices         the array that receives the index of the closest unit of input {@code offset + i}
+     *                        at position i (0 if there are no units)
+     * @param squaredErrors   the array that receives the squared distance to the closest unit of input
+     *                        {@code offset + i} at position i, or null if the distances are not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    public static void findClosestIndices(
+            double[] units,
+            double[] transposedUnits,
+            double[] distances,
+            int unitCount,
+            int dimension,
+            Distance distance,
+            double[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        checkInputRange(inputs.length, offset, length, dimension);
+        if (indices.length < length || (squaredErrors != null && squaredErrors.length < length)) {
+            throw new IllegalArgumentException("The output arrays must have room for every input in the range.");
+        }
+        if (distance instanceof EuclideanDistance) {
+            findClosestIndicesEuclidean(units, transposedUnits, distances, unitCount, dimension,
+                    inputs, offset, length, indices, squaredErrors);
+        } else {
+            findClosestIndicesGeneric(units, unitCount, dimension, distance, inputs, offset, length, indices, squaredErrors);
+        }
+    }
+
+    /**
+     * Finds the closest units with the Euclidean distance, comparing squared distances. A few inputs are compared
+     * against the units row by row, and more inputs against the transposed units.
+     */
+    private static void findClosestIndicesEuclidean(
+            double[] units,
+            double[] transposedUnits,
+            double[] distances,
+            int unitCount,
+            int dimension,
+            double[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        if (unitCount == 0) {
+            Arrays.fill(indices, 0, length, 0);
+            if (squaredErrors != null) {
+                Arrays.fill(squaredErrors, 0, length, Double.MAX_VALUE);
+            }
+            return;
+        }
+        if (length < MIN_TRANSPOSED_SEARCH) {
+            // Transposing the units would cost more than the search itself
+            for (int i = 0; i < length; i++) {
+                int inputStart = (offset + i) * dimension;
+                int closestIndex = 0;
+                double minDist = Double.MAX_VALUE;
+                for (int unit = 0, start = 0; unit < unitCount; unit++, start += dimension) {
+                    double dist = 0.0;
+                    for (int d = 0; d < dimension; d++) {
+                        double diff = inputs[inputStart + d] - units[start + d];
+                        dist += diff * diff;
+                    }
+                    if (dist < minDist) {
+                        minDist = dist;
+                        closestIndex = unit;
+                    }
+                }
+                indices[i] = closestIndex;
+                if (squaredErrors != null) {
+                    squaredErrors[i] = minDist;
+                }
+            }
+            return;
+        }
+
+        if (transposedUnits == null) {
+            transposedUnits = new double[unitCount * dimension];
+            transposeUnits(units, unitCount, dimension, transposedUnits);
+        }
+        if (distances == null) {
+            distances = new double[unitCount];
+        }
+        for (int i = 0; i < length; i++) {
+            int inputStart = (offset + i) * dimension;
+            double coordinate = inputs[inputStart];
+            for (int unit = 0; unit < unitCount; unit++) {
+                double diff = coordinate - transposedUnits[unit];
+                distances[unit] = diff * diff;
+            }
+            for (int d = 1; d < dimension; d++) {
+                coordinate = inputs[inputStart + d];
+                int base = d * unitCount;
+                for (int unit = 0; unit < unitCount; unit++) {
+                    double diff = coordinate - transposedUnits[base + unit];
+                    distances[unit] += diff * diff;
+                }
+            }
+
+            int closestIndex = 0;
+            double minDist = distances[0];
+            for (int unit = 1; unit < unitCount; unit++) {
+                if (distances[unit] < minDist) {
+                    minDist = distances[unit];
+                    closestIndex = unit;
+                }
+            }
+            indices[i] = closestIndex;
+            if (squaredErrors != null) {
+                squaredErrors[i] = minDist;
+            }
+        }
+    }
+
+    /**
+     * Finds the closest units with any distance metric, one input at a time.
+     */
+    private static void findClosestIndicesGeneric(
+            double[] units,
+            int unitCount,
+            int dimension,
+            Distance distance,
+            double[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        // The distance metric takes arrays, so the input and every unit are copied into reused vectors
+        double[] input = new double[dimension];
+        double[] unitCoordinates = new double[dimension];
+        for (int i = 0; i < length; i++) {
+            System.arraycopy(inputs, (offset + i) * dimension, input, 0, dimension);
+            int closestIndex = 0;
+            double minDist = Double.MAX_VALUE;
+            for (int unit = 0; unit < unitCount; unit++) {
+                System.arraycopy(units, unit * dimension, unitCoordinates, 0, dimension);
+                double dist = distance.compute(input, unitCoordinates);
+                if (dist < minDist) {
+                    minDist = dist;
+                    closestIndex = unit;
+                }
+            }
+            indices[i] = closestIndex;
+            if (squaredErrors != null) {
+                squaredErrors[i] = minDist * minDist;
+            }
+        }
+    }
+
+    /**
+     * Copies the coordinates of single-precision units into the transposed layout of the bulk search, where
+     * coordinate d of unit i is at {@code transposedUnits[d * unitCount + i]}.
+     *
+     * @param units           the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param unitCount       the number of units
+     * @param dimension       the dimension of the units
+     * @param transposedUnits the array that receives the transposed coordinates (at least unitCount * dimension long)
+     */
+    public static void transposeUnits(float[] units, int unitCount, int dimension, float[] transposedUnits) {
+        for (int unit = 0; unit < unitCount; unit++) {
+            for (int d = 0; d < dimension; d++) {
+                transposedUnits[d * unitCount + unit] = units[unit * dimension + d];
+            }
+        }
+    }
+
+    /**
+     * Narrows a range of double-precision input vectors into a single-precision buffer, so they can be searched for
+     * among single-precision units. The buffer is only reallocated if it is too small.
+     *
+     * @param inputs    the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset    the index of the first input vector to narrow
+     * @param length    the number of input vectors to narrow
+     * @param dimension the dimension of the inputs
+     * @param buffer    the buffer to narrow the inputs into, or null
+     * @return the buffer with the narrowed inputs from index 0 on
+     * @throws IllegalArgumentException if the range is outside the inputs
+     */
+    public static float[] narrowInputs(double[] inputs, int offset, int length, int dimension, float[] buffer) {
+        checkInputRange(inputs.length, offset, length, dimension);
+        if (buffer == null || buffer.length < length * dimension) {
+            buffer = new float[length * dimension];
+        }
+        for (int i = 0, start = offset * dimension; i < length * dimension; i++) {
+            buffer[i] = (float) inputs[start + i];
+        }
+        return buffer;
+    }
+
+    /**
+     * Widens a range of single-precision input vectors into a double-precision buffer, so they can be searched for
+     * among double-precision units. The buffer is only reallocated if it is too small.
+     *
+     * @param inputs    the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset    the index of the first input vector to widen
+     * @param length    the number of input vectors to widen
+     * @param dimension the dimension of the inputs
+     * @param buffer    the buffer to widen the inputs into, or null
+     * @return the buffer with the widened inputs from index 0 on
+     * @throws IllegalArgumentException if the range is outside the inputs
+     */
+    public static double[] widenInputs(float[] inputs, int offset, int length, int dimension, double[] buffer) {
+        checkInputRange(inputs.length, offset, length, dimension);
+        if (buffer == null || buffer.length < length * dimension) {
+            buffer = new double[length * dimension];
+        }
+        for (int i = 0, start = offset * dimension; i < length * dimension; i++) {
+            buffer[i] = inputs[start + i];
+        }
+        return buffer;
+    }
+
+    /**
+     * Finds the index of the closest single-precision unit to a single-precision input vector. For the Euclidean
+     * distance, squared distances are compared directly on the flat array in single precision. Ties are resolved
+     * in favor of the unit with the lowest index.
+     *
+     * @param units     the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param unitCount the number of units
+     * @param dimension the dimension of the units and the input
+     * @param distance  the distance metric
+     * @param input     the input vector
+     * @return the index of the closest unit (0 if there are no units)
+     */
+    public static int findClosestIndex(float[] units, int unitCount, int dimension, Distance distance, float[] input) {
+        int closestIndex = 0;
+        if (distance instanceof EuclideanDistance) {
+            if (input.length != dimension) {
+                throw new IllegalArgumentException("Vectors must have the same length");
+            }
+            float minDist = Float.MAX_VALUE;
+            for (int unit = 0, start = 0; unit < unitCount; unit++, start += dimension) {
+                float dist = 0.0f;
+                for (int d = 0; d < dimension; d++) {
+                    float diff = input[d] - units[start + d];
+                    dist += diff * diff;
+                }
+                if (dist < minDist) {
+                    minDist = dist;
+                    closestIndex = unit;
+                }
+            }
+        } else {
+            // The distance metric takes arrays, so every unit is copied into a reused vector
+            double minDist = Double.MAX_VALUE;
+            float[] unitCoordinates = new float[dimension];
+            for (int unit = 0; unit < unitCount; unit++) {
+                System.arraycopy(units, unit * dimension, unitCoordinates, 0, dimension);
+                double dist = distance.compute(input, unitCoordinates);
+                if (dist < minDist) {
+                    minDist = dist;
+                    closestIndex = unit;
+                }
+            }
+        }
+        return closestIndex;
+    }
+
+    /**
+     * Finds the index of the closest single-precision unit for each of a range of single-precision input vectors,
+     * and optionally the squared distance to it. This is the single-precision form of
+     * {@link #findClosestIndices(double[], double[], double[], int, int, Distance, double[], int, int, int[], double[])},
+     * with the same search strategy and tie-breaking, and the squared distances computed in single precision.
+     *
+     * @param units           the coordinates of the units, unit i at {@code units[i * dimension]}
+     * @param transposedUnits the units transposed by {@link #transposeUnits(float[], int, int, float[])}, or null to
+     *                        transpose them in this call
+     * @param distances       a buffer of at least unitCount distances, or null to allocate one in this call
+     * @param unitCount       the number of units
+     * @param dimension       the dimension of the units and inputs
+     * @param distance        the distance metric
+     * @param inputs          the input vectors, vector i at {@code inputs[i * dimension]}
+     * @param offset          the index of the first input vector to search for
+     * @param length          the number of input vectors to search for
+     * @param indices         the array that receives the index of the closest unit of input {@code offset + i}
+     *                        at position i (0 if there are no units)
+     * @param squaredErrors   the array that receives the squared distance to the closest unit of input
+     *                        {@code offset + i} at position i, or null if the distances are not needed
+     * @throws IllegalArgumentException if the range is outside the inputs or the output arrays are too small
+     */
+    public static void findClosestIndices(
+            float[] units,
+            float[] transposedUnits,
+            float[] distances,
+            int unitCount,
+            int dimension,
+            Distance distance,
+            float[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        checkInputRange(inputs.length, offset, length, dimension);
+        if (indices.length < length || (squaredErrors != null && squaredErrors.length < length)) {
+            throw new IllegalArgumentException("The output arrays must have room for every input in the range.");
+        }
+        if (distance instanceof EuclideanDistance) {
+            findClosestIndicesEuclidean(units, transposedUnits, distances, unitCount, dimension,
+                    inputs, offset, length, indices, squaredErrors);
+        } else {
+            findClosestIndicesGeneric(units, unitCount, dimension, distance, inputs, offset, length, indices, squaredErrors);
+        }
+    }
+
+    /**
+     * Finds the closest single-precision units with the Euclidean distance, comparing squared distances in single
+     * precision. A few inputs are compared against the units row by row, and more inputs against the transposed units.
+     */
+    private static void findClosestIndicesEuclidean(
+            float[] units,
+            float[] transposedUnits,
+            float[] distances,
+            int unitCount,
+            int dimension,
+            float[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        if (unitCount == 0) {
+            Arrays.fill(indices, 0, length, 0);
+            if (squaredErrors != null) {
+                Arrays.fill(squaredErrors, 0, length, Double.MAX_VALUE);
+            }
+            return;
+        }
+        if (length < MIN_TRANSPOSED_SEARCH) {
+            // Transposing the units would cost more than the search itself
+            for (int i = 0; i < length; i++) {
+                int inputStart = (offset + i) * dimension;
+                int closestIndex = 0;
+                float minDist = Float.MAX_VALUE;
+                for (int unit = 0, start = 0; unit < unitCount; unit++, start += dimension) {
+                    float dist = 0.0f;
+                    for (int d = 0; d < dimension; d++) {
+                        float diff = inputs[inputStart + d] - units[start + d];
+                        dist += diff * diff;
+                    }
+                    if (dist < minDist) {
+                        minDist = dist;
+                        closestIndex = unit;
+                    }
+                }
+                indices[i] = closestIndex;
+                if (squaredErrors != null) {
+                    squaredErrors[i] = minDist;
+                }
+            }
+            return;
+        }
+
+        if (transposedUnits == null) {
+            transposedUnits = new float[unitCount * dimension];
+            transposeUnits(units, unitCount, dimension, transposedUnits);
+        }
+        if (distances == null) {
+            distances = new float[unitCount];
+        }
+        for (int i = 0; i < length; i++) {
+            int inputStart = (offset + i) * dimension;
+            float coordinate = inputs[inputStart];
+            for (int unit = 0; unit < unitCount; unit++) {
+                float diff = coordinate - transposedUnits[unit];
+                distances[unit] = diff * diff;
+            }
+            for (int d = 1; d < dimension; d++) {
+                coordinate = inputs[inputStart + d];
+                int base = d * unitCount;
+                for (int unit = 0; unit < unitCount; unit++) {
+                    float diff = coordinate - transposedUnits[base + unit];
+                    distances[unit] += diff * diff;
+                }
+            }
+
+            int closestIndex = 0;
+            float minDist = distances[0];
+            for (int unit = 1; unit < unitCount; unit++) {
+                if (distances[unit] < minDist) {
+                    minDist = distances[unit];
+                    closestIndex = unit;
+                }
+            }
+            indices[i] = closestIndex;
+            if (squaredErrors != null) {
+                squaredErrors[i] = minDist;
+            }
+        }
+    }
+
+    /**
+     * Finds the closest single-precision units with any distance metric, one input at a time.
+     */
+    private static void findClosestIndicesGeneric(
+            float[] units,
+            int unitCount,
+            int dimension,
+            Distance distance,
+            float[] inputs,
+            int offset,
+            int length,
+            int[] indices,
+            double[] squaredErrors
+    ) {
+        // The distance metric takes arrays, so the input and every unit are copied into reused vectors
+        float[] input = new float[dimension];
+        float[] unitCoordinates = new float[dimension];
+        for (int i = 0; i < length; i++) {
+            System.arraycopy(inputs, (offset + i) * dimension, input, 0, dimension);
+            int closestIndex = 0;
+            double minDist = Double.MAX_VALUE;
+            for (int unit = 0; unit < unitCount; unit++) {
+                System.arraycopy(units, unit * dimension, unitCoordinates, 0, dimension);
+                double dist = distance.compute(input, unitCoordinates);
+                if (dist < minDist) {
+                    minDist = dist;
+                    closestIndex = unit;
+                }
+            }
+            indices[i] = closestIndex;
+            if (squaredErrors != null) {
+                squaredErrors[i] = minDist * minDist;
+            }
+        }
+    }
+
+    /**
+     * Checks that a range of input vectors lies inside an input buffer.
+     *
+     * @param inputLength the length of the input buffer
+     * @param offset      the index of the first input vector
+     * @param length      the number of input vectors
+     * @param dimension   the dimension of the inputs
+     * @throws IllegalArgumentException if the range is outside the input buffer
+     */
+    private static void checkInputRange(int inputLength, int offset, int length, int dimension) {
+        if (offset < 0 || length < 0 || (long) (offset + length) * dimension > inputLength) {
+            throw new IllegalArgumentException("The input range is outside the input buffer.");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package main.java.models.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Holds the quality metrics of an image quantized to a palette of 8-bit RGB colors: the mean squared quantization
+ * error (MSQE) and PSNR, the population and error of every palette color, the largest error and optionally an
+ * {@link ErrorHeatmap}. The errors are squared Euclidean distances on the 0 - 255 scale.
+ * <p>
+ * The exact metrics are computed from the histogram of the image (its unique colors and their pixel counts), so the
+ * work is proportional to the number of unique colors rather than pixels. The unique colors are reduced in parallel
+ * chunks with integer sums, so the result does not depend on the number of threads. For parameter sweeps, the
+ * metrics can also be estimated from a random sample of the pixels, assigned to the palette by the caller the same way
+ * the image would be remapped.
+ */
+public class QualityMetrics {
+    private static final int CHUNK_SIZE = 4096; // The number of unique colors reduced by one task
+    private static final double MAX_SQUARED_VALUE = 255.0 * 255.0; // The squared peak value of a color channel
+
+    private final long pixelCount; // The number of pixels the errors were summed over
+    private final long totalSquaredError; // The sum of the squared errors of the pixels
+    private final int maxSquaredError; // The largest squared error of a pixel
+    private final long[] unitPixelCounts; // The number of pixels of each palette color
+    private final long[] unitSquaredErrors; // The sum of the squared errors of the pixels of each palette color
+    private final double populationScale; // The number of image pixels each counted pixel stands for
+    private final boolean estimate; // Whether the metrics were estimated from a sample of the pixels
+    private final ErrorHeatmap heatmap; // The largest error of each tile of the image (null if not recorded)
+
+    /**
+     * Constructs a QualityMetrics instance from the reduced error sums.
+     */
+    private QualityMetrics(Accumulator accumulator, double populationScale, boolean estimate, ErrorHeatmap heatmap) {
+        this.pixelCount = accumulator.pixelCount;
+        this.totalSquaredError = accumulator.totalSquaredError;
+        this.maxSquaredError = accumulator.maxSquaredError;
+        this.unitPixelCounts = accumulator.unitPixelCounts;
+        this.unitSquaredErrors = accumulator.unitSquaredErrors;
+        this.populationScale = populationScale;
+        this.estimate = estimate;
+        this.heatmap = heatmap;
+    }
+
+    /**
+     * Computes the exact metrics of a quantized image from its histogram.
+     *
+     * @param colors       the packed RGB values of the unique colors of the image
+     * @param counts       the pixel count of each unique color
+     * @param closestUnits the index of the palette color each unique color was mapped to
+     * @param palette      the packed RGB values of the palette colors
+     * @param heatmap      the heatmap recorded while remapping the image, or null
+     * @return the quality metrics
+     * @throws IllegalArgumentException if the histogram arrays have different lengths
+     */
+    public static QualityMetrics fromHistogram(int[] colors, int[] counts, int[] closestUnits, int[] palette, ErrorHeatmap heatmap) {
+        if (counts.length != colors.length || closestUnits.length != colors.length) {
+            throw new IllegalArgumentException("Every unique color must have a pixel count and a palette color.");
+        }
+        int chunkCount = (colors.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Accumulator accumulator = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(chunk -> {
+                    Accumulator chunkAccumulator = new Accumulator(palette.length);
+                    int end = Math.min(colors.length, (chunk + 1) * CHUNK_SIZE);
+                    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                        int unit = closestUnits[i];
+                        chunkAccumulator.add(unit, IntegerPaletteSearch.squaredDistance(colors[i], palette[unit]), counts[i]);
+                    }
+                    return chunkAccumulator;
+                })
+                .reduce(Accumulator::merge)
+                .orElseGet(() -> new Accumulator(palette.length));
+        return new QualityMetrics(accumulator, 1.0, false, heatmap);
+    }
+
+    /**
+     * Draws a random sample of the pixels of an image from its histogram, for {@link #estimate}. Each pixel is equally
+     * likely to be drawn, so a unique color is drawn in proportion to its pixel count.
+     *
+     * @param counts     the pixel count of each unique color of the image
+     * @param sampleSize the number of pixels to sample (with replacement)
+     * @param seed       the seed of the random number generator for the sample
+     * @return the index of the unique color of each sampled pixel
+     * @throws IllegalArgumentException if the image has no pixels or the sample size is not positive
+     */
+    public static int[] samplePixels(int[] counts, int sampleSize, long seed) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("The sample size must be greater than zero.");
+        }
+        // The cumulative pixel counts, so a pixel is sampled by searching for a random pixel number
+        long[] cumulativeCounts = new long[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+            cumulativeCounts[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The image must have at least one pixel.");
+        }
+
+        Random random = new Random(seed);
+        int[] sampledColors = new int[sampleSize];
+        for (int sample = 0; sample < sampleSize; sample++) {
+            long pixel = random.nextLong(total);
+            // The first unique color whose cumulative count exceeds the pixel number
+            int index = Arrays.binarySearch(cumulativeCounts, pixel + 1);
+            index = index >= 0 ? index : -index - 1;
+            while (index > 0 && cumulativeCounts[index - 1] > pixel) {
+                index--;
+            }
+            sampledColors[sample] = index;
+        }
+        return sampledColors;
+    }
+
+    /**
+     * Estimates the metrics of an image quantized to a palette from a sample of its pixels drawn by
+     * {@link #samplePixels}, without remapping the image. The caller maps each sampled pixel to a palette color with
+     * the same search the image is remapped with, so the estimate costs a search per sampled pixel instead of per
+     * unique color and converges to the metrics of the remapped image. The errors are measured against the palette
+     * colors, as in {@link #fromHistogram}. The populations are scaled up to the size of the image, and there is no
+     * heatmap.
+     *
+     * @param colors        the packed RGB values of the unique colors of the image
+     * @param counts        the pixel count of each unique color
+     * @param sampledColors the index of the unique color of each sampled pixel
+     * @param sampleUnits   the index of the palette color each sampled pixel was mapped to
+     * @param palette       the packed RGB values of the palette colors
+     * @return the estimated quality metrics
+     * @throws IllegalArgumentException if the histogram arrays or the sample arrays have different lengths, or the
+     *                                  sample is empty
+     */
+    public static QualityMetrics estimate(int[] colors, int[] counts, int[] sampledColors, int[] sampleUnits, int[] palette) {
+        if (counts.length != colors.length) {
+            throw new IllegalArgumentException("Every unique color must have a pixel count.");
+        }
+        if (sampledColors.length == 0 || sampleUnits.length != sampledColors.length) {
+            throw new IllegalArgumentException("Every sampled pixel must have a palette color.");
+        }
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+
+        Accumulator accumulator = new Accumulator(palette.length);
+        for (int sample = 0; sample < sampledColors.length; sample++) {
+            int unit = sampleUnits[sample];
+            accumulator.add(unit, IntegerPaletteSearch.squaredDistance(colors[sampledColors[sample]], palette[unit]), 1);
+        }
+        return new QualityMetrics(accumulator, (double) total / sampledColors.length, true, null);
+    }
+
+    /**
+     * Returns the mean squared quantization error.
+     *
+     * @return the MSQE, on the 0 - 255 scale
+     */
+    public double getMeanSquaredError() {
+        return pixelCount == 0 ? 0.0 : (double) totalSquaredError / pixelCount;
+    }
+
+    /**
+     * Returns the peak signal-to-noise ratio, computed from the MSQE per color channel.
+     *
+     * @return the PSNR in decibels (infinite if the image is reproduced exactly)
+     */
+    public double getPeakSignalToNoiseRatio() {
+        double channelMeanSquaredError = getMeanSquaredError() / 3.0;
+        if (channelMeanSquaredError == 0.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 10.0 * Math.log10(MAX_SQUARED_VALUE / channelMeanSquaredError);
+    }
+
+    /**
+     * Returns the largest squared error of a pixel (of a sampled pixel for estimated metrics).
+     *
+     * @return the largest squared error
+     */
+    public int getMaxSquaredError() {
+        return maxSquaredError;
+    }
+
+    /**
+     * Returns the number of palette colors.
+     *
+     * @return the palette size
+     */
+    public int getUnitCount() {
+        return unitPixelCounts.length;
+    }
+
+    /**
+     * Returns the number of pixels mapped to a palette color (estimated for estimated metrics).
+     *
+     * @param unit the index of the palette color
+     * @return the population of the palette color
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long getUnitPopulation(int unit) {
+        return Math.round(unitPixelCounts[unit] * populationScale);
+    }
+
+    /**
+     * Returns the mean squared error of the pixels mapped to a palette color.
+     *
+     * @param unit the index of the palette color
+     * @return the MSQE of the palette color (0 if no pixels are mapped to it)
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double getUnitMeanSquaredError(int unit) {
+        return unitPixelCounts[unit] == 0 ? 0.0 : (double) unitSquaredErrors[unit] / unitPixelCounts[unit];
+    }
+
+    /**
+     * Returns the heatmap of the largest errors.
+     *
+     * @return the heatmap, or null if it was not recorded
+     */
+    public ErrorHeatmap getHeatmap() {
+        return heatmap;
+    }
+
+    /**
+     * Returns whether the metrics were estimated from a sample of the pixels.
+     *
+     * @return true for estimated metrics, false for exact metrics
+     */
+    public boolean isEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Accumulates the error sums of a part of the pixels.
+     */
+    private static class Accumulator {
+        private long pixelCount; // The number of pixels added
+        private long totalSquaredError; // The sum of the squared errors of the pixels
+        private int maxSquaredError; // The largest squared error of a pixel
+        private final long[] unitPixelCounts; // The number of pixels of each palette color
+        private final long[] unitSquaredErrors; // The sum of the squared errors of each palette color
+
+        private Accumulator(int unitCount) {
+            unitPixelCounts = new long[unitCount];
+            unitSquaredErrors = new long[unitCount];
+        }
+
+        /**
+         * Adds pixels of the same color.
+         *
+         * @param unit         the palette color the pixels are mapped to
+         * @param squaredError the squared error of each pixel
+         * @param count        the number of pixels
+         */
+        private void add(int unit, int squaredError, int count) {
+            long squaredErrors = (long) squaredError * count;
+            pixelCount += count;
+            totalSquaredError += squaredErrors;
+            unitPixelCounts[unit] += count;
+            unitSquaredErrors[unit] += squaredErrors;
+            if (count > 0 && squaredError > maxSquaredError) {
+                maxSquaredError = squaredError;
+            }
+        }
+
+        /**
+         * Adds the sums of another accumulator to this one.
+         *
+         * @param other the other accumulator
+         * @return this accumulator
+         */
+        private Accumulator merge(Accumulator other) {
+            pixelCount += other.pixelCount;
+            totalSquaredError += other.totalSquaredError;
+            maxSquaredError = Math.max(maxSquaredError, other.maxSquaredError);
+            for (int unit = 0; unit < unitPixelCounts.length; unit++) {
+                unitPixelCounts[unit] += other.unitPixelCounts[unit];
+                unitSquaredErrors[unit] += other.unitSquaredErrors[unit];
+            }
+            return this;
+        }
+    }
+}
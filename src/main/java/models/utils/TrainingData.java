@@ -0,0 +1,147 @@
+package main.java.models.utils;
+
+/**
+ * The samples a quantizer is trained on, given either as the rows of a double-precision array or as single-precision
+ * vectors stored back to back. The training loops of the quantizers copy each sample into their own buffers, so they
+ * run the same way on both forms, in the precision of the quantizer rather than the precision of the data.
+ * <p>
+ * Single-precision samples may share their vectors: sample i is the vector at {@code vectorIndexes[i]}, so the
+ * pixels of an image reference the coordinates of their unique color instead of holding a copy of them.
+ */
+public final class TrainingData {
+    private final double[][] rows; // The samples as rows (null for single-precision vectors)
+    private final float[] vectors; // The vectors back to back (null for rows)
+    private final int[] vectorIndexes; // The vector of each sample (null if sample i is vector i)
+    private final int size; // The number of samples
+    private final int dimension; // The dimension of the samples
+
+    /**
+     * Constructs a TrainingData instance from either form of samples.
+     *
+     * @param rows          the samples as rows, or null
+     * @param vectors       the vectors back to back, or null
+     * @param vectorIndexes the vector of each sample, or null
+     * @param size          the number of samples
+     * @param dimension     the dimension of the samples
+     */
+    private TrainingData(double[][] rows, float[] vectors, int[] vectorIndexes, int size, int dimension) {
+        this.rows = rows;
+        this.vectors = vectors;
+        this.vectorIndexes = vectorIndexes;
+        this.size = size;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Returns training data whose samples are the rows of a double-precision array. The dimension of the samples
+     * is the length of the first row, and every row is checked against it when it is copied.
+     *
+     * @param rows the samples (not copied)
+     * @return the training data
+     * @throws IllegalArgumentException if the rows are null or empty
+     */
+    public static TrainingData of(double[][] rows) {
+        if (rows == null || rows.length == 0) {
+            throw new IllegalArgumentException("Input data cannot be null or empty.");
+        }
+        return new TrainingData(rows, null, null, rows.length, rows[0].length);
+    }
+
+    /**
+     * Returns training data whose samples are single-precision vectors stored back to back.
+     *
+     * @param vectors       the vectors, vector i at {@code vectors[i * dimension]} (not copied)
+     * @param dimension     the dimension of the vectors
+     * @param vectorIndexes the index of the vector of each sample, or null if sample i is vector i (not copied)
+     * @return the training data
+     * @throws IllegalArgumentException if the vectors are null or empty, the dimension is not positive or does not
+     *                                  divide the length of the vectors
+     */
+    public static TrainingData of(float[] vectors, int dimension, int[] vectorIndexes) {
+        if (vectors == null || vectors.length == 0 || dimension <= 0 || vectors.length % dimension != 0) {
+            throw new IllegalArgumentException("The vectors must be non-empty and a multiple of the dimension long.");
+        }
+        int size = vectorIndexes != null ? vectorIndexes.length : vectors.length / dimension;
+        return new TrainingData(null, vectors, vectorIndexes, size, dimension);
+    }
+
+    /**
+     * Returns the number of samples.
+     *
+     * @return the number of samples
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the dimension of the samples.
+     *
+     * @return the dimension of the samples
+     */
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Copies a sample into a double-precision buffer, widening single-precision vectors.
+     *
+     * @param sample the index of the sample
+     * @param target the buffer that receives the sample
+     * @param offset the index in the buffer of the first coordinate
+     * @throws IllegalArgumentException if the sample is a row of a different dimension
+     */
+    public void copySample(int sample, double[] target, int offset) {
+        if (rows != null) {
+            System.arraycopy(row(sample), 0, target, offset, dimension);
+        } else {
+            int start = vectorStart(sample);
+            for (int d = 0; d < dimension; d++) {
+                target[offset + d] = vectors[start + d];
+            }
+        }
+    }
+
+    /**
+     * Copies a sample into a single-precision buffer, narrowing rows.
+     *
+     * @param sample the index of the sample
+     * @param target the buffer that receives the sample
+     * @param offset the index in the buffer of the first coordinate
+     * @throws IllegalArgumentException if the sample is a row of a different dimension
+     */
+    public void copySample(int sample, float[] target, int offset) {
+        if (rows != null) {
+            double[] row = row(sample);
+            for (int d = 0; d < dimension; d++) {
+                target[offset + d] = (float) row[d];
+            }
+        } else {
+            System.arraycopy(vectors, vectorStart(sample), target, offset, dimension);
+        }
+    }
+
+    /**
+     * Returns the row of a sample, after checking its dimension.
+     *
+     * @param sample the index of the sample
+     * @return the row of the sample
+     */
+    private double[] row(int sample) {
+        double[] row = rows[sample];
+        if (row.length != dimension) {
+            throw new IllegalArgumentException("Each input sample must have a dimensionality of " + dimension);
+        }
+        return row;
+    }
+
+    /**
+     * Returns the index of the first coordinate of the vector of a sample.
+     *
+     * @param sample the index of the sample
+     * @return the index of the first coordinate in the vectors
+     */
+    private int vectorStart(int sample) {
+        return (vectorIndexes != null ? vectorIndexes[sample] : sample) * dimension;
+    }
+}
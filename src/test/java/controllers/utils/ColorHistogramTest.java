@@ -0,0 +1,127 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.ColorHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColorHistogramTest {
+
+    private static BufferedImage randomImage(int width, int height, int colorCount, long seed) {
+        Random random = new Random(seed);
+        int[] palette = new int[colorCount];
+        for (int i = 0; i < colorCount; i++) {
+            palette[i] = random.nextInt(1 << 24);
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, palette[random.nextInt(colorCount)]);
+            }
+        }
+        return image;
+    }
+
+    private static Map<Integer, Integer> countColors(BufferedImage... images) {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (BufferedImage image : images) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    counts.merge(image.getRGB(x, y) & 0xFFFFFF, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void assertMatchesCounts(Map<Integer, Integer> expected, ColorHistogram histogram) {
+        int[] colors = histogram.getColors();
+        int[] counts = histogram.getCounts();
+        assertEquals(expected.size(), histogram.getUniqueColorCount());
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), colors[i], "The unique colors should be in ascending RGB order");
+            assertEquals(entry.getValue(), counts[i], "Every unique color should have its pixel count");
+            i++;
+        }
+    }
+
+    @Test
+    public void testOf_IndexOfMatchesRank() {
+        BufferedImage image = randomImage(64, 48, 500, 1);
+        ColorHistogram histogram = ColorHistogram.of(image, false);
+        int[] colors = histogram.getColors();
+
+        assertNull(histogram.getCounts());
+        assertEquals(ColorHistogram.countUniqueColors(image), colors.length);
+        for (int i = 0; i < colors.length; i++) {
+            assertEquals(i, histogram.indexOf(colors[i]), "The index of a color should be its rank");
+            assertEquals(i, histogram.indexOf(0xFF000000 | colors[i]), "The alpha channel should be ignored");
+            if (i > 0) {
+                assertTrue(colors[i - 1] < colors[i]);
+            }
+        }
+        for (int rgb : new int[]{0x000000, 0x123456, 0xFFFFFF}) {
+            if (!countColors(image).containsKey(rgb)) {
+                assertEquals(-1, histogram.indexOf(rgb), "A color missing from the image should not be found");
+            }
+        }
+    }
+
+    @Test
+    public void testOf_CountsSumToPixelCount() {
+        // Taller than the number of bands, so the rows are counted in several bands
+        BufferedImage image = randomImage(37, 101, 300, 2);
+        ColorHistogram histogram = ColorHistogram.of(image, true);
+
+        long total = 0;
+        for (int count : histogram.getCounts()) {
+            total += count;
+        }
+        assertEquals(37L * 101, total, "The pixel counts should add up to the number of pixels");
+        assertMatchesCounts(countColors(image), histogram);
+    }
+
+    @Test
+    public void testMerge_OverlappingHistograms() {
+        // The images share most colors, since they are drawn from the same seeded palette
+        BufferedImage first = randomImage(40, 30, 200, 3);
+        BufferedImage second = randomImage(20, 50, 200, 3);
+        BufferedImage third = randomImage(10, 10, 50, 4);
+        ColorHistogram merged = ColorHistogram.merge(List.of(
+                ColorHistogram.of(first, true), ColorHistogram.of(second, true), ColorHistogram.of(third, true)));
+
+        assertMatchesCounts(countColors(first, second, third), merged);
+        for (int i = 0; i < merged.getUniqueColorCount(); i++) {
+            assertEquals(i, merged.indexOf(merged.getColors()[i]));
+        }
+    }
+
+    @Test
+    public void testMerge_InvalidArguments() {
+        BufferedImage image = randomImage(8, 8, 4, 5);
+        assertThrows(IllegalArgumentException.class, () -> ColorHistogram.merge(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> ColorHistogram.merge(List.of(ColorHistogram.of(image, true), ColorHistogram.of(image, false))),
+                "Merging a histogram without pixel counts should throw an exception");
+    }
+
+    @Test
+    public void testGetCountingBandCount_StaysWithinMemoryBudget() {
+        // A counter per color of the whole RGB space takes the whole 64 MB budget, so there is a single band
+        assertEquals(1, ColorHistogram.getCountingBandCount(1000, 1 << 24));
+        assertTrue(ColorHistogram.getCountingBandCount(1000, 1 << 22) <= 4);
+        assertTrue(ColorHistogram.getCountingBandCount(1000, 1 << 23) <= 2);
+
+        int bandCount = ColorHistogram.getCountingBandCount(1000, 100);
+        assertTrue(bandCount >= 1 && bandCount <= 8, "Few colors should be counted in up to 8 bands");
+        assertEquals(1, ColorHistogram.getCountingBandCount(1, 100), "An image of one row should have one band");
+        assertEquals(bandCount, ColorHistogram.getCountingBandCount(1000, 0));
+    }
+}
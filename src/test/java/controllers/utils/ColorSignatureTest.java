@@ -0,0 +1,61 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.ColorHistogram;
+import main.java.controllers.utils.ColorSignature;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColorSignatureTest {
+
+    /**
+     * Creates an image whose left columns have one color and the other columns another color.
+     */
+    private static BufferedImage splitImage(int leftRgb, int rightRgb, int leftColumns) {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, x < leftColumns ? leftRgb : rightRgb);
+            }
+        }
+        return image;
+    }
+
+    private static ColorSignature signatureOf(BufferedImage image) {
+        return ColorSignature.of(ColorHistogram.of(image, true));
+    }
+
+    @Test
+    public void testOf_WeightsSumToOne() {
+        ColorSignature signature = signatureOf(splitImage(0xFF0000, 0x0000FF, 3));
+        double sum = 0.0;
+        for (double weight : signature.getWeights()) {
+            sum += weight;
+        }
+        assertEquals(1.0, sum, 1e-12);
+        assertEquals(512, signature.getWeights().length);
+    }
+
+    @Test
+    public void testDistanceTo() {
+        ColorSignature red = signatureOf(splitImage(0xFF0000, 0xFF0000, 0));
+        ColorSignature blue = signatureOf(splitImage(0x0000FF, 0x0000FF, 0));
+        ColorSignature mixed = signatureOf(splitImage(0xFF0000, 0x0000FF, 3));
+
+        assertEquals(0.0, red.distanceTo(red));
+        assertEquals(1.0, red.distanceTo(blue), 1e-12, "Images without common bins should be at the largest distance");
+        assertEquals(0.7, red.distanceTo(mixed), 1e-12, "The distance should be the fraction of pixels that move");
+        assertEquals(red.distanceTo(mixed), mixed.distanceTo(red), 1e-12);
+        // Colors that differ only in the low bits of each channel fall into the same bins
+        assertEquals(0.0, red.distanceTo(signatureOf(splitImage(0xFA0101, 0xFA0101, 0))), 1e-12);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ColorSignature(new double[8]));
+        assertThrows(IllegalArgumentException.class,
+                () -> ColorSignature.of(ColorHistogram.of(splitImage(0, 0, 0), false)));
+    }
+}
@@ -0,0 +1,180 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.FrameSequenceQuantizer;
+import main.java.controllers.utils.QuantizedFrame;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.som.SOM;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameSequenceQuantizerTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes a frame of random shades around a base color.
+     */
+    private File writeFrame(String name, int baseRgb, long seed) throws IOException {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, baseRgb + random.nextInt(16) * 0x010101);
+            }
+        }
+        File file = tempDir.resolve(name).toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+    private static FrameSequenceQuantizer createFrameSequenceQuantizer() {
+        return new FrameSequenceQuantizer(
+                () -> new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42),
+                new SRGBColorSpace(), 10, 2, FrameSequenceQuantizer.DEFAULT_SCENE_CUT_THRESHOLD);
+    }
+
+    private static List<QuantizedFrame> collect(Flow.Publisher<QuantizedFrame> publisher) throws Exception {
+        List<QuantizedFrame> frames = new ArrayList<>();
+        CompletableFuture<List<QuantizedFrame>> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(QuantizedFrame frame) {
+                frames.add(frame);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(frames);
+            }
+        });
+        return done.get(30, TimeUnit.SECONDS);
+    }
+
+    private static void assertFrameThreadsStop() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals("frame-sequence"))) {
+            assertTrue(System.nanoTime() < deadline, "The threads of the sequence should stop once it has ended");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testQuantize_SteadySequenceReusesPalette() throws Exception {
+        List<File> frames = List.of(
+                writeFrame("0.png", 0xC02020, 1), writeFrame("1.png", 0xC02020, 2), writeFrame("2.png", 0xC02020, 3));
+        List<QuantizedFrame> quantized = collect(createFrameSequenceQuantizer().quantize(frames));
+
+        assertEquals(3, quantized.size());
+        assertTrue(quantized.get(0).isSceneCut(), "The first frame should be trained from scratch");
+        for (int i = 1; i < quantized.size(); i++) {
+            QuantizedFrame frame = quantized.get(i);
+            assertEquals(i, frame.getIndex());
+            assertFalse(frame.isSceneCut(), "Frames with similar colors should start from the previous palette");
+            assertEquals(2, frame.getQuantizer().getEpochsRun(), "Reused palettes should train for the incremental epochs");
+        }
+        assertFrameThreadsStop();
+    }
+
+    @Test
+    public void testQuantize_WarmStartedSomKeepsPaletteStable() throws Exception {
+        List<File> frames = List.of(writeFrame("0.png", 0x806040, 1), writeFrame("1.png", 0x806040, 2));
+        FrameSequenceQuantizer frameSequenceQuantizer = new FrameSequenceQuantizer(
+                () -> new SOM(3, 2, 2, new EuclideanDistance(), new LinearDecay(), 42),
+                new SRGBColorSpace(), 50, 5, FrameSequenceQuantizer.DEFAULT_SCENE_CUT_THRESHOLD);
+        List<QuantizedFrame> quantized = collect(frameSequenceQuantizer.quantize(frames));
+
+        assertFalse(quantized.get(1).isSceneCut(), "The second frame should start from the palette of the first");
+        Quantizer first = quantized.get(0).getQuantizer();
+        Quantizer second = quantized.get(1).getQuantizer();
+        for (int unit = 0; unit < first.unitCount(); unit++) {
+            double drift = new EuclideanDistance().compute(first.getUnitCoordinates(unit), second.getUnitCoordinates(unit));
+            assertTrue(drift < 0.01, "A palette color should barely move between near-identical frames, but moved " + drift);
+        }
+        assertFrameThreadsStop();
+    }
+
+    @Test
+    public void testQuantize_SignatureChangeRetrains() throws Exception {
+        List<File> frames = List.of(
+                writeFrame("0.png", 0xC02020, 1), writeFrame("1.png", 0xC02020, 2),
+                writeFrame("2.png", 0x2020C0, 3), writeFrame("3.png", 0x2020C0, 4));
+        List<QuantizedFrame> quantized = collect(createFrameSequenceQuantizer().quantize(frames));
+
+        boolean[] sceneCuts = new boolean[quantized.size()];
+        for (int i = 0; i < sceneCuts.length; i++) {
+            sceneCuts[i] = quantized.get(i).isSceneCut();
+        }
+        assertArrayEquals(new boolean[]{true, false, true, false}, sceneCuts,
+                "A frame whose colors changed should be trained from scratch");
+        assertEquals(10, quantized.get(2).getQuantizer().getEpochsRun());
+        assertFrameThreadsStop();
+    }
+
+    @Test
+    public void testQuantize_CancelStopsThreads() throws Exception {
+        List<File> frames = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            frames.add(writeFrame(i + ".png", 0x20C020, i));
+        }
+        CompletableFuture<QuantizedFrame> first = new CompletableFuture<>();
+        createFrameSequenceQuantizer().quantize(frames).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(QuantizedFrame frame) {
+                subscription.cancel();
+                first.complete(frame);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                first.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertEquals(0, first.get(30, TimeUnit.SECONDS).getIndex());
+        assertFrameThreadsStop();
+    }
+}
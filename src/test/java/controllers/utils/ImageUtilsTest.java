@@ -0,0 +1,68 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.ColorExtractionResult;
+import main.java.controllers.utils.ColorHistogram;
+import main.java.controllers.utils.ImageUtils;
+import main.java.models.colorspaces.OklabColorSpace;
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.ColorSpace;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.utils.QualityMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUtilsTest {
+
+    private static BufferedImage noisyGradientImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = Math.min(255, x * 255 / width + random.nextInt(24));
+                int green = Math.min(255, y * 255 / height + random.nextInt(24));
+                int blue = random.nextInt(256);
+                image.setRGB(x, y, (red << 16) | (green << 8) | blue);
+            }
+        }
+        return image;
+    }
+
+    @Test
+    public void testEstimateQuality_ConvergesToRemapInOklab() {
+        BufferedImage image = noisyGradientImage(120, 90, 1);
+        ColorSpace colorSpace = new OklabColorSpace();
+        ColorExtractionResult extraction = ImageUtils.extractColors(image, colorSpace);
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(12, new EuclideanDistance(), new LinearDecay(), 42);
+        extraction.train(miniBatchKMeans, 10);
+
+        QualityMetrics exact = ImageUtils.remapColors(image, extraction, miniBatchKMeans, colorSpace).getQualityMetrics();
+        QualityMetrics estimate = ImageUtils.estimateQuality(ColorHistogram.of(image, true), miniBatchKMeans, colorSpace, 200000, 7);
+
+        assertTrue(estimate.isEstimate());
+        assertEquals(exact.getMeanSquaredError(), estimate.getMeanSquaredError(), exact.getMeanSquaredError() * 0.02,
+                "The estimated MSQE should converge to the MSQE of the remapped image");
+        for (int unit = 0; unit < exact.getUnitCount(); unit++) {
+            assertEquals(exact.getUnitPopulation(unit), estimate.getUnitPopulation(unit), image.getWidth() * image.getHeight() * 0.01,
+                    "The sampled pixels should be assigned to the units the remap assigns them to");
+        }
+    }
+
+    @Test
+    public void testEstimateQuality_InvalidArguments() {
+        BufferedImage image = noisyGradientImage(10, 10, 2);
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(2, new EuclideanDistance(), new LinearDecay(), 42);
+        ImageUtils.extractColors(image, new OklabColorSpace()).train(miniBatchKMeans, 2);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ImageUtils.estimateQuality(ColorHistogram.of(image, false), miniBatchKMeans, new OklabColorSpace(), 10, 1),
+                "A histogram without pixel counts should throw an exception");
+        assertThrows(IllegalArgumentException.class,
+                () -> ImageUtils.estimateQuality(ColorHistogram.of(image, true), miniBatchKMeans, new OklabColorSpace(), 0, 1),
+                "A sample size of zero should throw an exception");
+    }
+}
@@ -0,0 +1,84 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.ColorSignature;
+import main.java.controllers.utils.PaletteStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaletteStoreTest {
+
+    /**
+     * Creates a signature with all pixels in one bin.
+     */
+    private static ColorSignature singleBinSignature(int bin) {
+        double[] weights = new double[512];
+        weights[bin] = 1.0;
+        return new ColorSignature(weights);
+    }
+
+    /**
+     * Creates a signature with the pixels split between two bins.
+     */
+    private static ColorSignature twoBinSignature(int firstBin, int secondBin, double firstWeight) {
+        double[] weights = new double[512];
+        weights[firstBin] = firstWeight;
+        weights[secondBin] = 1.0 - firstWeight;
+        return new ColorSignature(weights);
+    }
+
+    @Test
+    public void testFindNearest_ReturnsClosestPaletteOfConfiguration() {
+        PaletteStore store = new PaletteStore();
+        List<Object> red = List.of("red");
+        List<Object> blue = List.of("blue");
+        store.save("SOM 4x4", singleBinSignature(0), red);
+        store.save("SOM 4x4", singleBinSignature(1), blue);
+        store.save("Mini Batch K-means 16", twoBinSignature(0, 2, 0.9), List.of("other"));
+
+        assertSame(red, store.findNearest("SOM 4x4", twoBinSignature(0, 2, 0.8), 0.5));
+        assertNull(store.findNearest("SOM 4x4", twoBinSignature(0, 2, 0.8), 0.1),
+                "A palette further than the maximum distance should not be returned");
+        assertNull(store.findNearest("SOM 8x8", singleBinSignature(0), 1.0),
+                "A palette of another configuration should not be returned");
+    }
+
+    @Test
+    public void testSave_EvictsLeastRecentlyUsed() {
+        PaletteStore store = new PaletteStore(2);
+        List<Object> first = List.of("first");
+        List<Object> second = List.of("second");
+        store.save("k", singleBinSignature(0), first);
+        store.save("k", singleBinSignature(1), second);
+        // Using the first palette makes the second one the least recently used
+        assertSame(first, store.findNearest("k", singleBinSignature(0), 0.0));
+        store.save("k", singleBinSignature(2), List.of("third"));
+
+        assertEquals(2, store.size());
+        assertSame(first, store.findNearest("k", singleBinSignature(0), 0.0));
+        assertNull(store.findNearest("k", singleBinSignature(1), 0.0), "The least recently used palette should be evicted");
+    }
+
+    @Test
+    public void testSave_ReplacesDuplicateSignature() {
+        PaletteStore store = new PaletteStore(4);
+        store.save("k", twoBinSignature(0, 1, 0.5), List.of("old"));
+        List<Object> replacement = List.of("new");
+        store.save("k", twoBinSignature(0, 1, 0.505), replacement);
+
+        assertEquals(1, store.size(), "A nearly identical signature should replace the stored palette");
+        assertSame(replacement, store.findNearest("k", twoBinSignature(0, 1, 0.5), 0.1));
+
+        store.save("other", twoBinSignature(0, 1, 0.5), List.of("other"));
+        assertEquals(2, store.size(), "The same signature of another configuration should be stored separately");
+        store.clear();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PaletteStore(0));
+    }
+}
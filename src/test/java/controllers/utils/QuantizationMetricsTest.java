@@ -0,0 +1,92 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.QuantizationMetrics;
+import main.java.models.utils.ErrorHeatmap;
+import main.java.models.utils.QualityMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class QuantizationMetricsTest {
+
+    @Test
+    public void testStartAndStop_RecordsPhase() {
+        QuantizationMetrics metrics = new QuantizationMetrics();
+        metrics.start(QuantizationMetrics.Phase.REMAP);
+        metrics.stop();
+        metrics.start(QuantizationMetrics.Phase.REMAP);
+        metrics.stop();
+
+        assertTrue(metrics.isMeasured(QuantizationMetrics.Phase.REMAP));
+        assertFalse(metrics.isMeasured(QuantizationMetrics.Phase.TRAINING));
+        assertEquals(metrics.getNanos(QuantizationMetrics.Phase.REMAP), metrics.getTotalNanos());
+    }
+
+    @Test
+    public void testStartAndStop_CountsCommonPoolAllocations() {
+        QuantizationMetrics metrics = new QuantizationMetrics();
+        metrics.start(QuantizationMetrics.Phase.REMAP);
+        long blocks = IntStream.range(0, 256).parallel().mapToObj(i -> new byte[256 * 1024]).filter(block -> block.length > 0).count();
+        metrics.stop();
+        metrics.start(QuantizationMetrics.Phase.DECODE, false);
+        byte[] block = new byte[1 << 20];
+        metrics.stop();
+        assumeTrue(metrics.getAllocatedBytes(QuantizationMetrics.Phase.REMAP) >= 0, "Allocations cannot be measured");
+
+        assertEquals(256, blocks);
+        assertTrue(metrics.getAllocatedBytes(QuantizationMetrics.Phase.REMAP) >= 48L * 1024 * 1024,
+                "The allocations of the pool workers should be counted in the phase");
+        assertTrue(metrics.getAllocatedBytes(QuantizationMetrics.Phase.DECODE) >= block.length,
+                "The allocations of the current thread should be counted without the pool");
+    }
+
+    @Test
+    public void testStartAndStop_OutOfOrder() {
+        QuantizationMetrics metrics = new QuantizationMetrics();
+        assertThrows(IllegalStateException.class, metrics::stop, "Stopping without a started phase should throw");
+
+        metrics.start(QuantizationMetrics.Phase.TRAINING);
+        assertThrows(IllegalStateException.class, () -> metrics.start(QuantizationMetrics.Phase.REMAP),
+                "Starting a phase while another is measured should throw");
+        metrics.stop();
+        assertTrue(metrics.isMeasured(QuantizationMetrics.Phase.TRAINING));
+    }
+
+    @Test
+    public void testToJson_IncludesQualityMetrics() {
+        ErrorHeatmap heatmap = new ErrorHeatmap(20, 10, 16);
+        heatmap.recordRow(0, new int[20], 20);
+        heatmap.recordRow(3, new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 300}, 20);
+        QualityMetrics qualityMetrics = QualityMetrics.fromHistogram(
+                new int[]{0x0A0000, 0xFFFFFF}, new int[]{3, 1}, new int[]{0, 1}, new int[]{0x000000, 0xFFFFFF}, heatmap);
+        QuantizationMetrics metrics = new QuantizationMetrics();
+        metrics.setCounter(QuantizationMetrics.PIXELS, 4);
+        metrics.setQualityMetrics(qualityMetrics);
+        String json = metrics.toJson();
+
+        assertSame(qualityMetrics, metrics.getQualityMetrics());
+        assertTrue(json.contains("\"meanSquaredError\": 75.000000"), json);
+        assertTrue(json.contains("\"maxSquaredError\": 100"), json);
+        assertTrue(json.contains("{\"population\": 3, \"meanSquaredError\": 100.000000}"), json);
+        assertTrue(json.contains("{\"population\": 1, \"meanSquaredError\": 0.000000}"), json);
+        assertTrue(json.contains("\"heatmap\": {\"tileSize\": 16, \"columns\": 2, \"rows\": 1, \"maxSquaredErrors\": [0, 300]}"), json);
+        assertTrue(json.endsWith("\n  }\n}"), json);
+    }
+
+    @Test
+    public void testToJson_WithoutQualityMetrics() {
+        QuantizationMetrics metrics = new QuantizationMetrics();
+        String json = metrics.toJson();
+        assertFalse(json.contains("quality"), json);
+
+        QuantizationMetrics exact = new QuantizationMetrics();
+        exact.setQualityMetrics(QualityMetrics.fromHistogram(
+                new int[]{0x123456}, new int[]{2}, new int[]{0}, new int[]{0x123456}, null));
+        String exactJson = exact.toJson();
+        assertTrue(exactJson.contains("\"peakSignalToNoiseRatio\": null"), "An infinite PSNR is not valid JSON");
+        assertTrue(exactJson.contains("\"heatmap\": null"), exactJson);
+    }
+}
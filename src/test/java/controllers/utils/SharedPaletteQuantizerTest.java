@@ -0,0 +1,184 @@
+package test.java.controllers.utils;
+
+import main.java.controllers.utils.ColorHistogram;
+import main.java.controllers.utils.QuantizationMetrics;
+import main.java.controllers.utils.RemapResult;
+import main.java.controllers.utils.SharedPaletteQuantizer;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedPaletteQuantizerTest {
+
+    private static BufferedImage randomImage(int width, int height, int colorCount, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(colorCount) * 0x010203);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage solidImage(int width, int height, int rgb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    private static Map<double[], Integer> countSamples(double[][] data) {
+        Map<double[], Integer> samples = new IdentityHashMap<>();
+        for (double[] sample : data) {
+            samples.merge(sample, 1, Integer::sum);
+        }
+        return samples;
+    }
+
+    @Test
+    public void testComputeMergedHistogram_MatchesMergeOfAllImages() {
+        List<BufferedImage> images = new ArrayList<>();
+        List<ColorHistogram> histograms = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            BufferedImage image = randomImage(20 + i, 15, 40 + 10 * i, i);
+            images.add(image);
+            histograms.add(ColorHistogram.of(image, true));
+        }
+        ColorHistogram expected = ColorHistogram.merge(histograms);
+        ColorHistogram merged = new SharedPaletteQuantizer(new SRGBColorSpace()).computeMergedHistogram(images);
+
+        assertArrayEquals(expected.getColors(), merged.getColors(), "The pairwise reduce should keep every color");
+        assertArrayEquals(expected.getCounts(), merged.getCounts(), "The pairwise reduce should add up the counts");
+        assertThrows(IllegalArgumentException.class,
+                () -> new SharedPaletteQuantizer(new SRGBColorSpace()).computeMergedHistogram(List.of()));
+    }
+
+    @Test
+    public void testCreateTrainingData_SampleSizeAndWeights() {
+        BufferedImage image = randomImage(100, 80, 50, 1);
+        ColorHistogram histogram = ColorHistogram.of(image, true);
+        SharedPaletteQuantizer sharedPaletteQuantizer = new SharedPaletteQuantizer(new SRGBColorSpace(), 1000);
+        double[][] data = sharedPaletteQuantizer.createTrainingData(histogram);
+
+        assertEquals(1000, data.length, "The training data should be capped at the maximum number of samples");
+        // Every color is sampled in proportion to its pixel count, to within one sample
+        Map<double[], Integer> samples = countSamples(data);
+        assertEquals(histogram.getUniqueColorCount(), samples.size(), "The samples of a color should share one array");
+        int[] colors = histogram.getColors();
+        int[] counts = histogram.getCounts();
+        SRGBColorSpace colorSpace = new SRGBColorSpace();
+        for (Map.Entry<double[], Integer> entry : samples.entrySet()) {
+            int color = -1;
+            for (int i = 0; i < colors.length; i++) {
+                if (Arrays.equals(colorSpace.fromRgb(colors[i]), entry.getKey())) {
+                    color = i;
+                }
+            }
+            assertTrue(color >= 0, "Every sample should be one of the colors of the histogram");
+            assertEquals(counts[color] * 1000.0 / (100 * 80), entry.getValue(), 1.0);
+        }
+    }
+
+    @Test
+    public void testCreateTrainingData_FewerPixelsThanMaximum() {
+        // The sample size exceeds the number of unique colors, but not the number of pixels
+        BufferedImage image = randomImage(10, 10, 5, 2);
+        ColorHistogram histogram = ColorHistogram.of(image, true);
+        double[][] data = new SharedPaletteQuantizer(new SRGBColorSpace(), 1000).createTrainingData(histogram);
+
+        assertEquals(100, data.length, "There should be one sample per pixel when the pixels fit");
+        Map<double[], Integer> samples = countSamples(data);
+        assertEquals(histogram.getUniqueColorCount(), samples.size());
+        List<Integer> sampleCounts = new ArrayList<>(samples.values());
+        sampleCounts.sort(null);
+        List<Integer> pixelCounts = new ArrayList<>();
+        for (int count : histogram.getCounts()) {
+            pixelCounts.add(count);
+        }
+        pixelCounts.sort(null);
+        assertEquals(pixelCounts, sampleCounts, "Every pixel should be sampled exactly once");
+    }
+
+    @Test
+    public void testCreateTrainingData_DuplicateFrameGetsEqualWeight() {
+        BufferedImage red = solidImage(30, 30, 0xFF0000);
+        BufferedImage blue = solidImage(30, 30, 0x0000FF);
+        SharedPaletteQuantizer sharedPaletteQuantizer = new SharedPaletteQuantizer(new SRGBColorSpace(), 300);
+
+        // Each copy of a frame counts as much as any other frame of the batch
+        double[][] data = sharedPaletteQuantizer.createTrainingData(
+                sharedPaletteQuantizer.computeMergedHistogram(List.of(red, blue, blue)));
+        int redSamples = 0;
+        for (double[] sample : data) {
+            if (sample[0] > sample[2]) {
+                redSamples++;
+            }
+        }
+        assertEquals(300, data.length);
+        assertEquals(100, redSamples, "The duplicated frame should have two thirds of the samples");
+
+        // A batch of copies of one frame has the same training data as the frame alone
+        BufferedImage image = randomImage(40, 40, 30, 3);
+        double[][] single = sharedPaletteQuantizer.createTrainingData(ColorHistogram.of(image, true));
+        double[][] duplicated = sharedPaletteQuantizer.createTrainingData(
+                sharedPaletteQuantizer.computeMergedHistogram(List.of(image, image)));
+        assertEquals(single.length, duplicated.length);
+        for (int i = 0; i < single.length; i++) {
+            assertArrayEquals(single[i], duplicated[i]);
+        }
+    }
+
+    @Test
+    public void testTrain_FewerUniqueColorsThanUnits() {
+        // An untrained Mini Batch K-means has no units yet, so the configured number of units is checked
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42);
+        List<BufferedImage> images = List.of(solidImage(10, 10, 0xFF0000), solidImage(10, 10, 0x00FF00));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new SharedPaletteQuantizer(new SRGBColorSpace()).train(miniBatchKMeans, 4, images, 5, new QuantizationMetrics()),
+                "A batch with fewer unique colors than units should throw an exception");
+    }
+
+    @Test
+    public void testTrainAndRemap_FloatPrecisionMatchesDoublePrecisionQuality() {
+        List<BufferedImage> images = List.of(randomImage(60, 40, 80, 3), randomImage(40, 60, 60, 4));
+        double[] errors = new double[2];
+        for (Quantizer.Precision precision : Quantizer.Precision.values()) {
+            MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), 42, precision);
+            SharedPaletteQuantizer sharedPaletteQuantizer = new SharedPaletteQuantizer(new SRGBColorSpace());
+            sharedPaletteQuantizer.train(miniBatchKMeans, 8, images, 20, new QuantizationMetrics());
+            for (RemapResult result : sharedPaletteQuantizer.remap(miniBatchKMeans, images, new QuantizationMetrics())) {
+                errors[precision.ordinal()] += result.getMeanSquaredQuantizationError();
+            }
+        }
+        double doubleError = errors[Quantizer.Precision.DOUBLE.ordinal()];
+        assertEquals(doubleError, errors[Quantizer.Precision.FLOAT.ordinal()], doubleError * 0.05,
+                "Extracting, training and remapping in single precision should reach the quality of double precision");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SharedPaletteQuantizer(new SRGBColorSpace(), 0));
+        ColorHistogram histogram = ColorHistogram.of(solidImage(2, 2, 0), false);
+        assertThrows(IllegalArgumentException.class,
+                () -> new SharedPaletteQuantizer(new SRGBColorSpace()).createTrainingData(histogram),
+                "A histogram without pixel counts should throw an exception");
+    }
+}
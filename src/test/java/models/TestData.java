@@ -0,0 +1,90 @@
+package test.java.models;
+
+import main.java.models.interfaces.Quantizer;
+
+import java.util.Random;
+
+/**
+ * Provides the training data shared by the tests of the quantizers.
+ */
+public final class TestData {
+
+    /**
+     * Prevents instantiation, since all methods are static.
+     */
+    private TestData() {
+    }
+
+    /**
+     * Creates seeded random data with coordinates between 0 and 1.
+     *
+     * @param size      the number of data points
+     * @param dimension the dimension of the data points
+     * @param seed      the seed of the random number generator
+     * @return the random data
+     */
+    public static double[][] randomData(int size, int dimension, long seed) {
+        Random random = new Random(seed);
+        double[][] data = new double[size][dimension];
+        for (double[] point : data) {
+            for (int d = 0; d < dimension; d++) {
+                point[d] = random.nextDouble();
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Creates three-dimensional data points spread evenly along the first axis, from 0 towards 1, with the other
+     * coordinates at 0.5.
+     *
+     * @param size the number of data points
+     * @return the data
+     */
+    public static double[][] gradientData(int size) {
+        double[][] data = new double[size][];
+        for (int i = 0; i < size; i++) {
+            data[i] = new double[]{(double) i / size, 0.5, 0.5};
+        }
+        return data;
+    }
+
+    /**
+     * Stores data points back to back in single precision.
+     *
+     * @param data the data points
+     * @return the coordinates of the data points, point i at index i * dimension
+     */
+    public static float[] toFloatVectors(double[][] data) {
+        int dimension = data[0].length;
+        float[] vectors = new float[data.length * dimension];
+        for (int i = 0; i < data.length; i++) {
+            for (int d = 0; d < dimension; d++) {
+                vectors[i * dimension + d] = (float) data[i][d];
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * Computes the mean squared distance of data points to their closest units in a trained quantizer.
+     *
+     * @param quantizer the trained quantizer
+     * @param data      the data points
+     * @return the mean squared quantization error
+     */
+    public static double meanSquaredQuantizationError(Quantizer quantizer, double[][] data) {
+        int dimension = data[0].length;
+        double[] inputs = new double[data.length * dimension];
+        for (int i = 0; i < data.length; i++) {
+            System.arraycopy(data[i], 0, inputs, i * dimension, dimension);
+        }
+        double[] squaredErrors = new double[data.length];
+        quantizer.findClosestIndices(inputs, 0, data.length, new int[data.length], squaredErrors);
+        double sum = 0;
+        for (double squaredError : squaredErrors) {
+            sum += squaredError;
+        }
+        return sum / data.length;
+    }
+}
@@ -0,0 +1,49 @@
+package test.java.models.batchsizes;
+
+import main.java.models.batchsizes.AdaptiveBatchSize;
+import main.java.models.interfaces.BatchSizeSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveBatchSizeTest {
+    BatchSizeSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        schedule = new AdaptiveBatchSize(10, 1.0, 80);
+    }
+
+    @Test
+    public void testNextBatchSize_StaysWhileImproving() {
+        int batchSize = schedule.initialBatchSize(1000);
+        double inertia = 1.0;
+        for (int epoch = 0; epoch < 5; epoch++) {
+            batchSize = schedule.nextBatchSize(batchSize, 1000, 0.0, inertia);
+            inertia *= 0.5;
+        }
+
+        assertEquals(10, batchSize, "The batch size should stay the same while the inertia steadily improves");
+    }
+
+    @Test
+    public void testNextBatchSize_GrowsWhenImprovementStops() {
+        int batchSize = schedule.initialBatchSize(1000);
+        double[] inertias = {1.0, 0.9, 1.1, 0.95, 1.05, 1.0, 1.0, 1.0};
+        for (double inertia : inertias) {
+            batchSize = schedule.nextBatchSize(batchSize, 1000, 0.0, inertia);
+        }
+
+        assertEquals(80, batchSize, "The batch size should grow up to the cap once the inertia stops improving");
+    }
+
+    @Test
+    public void testConstructor_InvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(10, -1.0, 50),
+                "A negative noise tolerance should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(0, 1.0, 50),
+                "A zero initial batch size should throw an exception");
+    }
+}
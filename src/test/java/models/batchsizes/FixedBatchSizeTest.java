@@ -0,0 +1,43 @@
+package test.java.models.batchsizes;
+
+import main.java.models.batchsizes.FixedBatchSize;
+import main.java.models.interfaces.BatchSizeSchedule;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedBatchSizeTest {
+
+    @Test
+    public void testInitialBatchSize_Default() {
+        BatchSizeSchedule schedule = new FixedBatchSize();
+
+        assertEquals(20, schedule.initialBatchSize(1000), "The batch size should be 2% of the data size");
+        assertEquals(1024, schedule.initialBatchSize(1_000_000), "The batch size should be capped at 1024");
+        assertEquals(1, schedule.initialBatchSize(10), "The batch size should contain at least 1 item");
+    }
+
+    @Test
+    public void testInitialBatchSize_CustomCap() {
+        BatchSizeSchedule schedule = new FixedBatchSize(0.5, 100);
+
+        assertEquals(100, schedule.initialBatchSize(1000), "The batch size should be capped at the specified cap");
+    }
+
+    @Test
+    public void testNextBatchSize_StaysTheSame() {
+        BatchSizeSchedule schedule = new FixedBatchSize();
+        int batchSize = schedule.initialBatchSize(10_000);
+
+        assertEquals(batchSize, schedule.nextBatchSize(batchSize, 10_000, 0.0, 0.0), "The batch size should not change");
+    }
+
+    @Test
+    public void testConstructor_InvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new FixedBatchSize(0.0, 10),
+                "A zero fraction should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> new FixedBatchSize(0.1, 0),
+                "A zero cap should throw an exception");
+    }
+}
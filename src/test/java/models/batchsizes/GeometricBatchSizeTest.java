@@ -0,0 +1,64 @@
+package test.java.models.batchsizes;
+
+import main.java.models.batchsizes.GeometricBatchSize;
+import main.java.models.interfaces.BatchSizeSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GeometricBatchSizeTest {
+    BatchSizeSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        schedule = new GeometricBatchSize(10, 2.0, 50);
+    }
+
+    @Test
+    public void testNextBatchSize_GrowsWhenMovementShrinks() {
+        int batchSize = schedule.initialBatchSize(1000);
+        assertEquals(10, batchSize, "The first batch should have the initial batch size");
+
+        batchSize = schedule.nextBatchSize(batchSize, 1000, 0.8, 0.0);
+        assertEquals(10, batchSize, "The batch size should not grow before there is a previous movement to compare");
+
+        batchSize = schedule.nextBatchSize(batchSize, 1000, 0.5, 0.0);
+        assertEquals(20, batchSize, "The batch size should grow when the movement shrinks");
+
+        batchSize = schedule.nextBatchSize(batchSize, 1000, 0.6, 0.0);
+        assertEquals(20, batchSize, "The batch size should stay the same when the movement grows");
+
+        batchSize = schedule.nextBatchSize(batchSize, 1000, 0.1, 0.0);
+        batchSize = schedule.nextBatchSize(batchSize, 1000, 0.05, 0.0);
+        assertEquals(50, batchSize, "The batch size should be capped at the specified cap");
+    }
+
+    @Test
+    public void testNextBatchSize_CappedAtDataSize() {
+        int batchSize = schedule.initialBatchSize(15);
+        batchSize = schedule.nextBatchSize(batchSize, 15, 0.2, 0.0);
+        batchSize = schedule.nextBatchSize(batchSize, 15, 0.1, 0.0);
+
+        assertEquals(15, batchSize, "The batch size should not be larger than the data size");
+    }
+
+    @Test
+    public void testInitialBatchSize_ResetsMovement() {
+        int batchSize = schedule.initialBatchSize(1000);
+        schedule.nextBatchSize(batchSize, 1000, 0.5, 0.0);
+
+        batchSize = schedule.initialBatchSize(1000);
+        batchSize = schedule.nextBatchSize(batchSize, 1000, 0.1, 0.0);
+        assertEquals(10, batchSize, "The movement of a previous training run should not make the batch size grow");
+    }
+
+    @Test
+    public void testConstructor_InvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new GeometricBatchSize(10, 1.0, 50),
+                "A growth factor that is not greater than 1 should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> new GeometricBatchSize(100, 2.0, 50),
+                "An initial batch size larger than the cap should throw an exception");
+    }
+}
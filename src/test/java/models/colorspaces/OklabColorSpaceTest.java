@@ -0,0 +1,44 @@
+package test.java.models.colorspaces;
+
+import main.java.models.colorspaces.OklabColorSpace;
+import main.java.models.interfaces.ColorSpace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class OklabColorSpaceTest {
+    ColorSpace colorSpace;
+
+    @BeforeEach
+    void setUp() {
+        colorSpace = new OklabColorSpace();
+    }
+
+    @Test
+    public void testFromRgb_White() {
+        double[] expected = {1.0, 0.0, 0.0};
+        double[] result = colorSpace.fromRgb(0xFFFFFF);
+
+        assertArrayEquals(expected, result, 1e-4, "White should have full lightness and no chroma");
+    }
+
+    @Test
+    public void testFromRgb_Red() {
+        double[] expected = {0.62796, 0.22486, 0.12585};
+        double[] result = colorSpace.fromRgb(0xFF0000);
+
+        assertArrayEquals(expected, result, 1e-4, "The Oklab coordinates of red should match the reference values");
+    }
+
+    @Test
+    public void testRoundTrip() {
+        int[] colors = {0x000000, 0xFFFFFF, 0xFF0000, 0x00FF00, 0x0000FF, 0x336699, 0xC0FFEE, 0x7F7F7F};
+        for (int rgb : colors) {
+            double[] expected = {((rgb >> 16) & 0xFF) / 255.0, ((rgb >> 8) & 0xFF) / 255.0, (rgb & 0xFF) / 255.0};
+            double[] result = colorSpace.toNormalizedRgb(colorSpace.fromRgb(rgb));
+
+            assertArrayEquals(expected, result, 1e-6, "Converting to Oklab and back should return the original color");
+        }
+    }
+}
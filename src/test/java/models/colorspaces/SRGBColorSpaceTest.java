@@ -0,0 +1,39 @@
+package test.java.models.colorspaces;
+
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.interfaces.ColorSpace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SRGBColorSpaceTest {
+    ColorSpace colorSpace;
+
+    @BeforeEach
+    void setUp() {
+        colorSpace = new SRGBColorSpace();
+    }
+
+    @Test
+    public void testFromRgb() {
+        double[] expected = {255 / 255.0, 128 / 255.0, 0.0};
+        double[] result = colorSpace.fromRgb(0xFF8000);
+
+        assertArrayEquals(expected, result, "The channels should be normalized to the range [0, 1]");
+    }
+
+    @Test
+    public void testFromRgb_IgnoresAlpha() {
+        assertArrayEquals(colorSpace.fromRgb(0x336699), colorSpace.fromRgb(0xFF336699),
+                "The alpha bits should not affect the conversion");
+    }
+
+    @Test
+    public void testToNormalizedRgb_ClampsValues() {
+        double[] expected = {0.0, 0.5, 1.0};
+        double[] result = colorSpace.toNormalizedRgb(new double[]{-0.2, 0.5, 1.3});
+
+        assertArrayEquals(expected, result, "Values outside the range [0, 1] should be clamped");
+    }
+}
@@ -0,0 +1,58 @@
+package test.java.models.decays;
+
+import main.java.models.decays.CosineDecay;
+import main.java.models.interfaces.Decay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CosineDecayTest {
+    Decay decay;
+    double initialValue;
+    int totalEpochs;
+
+    @BeforeEach
+    void setUp() {
+        decay = new CosineDecay();
+        initialValue = 0.5;
+        totalEpochs = 10;
+    }
+
+    @Test
+    public void testCompute_ZeroEpoch() {
+        int epoch = 0;
+        double expected = 0.5;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should remain the same at epoch 0");
+    }
+
+    @Test
+    public void testCompute_HalfwayEpoch() {
+        int epoch = 5;
+        double expected = 0.25;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should be halved at halfway epoch");
+    }
+
+    @Test
+    public void testCompute_LastEpoch() {
+        int epoch = 10;
+        double expected = 0.0;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should be 0 at the last epoch");
+    }
+
+    @Test
+    public void testCompute_NegativeEpoch() {
+        int epoch = -1;
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            decay.compute(initialValue, epoch, totalEpochs);
+        }, "Negative epoch should throw an IllegalArgumentException");
+    }
+}
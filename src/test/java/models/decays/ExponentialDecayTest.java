@@ -0,0 +1,58 @@
+package test.java.models.decays;
+
+import main.java.models.decays.ExponentialDecay;
+import main.java.models.interfaces.Decay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExponentialDecayTest {
+    Decay decay;
+    double initialValue;
+    int totalEpochs;
+
+    @BeforeEach
+    void setUp() {
+        decay = new ExponentialDecay(0.01);
+        initialValue = 0.5;
+        totalEpochs = 10;
+    }
+
+    @Test
+    public void testCompute_ZeroEpoch() {
+        int epoch = 0;
+        double expected = 0.5;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should remain the same at epoch 0");
+    }
+
+    @Test
+    public void testCompute_HalfwayEpoch() {
+        int epoch = 5;
+        double expected = 0.05;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should be multiplied by the square root of the final fraction at halfway epoch");
+    }
+
+    @Test
+    public void testCompute_LastEpoch() {
+        int epoch = 10;
+        double expected = 0.005;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should reach the final fraction at the last epoch");
+    }
+
+    @Test
+    public void testCompute_NegativeEpoch() {
+        int epoch = -1;
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            decay.compute(initialValue, epoch, totalEpochs);
+        }, "Negative epoch should throw an IllegalArgumentException");
+    }
+}
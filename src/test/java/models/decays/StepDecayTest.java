@@ -0,0 +1,70 @@
+package test.java.models.decays;
+
+import main.java.models.decays.StepDecay;
+import main.java.models.interfaces.Decay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StepDecayTest {
+    Decay decay;
+    double initialValue;
+    int totalEpochs;
+
+    @BeforeEach
+    void setUp() {
+        decay = new StepDecay(2, 0.5);
+        initialValue = 0.5;
+        totalEpochs = 10;
+    }
+
+    @Test
+    public void testCompute_ZeroEpoch() {
+        int epoch = 0;
+        double expected = 0.5;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should remain the same at epoch 0");
+    }
+
+    @Test
+    public void testCompute_HalfwayEpoch() {
+        int epoch = 5;
+        double expected = 0.25;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should be multiplied by the factor once at halfway epoch");
+    }
+
+    @Test
+    public void testCompute_LastEpoch() {
+        int epoch = 10;
+        double expected = 0.125;
+        double result = decay.compute(initialValue, epoch, totalEpochs);
+
+        assertEquals(expected, result, 1e-12, "Input value should be multiplied by the factor for each step at the last epoch");
+    }
+
+    @Test
+    public void testCompute_NegativeEpoch() {
+        int epoch = -1;
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            decay.compute(initialValue, epoch, totalEpochs);
+        }, "Negative epoch should throw an IllegalArgumentException");
+    }
+
+    @Test
+    public void testCompute_ConstantWithinStep() {
+        assertEquals(decay.compute(initialValue, 0, totalEpochs), decay.compute(initialValue, 4, totalEpochs),
+                "Input value should not change within a step");
+    }
+
+    @Test
+    public void testConstructor_InvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new StepDecay(0, 0.5), "Zero steps should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> new StepDecay(2, 1.5), "A factor above 1 should throw an exception");
+    }
+}
\ No newline at end of file
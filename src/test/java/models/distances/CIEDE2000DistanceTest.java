@@ -0,0 +1,54 @@
+package test.java.models.distances;
+
+import main.java.models.colorspaces.CIELabColorSpace;
+import main.java.models.distances.CIEDE2000Distance;
+import main.java.models.interfaces.Distance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CIEDE2000DistanceTest {
+    Distance distance;
+
+    @BeforeEach
+    void setUp() {
+        distance = new CIEDE2000Distance();
+    }
+
+    /**
+     * Scales standard CIELAB coordinates the same way as CIELabColorSpace does.
+     */
+    private static double[] lab(double l, double a, double b) {
+        return new double[]{l / CIELabColorSpace.SCALE, a / CIELabColorSpace.SCALE, b / CIELabColorSpace.SCALE};
+    }
+
+    @Test
+    public void testCompute_ReferencePairs() {
+        // Reference pairs from Sharma, Wu and Dalal, "The CIEDE2000 Color-Difference Formula"
+        assertEquals(2.0425 / CIELabColorSpace.SCALE, distance.compute(lab(50, 2.6772, -79.7751), lab(50, 0, -82.7485)), 1e-6,
+                "The color difference should match the reference value");
+        assertEquals(27.1492 / CIELabColorSpace.SCALE, distance.compute(lab(50, 2.5, 0), lab(73, 25, -18)), 1e-6,
+                "The color difference should match the reference value");
+        assertEquals(1.0000 / CIELabColorSpace.SCALE, distance.compute(lab(50, 2.5, 0), lab(50, 3.1736, 0.5854)), 1e-6,
+                "The color difference should match the reference value");
+    }
+
+    @Test
+    public void testCompute_IdenticalColors() {
+        double[] color = lab(40, 10, -20);
+
+        assertEquals(0.0, distance.compute(color, color), "The color difference of identical colors should be zero");
+    }
+
+    @Test
+    public void testCompute_VectorsWithWrongLength() {
+        double[] a = {0.1, 0.2};
+        double[] b = {0.1, 0.2, 0.3};
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            distance.compute(a, b);
+        }, "Vectors that are not CIELAB colors should throw IllegalArgumentException");
+    }
+}
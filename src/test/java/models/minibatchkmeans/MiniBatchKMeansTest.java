@@ -2,11 +2,15 @@ package test.java.models.minibatchkmeans;
 
 import main.java.models.decays.LinearDecay;
 import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.interfaces.TrainingListener;
 import main.java.models.minibatchkmeans.Centroid;
 import main.java.models.minibatchkmeans.MiniBatchKMeans;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import test.java.models.TestData;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,6 +44,70 @@ class MiniBatchKMeansTest {
                 "Training with smaller data than the amount of clusters desired should throw an exception");
     }
 
+    @Test
+    public void testTrain_SameSeedIsReproducible() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.8, 0.8, 0.8},
+                {0.1, 0.2, 0.3},
+                {0.9, 0.1, 0.4},
+        };
+        MiniBatchKMeans first = new MiniBatchKMeans(3, new EuclideanDistance(), new LinearDecay(), 42);
+        MiniBatchKMeans second = new MiniBatchKMeans(3, new EuclideanDistance(), new LinearDecay(), 42);
+        first.train(data, 10);
+        second.train(data, 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(first.getUnitCoordinates(first.getUnits().get(i)), second.getUnitCoordinates(second.getUnits().get(i)),
+                    "Instances with the same seed should learn the same centroids");
+        }
+    }
+
+    @Test
+    public void testTrain_NotifiesTrainingListener() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.8, 0.8, 0.8},
+                {0.1, 0.2, 0.3},
+                {0.9, 0.1, 0.4},
+        };
+        List<Integer> epochs = new ArrayList<>();
+        int[] epochsRun = {0};
+        miniBatchKMeans.setTrainingListener(new TrainingListener() {
+            @Override
+            public void onEpoch(int epoch, int totalEpochs, double learningRate, double radius, double movement, double inertia, long elapsedNanos) {
+                epochs.add(epoch);
+                assertTrue(Double.isNaN(radius), "Mini Batch K-means has no neighborhood radius");
+            }
+
+            @Override
+            public void onTrainingEnd(int runEpochs, long elapsedNanos) {
+                epochsRun[0] = runEpochs;
+            }
+        });
+        miniBatchKMeans.train(data, 10);
+
+        assertEquals(miniBatchKMeans.getEpochsRun(), epochsRun[0], "The end of training should report the epochs run");
+        assertEquals(miniBatchKMeans.getEpochsRun(), epochs.size(), "Every epoch that ran should be reported");
+        assertEquals(1, epochs.getFirst(), "Epochs should be numbered from 1");
+    }
+
+    @Test
+    public void testTrain_StopsWhenInterrupted() {
+        double[][] data = TestData.gradientData(50);
+        Thread.currentThread().interrupt();
+        try {
+            miniBatchKMeans.train(data, 100);
+            assertEquals(0, miniBatchKMeans.getEpochsRun(), "An interrupted training run should stop before the next epoch");
+            assertTrue(Thread.currentThread().isInterrupted(), "The interrupt status should be preserved");
+        } finally {
+            // Clear the interrupt status so it does not leak into other tests
+            Thread.interrupted();
+        }
+    }
+
     @Test
     public void testFindClosestUnit() {
         double[][] data = {
@@ -98,6 +166,30 @@ class MiniBatchKMeansTest {
                 "Setting valid centroids should not throw exceptions");
     }
 
+    @Test
+    public void testSetUnits_WarmStart() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.8, 0.8, 0.8},
+                {0.1, 0.2, 0.3},
+        };
+        List<Object> initialUnits = List.of(
+                new Centroid(new double[]{1.0, 1.0, 1.0}),
+                new Centroid(new double[]{0.5, 0.5, 0.5}),
+                new Centroid(new double[]{0.1, 0.2, 0.3})
+        );
+        miniBatchKMeans.setUnits(initialUnits);
+        assertArrayEquals(new double[]{0.5, 0.5, 0.5}, miniBatchKMeans.getUnitCoordinates(miniBatchKMeans.getUnits().get(1)),
+                "Setting the units of an untrained model should initialize its centroids");
+
+        miniBatchKMeans.train(data, 10);
+        miniBatchKMeans.train(data, 10);
+        assertEquals(3, miniBatchKMeans.getUnits().size(), "Training again should continue from the existing centroids");
+        assertArrayEquals(new double[]{0.5, 0.5, 0.5}, ((Centroid) initialUnits.get(1)).getCoordinates(),
+                "The provided centroids should not be updated by training");
+    }
+
     @Test
     public void testSetUnits_InvalidInput() {
         List<Object> invalidUnits = List.of(new Object(), new Object(), new Object());
@@ -127,4 +219,184 @@ class MiniBatchKMeansTest {
         assertThrows(IllegalArgumentException.class, () -> miniBatchKMeans.updateUnitCoordinates(invalidUnit, newCoordinates),
                 "Updating an invalid centroid should throw an exception");
     }
+
+    @Test
+    public void testIndexApi() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.1, 0.1, 0.1},
+                {0.8, 0.8, 0.8},
+        };
+        assertEquals(0, miniBatchKMeans.unitCount(), "An untrained model should have no units");
+        miniBatchKMeans.train(data, 10);
+        assertEquals(3, miniBatchKMeans.unitCount(), "A trained model should have one unit per cluster");
+
+        List<Object> units = miniBatchKMeans.getUnits();
+        for (double[] input : data) {
+            assertSame(miniBatchKMeans.findClosestUnit(input), units.get(miniBatchKMeans.findClosestIndex(input)),
+                    "The closest index should be the index of the closest unit");
+        }
+        for (int i = 0; i < miniBatchKMeans.unitCount(); i++) {
+            assertArrayEquals(miniBatchKMeans.getUnitCoordinates(units.get(i)), miniBatchKMeans.getUnitCoordinates(i),
+                    "The unit at an index should be the unit at the same position of the unit list");
+        }
+
+        double[] newCoordinates = {0.3, 0.3, 0.3};
+        miniBatchKMeans.updateUnit(2, newCoordinates);
+        assertArrayEquals(newCoordinates, ((Centroid) units.get(2)).getCoordinates(), "Coordinates should be updated correctly");
+        assertThrows(IndexOutOfBoundsException.class, () -> miniBatchKMeans.getUnitCoordinates(3),
+                "Getting a unit outside the model should throw an exception");
+    }
+
+    @Test
+    public void testFindClosestIndices_MatchesFindClosestIndex() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.1, 0.1, 0.1},
+                {0.8, 0.8, 0.8},
+        };
+        miniBatchKMeans.train(data, 10);
+        double[] inputs = {0.2, 0.3, 0.1, 0.9, 0.7, 0.8, 0.45, 0.5, 0.55};
+        int[] indices = new int[3];
+        miniBatchKMeans.findClosestIndices(inputs, 0, 3, indices, null);
+
+        for (int i = 0; i < 3; i++) {
+            double[] input = {inputs[i * 3], inputs[i * 3 + 1], inputs[i * 3 + 2]};
+            assertEquals(miniBatchKMeans.findClosestIndex(input), indices[i],
+                    "The bulk search should find the same centroid as a single search");
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_AfterTrainingAndUpdates() {
+        double[][] data = TestData.randomData(200, 3, 9);
+        miniBatchKMeans.train(data, 5);
+        miniBatchKMeans.updateUnit(0, new double[]{0.9, 0.1, 0.9});
+        ((Centroid) miniBatchKMeans.getUnits().get(1)).setCoordinates(new double[]{0.1, 0.9, 0.1});
+
+        double[] inputs = new double[data.length * 3];
+        for (int i = 0; i < data.length; i++) {
+            System.arraycopy(data[i], 0, inputs, i * 3, 3);
+        }
+        int[] indices = new int[data.length];
+        miniBatchKMeans.findClosestIndices(inputs, 0, data.length, indices, null);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(miniBatchKMeans.findClosestIndex(data[i]), indices[i],
+                    "The bulk search should see the centroids after training and after every update");
+        }
+
+        // A longer training run reuses the batch buffers, which grow with the batch size
+        miniBatchKMeans.train(data, 20);
+        miniBatchKMeans.findClosestIndices(inputs, 0, data.length, indices, null);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(miniBatchKMeans.findClosestIndex(data[i]), indices[i],
+                    "The bulk search should see the centroids after a warm-started training run");
+        }
+    }
+
+    @Test
+    public void testFloatPrecision_MatchesDoublePrecisionQuality() {
+        double[][] data = TestData.randomData(2000, 3, 5);
+        MiniBatchKMeans doubleModel = new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), 42);
+        MiniBatchKMeans floatModel = new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), 42,
+                Quantizer.Precision.FLOAT);
+        doubleModel.train(data, 20);
+        floatModel.train(data, 20);
+
+        assertEquals(Quantizer.Precision.DOUBLE, doubleModel.getPrecision(), "Quantizers should default to double precision");
+        assertEquals(Quantizer.Precision.FLOAT, floatModel.getPrecision(), "The precision should be the one constructed with");
+        double doubleError = TestData.meanSquaredQuantizationError(doubleModel, data);
+        double floatError = TestData.meanSquaredQuantizationError(floatModel, data);
+        assertEquals(doubleError, floatError, doubleError * 0.05,
+                "Training in single precision should reach the quality of double precision");
+    }
+
+    @Test
+    public void testTrain_FloatVectorsMatchRows() {
+        double[][] colors = TestData.randomData(50, 3, 6);
+        int[] vectorIndexes = new int[400];
+        double[][] rows = new double[vectorIndexes.length][];
+        for (int i = 0; i < vectorIndexes.length; i++) {
+            vectorIndexes[i] = (i * 7) % colors.length;
+            rows[i] = colors[vectorIndexes[i]];
+        }
+        MiniBatchKMeans fromRows = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42,
+                Quantizer.Precision.FLOAT);
+        MiniBatchKMeans fromVectors = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42,
+                Quantizer.Precision.FLOAT);
+        fromRows.train(rows, 10);
+        fromVectors.train(TestData.toFloatVectors(colors), 3, vectorIndexes, 10);
+
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(fromRows.getUnitCoordinates(i), fromVectors.getUnitCoordinates(i),
+                    "Vectors shared through their indexes should train like the rows they stand for");
+        }
+        assertThrows(IllegalArgumentException.class, () -> fromVectors.train(new float[]{0.1f, 0.2f}, 2, null, 10),
+                "Training a trained model on vectors of another dimension should throw an exception");
+    }
+
+    @Test
+    public void testFindClosestIndices_FloatInputsMatchDoubleInputs() {
+        double[][] data = TestData.randomData(300, 3, 8);
+        for (Quantizer.Precision precision : Quantizer.Precision.values()) {
+            MiniBatchKMeans model = new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), 42, precision);
+            model.train(data, 10);
+
+            float[] floatInputs = TestData.toFloatVectors(data);
+            double[] doubleInputs = new double[floatInputs.length];
+            for (int i = 0; i < floatInputs.length; i++) {
+                doubleInputs[i] = floatInputs[i];
+            }
+            int[] floatIndices = new int[data.length];
+            int[] doubleIndices = new int[data.length];
+            model.findClosestIndices(floatInputs, 0, data.length, floatIndices, null);
+            model.findClosestIndices(doubleInputs, 0, data.length, doubleIndices, null);
+            assertArrayEquals(doubleIndices, floatIndices,
+                    "The same inputs should find the same centroids in either precision of " + precision);
+            for (int i = 0; i < data.length; i++) {
+                double[] input = {doubleInputs[i * 3], doubleInputs[i * 3 + 1], doubleInputs[i * 3 + 2]};
+                assertEquals(model.findClosestIndex(input), floatIndices[i],
+                        "The bulk search should find the same centroid as a single search in " + precision);
+            }
+        }
+    }
+
+    @Test
+    public void testTrain_DoesNotModifyInputData() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.1, 0.1, 0.1},
+                {0.8, 0.8, 0.8},
+        };
+        double[][] original = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.1, 0.1, 0.1},
+                {0.8, 0.8, 0.8},
+        };
+        miniBatchKMeans.train(data, 10);
+
+        assertArrayEquals(original, data, "Training should never update the input data");
+    }
+
+    @Test
+    public void testGetUnitCoordinates_ReturnsCopy() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.8, 0.8, 0.8},
+        };
+        miniBatchKMeans.train(data, 10);
+        double[] coordinates = miniBatchKMeans.getUnitCoordinates(0);
+        double[] expected = coordinates.clone();
+        coordinates[0] = -1.0;
+
+        assertArrayEquals(expected, miniBatchKMeans.getUnitCoordinates(0),
+                "Changing the returned coordinates should not change the centroid");
+        assertSame(miniBatchKMeans.getUnits().get(0), miniBatchKMeans.getUnits().get(0),
+                "The same centroid objects should be returned on every call");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package test.java.models.persistence;
+
+import main.java.models.colorspaces.OklabColorSpace;
+import main.java.models.colorspaces.SRGBColorSpace;
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.persistence.QuantizerModel;
+import main.java.models.persistence.QuantizerModelFormat;
+import main.java.models.som.SOM;
+import main.java.models.som.SOMNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import test.java.models.TestData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantizerModelFormatTest {
+    @TempDir
+    Path tempDir;
+
+    private static void assertSameUnits(Quantizer expected, Quantizer actual) {
+        List<Object> expectedUnits = expected.getUnits();
+        List<Object> actualUnits = actual.getUnits();
+        assertEquals(expectedUnits.size(), actualUnits.size(), "The loaded quantizer should have the same number of units");
+        for (int i = 0; i < expectedUnits.size(); i++) {
+            assertArrayEquals(expected.getUnitCoordinates(expectedUnits.get(i)), actual.getUnitCoordinates(actualUnits.get(i)),
+                    "The loaded units should have exactly the saved coordinates");
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad_MiniBatchKMeans() throws IOException {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), 42);
+        miniBatchKMeans.train(TestData.randomData(200, 3, 1), 20);
+        Path path = tempDir.resolve("kmeans.qmdl");
+
+        QuantizerModelFormat.save(miniBatchKMeans, new OklabColorSpace(), path);
+        QuantizerModel model = QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay());
+
+        assertInstanceOf(MiniBatchKMeans.class, model.getQuantizer());
+        assertInstanceOf(OklabColorSpace.class, model.getColorSpace());
+        assertFalse(model.hasLookupTable());
+        assertSameUnits(miniBatchKMeans, model.getQuantizer());
+        assertEquals(32 + 8 * 3 * Double.BYTES, Files.size(path), "The file should hold only the header and the units");
+    }
+
+    @Test
+    public void testSaveAndLoad_SOMKeepsTopology() throws IOException {
+        SOM som = new SOM(3, 3, 2, new EuclideanDistance(), new LinearDecay(), 42);
+        som.train(TestData.randomData(200, 3, 2), 20);
+        Path path = tempDir.resolve("som.qmdl");
+
+        QuantizerModelFormat.save(som, null, path);
+        QuantizerModel model = QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay());
+
+        SOM loaded = assertInstanceOf(SOM.class, model.getQuantizer());
+        assertNull(model.getColorSpace());
+        assertEquals(3, loaded.getMapWidth());
+        assertEquals(2, loaded.getMapHeight());
+        assertSameUnits(som, loaded);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 2; j++) {
+                SOMNode node = loaded.getMap()[i][j];
+                assertEquals(i, node.getX());
+                assertEquals(j, node.getY());
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad_LookupTableMatchesClosestUnit() throws IOException {
+        SRGBColorSpace colorSpace = new SRGBColorSpace();
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(16, new EuclideanDistance(), new LinearDecay(), 7);
+        miniBatchKMeans.train(TestData.randomData(500, 3, 3), 30);
+        Path path = tempDir.resolve("lookup.qmdl");
+
+        QuantizerModelFormat.save(miniBatchKMeans, colorSpace, QuantizerModelFormat.DEFAULT_LOOKUP_BITS, path);
+        QuantizerModel model = QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay());
+
+        assertTrue(model.hasLookupTable());
+        Quantizer loaded = model.getQuantizer();
+        List<Object> units = loaded.getUnits();
+        // The centers of the cells of the lookup table map exactly to their closest unit
+        for (int rgb : new int[]{0x040404, 0xFC0404, 0x0484FC, 0x7C7C7C, 0xFCFCFC}) {
+            Object closest = loaded.findClosestUnit(colorSpace.fromRgb(rgb));
+            assertSame(closest, units.get(model.lookupUnitIndex(rgb)));
+        }
+    }
+
+    @Test
+    public void testLoad_InvalidFile() throws IOException {
+        Path path = tempDir.resolve("invalid.qmdl");
+        Files.write(path, new byte[64]);
+
+        assertThrows(IOException.class,
+                () -> QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay()),
+                "Loading a file without the magic number should throw an exception");
+    }
+
+    @Test
+    public void testLoad_TruncatedFile() throws IOException {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42);
+        miniBatchKMeans.train(TestData.randomData(100, 3, 4), 10);
+        Path path = tempDir.resolve("truncated.qmdl");
+        QuantizerModelFormat.save(miniBatchKMeans, null, path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 8));
+
+        assertThrows(IOException.class,
+                () -> QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay()),
+                "Loading a truncated file should throw an exception");
+    }
+
+    @Test
+    public void testLoad_TooManyUnits() throws IOException {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42);
+        miniBatchKMeans.train(TestData.randomData(100, 3, 5), 10);
+        Path path = tempDir.resolve("oversized.qmdl");
+        QuantizerModelFormat.save(miniBatchKMeans, null, path);
+        // Width and height whose product overflows an int
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(path));
+        header.putInt(12, 1 << 16).putInt(16, 1 << 16);
+        Files.write(path, header.array());
+
+        assertThrows(IOException.class,
+                () -> QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay()),
+                "Loading a file with more units than a lookup table can index should throw an exception");
+    }
+
+    @Test
+    public void testLoad_LookupEntryOutOfRange() throws IOException {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42);
+        miniBatchKMeans.train(TestData.randomData(100, 3, 6), 10);
+        Path path = tempDir.resolve("corrupt.qmdl");
+        QuantizerModelFormat.save(miniBatchKMeans, new SRGBColorSpace(), 2, path);
+        // The last lookup table entry refers to a unit the model does not have
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putShort(bytes.length - Short.BYTES, (short) 4);
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class,
+                () -> QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay()),
+                "Loading a lookup table entry outside the units should throw an exception");
+    }
+
+    @Test
+    public void testLoad_UnsupportedAlgorithm() throws IOException {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay(), 42);
+        miniBatchKMeans.train(TestData.randomData(100, 3, 7), 10);
+        Path path = tempDir.resolve("algorithm.qmdl");
+        QuantizerModelFormat.save(miniBatchKMeans, null, path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[6] = 9;
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class,
+                () -> QuantizerModelFormat.load(path, new EuclideanDistance(), new LinearDecay()),
+                "Loading a file with an unknown algorithm should throw the same exception as any other corrupt file");
+    }
+
+    @Test
+    public void testSave_UntrainedQuantizer() {
+        MiniBatchKMeans miniBatchKMeans = new MiniBatchKMeans(4, new EuclideanDistance(), new LinearDecay());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> QuantizerModelFormat.save(miniBatchKMeans, null, tempDir.resolve("untrained.qmdl")),
+                "Saving an untrained quantizer should throw an exception");
+    }
+
+    @Test
+    public void testSave_LookupTableWithoutColorSpace() {
+        SOM som = new SOM(3, 2, 2, new EuclideanDistance(), new LinearDecay(), 42);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> QuantizerModelFormat.save(som, null, 4, tempDir.resolve("lookup.qmdl")),
+                "Building a lookup table without a color space should throw an exception");
+    }
+}
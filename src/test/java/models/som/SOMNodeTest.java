@@ -50,4 +50,13 @@ class SOMNodeTest {
             assertEquals(expected, updatedWeights[i], "The weights should be updated correctly");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSetWeights_CopiesWeights() {
+        double[] newWeights = {0.1, 0.2, 0.3};
+        node.setWeights(newWeights);
+        newWeights[0] = 0.9;
+
+        assertEquals(0.1, node.getWeights()[0], "Changing the array after setting it should not change the node");
+    }
+}
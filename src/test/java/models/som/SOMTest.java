@@ -5,10 +5,14 @@ import main.java.models.distances.EuclideanDistance;
 import main.java.models.interfaces.Quantizer;
 import main.java.models.som.SOM;
 import main.java.models.som.SOMNode;
+import main.java.models.training.EarlyStopping;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import test.java.models.TestData;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,6 +57,72 @@ class SOMTest {
         assertThrows(IllegalArgumentException.class, () -> som.train(data, 10), "Training with different input dimensions should throw an exception");
     }
 
+    @Test
+    public void testTrain_SameSeedIsReproducible() {
+        double[][] data = {
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.8, 0.8, 0.8},
+                {0.1, 0.2, 0.3},
+                {0.9, 0.1, 0.4},
+                {0.3, 0.7, 0.2},
+                {1.0, 1.0, 1.0},
+                {0.5, 0.5, 0.5},
+                {0.8, 0.8, 0.8}
+        };
+        SOM first = new SOM(3, 3, 3, new EuclideanDistance(), new LinearDecay(), 42);
+        SOM second = new SOM(3, 3, 3, new EuclideanDistance(), new LinearDecay(), 42);
+        first.train(data, 10);
+        second.train(data, 10);
+
+        for (int i = 0; i < 9; i++) {
+            assertArrayEquals(first.getUnitCoordinates(first.getUnits().get(i)), second.getUnitCoordinates(second.getUnits().get(i)),
+                    "Instances with the same seed should learn the same weights");
+        }
+    }
+
+    @Test
+    public void testTrain_EarlyStopping() {
+        double[][] data = new double[50][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new double[]{0.5, 0.5, 0.5};
+        }
+        SOM earlyStoppingSom = new SOM(3, 3, 3, new EuclideanDistance(), new LinearDecay(), 42);
+        earlyStoppingSom.setEarlyStopping(new EarlyStopping(EarlyStopping.Monitor.MOVEMENT, 5, 0.01, 1.0));
+        earlyStoppingSom.train(data, 1000);
+
+        assertTrue(earlyStoppingSom.getEpochsRun() < 1000, "Training should stop early once the nodes stop moving");
+    }
+
+    @Test
+    public void testTrain_NotifiesTrainingListener() {
+        double[][] data = TestData.gradientData(50);
+        List<Double> learningRates = new ArrayList<>();
+        som.setTrainingListener((epoch, epochs, learningRate, radius, movement, inertia, elapsedNanos) -> {
+            learningRates.add(learningRate);
+            assertTrue(radius > 0, "The radius of the epoch should be reported");
+        });
+        som.train(data, 20);
+
+        assertEquals(20, learningRates.size(), "Every epoch should be reported");
+        assertEquals(0.5, learningRates.getFirst(), 1e-9, "The first epoch should use the initial learning rate");
+        assertTrue(learningRates.getLast() < learningRates.getFirst(), "The learning rate should decay");
+    }
+
+    @Test
+    public void testTrain_StopsWhenInterrupted() {
+        double[][] data = TestData.gradientData(50);
+        Thread.currentThread().interrupt();
+        try {
+            som.train(data, 100);
+            assertEquals(0, som.getEpochsRun(), "An interrupted training run should stop before the next epoch");
+            assertTrue(Thread.currentThread().isInterrupted(), "The interrupt status should be preserved");
+        } finally {
+            // Clear the interrupt status so it does not leak into other tests
+            Thread.interrupted();
+        }
+    }
+
     @Test
     public void testFindClosestUnit() {
           double[][] data = {
@@ -121,4 +191,183 @@ class SOMTest {
         assertThrows(IllegalArgumentException.class, () -> som.updateUnitCoordinates(invalidUnit, newWeights),
                 "Updating an invalid node should throw an exception");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindClosestIndex_MatchesFindClosestUnit() {
+        List<Object> units = som.getUnits();
+        for (double[] input : new double[][]{{0.1, 0.2, 0.3}, {0.9, 0.9, 0.1}, {0.5, 0.5, 0.5}}) {
+            assertSame(som.findClosestUnit(input), units.get(som.findClosestIndex(input)),
+                    "The closest index should be the index of the closest unit");
+        }
+    }
+
+    @Test
+    public void testGetUnitCoordinates_Index() {
+        assertEquals(9, som.unitCount(), "The unit count should match the total nodes in the SOM");
+        List<Object> units = som.getUnits();
+        for (int i = 0; i < som.unitCount(); i++) {
+            assertArrayEquals(som.getUnitCoordinates(units.get(i)), som.getUnitCoordinates(i),
+                    "The unit at an index should be the unit at the same position of the unit list");
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> som.getUnitCoordinates(9),
+                "Getting a unit outside the map should throw an exception");
+    }
+
+    @Test
+    public void testUpdateUnit() {
+        double[] newWeights = {0.5, 0.5, 0.5};
+        som.updateUnit(4, newWeights);
+        assertArrayEquals(newWeights, ((SOMNode) som.getUnits().get(4)).getWeights(), "The weights should be updated correctly");
+        assertThrows(IllegalArgumentException.class, () -> som.updateUnit(4, new double[]{0.5}),
+                "Updating a node with weights of a different dimension should throw an exception");
+    }
+
+    @Test
+    public void testFindClosestIndices_MatchesFindClosestIndex() {
+        double[] inputs = {0.1, 0.2, 0.3, 0.9, 0.9, 0.1, 0.5, 0.5, 0.5, 0.0, 1.0, 0.0};
+        int[] indices = new int[3];
+        double[] squaredErrors = new double[3];
+        som.findClosestIndices(inputs, 1, 3, indices, squaredErrors);
+
+        for (int i = 0; i < 3; i++) {
+            double[] input = {inputs[(i + 1) * 3], inputs[(i + 1) * 3 + 1], inputs[(i + 1) * 3 + 2]};
+            assertEquals(som.findClosestIndex(input), indices[i], "The bulk search should find the same node as a single search");
+            double dist = new EuclideanDistance().compute(input, som.getUnitCoordinates(indices[i]));
+            assertEquals(dist * dist, squaredErrors[i], 1e-12, "The squared error should be the squared distance to the BMU");
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_AfterTrainingAndUpdates() {
+        double[][] data = TestData.randomData(200, 3, 5);
+        som.train(data, 5);
+        som.updateUnit(4, new double[]{0.9, 0.1, 0.9});
+        ((SOMNode) som.getUnits().get(2)).setWeights(new double[]{0.1, 0.9, 0.1});
+        ((SOMNode) som.getUnits().get(7)).updateWeights(new double[]{0.0, 0.0, 0.0}, 0.5, 1.0);
+
+        double[] inputs = new double[data.length * 3];
+        for (int i = 0; i < data.length; i++) {
+            System.arraycopy(data[i], 0, inputs, i * 3, 3);
+        }
+        int[] indices = new int[data.length];
+        som.findClosestIndices(inputs, 0, data.length, indices, null);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(som.findClosestIndex(data[i]), indices[i],
+                    "The bulk search should see the weights after training and after every update");
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_FloatPrecisionAfterTrainingAndUpdates() {
+        SOM floatSom = new SOM(3, 3, 3, new EuclideanDistance(), new LinearDecay(), 42, Quantizer.Precision.FLOAT);
+        double[][] data = TestData.randomData(200, 3, 5);
+        floatSom.train(data, 5);
+        floatSom.updateUnit(4, new double[]{0.9, 0.1, 0.9});
+        ((SOMNode) floatSom.getUnits().get(2)).setWeights(new double[]{0.1, 0.9, 0.1});
+        ((SOMNode) floatSom.getUnits().get(7)).updateWeights(new double[]{0.0, 0.0, 0.0}, 0.5, 1.0);
+
+        float[] inputs = TestData.toFloatVectors(data);
+        int[] indices = new int[data.length];
+        floatSom.findClosestIndices(inputs, 0, data.length, indices, null);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(floatSom.findClosestIndex(data[i]), indices[i],
+                    "The single-precision search should see the weights after training and after every update");
+        }
+        assertArrayEquals(new double[]{0.1f, 0.9f, 0.1f}, floatSom.getUnitCoordinates(2),
+                "Weights should be stored in single precision");
+    }
+
+    @Test
+    public void testFloatPrecision_MatchesDoublePrecisionQuality() {
+        double[][] data = TestData.randomData(2000, 3, 7);
+        SOM doubleSom = new SOM(3, 4, 4, new EuclideanDistance(), new LinearDecay(), 42);
+        SOM floatSom = new SOM(3, 4, 4, new EuclideanDistance(), new LinearDecay(), 42, Quantizer.Precision.FLOAT);
+        doubleSom.train(data, 10);
+        floatSom.train(TestData.toFloatVectors(data), 3, null, 10);
+
+        assertEquals(Quantizer.Precision.DOUBLE, doubleSom.getPrecision(), "Quantizers should default to double precision");
+        assertEquals(Quantizer.Precision.FLOAT, floatSom.getPrecision(), "The precision should be the one constructed with");
+        double doubleError = TestData.meanSquaredQuantizationError(doubleSom, data);
+        double floatError = TestData.meanSquaredQuantizationError(floatSom, data);
+        assertEquals(doubleError, floatError, doubleError * 0.05,
+                "Training in single precision should reach the quality of double precision");
+    }
+
+    @Test
+    public void testWarmStart_KeepsPaletteStableAcrossNearIdenticalFrames() {
+        // Two frames of the same scene: the second one is the first with a little noise
+        double[][] firstFrame = TestData.randomData(2000, 3, 11);
+        Random random = new Random(12);
+        double[][] secondFrame = new double[firstFrame.length][3];
+        for (int i = 0; i < firstFrame.length; i++) {
+            for (int d = 0; d < 3; d++) {
+                secondFrame[i][d] = Math.min(1.0, Math.max(0.0, firstFrame[i][d] + (random.nextDouble() - 0.5) * 0.02));
+            }
+        }
+        SOM previous = new SOM(3, 4, 4, new EuclideanDistance(), new LinearDecay(), 42);
+        previous.train(firstFrame, 50);
+
+        SOM warmStarted = new SOM(3, 4, 4, new EuclideanDistance(), new LinearDecay(), 43);
+        warmStarted.warmStart(previous.getUnitsDeepCopy());
+        warmStarted.train(secondFrame, 5);
+        SOM restarted = new SOM(3, 4, 4, new EuclideanDistance(), new LinearDecay(), 43);
+        restarted.setUnits(previous.getUnitsDeepCopy());
+        restarted.train(secondFrame, 5);
+
+        double warmDrift = maxDrift(previous, warmStarted);
+        double restartedDrift = maxDrift(previous, restarted);
+        assertTrue(warmDrift < restartedDrift / 2,
+                "A warm start should keep the palette closer to the previous frame than restarting the schedule, but "
+                        + warmDrift + " >= " + restartedDrift + " / 2");
+        assertTrue(warmDrift < 0.1, "No color of the palette should jump between near-identical frames, but one moved " + warmDrift);
+        assertTrue(TestData.meanSquaredQuantizationError(warmStarted, secondFrame)
+                        <= TestData.meanSquaredQuantizationError(restarted, secondFrame) * 1.05,
+                "Refining the previous palette should fit the new frame as well as restarting the schedule");
+    }
+
+    @Test
+    public void testSetWarmStartSchedule_InvalidArguments() {
+        SOM map = new SOM(3, 3, 3, new EuclideanDistance(), new LinearDecay(), 42);
+        assertThrows(IllegalArgumentException.class, () -> map.setWarmStartSchedule(0.0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> map.setWarmStartSchedule(1.5, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> map.setWarmStartSchedule(0.1, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> map.warmStart(List.of()),
+                "Warm starting from the wrong number of units should throw an exception");
+    }
+
+    /**
+     * Returns the largest distance between the weights of the nodes at the same index of two maps.
+     */
+    private static double maxDrift(SOM first, SOM second) {
+        double maxDrift = 0.0;
+        for (int i = 0; i < first.unitCount(); i++) {
+            maxDrift = Math.max(maxDrift, new EuclideanDistance().compute(first.getUnitCoordinates(i), second.getUnitCoordinates(i)));
+        }
+        return maxDrift;
+    }
+
+    @Test
+    public void testGetUnitCoordinates_ReturnsCopy() {
+        double[] weights = som.getUnitCoordinates(0);
+        double[] expected = weights.clone();
+        weights[0] = -1.0;
+
+        assertArrayEquals(expected, som.getUnitCoordinates(0), "Changing the returned weights should not change the node");
+        assertSame(som.getUnits().get(0), som.getUnits().get(0), "The same node objects should be returned on every call");
+    }
+
+    @Test
+    public void testTrain_LargeMap() {
+        SOM largeSom = new SOM(3, 32, 32, new EuclideanDistance(), new LinearDecay(), 42);
+        double[][] data = new double[2048][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new double[]{(i % 16) / 15.0, ((i / 16) % 16) / 15.0, (i / 256) / 7.0};
+        }
+        largeSom.train(data, 20);
+
+        SOMNode bmu = largeSom.findClosestUnit(data[100]);
+        assertSame(bmu, largeSom.getMap()[bmu.getX()][bmu.getY()], "The BMU should be the node at its grid position");
+        assertEquals(bmu.getX() * 32 + bmu.getY(), largeSom.findClosestIndex(data[100]),
+                "The index of a node should follow its grid position");
+    }
+}
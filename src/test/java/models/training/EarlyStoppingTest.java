@@ -0,0 +1,55 @@
+package test.java.models.training;
+
+import main.java.models.training.EarlyStopping;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarlyStoppingTest {
+
+    @Test
+    public void testUpdate_ContinuesWhileImproving() {
+        EarlyStopping earlyStopping = new EarlyStopping(EarlyStopping.Monitor.INERTIA, 3, 0.01, 1.0);
+        double inertia = 1.0;
+        for (int epoch = 0; epoch < 20; epoch++) {
+            assertFalse(earlyStopping.update(inertia, 0.0), "Training should continue while the inertia improves");
+            inertia *= 0.9;
+        }
+    }
+
+    @Test
+    public void testUpdate_StopsAfterPatience() {
+        EarlyStopping earlyStopping = new EarlyStopping(EarlyStopping.Monitor.INERTIA, 3, 0.01, 1.0);
+        assertFalse(earlyStopping.update(1.0, 0.0));
+        assertFalse(earlyStopping.update(0.5, 0.0));
+        assertFalse(earlyStopping.update(0.499, 0.0), "One epoch without improvement should not stop training");
+        assertFalse(earlyStopping.update(0.5, 0.0), "Two epochs without improvement should not stop training");
+        assertTrue(earlyStopping.update(0.498, 0.0), "Training should stop after the patience window without improvement");
+    }
+
+    @Test
+    public void testUpdate_MonitorsMovement() {
+        EarlyStopping earlyStopping = new EarlyStopping(EarlyStopping.Monitor.MOVEMENT, 1, 0.01, 1.0);
+        assertFalse(earlyStopping.update(1.0, 0.5));
+        assertFalse(earlyStopping.update(1.0, 0.25), "The improving movement should be monitored instead of the inertia");
+        assertTrue(earlyStopping.update(0.1, 0.25), "The stalled movement should stop training");
+    }
+
+    @Test
+    public void testReset() {
+        EarlyStopping earlyStopping = new EarlyStopping(EarlyStopping.Monitor.INERTIA, 1, 0.01, 1.0);
+        earlyStopping.update(1.0, 0.0);
+        assertTrue(earlyStopping.update(1.0, 0.0));
+
+        earlyStopping.reset();
+        assertFalse(earlyStopping.update(1.0, 0.0), "Training should not stop right after a reset");
+    }
+
+    @Test
+    public void testConstructor_InvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new EarlyStopping(EarlyStopping.Monitor.INERTIA, 0, 0.01, 0.5),
+                "A zero patience should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> new EarlyStopping(EarlyStopping.Monitor.INERTIA, 5, 0.01, 0.0),
+                "A zero smoothing factor should throw an exception");
+    }
+}
@@ -0,0 +1,87 @@
+package test.java.models.training;
+
+import main.java.models.decays.LinearDecay;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Quantizer;
+import main.java.models.minibatchkmeans.MiniBatchKMeans;
+import main.java.models.som.SOM;
+import main.java.models.training.MultiStartTrainer;
+import org.junit.jupiter.api.Test;
+import test.java.models.TestData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiStartTrainerTest {
+
+    @Test
+    public void testTrain_ReturnsQuantizerWithLowestScore() {
+        double[][] data = TestData.randomData(3000, 3, 42);
+        Quantizer[] created = new Quantizer[6];
+        MultiStartTrainer trainer = new MultiStartTrainer(start -> {
+            // Mixes the two algorithms
+            created[start] = start % 2 == 0
+                    ? new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), start)
+                    : new SOM(3, 2, 4, new EuclideanDistance(), new LinearDecay(), start);
+            return created[start];
+        }, 6, 1);
+        trainer.setThreadCount(3);
+        Quantizer best = trainer.train(data, 30);
+
+        double[] scores = trainer.getScores();
+        assertEquals(6, scores.length);
+        int bestIndex = trainer.getBestIndex();
+        assertSame(created[bestIndex], best, "The quantizer of the best start should be returned");
+        for (double score : scores) {
+            assertTrue(score >= scores[bestIndex], "The best start should have the lowest score");
+        }
+        assertEquals(30, best.getEpochsRun());
+    }
+
+    @Test
+    public void testTrain_IsReproducible() {
+        double[][] data = TestData.randomData(2000, 3, 42);
+        MultiStartTrainer first = new MultiStartTrainer(
+                start -> new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), start), 4, 3);
+        MultiStartTrainer second = new MultiStartTrainer(
+                start -> new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), start), 4, 3);
+        second.setThreadCount(1);
+        first.train(data, 20);
+        second.train(data, 20);
+        assertArrayEquals(first.getScores(), second.getScores(),
+                "Seeded starts should score the same regardless of the number of threads");
+    }
+
+    @Test
+    public void testTrain_StopsWithinTimeBudget() {
+        double[][] data = TestData.randomData(2000, 3, 42);
+        MultiStartTrainer trainer = new MultiStartTrainer(
+                start -> new SOM(3, 8, 8, new EuclideanDistance(), new LinearDecay(), start), 4, 5);
+        trainer.setThreadCount(2);
+        trainer.setTimeBudget(50);
+        Quantizer best = trainer.train(data, 1_000_000);
+
+        assertTrue(best.getEpochsRun() < 1_000_000, "Training should stop when the time budget runs out");
+        assertFalse(Double.isNaN(trainer.getScores()[trainer.getBestIndex()]));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void testTrain_PropagatesFailure() {
+        double[][] data = TestData.randomData(5, 3, 42);
+        MultiStartTrainer trainer = new MultiStartTrainer(
+                start -> new MiniBatchKMeans(8, new EuclideanDistance(), new LinearDecay(), start), 2, 1);
+        assertThrows(IllegalArgumentException.class, () -> trainer.train(data, 10),
+                "The exception of a failed start should be rethrown");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MultiStartTrainer(start -> null, 0, 1));
+        MultiStartTrainer trainer = new MultiStartTrainer(start -> null, 2, 1);
+        assertThrows(IllegalArgumentException.class, () -> trainer.setThreadCount(0));
+        assertThrows(IllegalArgumentException.class, () -> trainer.setTimeBudget(-1));
+        assertThrows(IllegalArgumentException.class, () -> trainer.setSampleSize(0));
+        assertThrows(IllegalArgumentException.class, () -> trainer.train(new double[0][], 10));
+        assertEquals(-1, trainer.getBestIndex());
+    }
+}
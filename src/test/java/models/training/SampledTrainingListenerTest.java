@@ -0,0 +1,47 @@
+package test.java.models.training;
+
+import main.java.models.interfaces.TrainingListener;
+import main.java.models.training.SampledTrainingListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampledTrainingListenerTest {
+
+    @Test
+    public void testOnEpoch_ForwardsEveryNthAndLastEpoch() {
+        List<Integer> forwardedEpochs = new ArrayList<>();
+        TrainingListener listener = new SampledTrainingListener(
+                (epoch, epochs, learningRate, radius, movement, inertia, elapsedNanos) -> forwardedEpochs.add(epoch), 4);
+        for (int epoch = 1; epoch <= 10; epoch++) {
+            listener.onEpoch(epoch, 10, 0.5, 1.0, 0.1, 0.1, 0);
+        }
+        assertEquals(List.of(4, 8, 10), forwardedEpochs, "Every 4th epoch and the last epoch should be forwarded");
+    }
+
+    @Test
+    public void testOnTrainingEnd_IsForwarded() {
+        int[] epochsRun = {0};
+        TrainingListener listener = new SampledTrainingListener(new TrainingListener() {
+            @Override
+            public void onEpoch(int epoch, int epochs, double learningRate, double radius, double movement, double inertia, long elapsedNanos) {
+            }
+
+            @Override
+            public void onTrainingEnd(int runEpochs, long elapsedNanos) {
+                epochsRun[0] = runEpochs;
+            }
+        }, 100);
+        listener.onTrainingEnd(7, 0);
+        assertEquals(7, epochsRun[0], "The end of training should always be forwarded");
+    }
+
+    @Test
+    public void testConstructor_InvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new SampledTrainingListener(TrainingListener.NONE, 0),
+                "A zero interval should throw an exception");
+    }
+}
@@ -0,0 +1,96 @@
+package test.java.models.utils;
+
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.utils.IntegerPaletteSearch;
+import main.java.models.utils.NearestUnitSearch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntegerPaletteSearchTest {
+
+    @Test
+    public void testFindClosestIndex_MatchesDoublePrecisionSearchForAllColors() {
+        Random random = new Random(5);
+        int[] palette = new int[16];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = random.nextInt(1 << 24);
+        }
+        // Two equal palette colors, so that ties are covered
+        palette[9] = palette[3];
+        double[] units = new double[palette.length * 3];
+        for (int i = 0; i < palette.length; i++) {
+            units[i * 3] = ((palette[i] >> 16) & 0xFF) / 255.0;
+            units[i * 3 + 1] = ((palette[i] >> 8) & 0xFF) / 255.0;
+            units[i * 3 + 2] = (palette[i] & 0xFF) / 255.0;
+        }
+        IntegerPaletteSearch search = new IntegerPaletteSearch(palette);
+
+        // Every 24-bit color, one red value at a time
+        double[] inputs = new double[256 * 256 * 3];
+        int[] doubleIndices = new int[256 * 256];
+        for (int red = 0; red < 256; red++) {
+            for (int i = 0; i < 256 * 256; i++) {
+                inputs[i * 3] = red / 255.0;
+                inputs[i * 3 + 1] = (i >> 8) / 255.0;
+                inputs[i * 3 + 2] = (i & 0xFF) / 255.0;
+            }
+            NearestUnitSearch.findClosestIndices(units, palette.length, 3, new EuclideanDistance(), inputs, 0, 256 * 256, doubleIndices, null);
+            for (int i = 0; i < 256 * 256; i++) {
+                int rgb = (red << 16) | i;
+                int index = search.findClosestIndex(rgb);
+                if (index != doubleIndices[i]) {
+                    // Rounding may only break exact ties differently
+                    assertEquals(
+                            IntegerPaletteSearch.squaredDistance(rgb, palette[doubleIndices[i]]),
+                            IntegerPaletteSearch.squaredDistance(rgb, palette[index]),
+                            "The integer search should find a palette color as close as the double-precision search"
+                    );
+                    assertTrue(index < doubleIndices[i], "Ties should be resolved in favor of the lowest index");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_MatchesSingleSearch() {
+        Random random = new Random(9);
+        int[] palette = new int[40];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = random.nextInt(1 << 24);
+        }
+        int[] pixels = new int[500];
+        for (int i = 0; i < pixels.length; i++) {
+            // The alpha bits are ignored
+            pixels[i] = random.nextInt();
+        }
+        IntegerPaletteSearch search = new IntegerPaletteSearch(palette);
+        int[] indices = new int[400];
+        int[] squaredErrors = new int[400];
+        search.findClosestIndices(pixels, 50, 400, indices, squaredErrors);
+
+        for (int i = 0; i < 400; i++) {
+            int expected = search.findClosestIndex(pixels[50 + i]);
+            assertEquals(expected, indices[i]);
+            assertEquals(IntegerPaletteSearch.squaredDistance(pixels[50 + i], palette[expected]), squaredErrors[i]);
+        }
+    }
+
+    @Test
+    public void testFindClosestIndex_ExactColor() {
+        IntegerPaletteSearch search = new IntegerPaletteSearch(new int[]{0x000000, 0xFF0000, 0x00FF00, 0x0000FF});
+        assertEquals(4, search.getPaletteSize());
+        assertEquals(2, search.findClosestIndex(0xFF00FF00));
+        assertEquals(1, search.findClosestIndex(0xF01010));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IntegerPaletteSearch(new int[0]));
+        IntegerPaletteSearch search = new IntegerPaletteSearch(new int[]{0x123456});
+        assertThrows(IllegalArgumentException.class, () -> search.findClosestIndices(new int[10], 5, 6, new int[6], null));
+        assertThrows(IllegalArgumentException.class, () -> search.findClosestIndices(new int[10], 0, 10, new int[9], null));
+    }
+}
@@ -0,0 +1,76 @@
+package test.java.models.utils;
+
+import main.java.models.utils.MiniBatchSampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MiniBatchSamplerTest {
+
+    @Test
+    public void testNextBatch_SameSeedIsReproducible() {
+        MiniBatchSampler first = new MiniBatchSampler(42);
+        MiniBatchSampler second = new MiniBatchSampler(42);
+
+        for (int epoch = 0; epoch < 5; epoch++) {
+            int[] expected = first.nextBatch(1000, 32).clone();
+            int[] result = second.nextBatch(1000, 32);
+            assertArrayEquals(expected, result, "Samplers with the same seed should produce the same mini-batches");
+        }
+    }
+
+    @Test
+    public void testNextBatch_ReusesBuffer() {
+        MiniBatchSampler sampler = new MiniBatchSampler(1);
+        int[] first = sampler.nextBatch(100, 10);
+        int[] second = sampler.nextBatch(100, 5);
+
+        assertSame(first, second, "The index buffer should be reused between mini-batches");
+    }
+
+    @Test
+    public void testNextBatch_WithoutReplacement() {
+        MiniBatchSampler sampler = new MiniBatchSampler(7, MiniBatchSampler.Mode.WITHOUT_REPLACEMENT);
+
+        for (int epoch = 0; epoch < 10; epoch++) {
+            int[] batch = Arrays.copyOf(sampler.nextBatch(20, 20), 20);
+            Arrays.sort(batch);
+            for (int i = 0; i < batch.length; i++) {
+                assertEquals(i, batch[i], "Each index should appear exactly once when sampling without replacement");
+            }
+        }
+    }
+
+    @Test
+    public void testNextBatch_Stratified() {
+        MiniBatchSampler sampler = new MiniBatchSampler(3, MiniBatchSampler.Mode.STRATIFIED);
+        int[] batch = sampler.nextBatch(100, 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(batch[i] >= i * 10 && batch[i] < (i + 1) * 10, "Each index should come from its own stratum");
+        }
+    }
+
+    @Test
+    public void testNextBatch_InvalidInput() {
+        MiniBatchSampler sampler = new MiniBatchSampler(5, MiniBatchSampler.Mode.WITHOUT_REPLACEMENT);
+
+        assertThrows(IllegalArgumentException.class, () -> sampler.nextBatch(0, 1),
+                "An empty data set should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> sampler.nextBatch(10, 0),
+                "An empty mini-batch should throw an exception");
+        assertThrows(IllegalArgumentException.class, () -> sampler.nextBatch(10, 11),
+                "A mini-batch larger than the data should throw an exception when sampling without replacement");
+    }
+
+    @Test
+    public void testSplit_IsReproducible() {
+        MiniBatchSampler first = new MiniBatchSampler(11).split();
+        MiniBatchSampler second = new MiniBatchSampler(11).split();
+
+        assertArrayEquals(first.nextBatch(500, 16).clone(), second.nextBatch(500, 16),
+                "Split samplers derived from the same seed should produce the same mini-batches");
+    }
+}
@@ -0,0 +1,126 @@
+package test.java.models.utils;
+
+import main.java.models.distances.CIEDE2000Distance;
+import main.java.models.distances.EuclideanDistance;
+import main.java.models.interfaces.Distance;
+import main.java.models.utils.NearestUnitSearch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearestUnitSearchTest {
+
+    @Test
+    public void testFindClosestIndices_MatchesSequentialSearch() {
+        Random random = new Random(7);
+        for (int dimension : new int[]{2, 3, 5}) {
+            double[] units = randomVectors(random, 20, dimension);
+            double[] inputs = randomVectors(random, 300, dimension);
+            int offset = 10;
+            int length = 200;
+            int[] indices = new int[length];
+            double[] squaredErrors = new double[length];
+            NearestUnitSearch.findClosestIndices(units, 20, dimension, new EuclideanDistance(), inputs, offset, length, indices, squaredErrors);
+
+            for (int i = 0; i < length; i++) {
+                double[] input = Arrays.copyOfRange(inputs, (offset + i) * dimension, (offset + i + 1) * dimension);
+                int expected = closestIndex(units, 20, dimension, new EuclideanDistance(), input);
+                assertEquals(expected, indices[i], "The bulk search should find the same unit as a sequential search");
+                double dist = new EuclideanDistance().compute(input, Arrays.copyOfRange(units, expected * dimension, (expected + 1) * dimension));
+                assertEquals(dist * dist, squaredErrors[i], 1e-12, "The squared error should be the squared distance to the closest unit");
+            }
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_OtherDistance() {
+        Random random = new Random(11);
+        Distance distance = new CIEDE2000Distance();
+        double[] units = new double[8 * 3];
+        double[] inputs = new double[50 * 3];
+        for (int i = 0; i < units.length; i += 3) {
+            units[i] = random.nextDouble() * 100;
+            units[i + 1] = random.nextDouble() * 100 - 50;
+            units[i + 2] = random.nextDouble() * 100 - 50;
+        }
+        for (int i = 0; i < inputs.length; i += 3) {
+            inputs[i] = random.nextDouble() * 100;
+            inputs[i + 1] = random.nextDouble() * 100 - 50;
+            inputs[i + 2] = random.nextDouble() * 100 - 50;
+        }
+        int[] indices = new int[50];
+        NearestUnitSearch.findClosestIndices(units, 8, 3, distance, inputs, 0, 50, indices, null);
+
+        for (int i = 0; i < 50; i++) {
+            double[] input = Arrays.copyOfRange(inputs, i * 3, i * 3 + 3);
+            assertEquals(closestIndex(units, 8, 3, distance, input), indices[i],
+                    "The bulk search should use the distance metric it was given");
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_ReusesBuffers() {
+        Random random = new Random(13);
+        double[] units = randomVectors(random, 16, 3);
+        double[] transposedUnits = new double[units.length];
+        double[] distances = new double[16];
+        NearestUnitSearch.transposeUnits(units, 16, 3, transposedUnits);
+        assertEquals(units[5 * 3 + 2], transposedUnits[2 * 16 + 5], "Coordinate d of unit i should be at d * unitCount + i");
+
+        double[] inputs = randomVectors(random, 50, 3);
+        int[] expected = new int[50];
+        int[] indices = new int[50];
+        NearestUnitSearch.findClosestIndices(units, 16, 3, new EuclideanDistance(), inputs, 0, 50, expected, null);
+        for (int call = 0; call < 2; call++) {
+            NearestUnitSearch.findClosestIndices(units, transposedUnits, distances, 16, 3, new EuclideanDistance(),
+                    inputs, 0, 50, indices, null);
+            assertArrayEquals(expected, indices, "A search with caller-owned buffers should find the same units");
+        }
+    }
+
+    @Test
+    public void testFindClosestIndices_TiesPickTheLowestIndex() {
+        double[] units = {0.0, 0.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0, 0.0};
+        double[] inputs = {0.0, 0.0, 0.0, 0.5, 0.0, 0.0};
+        int[] indices = new int[2];
+        NearestUnitSearch.findClosestIndices(units, 3, 3, new EuclideanDistance(), inputs, 0, 2, indices, null);
+
+        assertArrayEquals(new int[]{0, 0}, indices, "Ties should be resolved in favor of the lowest unit index");
+    }
+
+    @Test
+    public void testFindClosestIndices_InvalidRange() {
+        double[] units = {0.0, 0.0, 0.0};
+        double[] inputs = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6};
+        assertThrows(IllegalArgumentException.class,
+                () -> NearestUnitSearch.findClosestIndices(units, 1, 3, new EuclideanDistance(), inputs, 1, 2, new int[2], null),
+                "A range past the end of the inputs should throw an exception");
+        assertThrows(IllegalArgumentException.class,
+                () -> NearestUnitSearch.findClosestIndices(units, 1, 3, new EuclideanDistance(), inputs, 0, 2, new int[1], null),
+                "An index array smaller than the range should throw an exception");
+    }
+
+    private static double[] randomVectors(Random random, int count, int dimension) {
+        double[] vectors = new double[count * dimension];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = random.nextDouble();
+        }
+        return vectors;
+    }
+
+    private static int closestIndex(double[] units, int unitCount, int dimension, Distance distance, double[] input) {
+        int closestIndex = 0;
+        double minDist = Double.MAX_VALUE;
+        for (int unit = 0; unit < unitCount; unit++) {
+            double dist = distance.compute(input, Arrays.copyOfRange(units, unit * dimension, (unit + 1) * dimension));
+            if (dist < minDist) {
+                minDist = dist;
+                closestIndex = unit;
+            }
+        }
+        return closestIndex;
+    }
+}
@@ -0,0 +1,153 @@
+package test.java.models.utils;
+
+import main.java.models.utils.ErrorHeatmap;
+import main.java.models.utils.IntegerPaletteSearch;
+import main.java.models.utils.QualityMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QualityMetricsTest {
+
+    @Test
+    public void testFromHistogram_MatchesPixelByPixelComputation() {
+        Random random = new Random(3);
+        int[] palette = randomColors(random, 12);
+        // More unique colors than fit in one chunk, so the parallel reduction merges several chunks
+        int[] colors = randomColors(random, 20000);
+        int[] counts = new int[colors.length];
+        int[] closestUnits = new int[colors.length];
+        IntegerPaletteSearch search = new IntegerPaletteSearch(palette);
+        long pixelCount = 0;
+        long totalSquaredError = 0;
+        int maxSquaredError = 0;
+        long[] populations = new long[palette.length];
+        for (int i = 0; i < colors.length; i++) {
+            counts[i] = 1 + random.nextInt(5);
+            closestUnits[i] = search.findClosestIndex(colors[i]);
+            int squaredError = IntegerPaletteSearch.squaredDistance(colors[i], palette[closestUnits[i]]);
+            pixelCount += counts[i];
+            totalSquaredError += (long) squaredError * counts[i];
+            maxSquaredError = Math.max(maxSquaredError, squaredError);
+            populations[closestUnits[i]] += counts[i];
+        }
+        QualityMetrics metrics = QualityMetrics.fromHistogram(colors, counts, closestUnits, palette, null);
+
+        assertEquals((double) totalSquaredError / pixelCount, metrics.getMeanSquaredError(), 1e-12);
+        assertEquals(maxSquaredError, metrics.getMaxSquaredError());
+        assertEquals(palette.length, metrics.getUnitCount());
+        long populationSum = 0;
+        for (int unit = 0; unit < palette.length; unit++) {
+            assertEquals(populations[unit], metrics.getUnitPopulation(unit));
+            populationSum += metrics.getUnitPopulation(unit);
+        }
+        assertEquals(pixelCount, populationSum);
+        assertFalse(metrics.isEstimate());
+        assertNull(metrics.getHeatmap());
+    }
+
+    @Test
+    public void testPeakSignalToNoiseRatio() {
+        // Every pixel is off by 10 in one channel, so the MSE per channel is 100 / 3
+        QualityMetrics metrics = QualityMetrics.fromHistogram(
+                new int[]{0x0A0000, 0x000A00}, new int[]{3, 5}, new int[]{0, 0}, new int[]{0x000000}, null);
+        assertEquals(100.0, metrics.getMeanSquaredError(), 1e-12);
+        assertEquals(10 * Math.log10(255.0 * 255.0 / (100.0 / 3)), metrics.getPeakSignalToNoiseRatio(), 1e-12);
+        assertEquals(100.0, metrics.getUnitMeanSquaredError(0), 1e-12);
+
+        QualityMetrics exact = QualityMetrics.fromHistogram(
+                new int[]{0x123456}, new int[]{4}, new int[]{1}, new int[]{0x000000, 0x123456}, null);
+        assertEquals(Double.POSITIVE_INFINITY, exact.getPeakSignalToNoiseRatio());
+        assertEquals(0, exact.getUnitPopulation(0));
+        assertEquals(0.0, exact.getUnitMeanSquaredError(0));
+    }
+
+    @Test
+    public void testEstimate_IsCloseToExactMetrics() {
+        Random random = new Random(8);
+        int[] palette = randomColors(random, 16);
+        int[] colors = randomColors(random, 5000);
+        int[] counts = new int[colors.length];
+        int[] closestUnits = new int[colors.length];
+        IntegerPaletteSearch search = new IntegerPaletteSearch(palette);
+        for (int i = 0; i < colors.length; i++) {
+            counts[i] = 1 + random.nextInt(20);
+            closestUnits[i] = search.findClosestIndex(colors[i]);
+        }
+        QualityMetrics exact = QualityMetrics.fromHistogram(colors, counts, closestUnits, palette, null);
+        int[] sampledColors = QualityMetrics.samplePixels(counts, 20000, 1);
+        int[] sampleUnits = new int[sampledColors.length];
+        for (int sample = 0; sample < sampledColors.length; sample++) {
+            sampleUnits[sample] = closestUnits[sampledColors[sample]];
+        }
+        QualityMetrics estimate = QualityMetrics.estimate(colors, counts, sampledColors, sampleUnits, palette);
+
+        assertTrue(estimate.isEstimate());
+        assertEquals(exact.getMeanSquaredError(), estimate.getMeanSquaredError(), exact.getMeanSquaredError() * 0.05,
+                "The sampled MSQE should be close to the exact MSQE");
+        assertEquals(sumPopulations(exact), sumPopulations(estimate), palette.length,
+                "The estimated populations should add up to the size of the image");
+    }
+
+    @Test
+    public void testEstimate_SkipsColorsWithoutPixels() {
+        int[] counts = {0, 4, 0};
+        int[] sampledColors = QualityMetrics.samplePixels(counts, 100, 2);
+        for (int sampledColor : sampledColors) {
+            assertEquals(1, sampledColor, "Only colors with pixels should be sampled");
+        }
+        int[] sampleUnits = new int[sampledColors.length];
+        Arrays.fill(sampleUnits, 1);
+        QualityMetrics estimate = QualityMetrics.estimate(
+                new int[]{0x000000, 0xFFFFFF, 0x808080}, counts, sampledColors, sampleUnits, new int[]{0x000000, 0xFFFFFF});
+        assertEquals(0.0, estimate.getMeanSquaredError());
+        assertEquals(4, estimate.getUnitPopulation(1));
+        assertEquals(0, estimate.getUnitPopulation(0));
+    }
+
+    @Test
+    public void testHeatmap_RecordsLargestErrorPerTile() {
+        ErrorHeatmap heatmap = new ErrorHeatmap(10, 5, 4);
+        assertEquals(3, heatmap.getColumns());
+        assertEquals(2, heatmap.getRows());
+        heatmap.recordRow(0, new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 10);
+        heatmap.recordRow(3, new int[]{9, 0, 0, 0, 0, 0, 0, 0, 0, 0}, 10);
+        heatmap.recordRow(4, new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 50}, 10);
+
+        assertArrayEquals(new int[]{9, 8, 10, 0, 0, 50}, heatmap.getMaxSquaredErrors());
+        assertEquals(50, heatmap.getMaxSquaredError(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> heatmap.getMaxSquaredError(3, 0));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> QualityMetrics.fromHistogram(new int[2], new int[1], new int[2], new int[1], null));
+        assertThrows(IllegalArgumentException.class,
+                () -> QualityMetrics.samplePixels(new int[]{1}, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> QualityMetrics.samplePixels(new int[]{0}, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> QualityMetrics.estimate(new int[1], new int[]{1}, new int[2], new int[1], new int[1]));
+        assertThrows(IllegalArgumentException.class, () -> new ErrorHeatmap(0, 5, 4));
+    }
+
+    private static long sumPopulations(QualityMetrics metrics) {
+        long sum = 0;
+        for (int unit = 0; unit < metrics.getUnitCount(); unit++) {
+            sum += metrics.getUnitPopulation(unit);
+        }
+        return sum;
+    }
+
+    private static int[] randomColors(Random random, int count) {
+        int[] colors = new int[count];
+        for (int i = 0; i < count; i++) {
+            colors[i] = random.nextInt(1 << 24);
+        }
+        return colors;
+    }
+}